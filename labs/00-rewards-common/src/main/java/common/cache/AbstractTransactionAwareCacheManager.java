@@ -0,0 +1,32 @@
+package common.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+
+/**
+ * A cache manager that can wrap its caches in a {@link TransactionAwareCache}, so that they are written and evicted
+ * only once the surrounding transaction commits.
+ */
+public abstract class AbstractTransactionAwareCacheManager extends AbstractCacheManager {
+
+	private boolean transactionAware = false;
+
+	/**
+	 * Sets whether the caches are written and evicted only once the surrounding transaction commits. Defaults to
+	 * false.
+	 */
+	public void setTransactionAware(boolean transactionAware) {
+		this.transactionAware = transactionAware;
+	}
+
+	/**
+	 * Returns whether the caches are written and evicted only once the surrounding transaction commits.
+	 */
+	public boolean isTransactionAware() {
+		return transactionAware;
+	}
+
+	protected Cache decorateCache(Cache cache) {
+		return transactionAware ? new TransactionAwareCache(cache) : cache;
+	}
+}
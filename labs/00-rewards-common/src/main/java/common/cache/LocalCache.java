@@ -0,0 +1,254 @@
+package common.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+/**
+ * A Spring {@link org.springframework.cache.Cache} held in the memory of this process, bounded by a
+ * {@link SegmentedLruCache} and optionally expiring entries a fixed time after they were written.
+ *
+ * Expired entries are dropped when next read, or evicted like any other entry once the cache is full. A value loaded
+ * by {@link #get(Object, Callable)} is loaded once however many threads ask for it at the same time, while other keys
+ * can be read and loaded meanwhile.
+ *
+ * The values are shared by every caller, so should not be changed once cached.
+ */
+public class LocalCache extends AbstractValueAdaptingCache {
+
+	private final String name;
+
+	private final SegmentedLruCache<Object, Entry> store;
+
+	private final long timeToLiveNanos;
+
+	private final LongSupplier ticker;
+
+	private final Map<Object, Object> loadLocks = new ConcurrentHashMap<Object, Object>();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong putCount = new AtomicLong();
+
+	private final AtomicLong expirationCount = new AtomicLong();
+
+	/**
+	 * Creates a cache whose entries never expire, allowing null values.
+	 * @param name the name of the cache
+	 * @param capacity the maximum number of entries
+	 */
+	public LocalCache(String name, int capacity) {
+		this(name, capacity, Duration.ZERO, true);
+	}
+
+	/**
+	 * Creates a new cache.
+	 * @param name the name of the cache
+	 * @param capacity the maximum number of entries
+	 * @param timeToLive how long an entry is kept after it was written, or zero to keep it until evicted
+	 * @param allowNullValues whether null values are cached
+	 */
+	public LocalCache(String name, int capacity, Duration timeToLive, boolean allowNullValues) {
+		this(name, capacity, timeToLive, allowNullValues, System::nanoTime);
+	}
+
+	LocalCache(String name, int capacity, Duration timeToLive, boolean allowNullValues, LongSupplier ticker) {
+		super(allowNullValues);
+		if (timeToLive.isNegative()) {
+			throw new IllegalArgumentException("The time to live must not be negative, not " + timeToLive);
+		}
+		this.name = name;
+		this.store = new SegmentedLruCache<Object, Entry>(capacity);
+		this.timeToLiveNanos = timeToLive.toNanos();
+		this.ticker = ticker;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the {@link SegmentedLruCache} holding the entries.
+	 */
+	public SegmentedLruCache<Object, ?> getNativeCache() {
+		return store;
+	}
+
+	protected Object lookup(Object key) {
+		Object value = read(store.get(key), key);
+		if (value != null) {
+			hitCount.incrementAndGet();
+		} else {
+			missCount.incrementAndGet();
+		}
+		return value;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		Object value = lookup(key);
+		if (value != null) {
+			return (T) fromStoreValue(value);
+		}
+		Object lock = loadLocks.computeIfAbsent(key, k -> new Object());
+		try {
+			synchronized (lock) {
+				// another thread may have loaded the value while this one waited
+				value = read(store.peek(key), key);
+				if (value != null) {
+					return (T) fromStoreValue(value);
+				}
+				T loaded;
+				try {
+					loaded = valueLoader.call();
+				} catch (Throwable ex) {
+					throw new ValueRetrievalException(key, valueLoader, ex);
+				}
+				put(key, loaded);
+				return loaded;
+			}
+		} finally {
+			loadLocks.remove(key, lock);
+		}
+	}
+
+	public void put(Object key, Object value) {
+		store.put(key, new Entry(toStoreValue(value), expiresAt()));
+		putCount.incrementAndGet();
+	}
+
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		synchronized (store) {
+			Object existing = read(store.peek(key), key);
+			if (existing != null) {
+				return toValueWrapper(existing);
+			}
+			put(key, value);
+			return null;
+		}
+	}
+
+	public void evict(Object key) {
+		store.remove(key);
+	}
+
+	public boolean evictIfPresent(Object key) {
+		return store.remove(key) != null;
+	}
+
+	public void clear() {
+		store.clear();
+	}
+
+	public boolean invalidate() {
+		synchronized (store) {
+			boolean notEmpty = store.size() > 0;
+			store.clear();
+			return notEmpty;
+		}
+	}
+
+	/**
+	 * Returns the number of entries, including expired entries not read since they expired.
+	 */
+	public int getSize() {
+		return store.size();
+	}
+
+	/**
+	 * Returns the maximum number of entries.
+	 */
+	public int getCapacity() {
+		return store.getCapacity();
+	}
+
+	/**
+	 * Returns how long an entry is kept after it was written, or zero if entries are kept until evicted.
+	 */
+	public Duration getTimeToLive() {
+		return Duration.ofNanos(timeToLiveNanos);
+	}
+
+	/**
+	 * Returns the number of reads that found a value.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of reads that found no value, or an expired one.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns the number of values written.
+	 */
+	public long getPutCount() {
+		return putCount.get();
+	}
+
+	/**
+	 * Returns the number of entries evicted to make room for others or dropped because they expired.
+	 */
+	public long getEvictionCount() {
+		return store.getEvictionCount() + expirationCount.get();
+	}
+
+	/**
+	 * Returns the store value of an entry, or null if there is none or it has expired, dropping an expired entry.
+	 */
+	private Object read(Entry entry, Object key) {
+		if (entry == null) {
+			return null;
+		}
+		if (entry.isExpired(ticker.getAsLong())) {
+			synchronized (store) {
+				// only drop the entry read, not one written since
+				if (store.peek(key) == entry) {
+					store.remove(key);
+					expirationCount.incrementAndGet();
+				}
+			}
+			return null;
+		}
+		return entry.value;
+	}
+
+	private long expiresAt() {
+		return timeToLiveNanos == 0 ? 0 : ticker.getAsLong() + timeToLiveNanos;
+	}
+
+	public String toString() {
+		return "LocalCache '" + name + "': " + getSize() + " of " + getCapacity() + " entries, " + getHitCount()
+				+ " hits, " + getMissCount() + " misses, " + getEvictionCount() + " evictions";
+	}
+
+	/**
+	 * A value stored with the time it expires, or 0 if it never does.
+	 */
+	private static class Entry {
+
+		private final Object value;
+
+		private final long expiresAt;
+
+		Entry(Object value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		boolean isExpired(long now) {
+			return expiresAt != 0 && now - expiresAt >= 0;
+		}
+	}
+}
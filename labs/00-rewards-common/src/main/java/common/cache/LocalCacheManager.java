@@ -0,0 +1,130 @@
+package common.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.cache.Cache;
+
+/**
+ * A cache manager of {@link LocalCache}s, each with its own capacity and time to live or the manager's defaults.
+ *
+ * The caches named by {@link #setCacheNames(Collection)} are created when the manager is initialized. Any other cache
+ * is created the first time it is asked for, unless {@link #setDynamic(boolean)} turns that off. Set the manager
+ * {@link #setTransactionAware(boolean) transaction aware} to write and evict entries only once the surrounding
+ * transaction commits.
+ */
+public class LocalCacheManager extends AbstractTransactionAwareCacheManager {
+
+	public static final int DEFAULT_CAPACITY = 1000;
+
+	private final Set<String> cacheNames = new LinkedHashSet<String>();
+
+	private final Map<String, Duration> timesToLive = new HashMap<String, Duration>();
+
+	private final Map<String, Integer> capacities = new HashMap<String, Integer>();
+
+	private Duration defaultTimeToLive = Duration.ZERO;
+
+	private int defaultCapacity = DEFAULT_CAPACITY;
+
+	private boolean dynamic = true;
+
+	private boolean allowNullValues = true;
+
+	/**
+	 * Creates a manager of caches holding up to {@link #DEFAULT_CAPACITY} entries each, which never expire.
+	 */
+	public LocalCacheManager() {
+	}
+
+	/**
+	 * Creates a manager of the given caches, created when the manager is initialized.
+	 * @param cacheNames the names of the caches
+	 */
+	public LocalCacheManager(String... cacheNames) {
+		setCacheNames(List.of(cacheNames));
+	}
+
+	/**
+	 * Sets the caches created when the manager is initialized.
+	 */
+	public void setCacheNames(Collection<String> cacheNames) {
+		this.cacheNames.clear();
+		this.cacheNames.addAll(cacheNames);
+	}
+
+	/**
+	 * Sets whether a cache not named by {@link #setCacheNames(Collection)} is created when first asked for. Defaults
+	 * to true.
+	 */
+	public void setDynamic(boolean dynamic) {
+		this.dynamic = dynamic;
+	}
+
+	/**
+	 * Sets how long entries are kept after they were written in caches without a time to live of their own. Defaults
+	 * to zero, keeping entries until they are evicted.
+	 */
+	public void setDefaultTimeToLive(Duration defaultTimeToLive) {
+		this.defaultTimeToLive = defaultTimeToLive;
+	}
+
+	/**
+	 * Sets the maximum number of entries of caches without a capacity of their own. Defaults to
+	 * {@link #DEFAULT_CAPACITY}.
+	 */
+	public void setDefaultCapacity(int defaultCapacity) {
+		this.defaultCapacity = defaultCapacity;
+	}
+
+	/**
+	 * Sets how long the entries of one cache are kept after they were written.
+	 * @param cacheName the name of the cache
+	 * @param timeToLive the time to live, or zero to keep entries until they are evicted
+	 */
+	public void setTimeToLive(String cacheName, Duration timeToLive) {
+		timesToLive.put(cacheName, timeToLive);
+	}
+
+	/**
+	 * Sets the maximum number of entries of one cache.
+	 * @param cacheName the name of the cache
+	 * @param capacity the capacity
+	 */
+	public void setCapacity(String cacheName, int capacity) {
+		capacities.put(cacheName, capacity);
+	}
+
+	/**
+	 * Sets whether null values are cached. Defaults to true.
+	 */
+	public void setAllowNullValues(boolean allowNullValues) {
+		this.allowNullValues = allowNullValues;
+	}
+
+	protected Collection<? extends Cache> loadCaches() {
+		List<Cache> caches = new ArrayList<Cache>(cacheNames.size());
+		for (String name : cacheNames) {
+			caches.add(createCache(name));
+		}
+		return caches;
+	}
+
+	protected Cache getMissingCache(String name) {
+		return dynamic ? createCache(name) : null;
+	}
+
+	/**
+	 * Creates a cache with its own capacity and time to live, or else the defaults.
+	 */
+	protected LocalCache createCache(String name) {
+		return new LocalCache(name, capacities.getOrDefault(name, defaultCapacity),
+				timesToLive.getOrDefault(name, defaultTimeToLive), allowNullValues);
+	}
+}
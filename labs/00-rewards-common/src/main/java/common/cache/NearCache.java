@@ -0,0 +1,183 @@
+package common.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cache.Cache;
+
+/**
+ * A two-level cache: a near cache, usually held in the memory of this process, in front of a far cache, usually shared
+ * by every process of the application.
+ *
+ * Reads try the near cache first, and copy a value found in the far cache into the near cache. Writes and evictions go
+ * to both. Evictions only reach the near caches of this process, so the near cache should expire its entries soon
+ * enough for the other processes to tolerate reading a value evicted elsewhere until then.
+ */
+public class NearCache implements Cache {
+
+	private final Cache nearCache;
+
+	private final Cache farCache;
+
+	private final AtomicLong nearHitCount = new AtomicLong();
+
+	private final AtomicLong farHitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong putCount = new AtomicLong();
+
+	/**
+	 * Creates a new two-level cache.
+	 * @param nearCache the cache read first
+	 * @param farCache the cache read when the near cache has no value, whose name this cache takes
+	 */
+	public NearCache(Cache nearCache, Cache farCache) {
+		this.nearCache = nearCache;
+		this.farCache = farCache;
+	}
+
+	public String getName() {
+		return farCache.getName();
+	}
+
+	/**
+	 * Returns the native cache of the far cache.
+	 */
+	public Object getNativeCache() {
+		return farCache.getNativeCache();
+	}
+
+	/**
+	 * Returns the cache read first.
+	 */
+	public Cache getNearCache() {
+		return nearCache;
+	}
+
+	/**
+	 * Returns the cache read when the near cache has no value.
+	 */
+	public Cache getFarCache() {
+		return farCache;
+	}
+
+	public ValueWrapper get(Object key) {
+		ValueWrapper value = nearCache.get(key);
+		if (value != null) {
+			nearHitCount.incrementAndGet();
+			return value;
+		}
+		value = farCache.get(key);
+		if (value != null) {
+			farHitCount.incrementAndGet();
+			nearCache.put(key, value.get());
+		} else {
+			missCount.incrementAndGet();
+		}
+		return value;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Class<T> type) {
+		ValueWrapper wrapper = get(key);
+		Object value = wrapper != null ? wrapper.get() : null;
+		if (value != null && type != null && !type.isInstance(value)) {
+			throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+		}
+		return (T) value;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper value = nearCache.get(key);
+		if (value != null) {
+			nearHitCount.incrementAndGet();
+			return (T) value.get();
+		}
+		// the far cache makes sure the value is loaded once
+		AtomicBoolean loaded = new AtomicBoolean();
+		T farValue = farCache.get(key, () -> {
+			loaded.set(true);
+			return valueLoader.call();
+		});
+		if (loaded.get()) {
+			missCount.incrementAndGet();
+		} else {
+			farHitCount.incrementAndGet();
+		}
+		nearCache.put(key, farValue);
+		return farValue;
+	}
+
+	public void put(Object key, Object value) {
+		farCache.put(key, value);
+		nearCache.put(key, value);
+		putCount.incrementAndGet();
+	}
+
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		ValueWrapper existing = farCache.putIfAbsent(key, value);
+		if (existing == null) {
+			putCount.incrementAndGet();
+		}
+		nearCache.put(key, existing != null ? existing.get() : value);
+		return existing;
+	}
+
+	public void evict(Object key) {
+		farCache.evict(key);
+		nearCache.evict(key);
+	}
+
+	public boolean evictIfPresent(Object key) {
+		boolean far = farCache.evictIfPresent(key);
+		boolean near = nearCache.evictIfPresent(key);
+		return far || near;
+	}
+
+	public void clear() {
+		farCache.clear();
+		nearCache.clear();
+	}
+
+	public boolean invalidate() {
+		boolean far = farCache.invalidate();
+		boolean near = nearCache.invalidate();
+		return far || near;
+	}
+
+	/**
+	 * Returns the number of reads answered by the near cache.
+	 */
+	public long getNearHitCount() {
+		return nearHitCount.get();
+	}
+
+	/**
+	 * Returns the number of reads answered by the far cache.
+	 */
+	public long getFarHitCount() {
+		return farHitCount.get();
+	}
+
+	/**
+	 * Returns the number of reads neither cache had a value for.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns the number of values written.
+	 */
+	public long getPutCount() {
+		return putCount.get();
+	}
+
+	public String toString() {
+		return "NearCache '" + getName() + "': " + getNearHitCount() + " near hits, " + getFarHitCount()
+				+ " far hits, " + getMissCount() + " misses";
+	}
+}
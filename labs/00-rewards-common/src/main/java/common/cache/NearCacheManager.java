@@ -0,0 +1,71 @@
+package common.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * A cache manager of {@link NearCache}s, putting a cache of a near cache manager, usually a {@link LocalCacheManager},
+ * in front of the cache of the same name of a far cache manager, usually shared by every process of the application.
+ *
+ * The caches of the far cache manager, and those named by {@link #setCacheNames(Collection)}, are created when the
+ * manager is initialized. Any other cache is created when first asked for, if the far cache manager has one of that
+ * name. Neither manager should be transaction aware: set this manager
+ * {@link #setTransactionAware(boolean) transaction aware} instead, so writes reach both levels after the commit.
+ */
+public class NearCacheManager extends AbstractTransactionAwareCacheManager {
+
+	private final CacheManager nearCacheManager;
+
+	private final CacheManager farCacheManager;
+
+	private final Set<String> cacheNames = new LinkedHashSet<String>();
+
+	/**
+	 * Creates a new two-level cache manager.
+	 * @param nearCacheManager the manager of the caches read first
+	 * @param farCacheManager the manager of the caches read when the near cache has no value
+	 */
+	public NearCacheManager(CacheManager nearCacheManager, CacheManager farCacheManager) {
+		this.nearCacheManager = nearCacheManager;
+		this.farCacheManager = farCacheManager;
+	}
+
+	/**
+	 * Sets caches created when the manager is initialized, in addition to those of the far cache manager.
+	 */
+	public void setCacheNames(Collection<String> cacheNames) {
+		this.cacheNames.clear();
+		this.cacheNames.addAll(cacheNames);
+	}
+
+	protected Collection<? extends Cache> loadCaches() {
+		Set<String> names = new LinkedHashSet<String>(cacheNames);
+		names.addAll(farCacheManager.getCacheNames());
+		List<Cache> caches = new ArrayList<Cache>(names.size());
+		for (String name : names) {
+			Cache cache = getMissingCache(name);
+			if (cache != null) {
+				caches.add(cache);
+			}
+		}
+		return caches;
+	}
+
+	protected Cache getMissingCache(String name) {
+		Cache farCache = farCacheManager.getCache(name);
+		if (farCache == null) {
+			return null;
+		}
+		Cache nearCache = nearCacheManager.getCache(name);
+		if (nearCache == null) {
+			return farCache;
+		}
+		return new NearCache(nearCache, farCache);
+	}
+}
@@ -0,0 +1,230 @@
+package common.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * A size-bounded map evicting entries with a segmented least-recently-used (SLRU) policy.
+ *
+ * New entries enter a probation segment. An entry read again while on probation is promoted to a protected segment,
+ * which holds most of the capacity. When the protected segment is full its least recently used entry is demoted back to
+ * probation, and when the cache is full the least recently used entry on probation is evicted. Entries read only once,
+ * such as the keys of a scan, therefore pass through probation without displacing the entries read again and again.
+ *
+ * All operations take a single lock, since a read reorders the segments. Values are stored as given, so a cache of
+ * mutable values should hold copies.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class SegmentedLruCache<K, V> {
+
+	/**
+	 * The default share of the capacity held by the protected segment.
+	 */
+	public static final double DEFAULT_PROTECTED_RATIO = 0.8;
+
+	private final int capacity;
+
+	private final int protectedCapacity;
+
+	/*
+	 * Both segments are kept least recently used first: a read moves its entry to the end by removing and reinserting
+	 * it, so that peek() can read an entry without moving it.
+	 */
+	private final LinkedHashMap<K, V> probation = new LinkedHashMap<K, V>();
+
+	private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<K, V>();
+
+	private long hitCount;
+
+	private long missCount;
+
+	private long evictionCount;
+
+	/**
+	 * Creates a cache keeping {@link #DEFAULT_PROTECTED_RATIO} of its capacity for protected entries.
+	 * @param capacity the maximum number of entries
+	 */
+	public SegmentedLruCache(int capacity) {
+		this(capacity, DEFAULT_PROTECTED_RATIO);
+	}
+
+	/**
+	 * Creates a cache.
+	 * @param capacity the maximum number of entries
+	 * @param protectedRatio the share of the capacity held by entries read more than once, between 0 and 1
+	 */
+	public SegmentedLruCache(int capacity, double protectedRatio) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be at least 1, not " + capacity);
+		}
+		if (protectedRatio < 0 || protectedRatio >= 1) {
+			throw new IllegalArgumentException("The protected ratio must be at least 0 and less than 1, not "
+					+ protectedRatio);
+		}
+		this.capacity = capacity;
+		this.protectedCapacity = (int) (capacity * protectedRatio);
+	}
+
+	/**
+	 * Returns the value of a key, or null if the cache holds none, counting a hit or a miss.
+	 */
+	public synchronized V get(K key) {
+		V value = protectedSegment.remove(key);
+		if (value != null) {
+			hitCount++;
+			protectedSegment.put(key, value);
+			return value;
+		}
+		value = probation.remove(key);
+		if (value == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		promote(key, value);
+		return value;
+	}
+
+	/**
+	 * Returns the value of a key, or null if the cache holds none, without counting a hit or a miss or changing the
+	 * order of eviction.
+	 */
+	public synchronized V peek(K key) {
+		V value = protectedSegment.get(key);
+		return value != null ? value : probation.get(key);
+	}
+
+	/**
+	 * Stores the value of a key. A key already cached keeps its segment, and a new key starts on probation, evicting
+	 * the least recently used entry if the cache is full.
+	 * @param key the key
+	 * @param value the value, not null
+	 */
+	public synchronized void put(K key, V value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Cannot cache a null value");
+		}
+		if (protectedSegment.containsKey(key)) {
+			protectedSegment.put(key, value);
+			return;
+		}
+		// the protected segment is always smaller than the capacity, so a full cache has an older entry on probation
+		if (probation.put(key, value) == null && size() > capacity) {
+			evict(probation);
+		}
+	}
+
+	/**
+	 * Removes a key.
+	 * @return the value removed, or null if the cache held none
+	 */
+	public synchronized V remove(K key) {
+		V value = protectedSegment.remove(key);
+		return value != null ? value : probation.remove(key);
+	}
+
+	/**
+	 * Removes every entry matching a condition. Visits every entry, so is meant for occasional invalidation.
+	 * @return the number of entries removed
+	 */
+	public synchronized int removeIf(BiPredicate<? super K, ? super V> condition) {
+		return removeIf(protectedSegment, condition) + removeIf(probation, condition);
+	}
+
+	/**
+	 * Removes all entries. The statistics are kept.
+	 */
+	public synchronized void clear() {
+		protectedSegment.clear();
+		probation.clear();
+	}
+
+	/**
+	 * Returns the number of entries.
+	 */
+	public synchronized int size() {
+		return protectedSegment.size() + probation.size();
+	}
+
+	/**
+	 * Returns the maximum number of entries.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of reads that found a value.
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of reads that found no value.
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the number of entries evicted to make room for others.
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Returns the share of reads that found a value, or 0 before the first read.
+	 */
+	public synchronized double getHitRatio() {
+		long reads = hitCount + missCount;
+		return reads == 0 ? 0 : (double) hitCount / reads;
+	}
+
+	/**
+	 * Moves an entry read while on probation to the protected segment, demoting the least recently used protected
+	 * entry if the segment is full.
+	 */
+	private void promote(K key, V value) {
+		if (protectedCapacity == 0) {
+			probation.put(key, value);
+			return;
+		}
+		protectedSegment.put(key, value);
+		if (protectedSegment.size() > protectedCapacity) {
+			Iterator<Map.Entry<K, V>> eldest = protectedSegment.entrySet().iterator();
+			Map.Entry<K, V> demoted = eldest.next();
+			eldest.remove();
+			probation.put(demoted.getKey(), demoted.getValue());
+		}
+	}
+
+	private void evict(LinkedHashMap<K, V> segment) {
+		Iterator<K> eldest = segment.keySet().iterator();
+		eldest.next();
+		eldest.remove();
+		evictionCount++;
+	}
+
+	private static <K, V> int removeIf(Map<K, V> segment, BiPredicate<? super K, ? super V> condition) {
+		int removed = 0;
+		for (Iterator<Map.Entry<K, V>> entries = segment.entrySet().iterator(); entries.hasNext();) {
+			Map.Entry<K, V> entry = entries.next();
+			if (condition.test(entry.getKey(), entry.getValue())) {
+				entries.remove();
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	public synchronized String toString() {
+		return "SegmentedLruCache: " + size() + " of " + capacity + " entries (" + protectedSegment.size()
+				+ " protected), " + hitCount + " hits, " + missCount + " misses, " + evictionCount + " evictions";
+	}
+}
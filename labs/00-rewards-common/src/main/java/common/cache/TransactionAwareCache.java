@@ -0,0 +1,97 @@
+package common.cache;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.Cache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Decorates a cache so that, inside a transaction, its writes and evictions happen only once the transaction commits,
+ * and not at all if it rolls back. Outside a transaction they happen at once, as do reads and the methods returning
+ * whether they changed the cache.
+ *
+ * Deferring an eviction keeps a reader in another transaction from caching the value it evicts before the change is
+ * committed.
+ */
+public class TransactionAwareCache implements Cache {
+
+	private final Cache targetCache;
+
+	/**
+	 * Creates a new transaction aware cache.
+	 * @param targetCache the cache to write and evict after the commit
+	 */
+	public TransactionAwareCache(Cache targetCache) {
+		this.targetCache = targetCache;
+	}
+
+	/**
+	 * Returns the decorated cache.
+	 */
+	public Cache getTargetCache() {
+		return targetCache;
+	}
+
+	public String getName() {
+		return targetCache.getName();
+	}
+
+	public Object getNativeCache() {
+		return targetCache.getNativeCache();
+	}
+
+	public ValueWrapper get(Object key) {
+		return targetCache.get(key);
+	}
+
+	public <T> T get(Object key, Class<T> type) {
+		return targetCache.get(key, type);
+	}
+
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		return targetCache.get(key, valueLoader);
+	}
+
+	public void put(Object key, Object value) {
+		afterCommit(() -> targetCache.put(key, value));
+	}
+
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		return targetCache.putIfAbsent(key, value);
+	}
+
+	public void evict(Object key) {
+		afterCommit(() -> targetCache.evict(key));
+	}
+
+	public boolean evictIfPresent(Object key) {
+		return targetCache.evictIfPresent(key);
+	}
+
+	public void clear() {
+		afterCommit(targetCache::clear);
+	}
+
+	public boolean invalidate() {
+		return targetCache.invalidate();
+	}
+
+	private static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			public void afterCommit() {
+				action.run();
+			}
+
+		});
+	}
+
+	public String toString() {
+		return "TransactionAwareCache: " + targetCache;
+	}
+}
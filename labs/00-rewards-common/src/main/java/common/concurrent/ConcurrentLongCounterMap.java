@@ -0,0 +1,203 @@
+package common.concurrent;
+
+/**
+ * A thread-safe map of <code>long</code> keys to <code>long</code> counters, such as running totals in cents.
+ *
+ * Keys and counters are held in primitive arrays with open addressing, so the map allocates no object per entry, and
+ * reading or adding to a counter allocates nothing. Each key is hashed to one of a fixed number of segments, each
+ * guarded by a lock of its own, so threads updating different keys rarely wait for each other.
+ *
+ * A counter missing from the map reads as zero. Counters can be added to but not removed, other than by
+ * {@link #clear()}.
+ */
+public class ConcurrentLongCounterMap {
+
+	/**
+	 * The default number of segments.
+	 */
+	public static final int DEFAULT_SEGMENT_COUNT = 16;
+
+	private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+	private final Segment[] segments;
+
+	private final int segmentShift;
+
+	/**
+	 * Creates a map with {@link #DEFAULT_SEGMENT_COUNT} segments.
+	 */
+	public ConcurrentLongCounterMap() {
+		this(DEFAULT_SEGMENT_COUNT);
+	}
+
+	/**
+	 * Creates a map.
+	 * @param segmentCount the number of segments, rounded up to a power of two
+	 */
+	public ConcurrentLongCounterMap(int segmentCount) {
+		if (segmentCount < 1) {
+			throw new IllegalArgumentException("The segment count must be at least 1, not " + segmentCount);
+		}
+		int count = Integer.highestOneBit(segmentCount);
+		if (count < segmentCount) {
+			count <<= 1;
+		}
+		this.segments = new Segment[count];
+		for (int i = 0; i < count; i++) {
+			segments[i] = new Segment();
+		}
+		this.segmentShift = 64 - Integer.numberOfTrailingZeros(count);
+	}
+
+	/**
+	 * Returns the counter of a key, zero if the key has none.
+	 */
+	public long get(long key) {
+		long hash = hash(key);
+		return segmentFor(hash).get(key, hash);
+	}
+
+	/**
+	 * Adds to the counter of a key.
+	 * @param key the key
+	 * @param delta the amount to add, negative to subtract
+	 * @return the new value of the counter
+	 */
+	public long addAndGet(long key, long delta) {
+		long hash = hash(key);
+		return segmentFor(hash).addAndGet(key, hash, delta);
+	}
+
+	/**
+	 * Adds to the counter of a key as much of an amount as keeps the counter at or below a limit, atomically.
+	 * @param key the key
+	 * @param delta the amount to add, not negative
+	 * @param limit the largest value the counter may take
+	 * @return the amount actually added, between zero and <code>delta</code>
+	 */
+	public long addUpTo(long key, long delta, long limit) {
+		if (delta < 0) {
+			throw new IllegalArgumentException("The amount to add must not be negative, not " + delta);
+		}
+		long hash = hash(key);
+		return segmentFor(hash).addUpTo(key, hash, delta, limit);
+	}
+
+	/**
+	 * Returns the number of keys with a counter.
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Removes all counters.
+	 */
+	public void clear() {
+		for (Segment segment : segments) {
+			segment.clear();
+		}
+	}
+
+	private Segment segmentFor(long hash) {
+		return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+	}
+
+	private static long hash(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return hash ^ (hash >>> 32);
+	}
+
+	/**
+	 * A linear-probing hash table of its own. The hash bits below those choosing the segment choose the slot.
+	 */
+	private static class Segment {
+
+		private long[] keys = new long[INITIAL_SEGMENT_CAPACITY];
+
+		private long[] counters = new long[INITIAL_SEGMENT_CAPACITY];
+
+		private boolean[] used = new boolean[INITIAL_SEGMENT_CAPACITY];
+
+		private int size;
+
+		synchronized long get(long key, long hash) {
+			int slot = find(keys, used, key, hash);
+			return used[slot] ? counters[slot] : 0;
+		}
+
+		synchronized long addAndGet(long key, long hash, long delta) {
+			int slot = slotFor(key, hash);
+			counters[slot] = Math.addExact(counters[slot], delta);
+			return counters[slot];
+		}
+
+		synchronized long addUpTo(long key, long hash, long delta, long limit) {
+			int slot = slotFor(key, hash);
+			long added = Math.max(0, Math.min(delta, limit - counters[slot]));
+			counters[slot] += added;
+			return added;
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+		synchronized void clear() {
+			keys = new long[INITIAL_SEGMENT_CAPACITY];
+			counters = new long[INITIAL_SEGMENT_CAPACITY];
+			used = new boolean[INITIAL_SEGMENT_CAPACITY];
+			size = 0;
+		}
+
+		/**
+		 * Returns the slot of a key, adding the key with a zero counter if it has none.
+		 */
+		private int slotFor(long key, long hash) {
+			int slot = find(keys, used, key, hash);
+			if (!used[slot]) {
+				if (size * 2 >= keys.length) {
+					resize();
+					slot = find(keys, used, key, hash);
+				}
+				keys[slot] = key;
+				used[slot] = true;
+				size++;
+			}
+			return slot;
+		}
+
+		private void resize() {
+			long[] oldKeys = keys;
+			long[] oldCounters = counters;
+			boolean[] oldUsed = used;
+			keys = new long[oldKeys.length * 2];
+			counters = new long[oldKeys.length * 2];
+			used = new boolean[oldKeys.length * 2];
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldUsed[i]) {
+					int slot = find(keys, used, oldKeys[i], hash(oldKeys[i]));
+					keys[slot] = oldKeys[i];
+					counters[slot] = oldCounters[i];
+					used[slot] = true;
+				}
+			}
+		}
+
+		/**
+		 * Returns the slot of a key, or the empty slot where it belongs.
+		 */
+		private static int find(long[] keys, boolean[] used, long key, long hash) {
+			int mask = keys.length - 1;
+			int slot = (int) hash & mask;
+			while (used[slot] && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+	}
+}
@@ -0,0 +1,279 @@
+package common.concurrent;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread while blocked.
+ *
+ * A virtual thread that blocks inside a <code>synchronized</code> block or method cannot unmount, so it holds one of
+ * the few carrier threads for as long as it waits. A JDBC driver or connection pool that synchronizes around socket
+ * reads turns every slow query into a pinned carrier, and with enough of them the whole application stalls. This
+ * detector streams the JDK's <code>jdk.VirtualThreadPinned</code> flight recorder events, logs each pinning longer
+ * than a threshold with its stack trace, and counts the pinnings, separately counting those in JDBC code.
+ *
+ * Needs a Java runtime with virtual threads; see {@link VirtualThreads#isSupported()}. The labs are compiled for Java
+ * 11, which has no flight recorder event streaming, so the <code>jdk.jfr.consumer</code> streaming API is looked up
+ * reflectively when the detector starts, like the virtual thread API.
+ */
+public class PinnedThreadDetector implements AutoCloseable {
+
+	/**
+	 * The flight recorder event the JDK records when a virtual thread blocks while pinned.
+	 */
+	public static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+	/**
+	 * The default shortest pinning reported.
+	 */
+	public static final Duration DEFAULT_THRESHOLD = Duration.ofMillis(20);
+
+	/**
+	 * Packages whose frames on a pinned stack mean the thread was pinned in JDBC code.
+	 */
+	private static final List<String> JDBC_PACKAGES = List.of("java.sql.", "javax.sql.", "org.springframework.jdbc.",
+			"org.hibernate.", "com.zaxxer.hikari.", "org.hsqldb.", "com.mysql.");
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final Duration threshold;
+
+	private final AtomicLong pinnedCount = new AtomicLong();
+
+	private final AtomicLong pinnedInJdbcCount = new AtomicLong();
+
+	private AutoCloseable stream;
+
+	/**
+	 * Creates a detector reporting pinnings of at least {@link #DEFAULT_THRESHOLD}.
+	 */
+	public PinnedThreadDetector() {
+		this(DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Creates a detector.
+	 * @param threshold the shortest pinning reported
+	 */
+	public PinnedThreadDetector(Duration threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Starts recording and reporting pinned virtual threads, in the background.
+	 * @throws UnsupportedOperationException if the Java runtime has no virtual threads
+	 */
+	public synchronized void start() {
+		if (!VirtualThreads.isSupported()) {
+			throw new UnsupportedOperationException("Virtual threads need Java 21 or later, not Java "
+					+ System.getProperty("java.specification.version"));
+		}
+		if (stream != null) {
+			return;
+		}
+		EventStreaming streaming = EventStreaming.load();
+		Object recordingStream = streaming.newRecordingStream();
+		Object settings = invoke(streaming.enable, recordingStream, PINNED_EVENT);
+		settings = invoke(streaming.withThreshold, settings, threshold);
+		invoke(streaming.withStackTrace, settings);
+		Consumer<Object> handler = event -> pinned(streaming, event);
+		invoke(streaming.onEvent, recordingStream, PINNED_EVENT, handler);
+		invoke(streaming.startAsync, recordingStream);
+		stream = (AutoCloseable) recordingStream;
+		logger.info("Reporting virtual threads pinned for {} ms or more", threshold.toMillis());
+	}
+
+	/**
+	 * Stops recording pinned virtual threads.
+	 */
+	@Override
+	public synchronized void close() {
+		if (stream != null) {
+			try {
+				stream.close();
+			} catch (Exception e) {
+				logger.warn("Failed to stop recording pinned virtual threads", e);
+			}
+			stream = null;
+		}
+	}
+
+	/**
+	 * Returns the number of pinnings reported so far.
+	 */
+	public long getPinnedCount() {
+		return pinnedCount.get();
+	}
+
+	/**
+	 * Returns the number of pinnings reported so far whose stack was in JDBC code.
+	 */
+	public long getPinnedInJdbcCount() {
+		return pinnedInJdbcCount.get();
+	}
+
+	private void pinned(EventStreaming streaming, Object event) {
+		List<String> frames = new ArrayList<String>();
+		Object stackTrace = invoke(streaming.getStackTrace, event);
+		if (stackTrace != null) {
+			for (Object frame : (List<?>) invoke(streaming.getFrames, stackTrace)) {
+				Object method = invoke(streaming.getMethod, frame);
+				frames.add(invoke(streaming.getTypeName, invoke(streaming.getType, method)) + "."
+						+ invoke(streaming.getMethodName, method) + ":" + invoke(streaming.getLineNumber, frame));
+			}
+		}
+		Object thread = invoke(streaming.getThread, event);
+		String threadName = thread == null ? "?" : (String) invoke(streaming.getJavaName, thread);
+		pinned(threadName, (Duration) invoke(streaming.getDuration, event), frames);
+	}
+
+	/**
+	 * Counts and logs a pinning.
+	 * @param threadName the name of the pinned virtual thread
+	 * @param duration how long it was pinned
+	 * @param frames the frames of its stack, innermost first, as <code>class.method:line</code>
+	 */
+	void pinned(String threadName, Duration duration, List<String> frames) {
+		pinnedCount.incrementAndGet();
+		boolean inJdbc = isInJdbc(frames);
+		if (inJdbc) {
+			pinnedInJdbcCount.incrementAndGet();
+		}
+		if (logger.isWarnEnabled()) {
+			logger.warn("Virtual thread {} was pinned for {} ms{}:\n\tat {}", threadName, duration.toMillis(),
+					inJdbc ? " in JDBC code" : "", String.join("\n\tat ", frames));
+		}
+	}
+
+	/**
+	 * Returns true if any of the frames of a stack is in JDBC code.
+	 */
+	static boolean isInJdbc(List<String> frames) {
+		for (String frame : frames) {
+			for (String jdbcPackage : JDBC_PACKAGES) {
+				if (frame.startsWith(jdbcPackage)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "Pinned virtual threads: " + pinnedCount + ", in JDBC code: " + pinnedInJdbcCount;
+	}
+
+	private static Object invoke(Method method, Object target, Object... args) {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * The methods of the flight recorder event streaming API, from Java 14 on, looked up on its public types.
+	 */
+	static final class EventStreaming {
+
+		private static final String PACKAGE = "jdk.jfr.consumer.";
+
+		private final Class<?> recordingStream;
+
+		final Method enable;
+
+		final Method withThreshold;
+
+		final Method withStackTrace;
+
+		final Method onEvent;
+
+		final Method startAsync;
+
+		final Method getStackTrace;
+
+		final Method getThread;
+
+		final Method getDuration;
+
+		final Method getFrames;
+
+		final Method getMethod;
+
+		final Method getLineNumber;
+
+		final Method getType;
+
+		final Method getMethodName;
+
+		final Method getTypeName;
+
+		final Method getJavaName;
+
+		private EventStreaming() throws ReflectiveOperationException {
+			recordingStream = Class.forName(PACKAGE + "RecordingStream");
+			Class<?> eventSettings = Class.forName("jdk.jfr.EventSettings");
+			Class<?> recordedEvent = Class.forName(PACKAGE + "RecordedEvent");
+			Class<?> recordedStackTrace = Class.forName(PACKAGE + "RecordedStackTrace");
+			Class<?> recordedFrame = Class.forName(PACKAGE + "RecordedFrame");
+			Class<?> recordedMethod = Class.forName(PACKAGE + "RecordedMethod");
+			enable = recordingStream.getMethod("enable", String.class);
+			withThreshold = eventSettings.getMethod("withThreshold", Duration.class);
+			withStackTrace = eventSettings.getMethod("withStackTrace");
+			onEvent = recordingStream.getMethod("onEvent", String.class, Consumer.class);
+			startAsync = recordingStream.getMethod("startAsync");
+			getStackTrace = recordedEvent.getMethod("getStackTrace");
+			getThread = recordedEvent.getMethod("getThread");
+			getDuration = recordedEvent.getMethod("getDuration");
+			getFrames = recordedStackTrace.getMethod("getFrames");
+			getMethod = recordedFrame.getMethod("getMethod");
+			getLineNumber = recordedFrame.getMethod("getLineNumber");
+			getType = recordedMethod.getMethod("getType");
+			getMethodName = recordedMethod.getMethod("getName");
+			getTypeName = Class.forName(PACKAGE + "RecordedClass").getMethod("getName");
+			getJavaName = Class.forName(PACKAGE + "RecordedThread").getMethod("getJavaName");
+		}
+
+		/**
+		 * Looks up the event streaming API.
+		 * @throws UnsupportedOperationException if the Java runtime has no flight recorder event streaming
+		 */
+		static EventStreaming load() {
+			try {
+				return new EventStreaming();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				throw new UnsupportedOperationException("Flight recorder event streaming needs Java 14 or later, not Java "
+						+ System.getProperty("java.specification.version"), e);
+			}
+		}
+
+		Object newRecordingStream() {
+			try {
+				return recordingStream.getConstructor().newInstance();
+			} catch (InvocationTargetException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new IllegalStateException(cause);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package common.concurrent;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads where the Java runtime has them, from Java 21 on.
+ *
+ * The labs are compiled for Java 11, so the virtual thread API is looked up reflectively once, and callers check
+ * {@link #isSupported()} and fall back to platform threads on older runtimes. Virtual threads suit work that spends
+ * most of its time blocked, such as a request waiting on JDBC: blocking unmounts the virtual thread from its carrier
+ * thread instead of holding a platform thread, unless the thread is pinned by a <code>synchronized</code> block or a
+ * native call (see {@link PinnedThreadDetector}).
+ */
+public final class VirtualThreads {
+
+	private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+
+	private static final Method NAME = findMethod(builderClass(), "name", String.class, long.class);
+
+	private static final Method FACTORY = findMethod(builderClass(), "factory");
+
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR = findMethod(Executors.class,
+			"newThreadPerTaskExecutor", ThreadFactory.class);
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Returns true if the Java runtime has virtual threads.
+	 */
+	public static boolean isSupported() {
+		return OF_VIRTUAL != null && NAME != null && FACTORY != null && NEW_THREAD_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * Returns a factory for virtual threads named with the given prefix and a counter, such as
+	 * <code>tomcat-handler-0</code>.
+	 * @param namePrefix the start of the name of each thread
+	 * @return the thread factory
+	 * @throws UnsupportedOperationException if the Java runtime has no virtual threads
+	 */
+	public static ThreadFactory threadFactory(String namePrefix) {
+		checkSupported();
+		Object builder = invoke(OF_VIRTUAL, null);
+		builder = invoke(NAME, builder, namePrefix, 0L);
+		return (ThreadFactory) invoke(FACTORY, builder);
+	}
+
+	/**
+	 * Returns an executor that runs each task on a new virtual thread. There is no pool to size: the number of
+	 * threads grows with the number of tasks, so anything the tasks share, such as database connections, must be
+	 * bounded on its own.
+	 * @param namePrefix the start of the name of each thread
+	 * @return the executor
+	 * @throws UnsupportedOperationException if the Java runtime has no virtual threads
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+		return (ExecutorService) invoke(NEW_THREAD_PER_TASK_EXECUTOR, null, threadFactory(namePrefix));
+	}
+
+	private static void checkSupported() {
+		if (!isSupported()) {
+			throw new UnsupportedOperationException("Virtual threads need Java 21 or later, not Java "
+					+ System.getProperty("java.specification.version"));
+		}
+	}
+
+	private static Class<?> builderClass() {
+		try {
+			return Class.forName("java.lang.Thread$Builder");
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+	}
+
+	private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+		if (type == null) {
+			return null;
+		}
+		try {
+			return type.getMethod(name, parameterTypes);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private static Object invoke(Method method, Object target, Object... args) {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -1,58 +1,81 @@
 package common.datetime;
 
 import java.io.Serializable;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.GregorianCalendar;
 import java.text.SimpleDateFormat;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
 
 /**
- * A simple wrapper around a calendar for working with dates like 12/29/1977. Does not consider time.
+ * A simple value type for working with dates like 12/29/1977. Does not consider time.
+ *
+ * Held as a number of days since 1970-01-01 in the default time zone, so comparisons and hashing are integer
+ * operations. A value object. Immutable.
  */
 public class SimpleDate implements Serializable {
 
-	private static final long serialVersionUID = 2285962420279644602L;
+	private static final long serialVersionUID = -6203436766436442165L;
+
+	/**
+	 * Today's date, along with the range of times it applies to. Replaced on the first call to {@link #today()} past
+	 * midnight.
+	 */
+	private static volatile Today today;
 
-	private GregorianCalendar base;
+	private final int epochDay;
 
 	/**
-	 * Create a new simple date.
+	 * Create a new simple date. Out of range months and days roll over into the following months and years, like
+	 * 13/1/2020 is 1/1/2021.
 	 * @param month the month
 	 * @param day the day
 	 * @param year the year
 	 */
 	public SimpleDate(int month, int day, int year) {
-		init(new GregorianCalendar(year, month - 1, day));
+		this(LocalDate.of(year, 1, 1).plusMonths(month - 1).plusDays(day - 1));
 	}
 
 	SimpleDate(long time) {
-		GregorianCalendar cal = new GregorianCalendar();
-		cal.setTimeInMillis(time);
-		init(cal);
+		this(Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()).toLocalDate());
 	}
 
-	private SimpleDate() {
-		init(new GregorianCalendar());
+	private SimpleDate(LocalDate date) {
+		this.epochDay = Math.toIntExact(date.toEpochDay());
+	}
+
+	/**
+	 * Returns this simple date as a <code>java.util.Date</code>
+	 * @return this simple date as a Date
+	 */
+	public Date asDate() {
+		return new Date(inMilliseconds());
 	}
 
-	private void init(GregorianCalendar cal) {
-		this.base = trimToDays(cal);
+	/**
+	 * Returns this simple date as a <code>java.sql.Date</code>, for binding to SQL DATE parameters.
+	 * @return this simple date as a SQL Date
+	 */
+	public java.sql.Date asSqlDate() {
+		return java.sql.Date.valueOf(asLocalDate());
 	}
 
-	private GregorianCalendar trimToDays(GregorianCalendar cal) {
-		cal.set(Calendar.HOUR_OF_DAY, 0);
-		cal.set(Calendar.MINUTE, 0);
-		cal.set(Calendar.SECOND, 0);
-		cal.set(Calendar.MILLISECOND, 0);
-		return cal;
+	/**
+	 * Returns this simple date as a <code>java.time.LocalDate</code>.
+	 * @return this simple date as a LocalDate
+	 */
+	public LocalDate asLocalDate() {
+		return LocalDate.ofEpochDay(epochDay);
 	}
 
 	/**
-	 * Returns this simple date as a <code>java.util.Date</code>
-	 * @return this simple date as a Date
+	 * Returns the day of the week of this simple date, worked out from the day number without creating a LocalDate.
+	 * @return the day of the week
 	 */
-	public Date asDate() {
-		return base.getTime();
+	public DayOfWeek getDayOfWeek() {
+		// 1970-01-01 was a Thursday
+		return DayOfWeek.of(Math.floorMod(epochDay + 3, 7) + 1);
 	}
 
 	/**
@@ -60,12 +83,12 @@ public class SimpleDate implements Serializable {
 	 * @return
 	 */
 	public long inMilliseconds() {
-		return asDate().getTime();
+		return startOfDay(asLocalDate());
 	}
 
 	public int compareTo(Object date) {
 		SimpleDate other = (SimpleDate) date;
-		return asDate().compareTo(other.asDate());
+		return Integer.compare(epochDay, other.epochDay);
 	}
 
 	public boolean equals(Object day) {
@@ -73,18 +96,25 @@ public class SimpleDate implements Serializable {
 			return false;
 		}
 		SimpleDate other = (SimpleDate) day;
-		return (base.equals(other.base));
+		return epochDay == other.epochDay;
 	}
 
 	public int hashCode() {
-		return 29 * base.hashCode();
+		return 29 * epochDay;
 	}
 
 	/**
-	 * Returns todays date. A convenient static factory method.
+	 * Returns todays date. A convenient static factory method. The date is only computed once per day.
 	 */
 	public static SimpleDate today() {
-		return new SimpleDate();
+		long now = System.currentTimeMillis();
+		Today current = today;
+		if (current == null || !current.includes(now)) {
+			// racing threads may each compute the date, but they all compute the same one
+			current = new Today(new SimpleDate(now));
+			today = current;
+		}
+		return current.date;
 	}
 
 	/**
@@ -93,6 +123,10 @@ public class SimpleDate implements Serializable {
 	 * @return the simple date
 	 */
 	public static SimpleDate valueOf(Date date) {
+		if (date instanceof java.sql.Date) {
+			// SQL dates convert straight to a local date, without going through the time zone rules
+			return new SimpleDate(((java.sql.Date) date).toLocalDate());
+		}
 		return valueOf(date.getTime());
 	}
 
@@ -104,10 +138,45 @@ public class SimpleDate implements Serializable {
 	public static SimpleDate valueOf(long time) {
 		return new SimpleDate(time);
 	}
-	
+
+	/**
+	 * Converts the specified local date to a SimpleDate.
+	 * @param date the java.time.LocalDate
+	 * @return the simple date
+	 */
+	public static SimpleDate valueOf(LocalDate date) {
+		return new SimpleDate(date);
+	}
+
 	@Override
 	public String toString() {
-        return new SimpleDateFormat().format(base.getTime());
+        return new SimpleDateFormat().format(asDate());
     }
 
-}
\ No newline at end of file
+	private static long startOfDay(LocalDate date) {
+		return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	/**
+	 * A date and the times of day it covers: from its first millisecond included to the next day's excluded.
+	 */
+	private static class Today {
+
+		private final SimpleDate date;
+
+		private final long start;
+
+		private final long end;
+
+		Today(SimpleDate date) {
+			this.date = date;
+			this.start = startOfDay(date.asLocalDate());
+			this.end = startOfDay(date.asLocalDate().plusDays(1));
+		}
+
+		boolean includes(long time) {
+			return time >= start && time < end;
+		}
+	}
+
+}
@@ -11,6 +11,11 @@ import java.math.RoundingMode;
 /**
  * A percentage. Represented as a decimal value with scale 2 between 0.00 and 1.00.
  * 
+ * There are only 101 such values, so the static factory methods and {@link #add(Percentage)} return shared canonical
+ * instances instead of creating new ones. Comparisons and sums are done on the equivalent number of basis points (0 to
+ * 10000) rather than on the decimal value. An entity embedding a percentage must hold a {@link #copy() copy} of its
+ * own, as an ORM may update the embedded value in place.
+ * 
  * A value object. Immutable.
  */
 @Embeddable
@@ -18,8 +23,31 @@ public class Percentage implements Serializable {
 
 	private static final long serialVersionUID = 8077279865855620752L;
 
+	private static final int ONE_HUNDRED_BASIS_POINTS = 10000;
+
+	private static final int BASIS_POINTS_PER_HUNDREDTH = 100;
+
+	private static final int UNKNOWN_BASIS_POINTS = -1;
+
+	/**
+	 * The canonical instances, indexed by hundredths: 0.00, 0.01, ..., 1.00.
+	 */
+	private static final Percentage[] CANONICAL = new Percentage[101];
+
+	static {
+		for (int hundredths = 0; hundredths < CANONICAL.length; hundredths++) {
+			CANONICAL[hundredths] = new Percentage(BigDecimal.valueOf(hundredths, 2));
+		}
+	}
+
 	private BigDecimal value;
 
+	/**
+	 * This percentage in basis points, derived from the value on first use if not known at construction (for example
+	 * when the value was set by an ORM).
+	 */
+	private transient int basisPoints = UNKNOWN_BASIS_POINTS;
+
 	/**
 	 * Create a new percentage from the specified value. Value must be between 0 and 1. For example, value .45
 	 * represents 45%. If the value has more than two digits past the decimal point it will be rounded up. For example,
@@ -53,6 +81,7 @@ public class Percentage implements Serializable {
 			throw new IllegalArgumentException("Percentage value must be between 0 and 1; your value was " + value);
 		}
 		this.value = value;
+		this.basisPoints = value.unscaledValue().intValue() * BASIS_POINTS_PER_HUNDREDTH;
 	}
 
 	/**
@@ -73,21 +102,51 @@ public class Percentage implements Serializable {
 		if (percent) {
 			value = value.divide(new BigDecimal(100));
 		}
-		return new Percentage(value);
+		return valueOf(value);
+	}
+
+	/**
+	 * Returns the percentage with the specified value, rounded up to two digits past the decimal point like
+	 * {@link #Percentage(BigDecimal)}.
+	 * @param value the percentage value
+	 * @return the canonical percentage object
+	 * @throws IllegalArgumentException if the value is not between 0 and 1
+	 */
+	public static Percentage valueOf(BigDecimal value) {
+		BigDecimal rounded = value.setScale(2, RoundingMode.HALF_UP);
+		if (rounded.signum() < 0 || rounded.compareTo(BigDecimal.ONE) > 0) {
+			throw new IllegalArgumentException("Percentage value must be between 0 and 1; your value was " + rounded);
+		}
+		return CANONICAL[rounded.unscaledValue().intValue()];
+	}
+
+	/**
+	 * Returns the percentage with the specified number of basis points, rounded up to whole percents. For example,
+	 * 4500 basis points is 45%.
+	 * @param basisPoints the percentage in basis points
+	 * @return the canonical percentage object
+	 * @throws IllegalArgumentException if the basis points are not between 0 and 10000
+	 */
+	public static Percentage ofBasisPoints(int basisPoints) {
+		if (basisPoints < 0 || basisPoints > ONE_HUNDRED_BASIS_POINTS) {
+			throw new IllegalArgumentException("Percentage basis points must be between 0 and 10000; your value was "
+					+ basisPoints);
+		}
+		return CANONICAL[(basisPoints + BASIS_POINTS_PER_HUNDREDTH / 2) / BASIS_POINTS_PER_HUNDREDTH];
 	}
 
 	/**
 	 * Returns zero percent.
 	 */
 	public static Percentage zero() {
-		return new Percentage(0);
+		return CANONICAL[0];
 	}
 
 	/**
 	 * Returns one hundred percent.
 	 */
 	public static Percentage oneHundred() {
-		return new Percentage(1);
+		return CANONICAL[CANONICAL.length - 1];
 	}
 
 	/**
@@ -97,7 +156,35 @@ public class Percentage implements Serializable {
 	 * @throws IllegalArgumentException if the new percentage exceeds 1
 	 */
 	public Percentage add(Percentage percentage) throws IllegalArgumentException {
-		return new Percentage(value.add(percentage.value));
+		int sum = asBasisPoints() + percentage.asBasisPoints();
+		if (sum > ONE_HUNDRED_BASIS_POINTS) {
+			throw new IllegalArgumentException("Percentage value must be between 0 and 1; your value was "
+					+ BigDecimal.valueOf(sum, 4).setScale(2));
+		}
+		return CANONICAL[sum / BASIS_POINTS_PER_HUNDREDTH];
+	}
+
+	/**
+	 * Returns a new percentage equal to this one, rather than a shared canonical instance. Entities embedding a
+	 * percentage hold a copy: Hibernate merges the state of a detached entity into the embedded value of the managed
+	 * one in place, which would change a canonical instance for every holder.
+	 * @return a copy of this percentage
+	 */
+	public Percentage copy() {
+		return new Percentage(value);
+	}
+
+	/**
+	 * Return this percentage in basis points, hundredths of a percent: 45% is 4500 basis points.
+	 * @return this percentage in basis points, between 0 and 10000
+	 */
+	public int asBasisPoints() {
+		int basisPoints = this.basisPoints;
+		if (basisPoints == UNKNOWN_BASIS_POINTS) {
+			basisPoints = value.movePointRight(4).intValue();
+			this.basisPoints = basisPoints;
+		}
+		return basisPoints;
 	}
 
 	/**
@@ -122,15 +209,22 @@ public class Percentage implements Serializable {
 		if (!(o instanceof Percentage)) {
 			return false;
 		}
-		return value.equals(((Percentage) o).value);
+		return asBasisPoints() == ((Percentage) o).asBasisPoints();
 	}
 
 	public int hashCode() {
-		return value.hashCode();
+		return asBasisPoints();
 	}
 
 	public String toString() {
-		return value.multiply(new BigDecimal("100")).setScale(0) + "%";
+		return asBasisPoints() / BASIS_POINTS_PER_HUNDREDTH + "%";
+	}
+
+	/**
+	 * Replaces a deserialized percentage with its canonical instance.
+	 */
+	private Object readResolve() {
+		return valueOf(value);
 	}
 
 }
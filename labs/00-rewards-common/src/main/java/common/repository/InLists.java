@@ -0,0 +1,45 @@
+package common.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Splits the values of a lookup by many keys into lists small enough to be
+ * bound to a single IN-list, so that a lookup of any size stays within the
+ * limits databases put on the parameters of a statement.
+ */
+public final class InLists {
+
+	/**
+	 * The largest number of values bound to a single IN-list. Larger lookups
+	 * are split into several queries.
+	 */
+	public static final int MAX_SIZE = 500;
+
+	private InLists() {
+	}
+
+	/**
+	 * Splits values into lists of at most {@link #MAX_SIZE} values, keeping
+	 * their iteration order.
+	 * 
+	 * @param values the values to split
+	 * @return the lists of values, none of them empty
+	 */
+	public static <T> List<List<T>> chunk(Collection<T> values) {
+		List<List<T>> chunks = new ArrayList<List<T>>();
+		List<T> current = new ArrayList<T>(Math.min(values.size(), MAX_SIZE));
+		for (T value : values) {
+			if (current.size() == MAX_SIZE) {
+				chunks.add(current);
+				current = new ArrayList<T>(MAX_SIZE);
+			}
+			current.add(value);
+		}
+		if (!current.isEmpty()) {
+			chunks.add(current);
+		}
+		return chunks;
+	}
+}
@@ -3,14 +3,29 @@ drop table if exists T_ACCOUNT_CREDIT_CARD;
 drop table if exists T_ACCOUNT;
 drop table if exists T_RESTAURANT;
 drop table if exists T_REWARD;
+drop table if exists T_REWARD_ACCOUNT_DAILY;
+drop table if exists T_REWARD_MERCHANT_DAILY;
 drop table if exists DUAL_REWARD_CONFIRMATION_NUMBER;
 
-create table T_ACCOUNT (ID INT NOT NULL AUTO_INCREMENT, PRIMARY KEY(ID), NUMBER varchar(9), NAME varchar(50));
+create table T_ACCOUNT (ID INT NOT NULL AUTO_INCREMENT, PRIMARY KEY(ID), NUMBER varchar(9), NAME varchar(50), VERSION INT NOT NULL DEFAULT 0, LAST_MODIFIED timestamp default current_timestamp on update current_timestamp not null);
 create table T_ACCOUNT_CREDIT_CARD (ID INT NOT NULL AUTO_INCREMENT, PRIMARY KEY(ID), ACCOUNT_ID integer, NUMBER varchar(16), unique(ACCOUNT_ID, NUMBER));
 create table T_ACCOUNT_BENEFICIARY (ID INT NOT NULL AUTO_INCREMENT, PRIMARY KEY(ID), ACCOUNT_ID integer, NAME varchar(50), ALLOCATION_PERCENTAGE decimal(3,2), SAVINGS decimal(8,2));
-create table T_RESTAURANT (ID INT NOT NULL AUTO_INCREMENT, PRIMARY KEY(ID), MERCHANT_NUMBER varchar(10), NAME varchar(80), BENEFIT_PERCENTAGE decimal(3,2), BENEFIT_AVAILABILITY_POLICY varchar(1));
+create table T_RESTAURANT (ID INT NOT NULL AUTO_INCREMENT, PRIMARY KEY(ID), MERCHANT_NUMBER varchar(10), NAME varchar(80), BENEFIT_PERCENTAGE decimal(3,2), BENEFIT_AVAILABILITY_POLICY varchar(1), BENEFIT_AVAILABILITY_RULES varchar(250), LAST_MODIFIED timestamp default current_timestamp on update current_timestamp not null);
 create table T_REWARD (ID INT NOT NULL AUTO_INCREMENT, PRIMARY KEY(ID), CONFIRMATION_NUMBER varchar(25), REWARD_AMOUNT decimal(8,2), REWARD_DATE date, ACCOUNT_NUMBER varchar(9), DINING_AMOUNT decimal(8,2), DINING_MERCHANT_NUMBER varchar(10), DINING_DATE date);
+create table T_REWARD_ACCOUNT_DAILY (ACCOUNT_NUMBER varchar(9) not null, DINING_DATE date not null, REWARD_COUNT INT not null, REWARD_AMOUNT decimal(12,2) not null, DINING_AMOUNT decimal(14,2) not null, PRIMARY KEY(ACCOUNT_NUMBER, DINING_DATE));
+create table T_REWARD_MERCHANT_DAILY (DINING_MERCHANT_NUMBER varchar(10) not null, DINING_DATE date not null, STRIPE INT not null, REWARD_COUNT INT not null, REWARD_AMOUNT decimal(12,2) not null, DINING_AMOUNT decimal(14,2) not null, PRIMARY KEY(DINING_MERCHANT_NUMBER, DINING_DATE, STRIPE));
+create index IDX_ACCOUNT_CREDIT_CARD_NUMBER on T_ACCOUNT_CREDIT_CARD(NUMBER);
+create index IDX_REWARD_ACCOUNT_DINING_DATE on T_REWARD(ACCOUNT_NUMBER, DINING_DATE, ID);
+create index IDX_REWARD_MERCHANT_DINING_DATE on T_REWARD(DINING_MERCHANT_NUMBER, DINING_DATE, ID);
+create index IDX_REWARD_DINING_DATE on T_REWARD(DINING_DATE, ID);
 
 create table DUAL_REWARD_CONFIRMATION_NUMBER (ZERO int);
 insert into DUAL_REWARD_CONFIRMATION_NUMBER values (0);
        
+
+create trigger TR_ACCOUNT_VERSION before update on T_ACCOUNT for each row set NEW.VERSION = OLD.VERSION + 1, NEW.LAST_MODIFIED = current_timestamp;
+create trigger TR_ACCOUNT_BENEFICIARY_INSERT after insert on T_ACCOUNT_BENEFICIARY for each row update T_ACCOUNT set LAST_MODIFIED = current_timestamp where ID = NEW.ACCOUNT_ID;
+create trigger TR_ACCOUNT_BENEFICIARY_UPDATE after update on T_ACCOUNT_BENEFICIARY for each row update T_ACCOUNT set LAST_MODIFIED = current_timestamp where ID = OLD.ACCOUNT_ID or ID = NEW.ACCOUNT_ID;
+create trigger TR_ACCOUNT_BENEFICIARY_DELETE after delete on T_ACCOUNT_BENEFICIARY for each row update T_ACCOUNT set LAST_MODIFIED = current_timestamp where ID = OLD.ACCOUNT_ID;
+create trigger TR_REWARD_ACCOUNT_DAILY after insert on T_REWARD for each row insert into T_REWARD_ACCOUNT_DAILY values (NEW.ACCOUNT_NUMBER, NEW.DINING_DATE, 1, NEW.REWARD_AMOUNT, NEW.DINING_AMOUNT) on duplicate key update REWARD_COUNT = REWARD_COUNT + 1, REWARD_AMOUNT = REWARD_AMOUNT + NEW.REWARD_AMOUNT, DINING_AMOUNT = DINING_AMOUNT + NEW.DINING_AMOUNT;
+create trigger TR_REWARD_MERCHANT_DAILY after insert on T_REWARD for each row insert into T_REWARD_MERCHANT_DAILY values (NEW.DINING_MERCHANT_NUMBER, NEW.DINING_DATE, mod(NEW.ID, 8), 1, NEW.REWARD_AMOUNT, NEW.DINING_AMOUNT) on duplicate key update REWARD_COUNT = REWARD_COUNT + 1, REWARD_AMOUNT = REWARD_AMOUNT + NEW.REWARD_AMOUNT, DINING_AMOUNT = DINING_AMOUNT + NEW.DINING_AMOUNT;
@@ -3,18 +3,33 @@ drop table T_ACCOUNT_CREDIT_CARD if exists;
 drop table T_ACCOUNT if exists;
 drop table T_RESTAURANT if exists;
 drop table T_REWARD if exists;
+drop table T_REWARD_ACCOUNT_DAILY if exists;
+drop table T_REWARD_MERCHANT_DAILY if exists;
 drop sequence S_REWARD_CONFIRMATION_NUMBER if exists;
 drop table DUAL_REWARD_CONFIRMATION_NUMBER if exists;
 
-create table T_ACCOUNT (ID integer identity primary key, NUMBER varchar(9), NAME varchar(50) not null, unique(NUMBER));
+create table T_ACCOUNT (ID integer identity primary key, NUMBER varchar(9), NAME varchar(50) not null, VERSION integer default 0 not null, LAST_MODIFIED timestamp default current_timestamp on update current_timestamp not null, unique(NUMBER));
 create table T_ACCOUNT_CREDIT_CARD (ID integer identity primary key, ACCOUNT_ID integer, NUMBER varchar(16), unique(ACCOUNT_ID, NUMBER));
 create table T_ACCOUNT_BENEFICIARY (ID integer identity primary key, ACCOUNT_ID integer, NAME varchar(50), ALLOCATION_PERCENTAGE decimal(3,2) not null, SAVINGS decimal(8,2) not null, unique(ACCOUNT_ID, NAME));
-create table T_RESTAURANT (ID integer identity primary key, MERCHANT_NUMBER varchar(10) not null, NAME varchar(80) not null, BENEFIT_PERCENTAGE decimal(3,2) not null, BENEFIT_AVAILABILITY_POLICY varchar(1) not null, unique(MERCHANT_NUMBER));
+create table T_RESTAURANT (ID integer identity primary key, MERCHANT_NUMBER varchar(10) not null, NAME varchar(80) not null, BENEFIT_PERCENTAGE decimal(3,2) not null, BENEFIT_AVAILABILITY_POLICY varchar(1) not null, BENEFIT_AVAILABILITY_RULES varchar(250), LAST_MODIFIED timestamp default current_timestamp on update current_timestamp not null, unique(MERCHANT_NUMBER));
 create table T_REWARD (ID integer identity primary key, CONFIRMATION_NUMBER varchar(25) not null, REWARD_AMOUNT decimal(8,2) not null, REWARD_DATE date not null, ACCOUNT_NUMBER varchar(9) not null, DINING_AMOUNT decimal not null, DINING_MERCHANT_NUMBER varchar(10) not null, DINING_DATE date not null, unique(CONFIRMATION_NUMBER));
+create table T_REWARD_ACCOUNT_DAILY (ACCOUNT_NUMBER varchar(9) not null, DINING_DATE date not null, REWARD_COUNT integer not null, REWARD_AMOUNT decimal(12,2) not null, DINING_AMOUNT decimal(14,2) not null, primary key(ACCOUNT_NUMBER, DINING_DATE));
+create table T_REWARD_MERCHANT_DAILY (DINING_MERCHANT_NUMBER varchar(10) not null, DINING_DATE date not null, STRIPE integer not null, REWARD_COUNT integer not null, REWARD_AMOUNT decimal(12,2) not null, DINING_AMOUNT decimal(14,2) not null, primary key(DINING_MERCHANT_NUMBER, DINING_DATE, STRIPE));
+create index IDX_ACCOUNT_CREDIT_CARD_NUMBER on T_ACCOUNT_CREDIT_CARD(NUMBER);
+create index IDX_REWARD_ACCOUNT_DINING_DATE on T_REWARD(ACCOUNT_NUMBER, DINING_DATE, ID);
+create index IDX_REWARD_MERCHANT_DINING_DATE on T_REWARD(DINING_MERCHANT_NUMBER, DINING_DATE, ID);
+create index IDX_REWARD_DINING_DATE on T_REWARD(DINING_DATE, ID);
 
 create sequence S_REWARD_CONFIRMATION_NUMBER start with 1;
 create table DUAL_REWARD_CONFIRMATION_NUMBER (ZERO integer);
 insert into DUAL_REWARD_CONFIRMATION_NUMBER values (0);
        
 alter table T_ACCOUNT_CREDIT_CARD add constraint FK_ACCOUNT_CREDIT_CARD foreign key (ACCOUNT_ID) references T_ACCOUNT(ID) on delete cascade;
-alter table T_ACCOUNT_BENEFICIARY add constraint FK_ACCOUNT_BENEFICIARY foreign key (ACCOUNT_ID) references T_ACCOUNT(ID) on delete cascade;
\ No newline at end of file
+alter table T_ACCOUNT_BENEFICIARY add constraint FK_ACCOUNT_BENEFICIARY foreign key (ACCOUNT_ID) references T_ACCOUNT(ID) on delete cascade;
+
+create trigger TR_ACCOUNT_VERSION before update on T_ACCOUNT referencing old row as OLDROW new row as NEWROW for each row set NEWROW.VERSION = OLDROW.VERSION + 1;
+create trigger TR_ACCOUNT_BENEFICIARY_INSERT after insert on T_ACCOUNT_BENEFICIARY referencing new row as NEWROW for each row when (NEWROW.ACCOUNT_ID is not null) update T_ACCOUNT set LAST_MODIFIED = current_timestamp where ID = NEWROW.ACCOUNT_ID;
+create trigger TR_ACCOUNT_BENEFICIARY_UPDATE after update on T_ACCOUNT_BENEFICIARY referencing old row as OLDROW new row as NEWROW for each row update T_ACCOUNT set LAST_MODIFIED = current_timestamp where ID = OLDROW.ACCOUNT_ID or ID = NEWROW.ACCOUNT_ID;
+create trigger TR_ACCOUNT_BENEFICIARY_DELETE after delete on T_ACCOUNT_BENEFICIARY referencing old row as OLDROW for each row update T_ACCOUNT set LAST_MODIFIED = current_timestamp where ID = OLDROW.ACCOUNT_ID;
+create trigger TR_REWARD_ACCOUNT_DAILY after insert on T_REWARD referencing new row as NEWROW for each row merge into T_REWARD_ACCOUNT_DAILY D using (values (NEWROW.ACCOUNT_NUMBER, NEWROW.DINING_DATE, NEWROW.REWARD_AMOUNT, NEWROW.DINING_AMOUNT)) as R(ACCOUNT_NUMBER, DINING_DATE, REWARD_AMOUNT, DINING_AMOUNT) on D.ACCOUNT_NUMBER = R.ACCOUNT_NUMBER and D.DINING_DATE = R.DINING_DATE when matched then update set REWARD_COUNT = D.REWARD_COUNT + 1, REWARD_AMOUNT = D.REWARD_AMOUNT + R.REWARD_AMOUNT, DINING_AMOUNT = D.DINING_AMOUNT + R.DINING_AMOUNT when not matched then insert values (R.ACCOUNT_NUMBER, R.DINING_DATE, 1, R.REWARD_AMOUNT, R.DINING_AMOUNT);
+create trigger TR_REWARD_MERCHANT_DAILY after insert on T_REWARD referencing new row as NEWROW for each row merge into T_REWARD_MERCHANT_DAILY D using (values (NEWROW.DINING_MERCHANT_NUMBER, NEWROW.DINING_DATE, mod(NEWROW.ID, 8), NEWROW.REWARD_AMOUNT, NEWROW.DINING_AMOUNT)) as R(DINING_MERCHANT_NUMBER, DINING_DATE, STRIPE, REWARD_AMOUNT, DINING_AMOUNT) on D.DINING_MERCHANT_NUMBER = R.DINING_MERCHANT_NUMBER and D.DINING_DATE = R.DINING_DATE and D.STRIPE = R.STRIPE when matched then update set REWARD_COUNT = D.REWARD_COUNT + 1, REWARD_AMOUNT = D.REWARD_AMOUNT + R.REWARD_AMOUNT, DINING_AMOUNT = D.DINING_AMOUNT + R.DINING_AMOUNT when not matched then insert values (R.DINING_MERCHANT_NUMBER, R.DINING_DATE, R.STRIPE, 1, R.REWARD_AMOUNT, R.DINING_AMOUNT);
@@ -0,0 +1,177 @@
+package common.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueRetrievalException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the LocalCache and the LocalCacheManager.
+ */
+public class LocalCacheTests {
+
+	private final AtomicLong now = new AtomicLong();
+
+	@Test
+	public void testGetAndPut() {
+		LocalCache cache = new LocalCache("restaurants", 10);
+		cache.put("a", "A");
+		cache.put("b", null);
+
+		assertEquals("A", cache.get("a").get());
+		assertEquals("A", cache.get("a", String.class));
+		assertNull(cache.get("b").get());
+		assertNull(cache.get("c"));
+		assertEquals(3, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(2, cache.getPutCount());
+		assertThrows(IllegalStateException.class, () -> cache.get("a", Integer.class));
+	}
+
+	@Test
+	public void testEntriesExpire() {
+		LocalCache cache = new LocalCache("accounts", 10, Duration.ofSeconds(10), true, now::get);
+		cache.put("a", "A");
+		now.addAndGet(Duration.ofSeconds(9).toNanos());
+		assertEquals("A", cache.get("a").get());
+
+		now.addAndGet(Duration.ofSeconds(1).toNanos());
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.getSize());
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testWriteRenewsTimeToLive() {
+		LocalCache cache = new LocalCache("accounts", 10, Duration.ofSeconds(10), true, now::get);
+		cache.put("a", "A");
+		now.addAndGet(Duration.ofSeconds(9).toNanos());
+		cache.put("a", "B");
+		now.addAndGet(Duration.ofSeconds(9).toNanos());
+
+		assertEquals("B", cache.get("a").get());
+	}
+
+	@Test
+	public void testPutIfAbsent() {
+		LocalCache cache = new LocalCache("accounts", 10, Duration.ofSeconds(10), true, now::get);
+		assertNull(cache.putIfAbsent("a", "A"));
+		assertEquals("A", cache.putIfAbsent("a", "B").get());
+
+		now.addAndGet(Duration.ofSeconds(10).toNanos());
+		assertNull(cache.putIfAbsent("a", "C"));
+		assertEquals("C", cache.get("a").get());
+	}
+
+	@Test
+	public void testEvict() {
+		LocalCache cache = new LocalCache("accounts", 10);
+		cache.put("a", "A");
+		cache.put("b", "B");
+
+		assertTrue(cache.evictIfPresent("a"));
+		assertFalse(cache.evictIfPresent("a"));
+		assertTrue(cache.invalidate());
+		assertFalse(cache.invalidate());
+		assertNull(cache.get("b"));
+	}
+
+	@Test
+	public void testValueLoader() {
+		LocalCache cache = new LocalCache("accounts", 10);
+		assertEquals("A", cache.get("a", () -> "A"));
+		assertEquals("A", cache.get("a", () -> "B"));
+		assertThrows(ValueRetrievalException.class, () -> cache.get("b", () -> {
+			throw new IllegalStateException("Database down");
+		}));
+		assertNull(cache.get("b"));
+	}
+
+	@Test
+	public void testValueLoadedOnceForConcurrentReads() throws Exception {
+		LocalCache cache = new LocalCache("accounts", 10);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Object> first = executor.submit(() -> cache.get("a", () -> {
+				loading.countDown();
+				release.await();
+				return "A" + loads.incrementAndGet();
+			}));
+			loading.await();
+			Future<Object> second = executor.submit(() -> cache.get("a", () -> "A" + loads.incrementAndGet()));
+			// other keys do not wait for the load
+			assertEquals("B", cache.get("b", () -> "B"));
+			release.countDown();
+
+			assertEquals("A1", first.get(5, TimeUnit.SECONDS));
+			assertEquals("A1", second.get(5, TimeUnit.SECONDS));
+			assertEquals(1, loads.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testManagerAppliesCacheSettings() {
+		LocalCacheManager manager = new LocalCacheManager("accounts", "restaurants");
+		manager.setDefaultTimeToLive(Duration.ofMinutes(10));
+		manager.setTimeToLive("accounts", Duration.ofSeconds(30));
+		manager.setCapacity("restaurants", 50);
+		manager.afterPropertiesSet();
+
+		assertEquals(2, manager.getCacheNames().size());
+		LocalCache accounts = (LocalCache) manager.getCache("accounts");
+		assertEquals(Duration.ofSeconds(30), accounts.getTimeToLive());
+		assertEquals(LocalCacheManager.DEFAULT_CAPACITY, accounts.getCapacity());
+		LocalCache restaurants = (LocalCache) manager.getCache("restaurants");
+		assertEquals(Duration.ofMinutes(10), restaurants.getTimeToLive());
+		assertEquals(50, restaurants.getCapacity());
+
+		assertInstanceOf(LocalCache.class, manager.getCache("rewards"));
+		manager.setDynamic(false);
+		assertNull(manager.getCache("other"));
+	}
+
+	@Test
+	public void testTransactionAwareManagerEvictsAfterCommit() {
+		LocalCacheManager manager = new LocalCacheManager("accounts");
+		manager.setTransactionAware(true);
+		manager.afterPropertiesSet();
+		Cache cache = manager.getCache("accounts");
+		cache.put("a", "A");
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			cache.evict("a");
+			assertEquals("A", cache.get("a").get());
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+					.getSynchronizations()) {
+				synchronization.afterCommit();
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertNull(cache.get("a"));
+	}
+}
@@ -0,0 +1,94 @@
+package common.cache;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for the NearCacheManager and its two-level caches. A ConcurrentMapCacheManager stands in for the shared
+ * cache manager.
+ */
+public class NearCacheManagerTests {
+
+	private ConcurrentMapCacheManager farCacheManager;
+
+	private NearCacheManager manager;
+
+	@BeforeEach
+	public void setUp() {
+		farCacheManager = new ConcurrentMapCacheManager();
+		farCacheManager.getCache("accounts");
+		manager = new NearCacheManager(new LocalCacheManager(), farCacheManager);
+		manager.setCacheNames(List.of("restaurants"));
+		manager.afterPropertiesSet();
+	}
+
+	@Test
+	public void testCreatesNearCaches() {
+		assertEquals(List.of("restaurants", "accounts"), List.copyOf(manager.getCacheNames()));
+		NearCache cache = (NearCache) manager.getCache("accounts");
+		assertInstanceOf(LocalCache.class, cache.getNearCache());
+		assertSame(farCacheManager.getCache("accounts"), cache.getFarCache());
+		assertEquals("accounts", cache.getName());
+	}
+
+	@Test
+	public void testFarValueCopiedToNearCache() {
+		NearCache cache = (NearCache) manager.getCache("accounts");
+		cache.getFarCache().put("a", "A");
+
+		assertEquals("A", cache.get("a").get());
+		assertEquals("A", cache.get("a", String.class));
+		assertNull(cache.get("b"));
+		assertEquals("A", cache.getNearCache().get("a").get());
+		assertEquals(1, cache.getNearHitCount());
+		assertEquals(1, cache.getFarHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testWritesAndEvictionsReachBothLevels() {
+		NearCache cache = (NearCache) manager.getCache("accounts");
+		cache.put("a", "A");
+		assertEquals("A", cache.getNearCache().get("a").get());
+		assertEquals("A", cache.getFarCache().get("a").get());
+
+		cache.evict("a");
+		assertNull(cache.getNearCache().get("a"));
+		assertNull(cache.getFarCache().get("a"));
+	}
+
+	@Test
+	public void testValueLoader() {
+		NearCache cache = (NearCache) manager.getCache("accounts");
+		assertEquals("A", cache.get("a", () -> "A"));
+		assertEquals("A", cache.get("a", () -> "B"));
+		cache.getNearCache().clear();
+		assertEquals("A", cache.get("a", () -> "C"));
+
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getNearHitCount());
+		assertEquals(1, cache.getFarHitCount());
+	}
+
+	@Test
+	public void testTransactionAwareManagerDecoratesNearCache() {
+		farCacheManager = new ConcurrentMapCacheManager("accounts");
+		manager = new NearCacheManager(new LocalCacheManager(), farCacheManager);
+		manager.setTransactionAware(true);
+		manager.afterPropertiesSet();
+
+		Cache cache = manager.getCache("accounts");
+		cache.put("a", "A");
+		assertEquals("A", farCacheManager.getCache("accounts").get("a").get());
+		assertNull(manager.getCache("unknown"));
+	}
+}
@@ -0,0 +1,112 @@
+package common.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the segmented LRU eviction of the SegmentedLruCache.
+ */
+public class SegmentedLruCacheTests {
+
+	@Test
+	public void testGetAndPut() {
+		SegmentedLruCache<String, Integer> cache = new SegmentedLruCache<String, Integer>(10);
+		cache.put("a", 1);
+		cache.put("a", 2);
+
+		assertEquals(2, cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(0.5, cache.getHitRatio());
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsedOnProbation() {
+		SegmentedLruCache<String, Integer> cache = new SegmentedLruCache<String, Integer>(3);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+		cache.put("d", 4);
+
+		assertEquals(3, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertNull(cache.peek("a"));
+		assertEquals(2, cache.peek("b"));
+	}
+
+	@Test
+	public void testScanDoesNotEvictEntriesReadAgain() {
+		SegmentedLruCache<Integer, Integer> cache = new SegmentedLruCache<Integer, Integer>(10);
+		for (int hot = 0; hot < 5; hot++) {
+			cache.put(hot, hot);
+			cache.get(hot);
+		}
+		// a scan of keys read once only
+		for (int cold = 100; cold < 200; cold++) {
+			cache.put(cold, cold);
+		}
+
+		for (int hot = 0; hot < 5; hot++) {
+			assertEquals(hot, cache.peek(hot));
+		}
+		assertEquals(10, cache.size());
+	}
+
+	@Test
+	public void testDemotesFromFullProtectedSegment() {
+		// 2 protected entries, 2 on probation
+		SegmentedLruCache<String, Integer> cache = new SegmentedLruCache<String, Integer>(4, 0.5);
+		for (String key : new String[] { "a", "b", "c" }) {
+			cache.put(key, 0);
+			cache.get(key);
+		}
+		// "a" was demoted to probation, so is the next entry evicted there
+		cache.put("d", 0);
+		cache.put("e", 0);
+
+		assertNull(cache.peek("a"));
+		assertEquals(4, cache.size());
+		assertEquals(0, cache.peek("b"));
+		assertEquals(0, cache.peek("c"));
+	}
+
+	@Test
+	public void testPeekDoesNotPromote() {
+		SegmentedLruCache<String, Integer> cache = new SegmentedLruCache<String, Integer>(2, 0.5);
+		cache.put("a", 1);
+		cache.peek("a");
+		cache.put("b", 2);
+		cache.put("c", 3);
+
+		assertNull(cache.peek("a"));
+		assertEquals(0, cache.getHitCount());
+	}
+
+	@Test
+	public void testRemove() {
+		SegmentedLruCache<String, Integer> cache = new SegmentedLruCache<String, Integer>(10);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+		cache.get("a");
+
+		assertEquals(1, cache.remove("a"));
+		assertNull(cache.remove("a"));
+		assertEquals(1, cache.removeIf((key, value) -> value > 2));
+		assertEquals(1, cache.size());
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new SegmentedLruCache<String, Integer>(0));
+		assertThrows(IllegalArgumentException.class, () -> new SegmentedLruCache<String, Integer>(10, 1.0));
+		assertThrows(IllegalArgumentException.class, () -> new SegmentedLruCache<String, Integer>(10).put("a", null));
+	}
+}
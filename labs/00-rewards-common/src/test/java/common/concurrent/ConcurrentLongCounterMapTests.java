@@ -0,0 +1,90 @@
+package common.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the map of primitive counters.
+ */
+public class ConcurrentLongCounterMapTests {
+
+	@Test
+	public void testAddAndGet() {
+		ConcurrentLongCounterMap map = new ConcurrentLongCounterMap();
+		assertEquals(0, map.get(42));
+		assertEquals(5, map.addAndGet(42, 5));
+		assertEquals(3, map.addAndGet(42, -2));
+		assertEquals(3, map.get(42));
+		assertEquals(0, map.get(43));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testZeroAndNegativeKeys() {
+		ConcurrentLongCounterMap map = new ConcurrentLongCounterMap(1);
+		map.addAndGet(0, 1);
+		map.addAndGet(-1, 2);
+		map.addAndGet(Long.MIN_VALUE, 3);
+		assertEquals(1, map.get(0));
+		assertEquals(2, map.get(-1));
+		assertEquals(3, map.get(Long.MIN_VALUE));
+	}
+
+	@Test
+	public void testAddUpTo() {
+		ConcurrentLongCounterMap map = new ConcurrentLongCounterMap();
+		assertEquals(3000, map.addUpTo(7, 3000, 5000));
+		assertEquals(2000, map.addUpTo(7, 3000, 5000));
+		assertEquals(0, map.addUpTo(7, 3000, 5000));
+		assertEquals(5000, map.get(7));
+		assertThrows(IllegalArgumentException.class, () -> map.addUpTo(7, -1, 5000));
+	}
+
+	@Test
+	public void testManyKeys() {
+		ConcurrentLongCounterMap map = new ConcurrentLongCounterMap(4);
+		for (long key = 0; key < 10000; key++) {
+			map.addAndGet(key * 1024, key);
+		}
+		assertEquals(10000, map.size());
+		for (long key = 0; key < 10000; key++) {
+			assertEquals(key, map.get(key * 1024));
+		}
+		map.clear();
+		assertEquals(0, map.size());
+		assertEquals(0, map.get(1024));
+	}
+
+	@Test
+	public void testConcurrentAddUpTo() throws InterruptedException {
+		ConcurrentLongCounterMap map = new ConcurrentLongCounterMap();
+		long[] added = new long[8];
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < added.length; i++) {
+			int thread = i;
+			threads.add(new Thread(() -> {
+				for (int j = 0; j < 1000; j++) {
+					added[thread] += map.addUpTo(j % 10, 3, 1000);
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long total = 0;
+		for (long amount : added) {
+			total += amount;
+		}
+		// each of the 10 counters reaches its limit and no further
+		assertEquals(10000, total);
+		for (long key = 0; key < 10; key++) {
+			assertEquals(1000, map.get(key));
+		}
+	}
+}
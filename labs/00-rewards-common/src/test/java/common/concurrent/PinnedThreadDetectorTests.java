@@ -0,0 +1,60 @@
+package common.concurrent;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the reporting of pinned virtual threads. The pinnings are reported directly, so the tests do not
+ * need a Java runtime with virtual threads.
+ */
+public class PinnedThreadDetectorTests {
+
+	private static final List<String> JDBC_STACK = List.of("java.net.SocketInputStream.read:68",
+			"com.mysql.cj.protocol.ReadAheadInputStream.read:180",
+			"com.mysql.cj.jdbc.ClientPreparedStatement.executeQuery:1003",
+			"org.springframework.jdbc.core.JdbcTemplate.query:722",
+			"rewards.internal.account.JdbcAccountRepository.findByCreditCard:80");
+
+	private static final List<String> OTHER_STACK = List.of("java.lang.Object.wait:-1",
+			"rewards.internal.reward.ConfirmationNumberAllocator.next:40");
+
+	@Test
+	public void testIsInJdbc() {
+		assertTrue(PinnedThreadDetector.isInJdbc(JDBC_STACK));
+		assertFalse(PinnedThreadDetector.isInJdbc(OTHER_STACK));
+		assertFalse(PinnedThreadDetector.isInJdbc(List.of()));
+	}
+
+	@Test
+	public void testCountsPinnings() {
+		PinnedThreadDetector detector = new PinnedThreadDetector();
+		detector.pinned("tomcat-handler-1", Duration.ofMillis(25), JDBC_STACK);
+		detector.pinned("tomcat-handler-2", Duration.ofMillis(30), OTHER_STACK);
+		detector.pinned("tomcat-handler-3", Duration.ofMillis(120), JDBC_STACK);
+
+		assertEquals(3, detector.getPinnedCount());
+		assertEquals(2, detector.getPinnedInJdbcCount());
+	}
+
+	@Test
+	public void testCloseBeforeStart() {
+		new PinnedThreadDetector(Duration.ofMillis(5)).close();
+	}
+
+	@Test
+	public void testEventStreamingFoundFromJava14() {
+		if (Runtime.version().feature() >= 14) {
+			assertNotNull(PinnedThreadDetector.EventStreaming.load());
+		} else {
+			assertThrows(UnsupportedOperationException.class, PinnedThreadDetector.EventStreaming::load);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package common.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for the virtual thread factory methods. Which tests run depends on the Java runtime.
+ */
+public class VirtualThreadsTests {
+
+	@Test
+	public void testSupportedFromJava21() {
+		int version = Integer.parseInt(System.getProperty("java.specification.version").replaceFirst("^1\\.", ""));
+		assertEquals(version >= 21, VirtualThreads.isSupported());
+	}
+
+	@Test
+	public void testUnsupported() {
+		assumeFalse(VirtualThreads.isSupported());
+		assertThrows(UnsupportedOperationException.class, () -> VirtualThreads.threadFactory("test-"));
+		assertThrows(UnsupportedOperationException.class, () -> VirtualThreads.newThreadPerTaskExecutor("test-"));
+		assertThrows(UnsupportedOperationException.class, () -> new PinnedThreadDetector().start());
+	}
+
+	@Test
+	public void testThreadFactory() throws Exception {
+		assumeTrue(VirtualThreads.isSupported());
+		ThreadFactory factory = VirtualThreads.threadFactory("test-");
+		Thread first = factory.newThread(() -> {
+		});
+		Thread second = factory.newThread(() -> {
+		});
+		assertEquals("test-0", first.getName());
+		assertEquals("test-1", second.getName());
+		assertTrue(first.isDaemon());
+	}
+
+	@Test
+	public void testThreadPerTaskExecutor() throws Exception {
+		assumeTrue(VirtualThreads.isSupported());
+		ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+		try {
+			Future<String> name = executor.submit(() -> Thread.currentThread().getName());
+			assertTrue(name.get().startsWith("test-"));
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -2,7 +2,11 @@ package common.datetime;
 
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
@@ -39,4 +43,44 @@ public class SimpleDateTests {
 		SimpleDate today2 = SimpleDate.valueOf(time);
 		assertEquals(today, today2);
 	}
+
+	@Test
+	public void testTodayIsCached() {
+		assertSame(SimpleDate.today(), SimpleDate.today());
+	}
+
+	@Test
+	public void testCompareTo() {
+		SimpleDate date = new SimpleDate(12, 29, 1977);
+		assertEquals(0, date.compareTo(new SimpleDate(12, 29, 1977)));
+		assertTrue(date.compareTo(new SimpleDate(12, 30, 1977)) < 0);
+		assertTrue(date.compareTo(new SimpleDate(1, 1, 1970)) > 0);
+		assertEquals(date.hashCode(), new SimpleDate(12, 29, 1977).hashCode());
+	}
+
+	@Test
+	public void testOutOfRangeFieldsRollOver() {
+		assertEquals(new SimpleDate(1, 1, 2021), new SimpleDate(13, 1, 2020));
+		assertEquals(new SimpleDate(3, 1, 2020), new SimpleDate(2, 30, 2020));
+	}
+
+	@Test
+	public void testDayOfWeek() {
+		assertEquals(DayOfWeek.THURSDAY, new SimpleDate(1, 1, 1970).getDayOfWeek());
+		assertEquals(DayOfWeek.THURSDAY, new SimpleDate(12, 29, 1977).getDayOfWeek());
+		assertEquals(DayOfWeek.SUNDAY, new SimpleDate(12, 28, 1969).getDayOfWeek());
+		for (int day = 1; day <= 7; day++) {
+			SimpleDate date = new SimpleDate(3, day, 2024);
+			assertEquals(date.asLocalDate().getDayOfWeek(), date.getDayOfWeek());
+		}
+	}
+
+	@Test
+	public void testSqlDate() {
+		SimpleDate date = new SimpleDate(12, 29, 1977);
+		assertEquals(java.sql.Date.valueOf("1977-12-29"), date.asSqlDate());
+		assertEquals(date.asDate().getTime(), date.asSqlDate().getTime());
+		assertEquals(date, SimpleDate.valueOf(java.sql.Date.valueOf("1977-12-29")));
+		assertEquals(LocalDate.of(1977, 12, 29), date.asLocalDate());
+	}
 }
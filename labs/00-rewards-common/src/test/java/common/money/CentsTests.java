@@ -0,0 +1,46 @@
+package common.money;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests that make sure the cent arithmetic matches the MonetaryAmount arithmetic.
+ */
+public class CentsTests {
+
+	@Test
+	public void testConversion() {
+		assertEquals(10029, Cents.valueOf(MonetaryAmount.valueOf("100.29")));
+		assertEquals(-5, Cents.valueOf(MonetaryAmount.valueOf("-0.05")));
+		assertEquals(MonetaryAmount.valueOf("100.29"), Cents.toMonetaryAmount(10029));
+		assertEquals(MonetaryAmount.valueOf("-0.05"), Cents.toMonetaryAmount(-5));
+	}
+
+	@Test
+	public void testAddAndSubtract() {
+		assertEquals(20000, Cents.add(10000, 10000));
+		assertEquals(-1, Cents.subtract(10000, 10001));
+	}
+
+	@Test
+	public void testMultiplyByPercentageRoundsHalfEven() {
+		String[] amounts = { "100.00", "8.50", "0.05", "0.15", "0.25", "-8.50", "-0.15", "123.45", "0.00" };
+		String[] percentages = { "8%", "33%", "50%", "67%", "25%", "100%", "0%", "1%" };
+		for (String amount : amounts) {
+			for (String percentage : percentages) {
+				MonetaryAmount expected = MonetaryAmount.valueOf(amount).multiplyBy(Percentage.valueOf(percentage));
+				long cents = Cents.multiplyBy(Cents.valueOf(MonetaryAmount.valueOf(amount)), Percentage.valueOf(percentage));
+				assertEquals(expected, Cents.toMonetaryAmount(cents), amount + " * " + percentage);
+			}
+		}
+	}
+
+	@Test
+	public void testOverflow() {
+		assertThrows(ArithmeticException.class, () -> Cents.add(Long.MAX_VALUE, 1));
+		assertThrows(ArithmeticException.class, () -> Cents.subtract(Long.MIN_VALUE, 1));
+		assertThrows(ArithmeticException.class, () -> Cents.multiplyBy(Long.MAX_VALUE / 2, Percentage.valueOf("50%")));
+		assertThrows(ArithmeticException.class, () -> Cents.valueOf(MonetaryAmount.valueOf("100000000000000000000.00")));
+	}
+}
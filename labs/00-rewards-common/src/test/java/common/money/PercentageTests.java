@@ -2,6 +2,15 @@ package common.money;
 
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
 
 /**
  * Unit tests that make sure the Percentage class works in isolation.
@@ -38,4 +47,52 @@ public class PercentageTests {
 		Percentage p = new Percentage(.255555);
 		assertEquals("26%", p.toString());
 	}
+
+	@Test
+	public void testFactoriesReturnCanonicalInstances() {
+		assertSame(Percentage.valueOf("50%"), Percentage.valueOf("0.5"));
+		assertSame(Percentage.zero(), Percentage.valueOf("0%"));
+		assertSame(Percentage.oneHundred(), Percentage.valueOf(BigDecimal.ONE));
+		assertSame(Percentage.valueOf("75%"), Percentage.valueOf("25%").add(Percentage.valueOf("50%")));
+		assertSame(Percentage.valueOf("26%"), Percentage.valueOf(new BigDecimal("0.255555")));
+	}
+
+	@Test
+	public void testBasisPoints() {
+		assertEquals(4500, Percentage.valueOf("45%").asBasisPoints());
+		assertEquals(4500, new Percentage(.45).asBasisPoints());
+		assertSame(Percentage.valueOf("45%"), Percentage.ofBasisPoints(4500));
+		assertSame(Percentage.valueOf("46%"), Percentage.ofBasisPoints(4550));
+		assertThrows(IllegalArgumentException.class, () -> Percentage.ofBasisPoints(10001));
+	}
+
+	@Test
+	public void testAddOverOneHundredPercent() {
+		assertThrows(IllegalArgumentException.class, () -> Percentage.valueOf("60%").add(Percentage.valueOf("50%")));
+	}
+
+	@Test
+	public void testEqualityWithNewPercentage() {
+		assertEquals(Percentage.valueOf("25%"), new Percentage(.25));
+		assertEquals(Percentage.valueOf("25%").hashCode(), new Percentage(.25).hashCode());
+	}
+
+	@Test
+	public void testDeserializedPercentageIsCanonical() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(Percentage.valueOf("8%"));
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertSame(Percentage.valueOf("8%"), in.readObject());
+		}
+	}
+
+	@Test
+	public void testCopyIsNotCanonical() {
+		Percentage copy = Percentage.valueOf("8%").copy();
+		assertNotSame(Percentage.valueOf("8%"), copy);
+		assertEquals(Percentage.valueOf("8%"), copy);
+		assertEquals(800, copy.asBasisPoints());
+	}
 }
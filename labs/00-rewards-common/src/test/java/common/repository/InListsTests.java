@@ -0,0 +1,36 @@
+package common.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for splitting lookups into IN-lists.
+ */
+public class InListsTests {
+
+	@Test
+	public void testNoValues() {
+		assertTrue(InLists.chunk(Collections.<Long>emptyList()).isEmpty());
+	}
+
+	@Test
+	public void testChunksKeepOrder() {
+		List<Integer> values = new ArrayList<Integer>();
+		for (int i = 0; i < InLists.MAX_SIZE * 2 + 1; i++) {
+			values.add(i);
+		}
+		List<List<Integer>> chunks = InLists.chunk(values);
+		assertEquals(3, chunks.size());
+		assertEquals(InLists.MAX_SIZE, chunks.get(0).size());
+		assertEquals(InLists.MAX_SIZE, chunks.get(1).size());
+		assertEquals(1, chunks.get(2).size());
+		assertEquals(Integer.valueOf(InLists.MAX_SIZE), chunks.get(1).get(0));
+		assertEquals(Integer.valueOf(InLists.MAX_SIZE * 2), chunks.get(2).get(0));
+	}
+}
@@ -1,7 +1,9 @@
 package accounts;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import rewards.internal.account.Account;
 
@@ -37,6 +39,72 @@ public interface AccountManager {
 	 */
 	public Account getAccount(Long id);
 
+	/**
+	 * Find an account by its number, reading it from the database even when
+	 * account lookups are cached. The account is therefore at least as current
+	 * as any version of it found before the call.
+	 * 
+	 * @param id
+	 *            the account id
+	 * @return the account, or null if there is no such account
+	 */
+	public Account getCurrentAccount(Long id);
+
+	/**
+	 * Find the current version of an account, without loading the account or
+	 * its beneficiaries.
+	 *
+	 * @param id
+	 *            the account id
+	 * @return the account version, or null if there is no such account
+	 */
+	public AccountVersion getAccountVersion(Long id);
+
+	/**
+	 * Find several accounts by their ids. Each account is returned once, even
+	 * if its id is repeated, and ids with no account are ignored.
+	 *
+	 * @param ids
+	 *            the account ids
+	 * @return the accounts found, in order of their ids
+	 */
+	public List<Account> getAccounts(Collection<Long> ids);
+
+	/**
+	 * Get one page of the accounts in the system, in order of their ids.
+	 *
+	 * @param offset
+	 *            the number of accounts to skip
+	 * @param limit
+	 *            the maximum number of accounts to return
+	 * @return the accounts on the page, each with all its beneficiaries
+	 */
+	public List<Account> getAccounts(int offset, int limit);
+
+	/**
+	 * Get the page of accounts following a given account, in order of their
+	 * ids. Unlike an offset, the previous page's last id finds the start of
+	 * the page without reading the accounts before it.
+	 *
+	 * @param afterId
+	 *            the id of the last account of the previous page, or null for
+	 *            the first page
+	 * @param limit
+	 *            the maximum number of accounts to return
+	 * @return the accounts with ids greater than afterId
+	 */
+	public List<Account> getAccountsAfter(Long afterId, int limit);
+
+	/**
+	 * Passes every account in the system to an action, in order of their ids,
+	 * without holding all the accounts in memory at once. The action should
+	 * not keep the accounts either.
+	 *
+	 * @param action
+	 *            the action to perform on each account
+	 */
+	public void forEachAccount(Consumer<Account> action);
+
 	/**
 	 * Takes a transient account and persists it.
 	 * 
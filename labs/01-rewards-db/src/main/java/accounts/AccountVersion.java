@@ -0,0 +1,69 @@
+package accounts;
+
+/**
+ * The version of an account, which changes whenever the account or any of its
+ * beneficiaries changes, and the time of that change. Lets clients check
+ * whether their copy of an account is current without loading the account.
+ *
+ * A value object. Immutable.
+ */
+public class AccountVersion {
+
+	private final long version;
+
+	private final long lastModified;
+
+	/**
+	 * Create a new account version.
+	 *
+	 * @param version
+	 *            the version number
+	 * @param lastModified
+	 *            the time the account was last changed, in milliseconds since
+	 *            1970
+	 */
+	public AccountVersion(long version, long lastModified) {
+		this.version = version;
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * Returns the version number. Increases with each change to the account.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the time the account was last changed, in milliseconds since
+	 * 1970.
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Returns a strong HTTP entity tag for this version of the account.
+	 */
+	public String getETag() {
+		return "\"" + version + "\"";
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		AccountVersion other = (AccountVersion) o;
+		return version == other.version && lastModified == other.lastModified;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(version) * 31 + Long.hashCode(lastModified);
+	}
+
+	@Override
+	public String toString() {
+		return "version " + version + ", last modified " + lastModified;
+	}
+}
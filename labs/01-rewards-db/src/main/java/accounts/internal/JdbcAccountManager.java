@@ -0,0 +1,319 @@
+package accounts.internal;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.transaction.annotation.Transactional;
+
+import accounts.AccountVersion;
+import common.money.MonetaryAmount;
+import common.repository.InLists;
+import common.money.Percentage;
+import rewards.internal.account.Account;
+import rewards.internal.account.Beneficiary;
+
+/**
+ * An account manager that uses plain JDBC to find and update accounts. An
+ * account and its beneficiaries are loaded with a single join, however many
+ * accounts are requested.
+ * <p>
+ * When caching is enabled, {@link #getAccount(Long)} is cached in the
+ * "accounts" cache, and every method changing an account evicts it.
+ */
+@CacheConfig(cacheNames = "accounts")
+public class JdbcAccountManager extends AbstractAccountManager {
+
+	/**
+	 * Selects accounts joined to their beneficiaries. Accounts without
+	 * beneficiaries are returned with null beneficiary columns.
+	 */
+	private static final String ACCOUNTS_QUERY = "select a.ID as ID, a.NUMBER as ACCOUNT_NUMBER, a.NAME as ACCOUNT_NAME, b.ID as BENEFICIARY_ID, b.NAME as BENEFICIARY_NAME, b.ALLOCATION_PERCENTAGE as BENEFICIARY_ALLOCATION_PERCENTAGE, b.SAVINGS as BENEFICIARY_SAVINGS from T_ACCOUNT a left outer join T_ACCOUNT_BENEFICIARY b on b.ACCOUNT_ID = a.ID";
+
+	/*
+	 * The position of each column selected by ACCOUNTS_QUERY.
+	 */
+	private static final int COLUMN_ID = 1;
+
+	private static final int COLUMN_ACCOUNT_NUMBER = 2;
+
+	private static final int COLUMN_ACCOUNT_NAME = 3;
+
+	private static final int COLUMN_BENEFICIARY_ID = 4;
+
+	private static final int COLUMN_BENEFICIARY_NAME = 5;
+
+	private static final int COLUMN_BENEFICIARY_ALLOCATION_PERCENTAGE = 6;
+
+	private static final int COLUMN_BENEFICIARY_SAVINGS = 7;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	/**
+	 * Runs the query of {@link #forEachAccount(Consumer)}, with a fetch size so
+	 * its rows are read from the cursor a few at a time.
+	 */
+	private JdbcTemplate streamingJdbcTemplate;
+
+	private SimpleJdbcInsert accountInsert;
+
+	private SimpleJdbcInsert beneficiaryInsert;
+
+	@Autowired
+	public JdbcAccountManager(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+		this.streamingJdbcTemplate.setFetchSize(100);
+		this.accountInsert = new SimpleJdbcInsert(jdbcTemplate).withTableName("T_ACCOUNT")
+				.usingColumns("NUMBER", "NAME").usingGeneratedKeyColumns("ID");
+		this.beneficiaryInsert = new SimpleJdbcInsert(jdbcTemplate).withTableName("T_ACCOUNT_BENEFICIARY")
+				.usingColumns("ACCOUNT_ID", "NAME", "ALLOCATION_PERCENTAGE", "SAVINGS")
+				.usingGeneratedKeyColumns("ID");
+	}
+
+	/**
+	 * Sets the number of rows {@link #forEachAccount(Consumer)} fetches from
+	 * the database at a time. Defaults to 100. Some drivers need a particular
+	 * value to stream rows at all, like Integer.MIN_VALUE for MySQL.
+	 * 
+	 * @param fetchSize
+	 *            the JDBC fetch size
+	 */
+	public void setStreamingFetchSize(int fetchSize) {
+		this.streamingJdbcTemplate.setFetchSize(fetchSize);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Account> getAllAccounts() {
+		Map<Long, Account> accountsById = new LinkedHashMap<Long, Account>();
+		jdbcTemplate.query(ACCOUNTS_QUERY + " order by a.ID", rs -> {
+			mapRow(rs, accountsById);
+		});
+		return new ArrayList<Account>(accountsById.values());
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	@Cacheable(unless = "#result == null")
+	public Account getAccount(Long id) {
+		return getCurrentAccount(id);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Account getCurrentAccount(Long id) {
+		Map<Long, Account> accountsById = new LinkedHashMap<Long, Account>();
+		jdbcTemplate.query(ACCOUNTS_QUERY + " where a.ID = ?", rs -> {
+			mapRow(rs, accountsById);
+		}, id);
+		return accountsById.get(id);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public AccountVersion getAccountVersion(Long id) {
+		List<AccountVersion> versions = jdbcTemplate.query("select VERSION, LAST_MODIFIED from T_ACCOUNT where ID = ?",
+				(rs, rowNum) -> new AccountVersion(rs.getLong(1), rs.getTimestamp(2).getTime()), id);
+		return versions.isEmpty() ? null : versions.get(0);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Account> getAccounts(Collection<Long> ids) {
+		// a sorted set drops the repeated ids, so no account is loaded twice,
+		// and keeps each chunk of ids in account order
+		Map<Long, Account> accountsById = new LinkedHashMap<Long, Account>();
+		String sql = ACCOUNTS_QUERY + " where a.ID in (:ids) order by a.ID";
+		for (List<Long> chunk : InLists.chunk(new TreeSet<Long>(ids))) {
+			namedParameterJdbcTemplate.query(sql, Map.of("ids", chunk), rs -> {
+				mapRow(rs, accountsById);
+			});
+		}
+		return new ArrayList<Account>(accountsById.values());
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Account> getAccounts(int offset, int limit) {
+		if (offset < 0 || limit < 0)
+			throw new IllegalArgumentException("Offset and limit must not be negative");
+		if (limit == 0)
+			// some databases, HSQLDB among them, read LIMIT 0 as no limit
+			return new ArrayList<Account>();
+
+		// Limiting the join would count beneficiary rows rather than accounts,
+		// so select the page of account ids first, then load those accounts
+		List<Long> ids = jdbcTemplate.queryForList("select ID from T_ACCOUNT order by ID limit ? offset ?",
+				Long.class, limit, offset);
+		return getAccounts(ids);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Account> getAccountsAfter(Long afterId, int limit) {
+		if (limit < 0)
+			throw new IllegalArgumentException("Limit must not be negative");
+		if (limit == 0)
+			return new ArrayList<Account>();
+
+		List<Long> ids;
+		if (afterId == null) {
+			ids = jdbcTemplate.queryForList("select ID from T_ACCOUNT order by ID limit ?", Long.class, limit);
+		} else {
+			ids = jdbcTemplate.queryForList("select ID from T_ACCOUNT where ID > ? order by ID limit ?", Long.class,
+					afterId, limit);
+		}
+		return getAccounts(ids);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void forEachAccount(Consumer<Account> action) {
+		// The rows of each account are adjacent, so an account is complete,
+		// and can be passed on, as soon as a row of the next one is read
+		Map<Long, Account> current = new LinkedHashMap<Long, Account>(2);
+		streamingJdbcTemplate.query(ACCOUNTS_QUERY + " order by a.ID", rs -> {
+			if (!current.isEmpty() && !current.containsKey(rs.getLong(COLUMN_ID))) {
+				action.accept(current.values().iterator().next());
+				current.clear();
+			}
+			mapRow(rs, current);
+		});
+		if (!current.isEmpty()) {
+			action.accept(current.values().iterator().next());
+		}
+	}
+
+	@Override
+	@Transactional
+	public Account save(Account account) {
+		Number id = accountInsert.executeAndReturnKey(new MapSqlParameterSource()
+				.addValue("NUMBER", account.getNumber()).addValue("NAME", account.getName()));
+		account.setEntityId(id.longValue());
+		for (Beneficiary b : account.getBeneficiaries()) {
+			insertBeneficiary(account.getEntityId(), b);
+		}
+		return account;
+	}
+
+	@Override
+	@Transactional
+	@CacheEvict(key = "#account.entityId")
+	public void update(Account account) {
+		jdbcTemplate.update("update T_ACCOUNT set NUMBER = ?, NAME = ? where ID = ?", account.getNumber(),
+				account.getName(), account.getEntityId());
+
+		// Remove the beneficiaries no longer in the account, then write the
+		// others, adding any new ones
+		List<Long> beneficiaryIds = new ArrayList<Long>();
+		for (Beneficiary b : account.getBeneficiaries()) {
+			if (b.getEntityId() != null)
+				beneficiaryIds.add(b.getEntityId());
+		}
+		if (beneficiaryIds.isEmpty()) {
+			jdbcTemplate.update("delete from T_ACCOUNT_BENEFICIARY where ACCOUNT_ID = ?", account.getEntityId());
+		} else {
+			namedParameterJdbcTemplate.update(
+					"delete from T_ACCOUNT_BENEFICIARY where ACCOUNT_ID = :accountId and ID not in (:ids)",
+					Map.of("accountId", account.getEntityId(), "ids", beneficiaryIds));
+		}
+
+		for (Beneficiary b : account.getBeneficiaries()) {
+			if (b.getEntityId() == null) {
+				insertBeneficiary(account.getEntityId(), b);
+			} else {
+				jdbcTemplate.update(
+						"update T_ACCOUNT_BENEFICIARY set NAME = ?, ALLOCATION_PERCENTAGE = ?, SAVINGS = ? where ID = ?",
+						b.getName(), b.getAllocationPercentage().asBigDecimal(), b.getSavings().asBigDecimal(),
+						b.getEntityId());
+			}
+		}
+	}
+
+	@Override
+	@Transactional
+	@CacheEvict(key = "#accountId")
+	public void updateBeneficiaryAllocationPercentages(Long accountId, Map<String, Percentage> allocationPercentages) {
+		List<Object[]> batchArgs = new ArrayList<Object[]>(allocationPercentages.size());
+		for (Entry<String, Percentage> entry : allocationPercentages.entrySet()) {
+			batchArgs.add(new Object[] { entry.getValue().asBigDecimal(), accountId, entry.getKey() });
+		}
+		jdbcTemplate.batchUpdate(
+				"update T_ACCOUNT_BENEFICIARY set ALLOCATION_PERCENTAGE = ? where ACCOUNT_ID = ? and NAME = ?",
+				batchArgs);
+	}
+
+	@Override
+	@Transactional
+	@CacheEvict(key = "#accountId")
+	public void addBeneficiary(Long accountId, String beneficiaryName) {
+		insertBeneficiary(accountId, new Beneficiary(beneficiaryName, Percentage.zero()));
+	}
+
+	@Override
+	@Transactional
+	@CacheEvict(key = "#accountId")
+	public void removeBeneficiary(Long accountId, String beneficiaryName,
+			Map<String, Percentage> allocationPercentages) {
+		jdbcTemplate.update("delete from T_ACCOUNT_BENEFICIARY where ACCOUNT_ID = ? and NAME = ?", accountId,
+				beneficiaryName);
+
+		if (allocationPercentages != null)
+			updateBeneficiaryAllocationPercentages(accountId, allocationPercentages);
+	}
+
+	private void insertBeneficiary(Long accountId, Beneficiary beneficiary) {
+		Number id = beneficiaryInsert.executeAndReturnKey(new MapSqlParameterSource()
+				.addValue("ACCOUNT_ID", accountId).addValue("NAME", beneficiary.getName())
+				.addValue("ALLOCATION_PERCENTAGE", beneficiary.getAllocationPercentage().asBigDecimal())
+				.addValue("SAVINGS", beneficiary.getSavings().asBigDecimal()));
+		beneficiary.setEntityId(id.longValue());
+	}
+
+	/**
+	 * Maps a row of ACCOUNTS_QUERY, adding its account to the accounts already
+	 * mapped the first time it is seen, and its beneficiary to that account.
+	 */
+	private void mapRow(ResultSet rs, Map<Long, Account> accountsById) throws SQLException {
+		Long id = rs.getLong(COLUMN_ID);
+		Account account = accountsById.get(id);
+		if (account == null) {
+			account = new Account(rs.getString(COLUMN_ACCOUNT_NUMBER), rs.getString(COLUMN_ACCOUNT_NAME));
+			account.setEntityId(id);
+			accountsById.put(id, account);
+		}
+
+		long beneficiaryId = rs.getLong(COLUMN_BENEFICIARY_ID);
+		if (rs.wasNull()) {
+			// an account without beneficiaries
+			return;
+		}
+		String name = rs.getString(COLUMN_BENEFICIARY_NAME);
+		account.addBeneficiary(name, Percentage.valueOf(rs.getBigDecimal(COLUMN_BENEFICIARY_ALLOCATION_PERCENTAGE)));
+		Beneficiary beneficiary = account.getBeneficiary(name);
+		beneficiary.setEntityId(beneficiaryId);
+		beneficiary.credit(new MonetaryAmount(rs.getBigDecimal(COLUMN_BENEFICIARY_SAVINGS)));
+	}
+
+}
@@ -1,27 +1,44 @@
 package accounts.internal;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.transaction.annotation.Transactional;
 
+import accounts.AccountVersion;
 import common.money.Percentage;
+import common.repository.InLists;
 import rewards.internal.account.Account;
 
 /**
  * An account manager that uses JPA to find accounts.
+ * <p>
+ * When caching is enabled, {@link #getAccount(Long)} is cached in the
+ * "accounts" cache, and every method changing an account evicts it.
  */
 @Repository
+@CacheConfig(cacheNames = "accounts")
 public class JpaAccountManager extends AbstractAccountManager {
 
 	private EntityManager entityManager;
 
+	private int batchSize = 100;
+
 	/**
 	 * Creates a new JPA account manager.
 	 * <p>
@@ -36,28 +53,120 @@ public class JpaAccountManager extends AbstractAccountManager {
 		this.entityManager = entityManager;
 	}
 
+	/**
+	 * Sets the number of accounts {@link #forEachAccount(Consumer)} loads with
+	 * each query. Defaults to 100.
+	 * 
+	 * @param batchSize
+	 *            the number of accounts per query
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	@SuppressWarnings("unchecked")
 	public List<Account> getAllAccounts() {
-		List<Account> l = entityManager.createQuery("select a from Account a LEFT JOIN FETCH a.beneficiaries")
+		// DISTINCT removes the repeats of an account fetched with several
+		// beneficiaries; the hint keeps it out of the SQL, where it would make
+		// the database sort the joined rows for nothing
+		return entityManager.createQuery("select distinct a from Account a LEFT JOIN FETCH a.beneficiaries")
+				.setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false).getResultList();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	@SuppressWarnings("unchecked")
+	public AccountVersion getAccountVersion(Long id) {
+		// the version is maintained by the database, so is not mapped
+		List<Object[]> rows = entityManager
+				.createNativeQuery("select VERSION, LAST_MODIFIED from T_ACCOUNT where ID = ?1").setParameter(1, id)
 				.getResultList();
+		if (rows.isEmpty())
+			return null;
 
-		// Use of "JOIN FETCH" produces duplicate accounts, and DISTINCT does
-		// not address this. So we have to filter it manually.
-		List<Account> result = new ArrayList<Account>();
+		Object[] row = rows.get(0);
+		return new AccountVersion(((Number) row[0]).longValue(), ((Timestamp) row[1]).getTime());
+	}
 
-		for (Account a : l) {
-			if (!result.contains(a))
-				result.add(a);
+	@Override
+	@Transactional(readOnly = true)
+	@SuppressWarnings("unchecked")
+	public List<Account> getAccounts(Collection<Long> ids) {
+		// a sorted set drops the repeated ids, and keeps each chunk of ids in
+		// account order
+		List<Account> l = new ArrayList<Account>();
+		for (List<Long> chunk : InLists.chunk(new TreeSet<Long>(ids))) {
+			l.addAll(entityManager
+					.createQuery("select distinct a from Account a LEFT JOIN FETCH a.beneficiaries where a.entityId in (:ids) order by a.entityId")
+					.setParameter("ids", chunk).setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+					.getResultList());
 		}
+		return l;
+	}
 
-		return result;
+	@Override
+	@Transactional(readOnly = true)
+	@SuppressWarnings("unchecked")
+	public List<Account> getAccounts(int offset, int limit) {
+		if (offset < 0 || limit < 0)
+			throw new IllegalArgumentException("Offset and limit must not be negative");
+
+		// Paging a "JOIN FETCH" query would page the joined rows, or make
+		// Hibernate page the whole result in memory. So select the page of
+		// ids first, then fetch just those accounts.
+		List<Long> ids = entityManager.createQuery("select a.entityId from Account a order by a.entityId")
+				.setFirstResult(offset).setMaxResults(limit).getResultList();
+		return getAccounts(ids);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	@SuppressWarnings("unchecked")
+	public List<Account> getAccountsAfter(Long afterId, int limit) {
+		if (limit < 0)
+			throw new IllegalArgumentException("Limit must not be negative");
+
+		Query query;
+		if (afterId == null) {
+			query = entityManager.createQuery("select a.entityId from Account a order by a.entityId");
+		} else {
+			query = entityManager
+					.createQuery("select a.entityId from Account a where a.entityId > :afterId order by a.entityId")
+					.setParameter("afterId", afterId);
+		}
+		List<Long> ids = query.setMaxResults(limit).getResultList();
+		return getAccounts(ids);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void forEachAccount(Consumer<Account> action) {
+		// Load the accounts a batch at a time, and detach each one once the
+		// action is done with it so the persistence context does not grow
+		List<Account> batch = getAccountsAfter(null, batchSize);
+		while (!batch.isEmpty()) {
+			for (Account account : batch) {
+				action.accept(account);
+				entityManager.detach(account);
+			}
+			if (batch.size() < batchSize)
+				break;
+			batch = getAccountsAfter(batch.get(batch.size() - 1).getEntityId(), batchSize);
+		}
 	}
 
 	@Override
 	@Transactional(readOnly = true)
+	@Cacheable(unless = "#result == null")
 	public Account getAccount(Long id) {
+		return getCurrentAccount(id);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Account getCurrentAccount(Long id) {
 		Account account = (Account) entityManager.find(Account.class, id);
 
 		if (account != null) {
@@ -77,12 +186,14 @@ public class JpaAccountManager extends AbstractAccountManager {
 
 	@Override
 	@Transactional
+	@CacheEvict(key = "#account.entityId")
 	public void update(Account account) {
 		entityManager.merge(account);
 	}
 
 	@Override
 	@Transactional
+	@CacheEvict(key = "#accountId")
 	public void updateBeneficiaryAllocationPercentages(Long accountId, Map<String, Percentage> allocationPercentages) {
 		Account account = getAccount(accountId);
 		for (Entry<String, Percentage> entry : allocationPercentages.entrySet()) {
@@ -92,12 +203,14 @@ public class JpaAccountManager extends AbstractAccountManager {
 
 	@Override
 	@Transactional
+	@CacheEvict(key = "#accountId")
 	public void addBeneficiary(Long accountId, String beneficiaryName) {
 		getAccount(accountId).addBeneficiary(beneficiaryName, Percentage.zero());
 	}
 
 	@Override
 	@Transactional
+	@CacheEvict(key = "#accountId")
 	public void removeBeneficiary(Long accountId, String beneficiaryName,
 			Map<String, Percentage> allocationPercentages) {
 		getAccount(accountId).removeBeneficiary(beneficiaryName);
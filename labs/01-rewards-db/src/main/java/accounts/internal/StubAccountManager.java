@@ -1,14 +1,19 @@
 package accounts.internal;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import org.springframework.orm.ObjectRetrievalFailureException;
 
+import accounts.AccountVersion;
+
 import rewards.internal.account.Account;
 import rewards.internal.account.Beneficiary;
 
@@ -39,6 +44,8 @@ public class StubAccountManager extends AbstractAccountManager {
 
 	private Map<Long, Account> accountsById = new HashMap<Long, Account>();
 
+	private Map<Long, AccountVersion> versionsById = new HashMap<Long, AccountVersion>();
+
 	private AtomicLong nextEntityId = new AtomicLong(3);
 
 	public StubAccountManager() {
@@ -56,6 +63,7 @@ public class StubAccountManager extends AbstractAccountManager {
 
 		// Save the account
 		accountsById.put(0L, account);
+		changed(0L);
 	}
 
 	@Override
@@ -68,6 +76,58 @@ public class StubAccountManager extends AbstractAccountManager {
 		return accountsById.get(id);
 	}
 
+	@Override
+	public Account getCurrentAccount(Long id) {
+		return getAccount(id);
+	}
+
+	@Override
+	public AccountVersion getAccountVersion(Long id) {
+		return versionsById.get(id);
+	}
+
+	@Override
+	public List<Account> getAccounts(Collection<Long> ids) {
+		List<Account> accounts = new ArrayList<Account>();
+		for (Long id : new TreeSet<Long>(ids)) {
+			Account account = accountsById.get(id);
+			if (account != null)
+				accounts.add(account);
+		}
+		return accounts;
+	}
+
+	@Override
+	public List<Account> getAccounts(int offset, int limit) {
+		if (offset < 0 || limit < 0)
+			throw new IllegalArgumentException("Offset and limit must not be negative");
+
+		List<Long> ids = new ArrayList<Long>(new TreeSet<Long>(accountsById.keySet()));
+		int from = Math.min(offset, ids.size());
+		int to = (int) Math.min((long) from + limit, ids.size());
+		return getAccounts(ids.subList(from, to));
+	}
+
+	@Override
+	public List<Account> getAccountsAfter(Long afterId, int limit) {
+		if (limit < 0)
+			throw new IllegalArgumentException("Limit must not be negative");
+
+		List<Long> ids = new ArrayList<Long>();
+		for (Long id : new TreeSet<Long>(accountsById.keySet())) {
+			if (ids.size() == limit)
+				break;
+			if (afterId == null || id > afterId)
+				ids.add(id);
+		}
+		return getAccounts(ids);
+	}
+
+	@Override
+	public void forEachAccount(Consumer<Account> action) {
+		getAccounts(accountsById.keySet()).forEach(action);
+	}
+
 	@Override
 	public Account save(Account newAccount) {
 		for (Beneficiary beneficiary : newAccount.getBeneficiaries()) {
@@ -76,12 +136,14 @@ public class StubAccountManager extends AbstractAccountManager {
 
 		newAccount.setEntityId(nextEntityId.getAndIncrement());
 		accountsById.put(newAccount.getEntityId(), newAccount);
+		changed(newAccount.getEntityId());
 		return newAccount;
 	}
 
 	@Override
 	public void update(Account account) {
 		accountsById.put(account.getEntityId(), account);
+		changed(account.getEntityId());
 	}
 
 	@Override
@@ -90,11 +152,13 @@ public class StubAccountManager extends AbstractAccountManager {
 		for (Entry<String, Percentage> entry : allocationPercentages.entrySet()) {
 			account.getBeneficiary(entry.getKey()).setAllocationPercentage(entry.getValue());
 		}
+		changed(accountId);
 	}
 
 	@Override
 	public void addBeneficiary(Long accountId, String beneficiaryName) {
 		accountsById.get(accountId).addBeneficiary(beneficiaryName, Percentage.zero());
+		changed(accountId);
 	}
 
 	@Override
@@ -104,4 +168,14 @@ public class StubAccountManager extends AbstractAccountManager {
 		updateBeneficiaryAllocationPercentages(accountId, allocationPercentages);
 	}
 
+	/**
+	 * Gives an account a new version, as the database does for the other
+	 * account managers.
+	 */
+	private void changed(Long accountId) {
+		AccountVersion version = versionsById.get(accountId);
+		versionsById.put(accountId,
+				new AccountVersion(version == null ? 0 : version.getVersion() + 1, System.currentTimeMillis()));
+	}
+
 }
@@ -4,6 +4,7 @@ import accounts.AccountManager;
 import accounts.internal.JpaAccountManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import rewards.internal.account.AccountRepository;
 import rewards.internal.account.JpaAccountRepository;
 import rewards.internal.restaurant.JpaRestaurantRepository;
@@ -20,8 +21,13 @@ import javax.sql.DataSource;
  * classes and packages, everything is explicitly created using @Bean methods.
  * Component-scanning risks picking up unwanted beans in the same package in
  * other projects.
+ * <p>
+ * Setting spring.threads.virtual.enabled runs the application on virtual
+ * threads - see {@link VirtualThreadConfig}. Setting rewards.cache.enabled
+ * caches account and restaurant lookups - see {@link CachingConfig}.
  */
 @Configuration
+@Import({ VirtualThreadConfig.class, CachingConfig.class })
 public class AppConfig {
 
 	@Bean
@@ -0,0 +1,216 @@
+package config;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+import common.cache.LocalCache;
+import common.cache.LocalCacheManager;
+import common.cache.NearCache;
+import common.cache.NearCacheManager;
+import common.cache.TransactionAwareCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Opt-in caching of account and restaurant lookups, enabled by setting the
+ * <code>rewards.cache.enabled</code> property to true - see
+ * {@link CachingProperties} for the other settings.
+ * <p>
+ * <code>AccountManager.getAccount(Long)</code> is cached in the "accounts"
+ * cache, and every account manager method changing an account evicts it once
+ * its transaction commits. <code>findByMerchantNumber(String)</code> of the
+ * restaurant repository is cached in the "restaurants" cache. Each cache is a
+ * {@link LocalCache} held in the memory of this process, or, if a shared cache
+ * manager is named, a {@link NearCache} in front of the shared cache.
+ * <p>
+ * A cached account is shared by every caller until it expires or is evicted,
+ * so must not be changed. Savings credited by the reward network do not go
+ * through the account manager, so a cached account shows them once it
+ * expires: the time to live of the "accounts" cache bounds how stale it gets.
+ * Responses tagged with the version of an account must not pair a new version
+ * with a stale account, so they read the account with
+ * <code>AccountManager.getCurrentAccount(Long)</code>, which is never cached.
+ * <p>
+ * With Spring Boot Actuator, the caches are listed by the
+ * <code>caches</code> endpoint, and their statistics are published as the
+ * <code>cache.*</code> metrics.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rewards.cache.enabled", havingValue = "true")
+@EnableCaching
+@EnableConfigurationProperties(CachingProperties.class)
+public class CachingConfig {
+
+	/**
+	 * The caches named by the @Cacheable methods, created at startup so the
+	 * actuator lists them before their first use.
+	 */
+	public static final List<String> CACHE_NAMES = List.of("accounts", "restaurants");
+
+	@Bean
+	@Primary
+	public CacheManager cacheManager(CachingProperties properties, BeanFactory beanFactory) {
+		Set<String> cacheNames = new LinkedHashSet<String>(CACHE_NAMES);
+		cacheNames.addAll(properties.getSpecs().keySet());
+
+		LocalCacheManager localCacheManager = new LocalCacheManager();
+		localCacheManager.setDefaultTimeToLive(properties.getTimeToLive());
+		localCacheManager.setDefaultCapacity(properties.getCapacity());
+		for (Map.Entry<String, CachingProperties.Spec> entry : properties.getSpecs().entrySet()) {
+			CachingProperties.Spec spec = entry.getValue();
+			if (spec.getTimeToLive() != null)
+				localCacheManager.setTimeToLive(entry.getKey(), spec.getTimeToLive());
+			if (spec.getCapacity() != null)
+				localCacheManager.setCapacity(entry.getKey(), spec.getCapacity());
+		}
+
+		if (!StringUtils.hasText(properties.getSharedCacheManager())) {
+			localCacheManager.setCacheNames(cacheNames);
+			localCacheManager.setTransactionAware(true);
+			return localCacheManager;
+		}
+
+		// The local caches are only created for the shared caches they are in
+		// front of, and the near caches are the ones that wait for the commit
+		localCacheManager.afterPropertiesSet();
+		CacheManager sharedCacheManager = beanFactory.getBean(properties.getSharedCacheManager(), CacheManager.class);
+		NearCacheManager nearCacheManager = new NearCacheManager(localCacheManager, sharedCacheManager);
+		nearCacheManager.setCacheNames(cacheNames);
+		nearCacheManager.setTransactionAware(true);
+		return nearCacheManager;
+	}
+
+	/**
+	 * Publishes the statistics of the caches as Micrometer metrics, when Spring
+	 * Boot Actuator binds the caches to the meter registry.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = {
+			"org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider",
+			"io.micrometer.core.instrument.binder.cache.CacheMeterBinder" })
+	static class CacheMetricsConfig {
+
+		@Bean
+		public CacheMeterBinderProvider<Cache> rewardsCacheMeterBinderProvider() {
+			return new RewardsCacheMeterBinderProvider();
+		}
+	}
+
+	/**
+	 * Binds the {@link LocalCache}s and {@link NearCache}s, looking through the
+	 * {@link TransactionAwareCache} around them. Returns null for other caches,
+	 * leaving them to the other providers.
+	 */
+	static class RewardsCacheMeterBinderProvider implements CacheMeterBinderProvider<Cache> {
+
+		@Override
+		public MeterBinder getMeterBinder(Cache cache, Iterable<Tag> tags) {
+			if (cache instanceof TransactionAwareCache)
+				cache = ((TransactionAwareCache) cache).getTargetCache();
+
+			if (cache instanceof LocalCache)
+				return new LocalCacheMeterBinder((LocalCache) cache, tags);
+			if (cache instanceof NearCache)
+				return new NearCacheMeterBinder((NearCache) cache, tags);
+			return null;
+		}
+	}
+
+	static class LocalCacheMeterBinder extends CacheMeterBinder<LocalCache> {
+
+		LocalCacheMeterBinder(LocalCache cache, Iterable<Tag> tags) {
+			super(cache, cache.getName(), tags);
+		}
+
+		@Override
+		protected Long size() {
+			return (long) getCache().getSize();
+		}
+
+		@Override
+		protected long hitCount() {
+			return getCache().getHitCount();
+		}
+
+		@Override
+		protected Long missCount() {
+			return getCache().getMissCount();
+		}
+
+		@Override
+		protected Long evictionCount() {
+			return getCache().getEvictionCount();
+		}
+
+		@Override
+		protected long putCount() {
+			return getCache().getPutCount();
+		}
+
+		@Override
+		protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+		}
+	}
+
+	/**
+	 * Binds the reads of both levels as the hits, and adds the reads the near
+	 * cache answered as <code>cache.near.hits</code>. The far cache is bound by
+	 * its own cache manager.
+	 */
+	static class NearCacheMeterBinder extends CacheMeterBinder<NearCache> {
+
+		NearCacheMeterBinder(NearCache cache, Iterable<Tag> tags) {
+			super(cache, cache.getName(), tags);
+		}
+
+		@Override
+		protected Long size() {
+			return null;
+		}
+
+		@Override
+		protected long hitCount() {
+			return getCache().getNearHitCount() + getCache().getFarHitCount();
+		}
+
+		@Override
+		protected Long missCount() {
+			return getCache().getMissCount();
+		}
+
+		@Override
+		protected Long evictionCount() {
+			return null;
+		}
+
+		@Override
+		protected long putCount() {
+			return getCache().getPutCount();
+		}
+
+		@Override
+		protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+			FunctionCounter.builder("cache.near.hits", getCache(), NearCache::getNearHitCount)
+					.tags(getTagsWithCacheName()).description("The number of reads the near cache answered")
+					.register(registry);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import common.cache.LocalCacheManager;
+
+/**
+ * The <code>rewards.cache</code> properties of the {@link CachingConfig}. For
+ * example:
+ *
+ * <pre>
+ * rewards.cache.enabled=true
+ * rewards.cache.time-to-live=10m
+ * rewards.cache.specs.accounts.time-to-live=30s
+ * rewards.cache.specs.restaurants.capacity=100
+ * </pre>
+ */
+@ConfigurationProperties("rewards.cache")
+public class CachingProperties {
+
+	/**
+	 * Whether account and restaurant lookups are cached.
+	 */
+	private boolean enabled;
+
+	/**
+	 * How long an entry is cached after it was written, unless its cache has a
+	 * time to live of its own. Zero keeps entries until they are evicted.
+	 */
+	private Duration timeToLive = Duration.ofMinutes(10);
+
+	/**
+	 * The maximum number of entries of a cache without a capacity of its own.
+	 */
+	private int capacity = LocalCacheManager.DEFAULT_CAPACITY;
+
+	/**
+	 * The name of a CacheManager bean shared by every instance of the
+	 * application. If set, each cache becomes a near cache of this process in
+	 * front of the cache of the same name of the shared cache manager.
+	 */
+	private String sharedCacheManager;
+
+	/**
+	 * The time to live and capacity of individual caches, by cache name.
+	 */
+	private Map<String, Spec> specs = new LinkedHashMap<String, Spec>();
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getTimeToLive() {
+		return timeToLive;
+	}
+
+	public void setTimeToLive(Duration timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public String getSharedCacheManager() {
+		return sharedCacheManager;
+	}
+
+	public void setSharedCacheManager(String sharedCacheManager) {
+		this.sharedCacheManager = sharedCacheManager;
+	}
+
+	public Map<String, Spec> getSpecs() {
+		return specs;
+	}
+
+	public void setSpecs(Map<String, Spec> specs) {
+		this.specs = specs;
+	}
+
+	/**
+	 * The settings of a single cache. Unset values default to those of all
+	 * caches.
+	 */
+	public static class Spec {
+
+		private Duration timeToLive;
+
+		private Integer capacity;
+
+		public Duration getTimeToLive() {
+			return timeToLive;
+		}
+
+		public void setTimeToLive(Duration timeToLive) {
+			this.timeToLive = timeToLive;
+		}
+
+		public Integer getCapacity() {
+			return capacity;
+		}
+
+		public void setCapacity(Integer capacity) {
+			this.capacity = capacity;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package config;
+
+import common.concurrent.PinnedThreadDetector;
+import common.concurrent.VirtualThreads;
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.time.Duration;
+
+/**
+ * Opt-in virtual thread mode, enabled by setting the
+ * <code>spring.threads.virtual.enabled</code> property to true - the name
+ * Spring Boot 3.2 later gave the same switch.
+ * <p>
+ * On a Java runtime with virtual threads (Java 21 or later):
+ * <ul>
+ * <li>Tomcat handles each request on a new virtual thread instead of on its
+ * pool of platform threads, so a request waiting on JDBC no longer ties up a
+ * platform thread.</li>
+ * <li>The application task executor, used by @Async methods and asynchronous
+ * Spring MVC requests, starts a virtual thread for each task.</li>
+ * <li>A {@link PinnedThreadDetector} logs virtual threads that block while
+ * pinned to their carrier thread, such as inside a synchronized block
+ * around a JDBC call.</li>
+ * </ul>
+ * The connection pool still limits how many requests use the database at
+ * once. On older runtimes the property only logs a warning, and the platform
+ * thread pools are used.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+	public VirtualThreadConfig() {
+		if (!VirtualThreads.isSupported()) {
+			logger.warn("spring.threads.virtual.enabled is true, but Java {} has no virtual threads - using platform threads",
+					System.getProperty("java.specification.version"));
+		}
+	}
+
+	@Configuration
+	@Conditional(VirtualThreadsSupported.class)
+	static class VirtualThreadExecutorConfig {
+
+		@Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+				AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+		public AsyncTaskExecutor applicationTaskExecutor() {
+			return new TaskExecutorAdapter(VirtualThreads.newThreadPerTaskExecutor("task-"));
+		}
+
+		@Bean(initMethod = "start", destroyMethod = "close")
+		public PinnedThreadDetector pinnedThreadDetector(
+				@Value("${rewards.threads.pinned-threshold-millis:20}") long thresholdMillis) {
+			return new PinnedThreadDetector(Duration.ofMillis(thresholdMillis));
+		}
+	}
+
+	@Configuration
+	@Conditional(VirtualThreadsSupported.class)
+	@ConditionalOnClass(name = "org.apache.catalina.startup.Tomcat")
+	static class TomcatVirtualThreadConfig {
+
+		@Bean
+		public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+			return protocolHandler -> protocolHandler
+					.setExecutor(VirtualThreads.newThreadPerTaskExecutor("tomcat-handler-"));
+		}
+	}
+
+	/**
+	 * Matches when the Java runtime has virtual threads.
+	 */
+	static class VirtualThreadsSupported implements Condition {
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			return VirtualThreads.isSupported();
+		}
+	}
+}
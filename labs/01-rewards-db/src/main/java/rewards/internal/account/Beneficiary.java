@@ -50,7 +50,7 @@ public class Beneficiary {
 	 */
 	public Beneficiary(String name, Percentage allocationPercentage) {
 		this.name = name;
-		this.allocationPercentage = allocationPercentage;
+		this.allocationPercentage = allocationPercentage.copy();
 	}
 
 	/**
@@ -70,7 +70,7 @@ public class Beneficiary {
 	Beneficiary(String name, Percentage allocationPercentage,
 			MonetaryAmount savings) {
 		this.name = name;
-		this.allocationPercentage = allocationPercentage;
+		this.allocationPercentage = allocationPercentage.copy();
 		this.savings = savings;
 	}
 
@@ -119,7 +119,7 @@ public class Beneficiary {
 	 *            The new allocation percentage
 	 */
 	public void setAllocationPercentage(Percentage allocationPercentage) {
-		this.allocationPercentage = allocationPercentage;
+		this.allocationPercentage = allocationPercentage.copy();
 	}
 
 	/**
@@ -2,6 +2,7 @@ package rewards.internal.restaurant;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -10,6 +11,9 @@ import javax.persistence.criteria.CriteriaQuery;
 
 /**
  * Loads restaurants from a data source using JPA.
+ * <p>
+ * When caching is enabled, restaurants are cached by merchant number in the
+ * "restaurants" cache.
  */
 public class JpaRestaurantRepository implements RestaurantRepository {
 
@@ -37,6 +41,7 @@ public class JpaRestaurantRepository implements RestaurantRepository {
 	}
 
 	@Override
+	@Cacheable("restaurants")
 	public Restaurant findByMerchantNumber(String merchantNumber) {
 		return entityManager //
 				.createQuery(RESTAURANT_BY_MERCHANT_QUERY, Restaurant.class) //
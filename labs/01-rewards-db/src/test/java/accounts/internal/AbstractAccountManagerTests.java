@@ -1,9 +1,11 @@
 package accounts.internal;
 
 import accounts.AccountManager;
+import accounts.AccountVersion;
 import ch.qos.logback.classic.Level;
 import common.money.MonetaryAmount;
 import common.money.Percentage;
+import common.repository.InLists;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,12 +15,20 @@ import org.springframework.transaction.annotation.Transactional;
 import rewards.internal.account.Account;
 import rewards.internal.account.Beneficiary;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Integration test for an account manager implementation.
@@ -90,6 +100,117 @@ public abstract class AbstractAccountManagerTests {
 		assertEquals(Percentage.valueOf("50%"), b2.getAllocationPercentage(), "wrong allocation percentage");
 	}
 
+	@Test
+	@Transactional
+	public void getAccountVersion() {
+		// As for addAccount, changes made through a manually configured JPA
+		// account manager do not reach the database
+		if (accountManager instanceof JpaAccountManager
+				&& this.getClass().getAnnotation(ContextConfiguration.class) == null)
+			return;
+
+		AccountVersion original = accountManager.getAccountVersion(0L);
+		assertNotNull(original, "account 0 should have a version");
+
+		accountManager.addBeneficiary(0L, "Ben");
+		AccountVersion added = accountManager.getAccountVersion(0L);
+		assertTrue(added.getVersion() > original.getVersion(), "Adding a beneficiary should change the version");
+		assertTrue(added.getLastModified() >= original.getLastModified(), "Last modified should not go back");
+
+		Map<String, Percentage> allocationPercentages = new HashMap<String, Percentage>();
+		allocationPercentages.put("Annabelle", Percentage.valueOf("25%"));
+		allocationPercentages.put("Corgan", Percentage.valueOf("75%"));
+		accountManager.updateBeneficiaryAllocationPercentages(0L, allocationPercentages);
+		AccountVersion updated = accountManager.getAccountVersion(0L);
+		assertTrue(updated.getVersion() > added.getVersion(), "Updating beneficiaries should change the version");
+		assertNotEquals(original.getETag(), updated.getETag(), "The entity tag should change with the version");
+
+		assertNull(accountManager.getAccountVersion(99999L), "Should find no version for an unknown account");
+	}
+
+	@Test
+	@Transactional
+	public void getAccountsByIds() {
+		List<Account> accounts = accountManager.getAccounts(Arrays.asList(0L, 0L, 99999L, 0L));
+		assertEquals(1, accounts.size(), "Should find account 0 once, and nothing for an unknown id");
+		assertEquals(0L, accounts.get(0).getEntityId().longValue(), "wrong entity id");
+		assertEquals(2, accounts.get(0).getBeneficiaries().size(), "wrong beneficiary collection size");
+
+		assertTrue(accountManager.getAccounts(Collections.<Long>emptyList()).isEmpty(), "Should find no accounts");
+	}
+
+	@Test
+	@Transactional
+	public void getAccountsByMoreIdsThanOneInList() {
+		List<Long> ids = new ArrayList<Long>();
+		for (long id = InLists.MAX_SIZE * 2; id >= 0; id--) {
+			ids.add(id);
+		}
+		List<Account> accounts = accountManager.getAccounts(ids);
+		assertEquals(getNumAccountsExpected(), accounts.size(), "Should find every account once");
+		assertEquals(0L, accounts.get(0).getEntityId().longValue(), "Should find the accounts in id order");
+	}
+
+	@Test
+	@Transactional
+	public void getAccountsByPage() {
+		Map<Long, Account> allAccounts = new HashMap<Long, Account>();
+		for (Account account : accountManager.getAllAccounts())
+			allAccounts.put(account.getEntityId(), account);
+
+		// Page through all the accounts, two at a time
+		List<Long> ids = new ArrayList<Long>();
+		for (int offset = 0; offset < getNumAccountsExpected(); offset += 2) {
+			List<Account> page = accountManager.getAccounts(offset, 2);
+			assertTrue(page.size() >= 1 && page.size() <= 2, "Wrong page size " + page.size());
+			for (Account account : page) {
+				assertEquals(allAccounts.get(account.getEntityId()).getBeneficiaries().size(),
+						account.getBeneficiaries().size(), "Beneficiaries should be loaded");
+				ids.add(account.getEntityId());
+			}
+		}
+		assertEquals(getNumAccountsExpected(), ids.size(), "Wrong number of accounts");
+		assertEquals(new ArrayList<Long>(new TreeSet<Long>(ids)), ids, "Accounts should be distinct and in id order");
+
+		assertTrue(accountManager.getAccounts(getNumAccountsExpected(), 2).isEmpty(), "Should be past the last page");
+		assertTrue(accountManager.getAccounts(0, 0).isEmpty(), "Should find no accounts");
+		assertThrows(IllegalArgumentException.class, () -> accountManager.getAccounts(-1, 2));
+	}
+
+	@Test
+	@Transactional
+	public void getAccountsAfter() {
+		// Page through all the accounts, three at a time, from the last id of
+		// each page
+		List<Long> ids = new ArrayList<Long>();
+		List<Account> page = accountManager.getAccountsAfter(null, 3);
+		while (!page.isEmpty()) {
+			assertTrue(page.size() <= 3, "Wrong page size " + page.size());
+			for (Account account : page)
+				ids.add(account.getEntityId());
+			page = accountManager.getAccountsAfter(ids.get(ids.size() - 1), 3);
+		}
+		assertEquals(getNumAccountsExpected(), ids.size(), "Wrong number of accounts");
+		assertEquals(new ArrayList<Long>(new TreeSet<Long>(ids)), ids, "Accounts should be distinct and in id order");
+	}
+
+	@Test
+	@Transactional
+	public void forEachAccount() {
+		Map<Long, Integer> beneficiaryCounts = new HashMap<Long, Integer>();
+		for (Account account : accountManager.getAllAccounts())
+			beneficiaryCounts.put(account.getEntityId(), account.getBeneficiaries().size());
+
+		List<Long> ids = new ArrayList<Long>();
+		accountManager.forEachAccount(account -> {
+			assertEquals(beneficiaryCounts.get(account.getEntityId()).intValue(),
+					account.getBeneficiaries().size(), "Beneficiaries should be loaded");
+			ids.add(account.getEntityId());
+		});
+		assertEquals(getNumAccountsExpected(), ids.size(), "Wrong number of accounts");
+		assertEquals(new ArrayList<Long>(new TreeSet<Long>(ids)), ids, "Accounts should be distinct and in id order");
+	}
+
 	@Test
 	@Transactional
 	public void addAccount() {
@@ -0,0 +1,45 @@
+package accounts.internal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Manually configured integration test (not using Spring) for the JDBC-based
+ * account manager implementation. Each test runs in a transaction that is
+ * rolled back afterwards.
+ */
+public class JdbcAccountManagerTests extends AbstractDatabaseAccountManagerTests {
+
+	public JdbcAccountManagerTests() {
+		dataSource = new EmbeddedDatabaseBuilder().generateUniqueName(true) //
+				.addScript("/rewards/testdb/schema.sql") //
+				.addScript("/rewards/testdb/data.sql") //
+				.build();
+		accountManager = new JdbcAccountManager(dataSource);
+		transactionManager = new DataSourceTransactionManager(dataSource);
+	}
+
+	@Test
+	@Override
+	public void testProfile() {
+		assertTrue(accountManager.getInfo().equals("JDBC"), "JDBC expected but found " + accountManager.getInfo());
+	}
+
+	@BeforeEach
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		transactionUtils.beginTransaction();
+	}
+
+	@AfterEach
+	public void tearDown() throws Exception {
+		transactionUtils.rollbackTransaction();
+	}
+
+}
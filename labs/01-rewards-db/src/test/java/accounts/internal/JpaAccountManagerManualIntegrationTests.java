@@ -44,6 +44,8 @@ public class JpaAccountManagerManualIntegrationTests extends AbstractDatabaseAcc
 
 		JpaAccountManager accountManager = new JpaAccountManager();
 		accountManager.setEntityManager(dataManagementSetup.createEntityManager());
+		// several batches for forEachAccount
+		accountManager.setBatchSize(4);
 		this.accountManager = accountManager;
 		transactionManager = dataManagementSetup.getTransactionManager();
 	}
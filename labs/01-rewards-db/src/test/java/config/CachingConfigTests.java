@@ -0,0 +1,144 @@
+package config;
+
+import common.cache.LocalCache;
+import common.cache.NearCache;
+import common.cache.NearCacheManager;
+import common.cache.TransactionAwareCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the cache managers the caching configuration creates, and that the
+ * cached methods of a bean are cached and evicted.
+ */
+public class CachingConfigTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withUserConfiguration(CachingConfig.class);
+
+	@Test
+	public void noCachingByDefault() {
+		contextRunner.run(context -> assertThat(context).doesNotHaveBean(CacheManager.class));
+	}
+
+	@Test
+	public void localCachesWithTimesToLive() {
+		contextRunner
+				.withPropertyValues("rewards.cache.enabled=true", "rewards.cache.time-to-live=5m",
+						"rewards.cache.specs.accounts.time-to-live=30s", "rewards.cache.specs.restaurants.capacity=50")
+				.run(context -> {
+					CacheManager cacheManager = context.getBean(CacheManager.class);
+					assertThat(cacheManager.getCacheNames()).containsExactly("accounts", "restaurants");
+
+					LocalCache accounts = localCache(cacheManager.getCache("accounts"));
+					assertThat(accounts.getTimeToLive()).isEqualTo(Duration.ofSeconds(30));
+					LocalCache restaurants = localCache(cacheManager.getCache("restaurants"));
+					assertThat(restaurants.getTimeToLive()).isEqualTo(Duration.ofMinutes(5));
+					assertThat(restaurants.getCapacity()).isEqualTo(50);
+				});
+	}
+
+	@Test
+	public void nearCachesInFrontOfSharedCacheManager() {
+		contextRunner.withUserConfiguration(SharedCacheConfig.class)
+				.withPropertyValues("rewards.cache.enabled=true", "rewards.cache.shared-cache-manager=sharedCacheManager")
+				.run(context -> {
+					CacheManager cacheManager = context.getBean(CacheManager.class);
+					assertThat(cacheManager).isInstanceOf(NearCacheManager.class);
+					Cache cache = ((TransactionAwareCache) cacheManager.getCache("accounts")).getTargetCache();
+					assertThat(cache).isInstanceOf(NearCache.class);
+					assertThat(((NearCache) cache).getFarCache())
+							.isSameAs(context.getBean("sharedCacheManager", CacheManager.class).getCache("accounts"));
+				});
+	}
+
+	@Test
+	public void cachedMethodsCachedAndEvicted() {
+		contextRunner.withUserConfiguration(AccountLookupConfig.class).withPropertyValues("rewards.cache.enabled=true")
+				.run(context -> {
+					AccountLookup lookup = context.getBean(AccountLookup.class);
+					lookup.getAccount(1L);
+					lookup.getAccount(1L);
+					assertThat(lookup.getLoads()).isEqualTo(1);
+
+					lookup.update(1L);
+					lookup.getAccount(1L);
+					assertThat(lookup.getLoads()).isEqualTo(2);
+				});
+	}
+
+	@Test
+	public void cacheStatisticsBound() {
+		contextRunner.withPropertyValues("rewards.cache.enabled=true").run(context -> {
+			Cache cache = context.getBean(CacheManager.class).getCache("accounts");
+			cache.put(1L, "account");
+			cache.get(1L);
+			cache.get(2L);
+
+			SimpleMeterRegistry registry = new SimpleMeterRegistry();
+			new CachingConfig.RewardsCacheMeterBinderProvider().getMeterBinder(cache, List.of())
+					.bindTo(registry);
+			assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+			assertThat(registry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+			assertThat(registry.get("cache.puts").functionCounter().count()).isEqualTo(1);
+			assertThat(registry.get("cache.size").gauge().value()).isEqualTo(1);
+		});
+	}
+
+	private static LocalCache localCache(Cache cache) {
+		return (LocalCache) ((TransactionAwareCache) cache).getTargetCache();
+	}
+
+	@Configuration
+	static class SharedCacheConfig {
+
+		@Bean
+		public CacheManager sharedCacheManager() {
+			return new ConcurrentMapCacheManager("accounts", "restaurants");
+		}
+	}
+
+	@Configuration
+	@Import(CachingConfig.class)
+	static class AccountLookupConfig {
+
+		@Bean
+		public AccountLookup accountLookup() {
+			return new AccountLookup();
+		}
+	}
+
+	static class AccountLookup {
+
+		private final AtomicInteger loads = new AtomicInteger();
+
+		@Cacheable("accounts")
+		public String getAccount(Long id) {
+			loads.incrementAndGet();
+			return "account " + id;
+		}
+
+		@CacheEvict(cacheNames = "accounts", key = "#id")
+		public void update(Long id) {
+		}
+
+		public int getLoads() {
+			return loads.get();
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package config;
+
+import common.concurrent.PinnedThreadDetector;
+import common.concurrent.VirtualThreads;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests which executors the virtual thread mode replaces. Which tests run
+ * depends on whether the Java runtime has virtual threads.
+ */
+public class VirtualThreadConfigTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class))
+			.withUserConfiguration(VirtualThreadConfig.class);
+
+	@Test
+	public void platformThreadsByDefault() {
+		contextRunner.run(context -> {
+			assertThat(context).doesNotHaveBean(VirtualThreadConfig.class);
+			assertThat(context).doesNotHaveBean(PinnedThreadDetector.class);
+			assertThat(context.getBean(AsyncTaskExecutor.class)).isInstanceOf(ThreadPoolTaskExecutor.class);
+		});
+	}
+
+	@Test
+	public void platformThreadsWithoutVirtualThreadSupport() {
+		assumeFalse(VirtualThreads.isSupported());
+		contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+			assertThat(context).hasSingleBean(VirtualThreadConfig.class);
+			assertThat(context).doesNotHaveBean(PinnedThreadDetector.class);
+			assertThat(context).doesNotHaveBean(TomcatProtocolHandlerCustomizer.class);
+			assertThat(context.getBean(AsyncTaskExecutor.class)).isInstanceOf(ThreadPoolTaskExecutor.class);
+		});
+	}
+
+	@Test
+	public void virtualThreadsWhenEnabled() {
+		assumeTrue(VirtualThreads.isSupported());
+		contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+			assertThat(context).hasSingleBean(PinnedThreadDetector.class);
+			assertThat(context).hasSingleBean(TomcatProtocolHandlerCustomizer.class);
+			AsyncTaskExecutor executor = context.getBean(AsyncTaskExecutor.class);
+			assertThat(executor).isInstanceOf(TaskExecutorAdapter.class);
+			assertThat(context.getBean("taskExecutor")).isSameAs(executor);
+
+			Future<String> threadName = executor.submit(() -> Thread.currentThread().getName());
+			assertThat(threadName.get()).startsWith("task-");
+		});
+	}
+}
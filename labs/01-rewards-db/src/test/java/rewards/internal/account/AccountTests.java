@@ -50,4 +50,13 @@ public class AccountTests {
 		assertEquals(MonetaryAmount.valueOf("50.00"), contribution.getDistribution("Annabelle").getAmount());
 		assertEquals(MonetaryAmount.valueOf("50.00"), contribution.getDistribution("Corgan").getAmount());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void beneficiaryHoldsItsOwnAllocationPercentage() {
+		// Hibernate may update the embedded percentage in place, so it must not be the shared canonical instance
+		account.addBeneficiary("Annabelle", Percentage.valueOf("50%"));
+		Percentage allocation = account.getBeneficiary("Annabelle").getAllocationPercentage();
+		assertNotSame(Percentage.valueOf("50%"), allocation);
+		assertEquals(Percentage.valueOf("50%"), allocation);
+	}
+}
@@ -1,21 +1,70 @@
 package config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 
 import rewards.internal.monitor.MonitorFactory;
-import rewards.internal.monitor.jamon.JamonMonitorFactory;
+import rewards.internal.monitor.histogram.HistogramMonitorFactory;
+import rewards.internal.monitor.sampling.AdaptiveSampling;
+import rewards.internal.monitor.sampling.AlwaysSample;
+import rewards.internal.monitor.sampling.OneInNSampling;
+import rewards.internal.monitor.sampling.RateLimitedSampling;
+import rewards.internal.monitor.sampling.SamplingMonitorFactory;
+import rewards.internal.monitor.sampling.SamplingPolicy;
 
+/**
+ * Configures the aspects, and the monitor factory timing the repository calls.
+ * <p>
+ * By default every call is timed. To time only a sample, set
+ * <code>rewards.monitor.sampling</code> to <code>one-in-n</code> (with
+ * <code>rewards.monitor.sampling.one-in</code>, default 100) or
+ * <code>per-second</code> (with
+ * <code>rewards.monitor.sampling.per-second</code>, default 100). Setting
+ * <code>rewards.monitor.sampling.slo-millis</code> as well times every call to
+ * a method while its latency is above that objective.
+ */
 @Configuration
 @ComponentScan(basePackages="rewards.internal.aspects")
 @EnableAspectJAutoProxy
 public class AspectsConfig {
 
+	@Value("${rewards.monitor.sampling:always}")
+	private String sampling;
+
+	@Value("${rewards.monitor.sampling.one-in:100}")
+	private int oneIn;
+
+	@Value("${rewards.monitor.sampling.per-second:100}")
+	private int perSecond;
+
+	@Value("${rewards.monitor.sampling.slo-millis:0}")
+	private long sloMillis;
+
 	@Bean
 	public MonitorFactory monitorFactory(){
-		return new JamonMonitorFactory();
+		SamplingPolicy samplingPolicy = samplingPolicy();
+		if (samplingPolicy instanceof AlwaysSample) {
+			return new HistogramMonitorFactory();
+		}
+		return new SamplingMonitorFactory(new HistogramMonitorFactory(), samplingPolicy);
+	}
+
+	private SamplingPolicy samplingPolicy() {
+		SamplingPolicy policy;
+		if ("always".equals(sampling)) {
+			policy = new AlwaysSample();
+		} else if ("one-in-n".equals(sampling)) {
+			policy = new OneInNSampling(oneIn);
+		} else if ("per-second".equals(sampling)) {
+			policy = new RateLimitedSampling(perSecond);
+		} else {
+			throw new IllegalArgumentException("Unknown sampling '" + sampling
+					+ "', expected always, one-in-n or per-second");
+		}
+		return sloMillis > 0 ? new AdaptiveSampling(sloMillis, policy) : policy;
 	}
 	
 }
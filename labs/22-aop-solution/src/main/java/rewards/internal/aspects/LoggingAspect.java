@@ -1,11 +1,16 @@
 package rewards.internal.aspects;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +18,7 @@ import org.springframework.stereotype.Component;
 
 import rewards.internal.monitor.Monitor;
 import rewards.internal.monitor.MonitorFactory;
+import rewards.internal.monitor.MonitorHandle;
 
 @Aspect
 @Component
@@ -23,6 +29,12 @@ public class LoggingAspect {
 	private Logger logger = LoggerFactory.getLogger(getClass());
 	private MonitorFactory monitorFactory;
 
+	/**
+	 * The monitor handle of each advised method, so the trace name is only built the first time the method is called.
+	 * Keyed by Method rather than Signature, as Spring creates a new Signature for every call.
+	 */
+	private Map<Method, MonitorHandle> monitorHandles = new ConcurrentHashMap<>();
+
 	@Autowired
 	public LoggingAspect(MonitorFactory monitorFactory) {
 		super();
@@ -31,30 +43,43 @@ public class LoggingAspect {
 
 	@Before("execution(public * rewards.internal.*.*Repository.find*(..))")
 	public void implLogging(JoinPoint joinPoint) {
-        logger.info(BEFORE + " advice implementation - " + joinPoint.getTarget().getClass() + //
-                    "; Executing before " + joinPoint.getSignature().getName() + //
-                    "() method");
-
+		if (logger.isInfoEnabled()) {
+			logger.info("{} advice implementation - {}; Executing before {}() method", BEFORE,
+					joinPoint.getTarget().getClass(), joinPoint.getSignature().getName());
+		}
 	}
 
 	@Around("execution(public * rewards.internal.*.*Repository.update*(..))")
 	public Object monitor(ProceedingJoinPoint repositoryMethod) throws Throwable {
-		String name = createJoinPointTraceName(repositoryMethod);
-		Monitor monitor = monitorFactory.start(name);
+		Monitor monitor = monitorHandleFor(repositoryMethod).start();
 		try {
 			return repositoryMethod.proceed();
 		} finally {
 			monitor.stop();
-            logger.info(AROUND + " advice implementation - " + monitor);
-
+			if (logger.isInfoEnabled()) {
+				logger.info("{} advice implementation - {}", AROUND, monitor);
+			}
 		}
 	}
 
-	private String createJoinPointTraceName(JoinPoint joinPoint) {
+	private MonitorHandle monitorHandleFor(JoinPoint joinPoint) {
 		Signature signature = joinPoint.getSignature();
+		if (!(signature instanceof MethodSignature)) {
+			return monitorFactory.getHandle(createJoinPointTraceName(signature));
+		}
+		Method method = ((MethodSignature) signature).getMethod();
+		MonitorHandle handle = monitorHandles.get(method);
+		if (handle == null) {
+			handle = monitorHandles.computeIfAbsent(method,
+					key -> monitorFactory.getHandle(createJoinPointTraceName(signature)));
+		}
+		return handle;
+	}
+
+	private String createJoinPointTraceName(Signature signature) {
 		StringBuilder sb = new StringBuilder();
 		sb.append(signature.getDeclaringType().getSimpleName());
 		sb.append('.').append(signature.getName());
 		return sb.toString();
 	}
-}
\ No newline at end of file
+}
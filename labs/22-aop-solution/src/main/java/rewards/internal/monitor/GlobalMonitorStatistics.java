@@ -21,4 +21,15 @@ public interface GlobalMonitorStatistics {
 	long minimumCallTime(String methodName);
 
 	long maximumCallTime(String methodName);
+
+	/**
+	 * Returns the fraction of all monitored calls that were timed, from 0 to 1. Divide a call count by it to estimate
+	 * the number of calls made.
+	 */
+	double getSampleRate();
+
+	/**
+	 * Returns the fraction of the calls to the given method that were timed, from 0 to 1.
+	 */
+	double sampleRate(String methodName);
 }
@@ -3,4 +3,9 @@ package rewards.internal.monitor;
 public interface MonitorFactory {
 
 	Monitor start(String name);
+
+	/**
+	 * Returns a handle that starts monitors for the given name, resolving the name once rather than on every call.
+	 */
+	MonitorHandle getHandle(String name);
 }
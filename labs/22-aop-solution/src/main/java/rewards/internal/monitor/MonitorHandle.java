@@ -0,0 +1,6 @@
+package rewards.internal.monitor;
+
+public interface MonitorHandle {
+
+	Monitor start();
+}
@@ -0,0 +1,90 @@
+package rewards.internal.monitor.histogram;
+
+import java.util.concurrent.TimeUnit;
+
+import rewards.internal.monitor.Monitor;
+import rewards.internal.monitor.MonitorStatistics;
+
+/**
+ * Times one call to a monitored method, and reports the statistics of all calls to it. Call times are measured in
+ * nanoseconds and reported in milliseconds, like those of the Jamon monitors.
+ */
+public class HistogramMonitor implements Monitor, MonitorStatistics {
+
+	private final HistogramMonitorFactory monitorFactory;
+
+	private final LatencyRecorder recorder;
+
+	private long startTime;
+
+	HistogramMonitor(HistogramMonitorFactory monitorFactory, LatencyRecorder recorder) {
+		this.monitorFactory = monitorFactory;
+		this.recorder = recorder;
+	}
+
+	public Monitor start() {
+		startTime = monitorFactory.nanoTime();
+		return this;
+	}
+
+	public Monitor stop() {
+		long now = monitorFactory.nanoTime();
+		monitorFactory.record(recorder, now - startTime, now);
+		return this;
+	}
+
+	public String getName() {
+		return recorder.getName();
+	}
+
+	public long getLastCallTime() {
+		return millis(recorder.getLastValue());
+	}
+
+	public long getCallCount() {
+		return recorder.getTotal().getCount();
+	}
+
+	public long getAverageCallTime() {
+		long count = recorder.getTotal().getCount();
+		return count == 0 ? 0 : millis(recorder.getTotal().getTotal() / count);
+	}
+
+	public long getTotalCallTime() {
+		return millis(recorder.getTotal().getTotal());
+	}
+
+	public long getMinimumCallTime() {
+		return getCallCount() == 0 ? 0 : millis(recorder.getTotal().getMinimum());
+	}
+
+	public long getMaximumCallTime() {
+		return getCallCount() == 0 ? 0 : millis(recorder.getTotal().getMaximum());
+	}
+
+	/**
+	 * Summarizes the calls made since the first one, in nanoseconds.
+	 */
+	public LatencySnapshot getSnapshot() {
+		return recorder.getSnapshot();
+	}
+
+	/**
+	 * Summarizes the calls made in the factory's rolling window, in nanoseconds.
+	 */
+	public LatencySnapshot getWindowSnapshot() {
+		return recorder.getWindowSnapshot(monitorFactory.nanoTime());
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(getName()).append(": ");
+		sb.append("Last=").append(recorder.getLastValue() / (double) TimeUnit.MILLISECONDS.toNanos(1)).append(", ");
+		sb.append(getSnapshot());
+		return sb.toString();
+	}
+
+	static long millis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+}
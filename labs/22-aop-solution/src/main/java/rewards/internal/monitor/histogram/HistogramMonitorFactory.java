@@ -0,0 +1,192 @@
+package rewards.internal.monitor.histogram;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import rewards.internal.monitor.GlobalMonitorStatistics;
+import rewards.internal.monitor.Monitor;
+import rewards.internal.monitor.MonitorFactory;
+import rewards.internal.monitor.MonitorHandle;
+
+/**
+ * A monitor factory that records call times in per-method latency histograms, with nanosecond precision.
+ * 
+ * Unlike the Jamon factory, it takes no global lock: the histograms are found in a concurrent map, and recording a
+ * call only increments striped counters. Besides the average, minimum and maximum call times, it reports quantiles
+ * such as the 99th percentile, both since the first call and over a rolling window, a minute long by default.
+ * 
+ * The call times reported through {@link GlobalMonitorStatistics} are in milliseconds, like the Jamon factory's. The
+ * {@link LatencySnapshot}s are in nanoseconds.
+ */
+public class HistogramMonitorFactory implements MonitorFactory, GlobalMonitorStatistics {
+
+	private static final LatencySnapshot NO_CALLS = LatencySnapshot.of(Collections.emptyList());
+
+	private final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+
+	private final LongAdder callsCount = new LongAdder();
+
+	private final LongAdder totalCallTime = new LongAdder();
+
+	private final LongAccumulator lastAccessTime = new LongAccumulator(Math::max, 0);
+
+	private final LongSupplier nanoClock;
+
+	private long windowNanos = TimeUnit.MINUTES.toNanos(1);
+
+	private int windowSlices = 6;
+
+	/**
+	 * Creates a monitor factory timing calls with <code>System.nanoTime()</code>.
+	 */
+	public HistogramMonitorFactory() {
+		this(System::nanoTime);
+	}
+
+	HistogramMonitorFactory(LongSupplier nanoClock) {
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * Sets the length of the rolling window. Only affects methods first monitored afterwards. Defaults to one minute.
+	 * @param windowMillis the length of the window in milliseconds
+	 */
+	public void setWindowMillis(long windowMillis) {
+		if (windowMillis <= 0) {
+			throw new IllegalArgumentException("The window must be longer than 0 ms");
+		}
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+	}
+
+	/**
+	 * Sets the number of slices the rolling window is divided into; the window moves forward one slice at a time. Only
+	 * affects methods first monitored afterwards. Defaults to 6.
+	 * @param windowSlices the number of slices
+	 */
+	public void setWindowSlices(int windowSlices) {
+		if (windowSlices < 1) {
+			throw new IllegalArgumentException("The window needs at least one slice");
+		}
+		this.windowSlices = windowSlices;
+	}
+
+	public Monitor start(String name) {
+		return new HistogramMonitor(this, recorderFor(name)).start();
+	}
+
+	public MonitorHandle getHandle(String name) {
+		LatencyRecorder recorder = recorderFor(name);
+		return () -> new HistogramMonitor(this, recorder).start();
+	}
+
+	/**
+	 * Returns the monitor of the named method, without starting it, to read its statistics. Like Jamon, creates the
+	 * monitor if the method has not been called yet.
+	 * @param methodName the name of the monitored method
+	 * @return the monitor
+	 */
+	public HistogramMonitor getMonitor(String methodName) {
+		return new HistogramMonitor(this, recorderFor(methodName));
+	}
+
+	/**
+	 * Summarizes the calls to the named method since the first one.
+	 * @param methodName the name of the monitored method
+	 * @return the latencies in nanoseconds
+	 */
+	public LatencySnapshot getSnapshot(String methodName) {
+		LatencyRecorder recorder = recorders.get(methodName);
+		return recorder == null ? NO_CALLS : recorder.getSnapshot();
+	}
+
+	/**
+	 * Summarizes the calls to the named method over the rolling window.
+	 * @param methodName the name of the monitored method
+	 * @return the latencies in nanoseconds
+	 */
+	public LatencySnapshot getWindowSnapshot(String methodName) {
+		LatencyRecorder recorder = recorders.get(methodName);
+		return recorder == null ? NO_CALLS : recorder.getWindowSnapshot(nanoTime());
+	}
+
+	/**
+	 * Returns the names of the methods monitored so far.
+	 */
+	public Set<String> getMonitorNames() {
+		return Collections.unmodifiableSet(recorders.keySet());
+	}
+
+	public long getCallsCount() {
+		return callsCount.sum();
+	}
+
+	public long getTotalCallTime() {
+		return HistogramMonitor.millis(totalCallTime.sum());
+	}
+
+	public Date getLastAccessTime() {
+		long lastAccess = lastAccessTime.get();
+		return lastAccess == 0 ? null : new Date(lastAccess);
+	}
+
+	public long lastCallTime(String methodName) {
+		LatencyRecorder recorder = recorders.get(methodName);
+		return recorder == null ? 0 : HistogramMonitor.millis(recorder.getLastValue());
+	}
+
+	public long callCount(String methodName) {
+		return getMonitor(methodName).getCallCount();
+	}
+
+	public long averageCallTime(String methodName) {
+		return getMonitor(methodName).getAverageCallTime();
+	}
+
+	public long totalCallTime(String methodName) {
+		return getMonitor(methodName).getTotalCallTime();
+	}
+
+	public long minimumCallTime(String methodName) {
+		return getMonitor(methodName).getMinimumCallTime();
+	}
+
+	public long maximumCallTime(String methodName) {
+		return getMonitor(methodName).getMaximumCallTime();
+	}
+
+	public double getSampleRate() {
+		// every call is timed
+		return 1.0;
+	}
+
+	public double sampleRate(String methodName) {
+		return 1.0;
+	}
+
+	long nanoTime() {
+		return nanoClock.getAsLong();
+	}
+
+	void record(LatencyRecorder recorder, long nanos, long now) {
+		recorder.record(nanos, now);
+		callsCount.increment();
+		totalCallTime.add(nanos);
+		lastAccessTime.accumulate(System.currentTimeMillis());
+	}
+
+	private LatencyRecorder recorderFor(String name) {
+		// a plain read first: computeIfAbsent may lock the bin even when the name is already there
+		LatencyRecorder recorder = recorders.get(name);
+		if (recorder == null) {
+			recorder = recorders.computeIfAbsent(name, key -> new LatencyRecorder(key, windowNanos, windowSlices));
+		}
+		return recorder;
+	}
+}
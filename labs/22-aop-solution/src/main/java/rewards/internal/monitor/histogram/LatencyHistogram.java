@@ -0,0 +1,152 @@
+package rewards.internal.monitor.histogram;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of latencies in nanoseconds, in the style of an HDR histogram: values are counted in
+ * log-linear buckets, so every recorded value is known to within 1% however large it is.
+ * 
+ * Values below 256 have a bucket each. Above that, each power of two is split into 128 equal buckets. Values of
+ * {@link #HIGHEST_TRACKABLE_VALUE} nanoseconds (a little over an hour) or more are counted in the last bucket.
+ * 
+ * Recording a value only increments striped counters, so threads recording into the same histogram never block each
+ * other, and under contention spread their increments over cells of their own rather than sharing a cache line. Each
+ * bucket's counter is created when a value is first counted in it, since latencies only ever fall in a small share of
+ * the buckets. Reading a histogram while it is being recorded into sees each counter's latest value, but not
+ * necessarily a consistent set of them.
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The largest value counted precisely, in nanoseconds.
+	 */
+	public static final long HIGHEST_TRACKABLE_VALUE = (1L << 42) - 1;
+
+	private static final int SUB_BUCKET_BITS = 8;
+
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+	static final int BUCKET_COUNT = indexOf(HIGHEST_TRACKABLE_VALUE) + 1;
+
+	private final AtomicReferenceArray<LongAdder> counts = new AtomicReferenceArray<LongAdder>(BUCKET_COUNT);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder total = new LongAdder();
+
+	private final LongAccumulator minimum = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+	private final LongAccumulator maximum = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+	/**
+	 * Records a latency. Negative values are recorded as zero.
+	 * @param nanos the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		bucket(indexOf(Math.min(value, HIGHEST_TRACKABLE_VALUE))).increment();
+		count.increment();
+		total.add(value);
+		minimum.accumulate(value);
+		maximum.accumulate(value);
+	}
+
+	/**
+	 * Forgets all recorded values. Values recorded while the reset is in progress may be partly kept.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			LongAdder bucket = counts.get(i);
+			if (bucket != null) {
+				bucket.reset();
+			}
+		}
+		count.reset();
+		total.reset();
+		minimum.reset();
+		maximum.reset();
+	}
+
+	/**
+	 * Returns the number of values recorded.
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Returns the sum of the values recorded, in nanoseconds.
+	 */
+	public long getTotal() {
+		return total.sum();
+	}
+
+	/**
+	 * Returns the smallest value recorded, or <code>Long.MAX_VALUE</code> if none has been.
+	 */
+	public long getMinimum() {
+		return minimum.get();
+	}
+
+	/**
+	 * Returns the largest value recorded, or <code>Long.MIN_VALUE</code> if none has been.
+	 */
+	public long getMaximum() {
+		return maximum.get();
+	}
+
+	/**
+	 * Adds the count of each bucket of this histogram to the matching element of the given array.
+	 * @param bucketCounts an array of {@link #BUCKET_COUNT} counts
+	 */
+	void addTo(long[] bucketCounts) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			LongAdder bucket = counts.get(i);
+			if (bucket != null) {
+				bucketCounts[i] += bucket.sum();
+			}
+		}
+	}
+
+	/**
+	 * Returns the counter of the bucket with the given index, creating it if no value has been counted in it yet.
+	 */
+	private LongAdder bucket(int index) {
+		LongAdder bucket = counts.get(index);
+		if (bucket == null) {
+			bucket = new LongAdder();
+			if (!counts.compareAndSet(index, null, bucket)) {
+				bucket = counts.get(index);
+			}
+		}
+		return bucket;
+	}
+
+	/**
+	 * Returns the index of the bucket counting the given value.
+	 */
+	static int indexOf(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		// the top bits of the value select the sub-bucket within its power of two
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift);
+	}
+
+	/**
+	 * Returns the largest value counted by the bucket with the given index.
+	 */
+	static long highestValueAt(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+		long subBucket = index - shift * SUB_BUCKET_HALF_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,107 @@
+package rewards.internal.monitor.histogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the latencies of the calls to one monitored method, both since it was first called and over a rolling time
+ * window.
+ * 
+ * The window is a ring of histograms, each covering an equal slice of time. The first value recorded in a new slice
+ * claims the oldest histogram with a compare-and-set and clears it, so the window rolls forward without a lock. A value
+ * recorded by another thread while the histogram is being cleared may be lost.
+ */
+class LatencyRecorder {
+
+	private final String name;
+
+	private final LatencyHistogram total = new LatencyHistogram();
+
+	private final LatencyHistogram[] slices;
+
+	private final AtomicLong[] sliceEpochs;
+
+	private final long sliceNanos;
+
+	private volatile long lastValue;
+
+	/**
+	 * Creates a recorder.
+	 * @param name the name of the monitored method
+	 * @param windowNanos the length of the rolling window
+	 * @param sliceCount the number of slices the window is divided into
+	 */
+	LatencyRecorder(String name, long windowNanos, int sliceCount) {
+		this.name = name;
+		this.sliceNanos = Math.max(1, windowNanos / sliceCount);
+		this.slices = new LatencyHistogram[sliceCount];
+		this.sliceEpochs = new AtomicLong[sliceCount];
+		for (int i = 0; i < sliceCount; i++) {
+			slices[i] = new LatencyHistogram();
+			sliceEpochs[i] = new AtomicLong(Long.MIN_VALUE);
+		}
+	}
+
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * Records the latency of a call.
+	 * @param nanos the latency in nanoseconds
+	 * @param now the time the call finished, from <code>System.nanoTime()</code>
+	 */
+	void record(long nanos, long now) {
+		lastValue = nanos;
+		total.record(nanos);
+		long epoch = Math.floorDiv(now, sliceNanos);
+		int slot = (int) Math.floorMod(epoch, (long) slices.length);
+		AtomicLong sliceEpoch = sliceEpochs[slot];
+		long current = sliceEpoch.get();
+		if (current < epoch && sliceEpoch.compareAndSet(current, epoch)) {
+			slices[slot].reset();
+		}
+		if (sliceEpoch.get() == epoch) {
+			slices[slot].record(nanos);
+		}
+	}
+
+	/**
+	 * Returns the latency of the last call recorded, in nanoseconds.
+	 */
+	long getLastValue() {
+		return lastValue;
+	}
+
+	/**
+	 * Returns the latencies recorded since the first call.
+	 */
+	LatencyHistogram getTotal() {
+		return total;
+	}
+
+	/**
+	 * Summarizes the latencies recorded since the first call.
+	 */
+	LatencySnapshot getSnapshot() {
+		return LatencySnapshot.of(Collections.singletonList(total));
+	}
+
+	/**
+	 * Summarizes the latencies recorded in the window ending at the given time.
+	 * @param now the end of the window, from <code>System.nanoTime()</code>
+	 */
+	LatencySnapshot getWindowSnapshot(long now) {
+		long epoch = Math.floorDiv(now, sliceNanos);
+		List<LatencyHistogram> current = new ArrayList<>(slices.length);
+		for (int i = 0; i < slices.length; i++) {
+			long sliceEpoch = sliceEpochs[i].get();
+			if (sliceEpoch > epoch - slices.length && sliceEpoch <= epoch) {
+				current.add(slices[i]);
+			}
+		}
+		return LatencySnapshot.of(current);
+	}
+}
@@ -0,0 +1,153 @@
+package rewards.internal.monitor.histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The latencies recorded for a monitor over some period, summarized as a count, minimum, maximum, mean and quantiles.
+ * All latencies are in nanoseconds. Quantiles are accurate to within 1%, like the histograms they are taken from.
+ * 
+ * A value object. Immutable.
+ */
+public class LatencySnapshot {
+
+	private final long count;
+
+	private final long total;
+
+	private final long minimum;
+
+	private final long maximum;
+
+	private final long[] bucketCounts;
+
+	private LatencySnapshot(long count, long total, long minimum, long maximum, long[] bucketCounts) {
+		this.count = count;
+		this.total = total;
+		this.minimum = minimum;
+		this.maximum = maximum;
+		this.bucketCounts = bucketCounts;
+	}
+
+	/**
+	 * Takes a snapshot of the values recorded in the given histograms, combined.
+	 * @param histograms the histograms
+	 * @return the snapshot
+	 */
+	static LatencySnapshot of(Iterable<LatencyHistogram> histograms) {
+		long[] bucketCounts = new long[LatencyHistogram.BUCKET_COUNT];
+		long total = 0;
+		long minimum = Long.MAX_VALUE;
+		long maximum = Long.MIN_VALUE;
+		for (LatencyHistogram histogram : histograms) {
+			histogram.addTo(bucketCounts);
+			total += histogram.getTotal();
+			minimum = Math.min(minimum, histogram.getMinimum());
+			maximum = Math.max(maximum, histogram.getMaximum());
+		}
+		// count from the buckets, so the quantiles always add up
+		long count = 0;
+		for (long bucketCount : bucketCounts) {
+			count += bucketCount;
+		}
+		if (count == 0) {
+			return new LatencySnapshot(0, 0, 0, 0, bucketCounts);
+		}
+		return new LatencySnapshot(count, total, minimum, maximum, bucketCounts);
+	}
+
+	/**
+	 * Returns the number of calls.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the sum of the latencies.
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Returns the smallest latency, or 0 if there were no calls.
+	 */
+	public long getMinimum() {
+		return minimum;
+	}
+
+	/**
+	 * Returns the largest latency, or 0 if there were no calls.
+	 */
+	public long getMaximum() {
+		return maximum;
+	}
+
+	/**
+	 * Returns the mean latency, or 0 if there were no calls.
+	 */
+	public long getMean() {
+		return count == 0 ? 0 : total / count;
+	}
+
+	/**
+	 * Returns the median latency.
+	 */
+	public long getP50() {
+		return getValueAtPercentile(50.0);
+	}
+
+	/**
+	 * Returns the latency 99% of calls were at or below.
+	 */
+	public long getP99() {
+		return getValueAtPercentile(99.0);
+	}
+
+	/**
+	 * Returns the latency 99.9% of calls were at or below.
+	 */
+	public long getP999() {
+		return getValueAtPercentile(99.9);
+	}
+
+	/**
+	 * Returns the latency the given percentage of calls were at or below, or 0 if there were no calls.
+	 * @param percentile the percentage, from 0 to 100
+	 * @return the latency in nanoseconds
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (percentile < 0.0 || percentile > 100.0) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100, but was " + percentile);
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+		long seen = 0;
+		for (int i = 0; i < bucketCounts.length; i++) {
+			seen += bucketCounts[i];
+			if (seen >= rank) {
+				// never report more than was actually recorded
+				return Math.min(LatencyHistogram.highestValueAt(i), maximum);
+			}
+		}
+		return maximum;
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Calls=").append(count).append(", ");
+		sb.append("Avg=").append(millis(getMean())).append(", ");
+		sb.append("Min=").append(millis(minimum)).append(", ");
+		sb.append("Max=").append(millis(maximum)).append(", ");
+		sb.append("P50=").append(millis(getP50())).append(", ");
+		sb.append("P99=").append(millis(getP99())).append(", ");
+		sb.append("P999=").append(millis(getP999()));
+		return sb.toString();
+	}
+
+	private static double millis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
@@ -5,6 +5,7 @@ import java.util.Date;
 import rewards.internal.monitor.GlobalMonitorStatistics;
 import rewards.internal.monitor.Monitor;
 import rewards.internal.monitor.MonitorFactory;
+import rewards.internal.monitor.MonitorHandle;
 
 import com.jamonapi.MonitorComposite;
 
@@ -16,6 +17,11 @@ public class JamonMonitorFactory implements MonitorFactory, GlobalMonitorStatist
 		return new JamonMonitor(monitorFactory.start(name));
 	}
 
+	public MonitorHandle getHandle(String name) {
+		// Jamon looks monitors up by name anyway
+		return () -> start(name);
+	}
+
 	public long getCallsCount() {
 		return (long) getMonitors().getHits();
 	}
@@ -56,4 +62,13 @@ public class JamonMonitorFactory implements MonitorFactory, GlobalMonitorStatist
 		return (long) monitorFactory.getMonitor(methodName, "ms.").getTotal();
 	}
 
+	public double getSampleRate() {
+		// every call is timed
+		return 1.0;
+	}
+
+	public double sampleRate(String methodName) {
+		return 1.0;
+	}
+
 }
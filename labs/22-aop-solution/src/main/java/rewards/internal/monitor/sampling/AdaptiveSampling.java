@@ -0,0 +1,70 @@
+package rewards.internal.monitor.sampling;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A sampling policy that times every call to a method while its latency is above a service level objective, and
+ * otherwise samples as another policy does. Slow methods get a complete latency distribution just when it is needed,
+ * at the cost of timing all their calls.
+ * 
+ * A method's latency is tracked as a moving average of its timed calls, weighted towards the most recent ones. So a
+ * method is timed in full once its sampled calls have been slow for a while, and goes back to sampling once they have
+ * been fast for a while. The average is updated without locking, so concurrent updates may lose a few calls.
+ */
+public class AdaptiveSampling implements SamplingPolicy {
+
+	/**
+	 * How far the average moves towards each new latency: one eighth of the way.
+	 */
+	private static final int SMOOTHING_SHIFT = 3;
+
+	private final long sloNanos;
+
+	private final SamplingPolicy baseline;
+
+	/**
+	 * Creates an adaptive policy.
+	 * @param sloMillis the latency objective in milliseconds
+	 * @param baseline the policy to sample with while the objective is met
+	 */
+	public AdaptiveSampling(long sloMillis, SamplingPolicy baseline) {
+		if (sloMillis < 0) {
+			throw new IllegalArgumentException("The latency objective cannot be negative, but was " + sloMillis);
+		}
+		this.sloNanos = TimeUnit.MILLISECONDS.toNanos(sloMillis);
+		this.baseline = baseline;
+	}
+
+	public Sampler newSampler(String name) {
+		return new SloSampler(baseline.newSampler(name));
+	}
+
+	public String toString() {
+		return "adaptive(slo=" + TimeUnit.NANOSECONDS.toMillis(sloNanos) + "ms, " + baseline + ")";
+	}
+
+	private class SloSampler implements Sampler {
+
+		private final Sampler baseline;
+
+		private volatile long averageNanos;
+
+		private volatile boolean breached;
+
+		SloSampler(Sampler baseline) {
+			this.baseline = baseline;
+		}
+
+		public boolean shouldSample(long now) {
+			return breached || baseline.shouldSample(now);
+		}
+
+		public void sampled(long nanos) {
+			baseline.sampled(nanos);
+			long average = averageNanos;
+			average += (nanos - average) >> SMOOTHING_SHIFT;
+			averageNanos = average;
+			breached = average > sloNanos;
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package rewards.internal.monitor.sampling;
+
+/**
+ * A sampling policy that times every call.
+ */
+public class AlwaysSample implements SamplingPolicy, SamplingPolicy.Sampler {
+
+	public Sampler newSampler(String name) {
+		return this;
+	}
+
+	public boolean shouldSample(long now) {
+		return true;
+	}
+
+	public void sampled(long nanos) {
+	}
+
+	public String toString() {
+		return "alwaysSample";
+	}
+}
@@ -0,0 +1,39 @@
+package rewards.internal.monitor.sampling;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A sampling policy that times one call in N, chosen at random. Using a thread-local random number rather than a shared
+ * counter means calling threads never contend for the decision.
+ */
+public class OneInNSampling implements SamplingPolicy {
+
+	private final int n;
+
+	/**
+	 * Creates a policy timing one call in N.
+	 * @param n the number of calls per timed call, 1 or more
+	 */
+	public OneInNSampling(int n) {
+		if (n < 1) {
+			throw new IllegalArgumentException("Must time at least one call in N, but N was " + n);
+		}
+		this.n = n;
+	}
+
+	public Sampler newSampler(String name) {
+		return new Sampler() {
+
+			public boolean shouldSample(long now) {
+				return n == 1 || ThreadLocalRandom.current().nextInt(n) == 0;
+			}
+
+			public void sampled(long nanos) {
+			}
+		};
+	}
+
+	public String toString() {
+		return "oneIn" + n;
+	}
+}
@@ -0,0 +1,61 @@
+package rewards.internal.monitor.sampling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A sampling policy that times at most a given number of calls to each method per second: the first calls of each
+ * second, until the budget is spent.
+ * 
+ * Each method's budget is a counter, reset with a compare-and-set by the first call of the next second. Once the budget
+ * is spent, calls only read the counter. A call racing the reset may be timed beyond the budget.
+ */
+public class RateLimitedSampling implements SamplingPolicy {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final int callsPerSecond;
+
+	/**
+	 * Creates a policy timing up to the given number of calls to each method per second.
+	 * @param callsPerSecond the budget of timed calls per second
+	 */
+	public RateLimitedSampling(int callsPerSecond) {
+		if (callsPerSecond < 0) {
+			throw new IllegalArgumentException("The budget cannot be negative, but was " + callsPerSecond);
+		}
+		this.callsPerSecond = callsPerSecond;
+	}
+
+	public Sampler newSampler(String name) {
+		return new Budget();
+	}
+
+	public String toString() {
+		return "upTo" + callsPerSecond + "PerSecond";
+	}
+
+	private class Budget implements Sampler {
+
+		private final AtomicLong second = new AtomicLong(Long.MIN_VALUE);
+
+		private final AtomicInteger spent = new AtomicInteger();
+
+		public boolean shouldSample(long now) {
+			long current = Math.floorDiv(now, SECOND);
+			long last = second.get();
+			if (last != current) {
+				if (last < current && second.compareAndSet(last, current)) {
+					spent.set(0);
+				}
+			} else if (spent.get() >= callsPerSecond) {
+				return false;
+			}
+			return spent.incrementAndGet() <= callsPerSecond;
+		}
+
+		public void sampled(long nanos) {
+		}
+	}
+}
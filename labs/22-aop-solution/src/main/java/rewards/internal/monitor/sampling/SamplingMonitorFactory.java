@@ -0,0 +1,218 @@
+package rewards.internal.monitor.sampling;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import rewards.internal.monitor.GlobalMonitorStatistics;
+import rewards.internal.monitor.Monitor;
+import rewards.internal.monitor.MonitorFactory;
+import rewards.internal.monitor.MonitorHandle;
+
+/**
+ * A monitor factory that only times the calls chosen by a {@link SamplingPolicy}, and leaves the timing itself to
+ * another factory. The monitors of the calls not chosen do nothing.
+ * 
+ * The call statistics are those of the other factory, so they only count the timed calls. The sample rates count all
+ * calls, timed or not, so dividing a call count by the matching sample rate estimates the number of calls made.
+ */
+public class SamplingMonitorFactory implements MonitorFactory, GlobalMonitorStatistics {
+
+	private final MonitorFactory monitorFactory;
+
+	private final GlobalMonitorStatistics statistics;
+
+	private final SamplingPolicy samplingPolicy;
+
+	private final LongSupplier nanoClock;
+
+	private final Map<String, SampledMethod> methods = new ConcurrentHashMap<>();
+
+	private final LongAdder calls = new LongAdder();
+
+	private final LongAdder sampledCalls = new LongAdder();
+
+	/**
+	 * Creates a sampling monitor factory.
+	 * @param monitorFactory the factory timing the sampled calls and reporting their statistics
+	 * @param samplingPolicy the policy choosing the calls to time
+	 */
+	public <F extends MonitorFactory & GlobalMonitorStatistics> SamplingMonitorFactory(F monitorFactory,
+			SamplingPolicy samplingPolicy) {
+		this(monitorFactory, samplingPolicy, System::nanoTime);
+	}
+
+	<F extends MonitorFactory & GlobalMonitorStatistics> SamplingMonitorFactory(F monitorFactory,
+			SamplingPolicy samplingPolicy, LongSupplier nanoClock) {
+		this.monitorFactory = monitorFactory;
+		this.statistics = monitorFactory;
+		this.samplingPolicy = samplingPolicy;
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * Returns the policy choosing the calls to time.
+	 */
+	public SamplingPolicy getSamplingPolicy() {
+		return samplingPolicy;
+	}
+
+	public Monitor start(String name) {
+		return methodFor(name).start();
+	}
+
+	public MonitorHandle getHandle(String name) {
+		return methodFor(name);
+	}
+
+	public long getCallsCount() {
+		return statistics.getCallsCount();
+	}
+
+	public long getTotalCallTime() {
+		return statistics.getTotalCallTime();
+	}
+
+	public Date getLastAccessTime() {
+		return statistics.getLastAccessTime();
+	}
+
+	public long lastCallTime(String methodName) {
+		return statistics.lastCallTime(methodName);
+	}
+
+	public long callCount(String methodName) {
+		return statistics.callCount(methodName);
+	}
+
+	public long averageCallTime(String methodName) {
+		return statistics.averageCallTime(methodName);
+	}
+
+	public long totalCallTime(String methodName) {
+		return statistics.totalCallTime(methodName);
+	}
+
+	public long minimumCallTime(String methodName) {
+		return statistics.minimumCallTime(methodName);
+	}
+
+	public long maximumCallTime(String methodName) {
+		return statistics.maximumCallTime(methodName);
+	}
+
+	public double getSampleRate() {
+		return rate(sampledCalls.sum(), calls.sum());
+	}
+
+	public double sampleRate(String methodName) {
+		SampledMethod method = methods.get(methodName);
+		return method == null ? 1.0 : rate(method.sampledCalls.sum(), method.calls.sum());
+	}
+
+	private static double rate(long sampled, long all) {
+		// before any call, report that every call will be timed
+		return all == 0 ? 1.0 : (double) sampled / all;
+	}
+
+	private SampledMethod methodFor(String name) {
+		SampledMethod method = methods.get(name);
+		if (method == null) {
+			method = methods.computeIfAbsent(name, SampledMethod::new);
+		}
+		return method;
+	}
+
+	/**
+	 * The monitor handle of one method: asks the method's sampler whether to time each call, and counts the calls.
+	 */
+	private class SampledMethod implements MonitorHandle {
+
+		private final MonitorHandle handle;
+
+		private final SamplingPolicy.Sampler sampler;
+
+		private final Monitor notSampled;
+
+		private final LongAdder calls = new LongAdder();
+
+		private final LongAdder sampledCalls = new LongAdder();
+
+		SampledMethod(String name) {
+			this.handle = monitorFactory.getHandle(name);
+			this.sampler = samplingPolicy.newSampler(name);
+			this.notSampled = new NotSampledMonitor(name);
+		}
+
+		public Monitor start() {
+			calls.increment();
+			SamplingMonitorFactory.this.calls.increment();
+			long now = nanoClock.getAsLong();
+			if (!sampler.shouldSample(now)) {
+				return notSampled;
+			}
+			sampledCalls.increment();
+			SamplingMonitorFactory.this.sampledCalls.increment();
+			return new SampledMonitor(handle.start(), sampler, now);
+		}
+	}
+
+	/**
+	 * Times a sampled call with the other factory's monitor, and tells the sampler how long it took.
+	 */
+	private class SampledMonitor implements Monitor {
+
+		private final Monitor monitor;
+
+		private final SamplingPolicy.Sampler sampler;
+
+		private final long startTime;
+
+		SampledMonitor(Monitor monitor, SamplingPolicy.Sampler sampler, long startTime) {
+			this.monitor = monitor;
+			this.sampler = sampler;
+			this.startTime = startTime;
+		}
+
+		public Monitor start() {
+			monitor.start();
+			return this;
+		}
+
+		public Monitor stop() {
+			monitor.stop();
+			sampler.sampled(nanoClock.getAsLong() - startTime);
+			return this;
+		}
+
+		public String toString() {
+			return monitor.toString();
+		}
+	}
+
+	/**
+	 * The monitor of the calls that are not timed. Stateless, so shared by all of them.
+	 */
+	private static class NotSampledMonitor implements Monitor {
+
+		private final String name;
+
+		NotSampledMonitor(String name) {
+			this.name = name;
+		}
+
+		public Monitor start() {
+			return this;
+		}
+
+		public Monitor stop() {
+			return this;
+		}
+
+		public String toString() {
+			return name + ": not sampled";
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package rewards.internal.monitor.sampling;
+
+/**
+ * Decides which calls to monitored methods are timed. Timing only a sample of the calls keeps the cost of monitoring
+ * down while still giving a latency distribution.
+ */
+public interface SamplingPolicy {
+
+	/**
+	 * Creates the sampler that decides for the calls to one monitored method.
+	 * @param name the name of the monitored method
+	 * @return the sampler, used by all threads calling the method
+	 */
+	Sampler newSampler(String name);
+
+	/**
+	 * Decides which calls to one monitored method are timed. Called concurrently, so implementations must be thread
+	 * safe, preferably without locking.
+	 */
+	interface Sampler {
+
+		/**
+		 * Returns true if the call about to start should be timed.
+		 * @param now the current time, from <code>System.nanoTime()</code>
+		 */
+		boolean shouldSample(long now);
+
+		/**
+		 * Tells the sampler how long a timed call took.
+		 * @param nanos the latency of the call in nanoseconds
+		 */
+		void sampled(long nanos);
+	}
+}
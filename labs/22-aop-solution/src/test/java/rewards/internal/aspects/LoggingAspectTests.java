@@ -0,0 +1,59 @@
+package rewards.internal.aspects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import rewards.internal.StubAccountRepository;
+import rewards.internal.account.Account;
+import rewards.internal.account.AccountRepository;
+import rewards.internal.monitor.MonitorHandle;
+import rewards.internal.monitor.histogram.HistogramMonitorFactory;
+
+/**
+ * Unit tests for the monitoring advice of the LoggingAspect, applied to a stub repository through a proxy.
+ */
+public class LoggingAspectTests {
+
+	private CountingMonitorFactory monitorFactory;
+
+	private AccountRepository repository;
+
+	@BeforeEach
+	public void setUp() {
+		monitorFactory = new CountingMonitorFactory();
+		AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new StubAccountRepository());
+		proxyFactory.addAspect(new LoggingAspect(monitorFactory));
+		repository = proxyFactory.getProxy();
+	}
+
+	@Test
+	public void testEveryCallIsMonitored() {
+		Account account = repository.findByCreditCard("1234123412341234");
+		repository.updateBeneficiaries(account);
+		repository.updateBeneficiaries(account);
+		assertEquals(2, monitorFactory.callCount("AccountRepository.updateBeneficiaries"));
+	}
+
+	@Test
+	public void testMonitorHandleIsResolvedOnce() {
+		Account account = repository.findByCreditCard("1234123412341234");
+		for (int i = 0; i < 5; i++) {
+			repository.updateBeneficiaries(account);
+		}
+		assertEquals(1, monitorFactory.handlesResolved);
+	}
+
+	private static class CountingMonitorFactory extends HistogramMonitorFactory {
+
+		private int handlesResolved;
+
+		@Override
+		public MonitorHandle getHandle(String name) {
+			handlesResolved++;
+			return super.getHandle(name);
+		}
+	}
+}
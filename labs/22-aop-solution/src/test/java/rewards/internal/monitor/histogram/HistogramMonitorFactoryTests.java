@@ -0,0 +1,108 @@
+package rewards.internal.monitor.histogram;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import rewards.internal.monitor.Monitor;
+
+/**
+ * Unit tests for the histogram monitor factory, timing calls with a clock the tests move forward.
+ */
+public class HistogramMonitorFactoryTests {
+
+	private long now;
+
+	private HistogramMonitorFactory monitorFactory;
+
+	@BeforeEach
+	public void setUp() {
+		now = TimeUnit.HOURS.toNanos(1);
+		monitorFactory = new HistogramMonitorFactory(() -> now);
+		monitorFactory.setWindowMillis(60000);
+		monitorFactory.setWindowSlices(6);
+	}
+
+	@Test
+	public void testStatistics() {
+		assertNull(monitorFactory.getLastAccessTime());
+		call("AccountRepository.updateBeneficiaries", 2);
+		call("AccountRepository.updateBeneficiaries", 4);
+		call("RewardRepository.update", 10);
+
+		assertEquals(3, monitorFactory.getCallsCount());
+		assertEquals(16, monitorFactory.getTotalCallTime());
+		assertNotNull(monitorFactory.getLastAccessTime());
+		assertEquals(2, monitorFactory.callCount("AccountRepository.updateBeneficiaries"));
+		assertEquals(4, monitorFactory.lastCallTime("AccountRepository.updateBeneficiaries"));
+		assertEquals(3, monitorFactory.averageCallTime("AccountRepository.updateBeneficiaries"));
+		assertEquals(6, monitorFactory.totalCallTime("AccountRepository.updateBeneficiaries"));
+		assertEquals(2, monitorFactory.minimumCallTime("AccountRepository.updateBeneficiaries"));
+		assertEquals(4, monitorFactory.maximumCallTime("AccountRepository.updateBeneficiaries"));
+		assertEquals(0, monitorFactory.lastCallTime("unknown"));
+	}
+
+	@Test
+	public void testNanosecondPrecision() {
+		Monitor monitor = monitorFactory.start("RewardRepository.update");
+		now += 1500;
+		monitor.stop();
+		LatencySnapshot snapshot = monitorFactory.getSnapshot("RewardRepository.update");
+		assertEquals(1500, snapshot.getMaximum());
+		assertTrue(Math.abs(snapshot.getP50() - 1500) <= 15);
+		assertEquals(0, monitorFactory.maximumCallTime("RewardRepository.update"));
+	}
+
+	@Test
+	public void testRollingWindow() {
+		for (int i = 0; i < 100; i++) {
+			call("RewardRepository.update", 1);
+		}
+		now += TimeUnit.SECONDS.toNanos(30);
+		call("RewardRepository.update", 100);
+		assertEquals(101, monitorFactory.getWindowSnapshot("RewardRepository.update").getCount());
+
+		// the first calls drop out of the window after a minute, the last one after a minute and a half
+		now += TimeUnit.SECONDS.toNanos(35);
+		LatencySnapshot window = monitorFactory.getWindowSnapshot("RewardRepository.update");
+		assertEquals(1, window.getCount());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(100), window.getP50());
+		now += TimeUnit.SECONDS.toNanos(30);
+		assertEquals(0, monitorFactory.getWindowSnapshot("RewardRepository.update").getCount());
+
+		// the totals keep every call
+		assertEquals(101, monitorFactory.getSnapshot("RewardRepository.update").getCount());
+	}
+
+	@Test
+	public void testWindowSlicesAreReused() {
+		for (int minute = 0; minute < 5; minute++) {
+			call("RewardRepository.update", minute + 1);
+			now += TimeUnit.MINUTES.toNanos(1);
+		}
+		now -= TimeUnit.MINUTES.toNanos(1);
+		LatencySnapshot window = monitorFactory.getWindowSnapshot("RewardRepository.update");
+		assertEquals(1, window.getCount());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(5), window.getMaximum());
+	}
+
+	@Test
+	public void testMonitorToString() {
+		Monitor monitor = call("RewardRepository.update", 2);
+		String text = monitor.toString();
+		assertTrue(text.startsWith("RewardRepository.update: Last=2.0, Calls=1"), text);
+		assertTrue(text.contains("P99=2.0"), text);
+	}
+
+	private Monitor call(String name, long millis) {
+		Monitor monitor = monitorFactory.start(name);
+		now += TimeUnit.MILLISECONDS.toNanos(millis);
+		return monitor.stop();
+	}
+}
@@ -0,0 +1,114 @@
+package rewards.internal.monitor.histogram;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the latency histogram and the snapshots taken from it.
+ */
+public class LatencyHistogramTests {
+
+	private LatencyHistogram histogram = new LatencyHistogram();
+
+	@Test
+	public void testBucketsCoverEveryValue() {
+		// each bucket starts right after the previous one ends
+		assertEquals(0, LatencyHistogram.indexOf(0));
+		for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+			long lowest = LatencyHistogram.highestValueAt(i - 1) + 1;
+			assertEquals(i, LatencyHistogram.indexOf(lowest));
+			assertEquals(i, LatencyHistogram.indexOf(LatencyHistogram.highestValueAt(i)));
+		}
+		assertEquals(LatencyHistogram.HIGHEST_TRACKABLE_VALUE,
+				LatencyHistogram.highestValueAt(LatencyHistogram.BUCKET_COUNT - 1));
+	}
+
+	@Test
+	public void testBucketsAreWithinOnePercent() {
+		for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+			long lowest = LatencyHistogram.highestValueAt(i - 1) + 1;
+			long highest = LatencyHistogram.highestValueAt(i);
+			assertTrue(highest - lowest <= lowest / 100 + 1, "bucket " + i);
+		}
+	}
+
+	@Test
+	public void testQuantiles() {
+		for (long i = 1; i <= 100000; i++) {
+			histogram.record(i * 1000);
+		}
+		LatencySnapshot snapshot = snapshot();
+		assertEquals(100000, snapshot.getCount());
+		assertEquals(1000, snapshot.getMinimum());
+		assertEquals(100000000, snapshot.getMaximum());
+		assertEquals(50000500, snapshot.getMean());
+		assertWithinOnePercent(50000000, snapshot.getP50());
+		assertWithinOnePercent(99000000, snapshot.getP99());
+		assertWithinOnePercent(99900000, snapshot.getP999());
+		assertEquals(100000000, snapshot.getValueAtPercentile(100.0));
+	}
+
+	@Test
+	public void testLargeAndNegativeValues() {
+		histogram.record(-5);
+		histogram.record(Long.MAX_VALUE / 2);
+		LatencySnapshot snapshot = snapshot();
+		assertEquals(2, snapshot.getCount());
+		assertEquals(0, snapshot.getMinimum());
+		assertEquals(0, snapshot.getP50());
+		// beyond the trackable range, the last bucket is reported
+		assertEquals(LatencyHistogram.HIGHEST_TRACKABLE_VALUE, snapshot.getValueAtPercentile(100.0));
+	}
+
+	@Test
+	public void testEmptySnapshot() {
+		LatencySnapshot snapshot = snapshot();
+		assertEquals(0, snapshot.getCount());
+		assertEquals(0, snapshot.getMinimum());
+		assertEquals(0, snapshot.getMaximum());
+		assertEquals(0, snapshot.getMean());
+		assertEquals(0, snapshot.getP99());
+	}
+
+	@Test
+	public void testReset() {
+		histogram.record(1000);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, snapshot().getCount());
+		histogram.record(2000);
+		assertEquals(2000, histogram.getMinimum());
+		assertEquals(2000, histogram.getMaximum());
+	}
+
+	@Test
+	public void testConcurrentRecording() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int t = 0; t < 4; t++) {
+			executor.execute(() -> {
+				for (int i = 0; i < 10000; i++) {
+					histogram.record(i);
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(40000, histogram.getCount());
+		assertEquals(40000, snapshot().getCount());
+	}
+
+	private LatencySnapshot snapshot() {
+		return LatencySnapshot.of(Collections.singletonList(histogram));
+	}
+
+	private static void assertWithinOnePercent(long expected, long actual) {
+		assertTrue(Math.abs(expected - actual) <= expected / 100, "expected about " + expected + " but was " + actual);
+	}
+}
@@ -0,0 +1,75 @@
+package rewards.internal.monitor.sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import rewards.internal.monitor.Monitor;
+import rewards.internal.monitor.MonitorHandle;
+import rewards.internal.monitor.histogram.HistogramMonitorFactory;
+
+/**
+ * Unit tests for the sampling monitor factory, with a clock the tests move forward.
+ */
+public class SamplingMonitorFactoryTests {
+
+	private long now = TimeUnit.HOURS.toNanos(1);
+
+	@Test
+	public void testOnlySampledCallsAreTimed() {
+		SamplingMonitorFactory monitorFactory = new SamplingMonitorFactory(new HistogramMonitorFactory(),
+				new RateLimitedSampling(2), () -> now);
+		MonitorHandle handle = monitorFactory.getHandle("RewardRepository.update");
+		for (int i = 0; i < 8; i++) {
+			handle.start().stop();
+		}
+		assertEquals(2, monitorFactory.callCount("RewardRepository.update"));
+		assertEquals(2, monitorFactory.getCallsCount());
+		assertEquals(0.25, monitorFactory.sampleRate("RewardRepository.update"), 0.0);
+		assertEquals(0.25, monitorFactory.getSampleRate(), 0.0);
+
+		// the call count divided by the sample rate estimates the calls made
+		assertEquals(8, Math.round(monitorFactory.callCount("RewardRepository.update")
+				/ monitorFactory.sampleRate("RewardRepository.update")));
+	}
+
+	@Test
+	public void testSampleRateBeforeAnyCall() {
+		SamplingMonitorFactory monitorFactory = new SamplingMonitorFactory(new HistogramMonitorFactory(),
+				new OneInNSampling(100), () -> now);
+		assertEquals(1.0, monitorFactory.getSampleRate(), 0.0);
+		assertEquals(1.0, monitorFactory.sampleRate("RewardRepository.update"), 0.0);
+	}
+
+	@Test
+	public void testNotSampledMonitor() {
+		SamplingMonitorFactory monitorFactory = new SamplingMonitorFactory(new HistogramMonitorFactory(),
+				new RateLimitedSampling(0), () -> now);
+		Monitor monitor = monitorFactory.start("RewardRepository.update");
+		assertEquals("RewardRepository.update: not sampled", monitor.stop().toString());
+		assertEquals(0, monitorFactory.callCount("RewardRepository.update"));
+		assertEquals(0.0, monitorFactory.sampleRate("RewardRepository.update"), 0.0);
+	}
+
+	@Test
+	public void testAdaptiveSamplingSeesSampledLatency() {
+		SamplingMonitorFactory monitorFactory = new SamplingMonitorFactory(new HistogramMonitorFactory(),
+				new AdaptiveSampling(10, new RateLimitedSampling(1)), () -> now);
+		MonitorHandle handle = monitorFactory.getHandle("RewardRepository.update");
+		// one slow call a second is enough to time them all, once the average is above the objective
+		for (int second = 0; second < 20; second++) {
+			Monitor monitor = handle.start();
+			now += TimeUnit.MILLISECONDS.toNanos(100);
+			monitor.stop();
+			now += TimeUnit.SECONDS.toNanos(1);
+		}
+		long timed = monitorFactory.callCount("RewardRepository.update");
+		for (int i = 0; i < 10; i++) {
+			handle.start().stop();
+		}
+		assertEquals(timed + 10, monitorFactory.callCount("RewardRepository.update"));
+		assertEquals(1.0, monitorFactory.sampleRate("RewardRepository.update"), 0.0);
+	}
+}
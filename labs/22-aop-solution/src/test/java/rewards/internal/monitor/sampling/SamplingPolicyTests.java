@@ -0,0 +1,84 @@
+package rewards.internal.monitor.sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import rewards.internal.monitor.sampling.SamplingPolicy.Sampler;
+
+/**
+ * Unit tests for the sampling policies.
+ */
+public class SamplingPolicyTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	public void testAlwaysSample() {
+		Sampler sampler = new AlwaysSample().newSampler("RewardRepository.update");
+		for (int i = 0; i < 100; i++) {
+			assertTrue(sampler.shouldSample(i));
+		}
+	}
+
+	@Test
+	public void testOneInN() {
+		Sampler sampler = new OneInNSampling(10).newSampler("RewardRepository.update");
+		int sampled = 0;
+		for (int i = 0; i < 100000; i++) {
+			if (sampler.shouldSample(i)) {
+				sampled++;
+			}
+		}
+		// 10000 expected, the bounds are over 10 standard deviations away
+		assertTrue(sampled > 9000 && sampled < 11000, "sampled " + sampled);
+		assertTrue(new OneInNSampling(1).newSampler("RewardRepository.update").shouldSample(0));
+		assertThrows(IllegalArgumentException.class, () -> new OneInNSampling(0));
+	}
+
+	@Test
+	public void testPerSecondBudget() {
+		Sampler sampler = new RateLimitedSampling(3).newSampler("RewardRepository.update");
+		long now = 5 * SECOND;
+		assertEquals(3, countSampled(sampler, now, 10));
+		// the budget is renewed the next second, but not before
+		assertEquals(0, countSampled(sampler, now + SECOND - 1, 10));
+		assertEquals(3, countSampled(sampler, now + SECOND, 10));
+		// each method has a budget of its own
+		Sampler other = new RateLimitedSampling(3).newSampler("AccountRepository.updateBeneficiaries");
+		assertEquals(3, countSampled(other, now + SECOND, 10));
+	}
+
+	@Test
+	public void testAdaptiveTimesEveryCallAboveObjective() {
+		Sampler sampler = new AdaptiveSampling(10, new RateLimitedSampling(0)).newSampler("RewardRepository.update");
+		assertFalse(sampler.shouldSample(0));
+
+		// slow calls push the average above the objective
+		for (int i = 0; i < 20; i++) {
+			sampler.sampled(TimeUnit.MILLISECONDS.toNanos(50));
+		}
+		assertTrue(sampler.shouldSample(0));
+
+		// fast calls bring it back down
+		for (int i = 0; i < 30; i++) {
+			sampler.sampled(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+		assertFalse(sampler.shouldSample(0));
+	}
+
+	private static int countSampled(Sampler sampler, long now, int calls) {
+		int sampled = 0;
+		for (int i = 0; i < calls; i++) {
+			if (sampler.shouldSample(now)) {
+				sampled++;
+			}
+		}
+		return sampled;
+	}
+}
@@ -4,8 +4,14 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -14,6 +20,7 @@ import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Repository;
@@ -22,19 +29,68 @@ import common.money.Percentage;
 
 /**
  * Loads restaurants from a data source using the JDBC API.
+ * <p>
+ * Restaurants are served from an in-memory cache of the T_RESTAURANT table. The cache is an immutable snapshot that is
+ * replaced as a whole whenever it is refreshed, so lookups never lock and never wait for a reload in progress. A
+ * background task refreshes the cache every {@link #setRefreshIntervalMillis(long) refresh interval}, reloading only
+ * the rows modified since the previous refresh, plus a complete reload every
+ * {@link #setFullReloadEvery(int) few refreshes} to drop deleted restaurants.
+ * <p>
+ * Refreshes and reloads run one at a time, so a slower one can never publish a snapshot older than one already
+ * published. A row only becomes visible when its transaction commits, which may be after a refresh has already read
+ * rows modified later, so incremental refreshes also reread the rows modified within an
+ * {@link #setRefreshOverlapMillis(long) overlap} before the newest modification seen.
  */
 @Profile("jdbc")
 @Repository
 public class JdbcRestaurantRepository implements RestaurantRepository {
 
+	public static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 300000;
+
+	public static final int DEFAULT_FULL_RELOAD_EVERY = 12;
+
+	public static final long DEFAULT_REFRESH_OVERLAP_MILLIS = 60000;
+
+	private static final String RESTAURANT_SQL = "select MERCHANT_NUMBER, NAME, BENEFIT_PERCENTAGE, LAST_MODIFIED from T_RESTAURANT";
+
 	private DataSource dataSource;
 
 	private final Logger logger = LoggerFactory.getLogger(getClass());
-	
+
 	/**
-	 * The Restaurant object cache. Cached restaurants are indexed by their merchant numbers.
+	 * The Restaurant object cache, with the modification time it is current as of. Never modified once published:
+	 * refreshes publish a new snapshot instead.
 	 */
-	private Map<String, Restaurant> restaurantCache;
+	private volatile Snapshot restaurantCache = Snapshot.EMPTY;
+
+	/**
+	 * Held while the cache is loaded or refreshed, so refreshes never overlap.
+	 */
+	private final Object refreshLock = new Object();
+
+	private long refreshIntervalMillis = DEFAULT_REFRESH_INTERVAL_MILLIS;
+
+	private int fullReloadEvery = DEFAULT_FULL_RELOAD_EVERY;
+
+	private long refreshOverlapMillis = DEFAULT_REFRESH_OVERLAP_MILLIS;
+
+	/**
+	 * The number of background refreshes run, which sets when the next complete reload is due. Only used by the
+	 * refresh thread.
+	 */
+	private long scheduledRefreshes;
+
+	private ScheduledExecutorService refreshExecutor;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder refreshes = new LongAdder();
+
+	private final LongAdder refreshFailures = new LongAdder();
+
+	private volatile long lastRefreshTime;
 
 	/**
 	 * Constructor logs creation so we know which repository we are using.
@@ -53,33 +109,152 @@ public class JdbcRestaurantRepository implements RestaurantRepository {
 		this.dataSource = dataSource;
 	}
 
+	/**
+	 * Sets how often the restaurant cache is refreshed in the background. Zero or less disables background refreshes.
+	 *
+	 * @param refreshIntervalMillis the refresh interval in milliseconds
+	 */
+	@Value("${rewards.restaurant.cache.refresh-interval-millis:" + DEFAULT_REFRESH_INTERVAL_MILLIS + "}")
+	public void setRefreshIntervalMillis(long refreshIntervalMillis) {
+		this.refreshIntervalMillis = refreshIntervalMillis;
+	}
+
+	/**
+	 * Sets how many background refreshes are incremental before the next one reloads the whole table.
+	 *
+	 * @param fullReloadEvery the number of refreshes between complete reloads
+	 */
+	@Value("${rewards.restaurant.cache.full-reload-every:" + DEFAULT_FULL_RELOAD_EVERY + "}")
+	public void setFullReloadEvery(int fullReloadEvery) {
+		this.fullReloadEvery = fullReloadEvery;
+	}
+
+	/**
+	 * Sets how far before the newest modification already cached incremental refreshes start reading, to catch rows
+	 * whose transactions committed late. Should exceed the longest transaction changing restaurants.
+	 *
+	 * @param refreshOverlapMillis the overlap in milliseconds
+	 */
+	@Value("${rewards.restaurant.cache.refresh-overlap-millis:" + DEFAULT_REFRESH_OVERLAP_MILLIS + "}")
+	public void setRefreshOverlapMillis(long refreshOverlapMillis) {
+		this.refreshOverlapMillis = refreshOverlapMillis;
+	}
+
 	public Restaurant findByMerchantNumber(String merchantNumber) {
 		return queryRestaurantCache(merchantNumber);
 	}
 
 	/**
 	 * Helper method that populates the {@link #restaurantCache restaurant object cache} from rows in the T_RESTAURANT
-	 * table. Cached restaurants are indexed by their merchant numbers. This method is called on initialization.
+	 * table, then schedules the background refreshes. Cached restaurants are indexed by their merchant numbers. This
+	 * method is called on initialization.
 	 */
 	@PostConstruct
 	void populateRestaurantCache() {
 		logger.info("Loading restaurant cache");
-		restaurantCache = new HashMap<String, Restaurant>();
-		String sql = "select MERCHANT_NUMBER, NAME, BENEFIT_PERCENTAGE from T_RESTAURANT";
+		reloadRestaurantCache();
+		logger.info("Finished loading restaurant cache");
+		if (refreshIntervalMillis > 0) {
+			refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "restaurant-cache-refresh");
+				thread.setDaemon(true);
+				return thread;
+			});
+			refreshExecutor.scheduleWithFixedDelay(this::scheduledRefresh, refreshIntervalMillis,
+					refreshIntervalMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Replaces the restaurant cache with a snapshot of the whole T_RESTAURANT table. Restaurants that no longer exist
+	 * are dropped.
+	 */
+	public void reloadRestaurantCache() {
+		synchronized (refreshLock) {
+			Map<String, Restaurant> restaurants = new HashMap<String, Restaurant>();
+			Timestamp newLastModified = loadRestaurants(RESTAURANT_SQL, null, restaurants);
+			publish(new Snapshot(restaurants, newLastModified));
+		}
+	}
+
+	/**
+	 * Reloads only the T_RESTAURANT rows modified since the previous refresh, less the overlap, and publishes a new
+	 * snapshot combining them with the restaurants already cached.
+	 */
+	public void refreshRestaurantCache() {
+		synchronized (refreshLock) {
+			Snapshot current = restaurantCache;
+			if (current.lastModified == null) {
+				reloadRestaurantCache();
+				return;
+			}
+			Timestamp since = new Timestamp(current.lastModified.getTime() - refreshOverlapMillis);
+			Map<String, Restaurant> changed = new HashMap<String, Restaurant>();
+			Timestamp newLastModified = loadRestaurants(RESTAURANT_SQL + " where LAST_MODIFIED >= ?", since, changed);
+			if (changed.isEmpty()) {
+				refreshes.increment();
+				lastRefreshTime = System.currentTimeMillis();
+				return;
+			}
+			Map<String, Restaurant> restaurants = new HashMap<String, Restaurant>(current.restaurants);
+			restaurants.putAll(changed);
+			publish(new Snapshot(restaurants,
+					newLastModified.after(current.lastModified) ? newLastModified : current.lastModified));
+		}
+	}
+
+	private void scheduledRefresh() {
+		try {
+			scheduledRefreshes++;
+			if (fullReloadEvery > 0 && scheduledRefreshes % fullReloadEvery == 0) {
+				reloadRestaurantCache();
+			} else {
+				refreshRestaurantCache();
+			}
+		} catch (RuntimeException e) {
+			// keep serving the current snapshot; the next refresh will try again
+			refreshFailures.increment();
+			logger.warn("Failed to refresh restaurant cache", e);
+		}
+	}
+
+	private void publish(Snapshot snapshot) {
+		restaurantCache = snapshot;
+		refreshes.increment();
+		lastRefreshTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Loads the restaurants returned by a query of T_RESTAURANT into a map indexed by merchant number.
+	 *
+	 * @param sql the query
+	 * @param since the modification time bound to the query, if any
+	 * @param restaurants the map to load the restaurants into
+	 * @return the most recent modification time of the loaded rows, or <code>since</code> if no rows were loaded
+	 */
+	private Timestamp loadRestaurants(String sql, Timestamp since, Map<String, Restaurant> restaurants) {
+		Timestamp newLastModified = since;
 		Connection conn = null;
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 		try {
 			conn = dataSource.getConnection();
 			ps = conn.prepareStatement(sql);
+			if (since != null) {
+				ps.setTimestamp(1, since);
+			}
 			rs = ps.executeQuery();
 			while (rs.next()) {
 				Restaurant restaurant = mapRestaurant(rs);
 				// index the restaurant by its merchant number
-				restaurantCache.put(restaurant.getNumber(), restaurant);
+				restaurants.put(restaurant.getNumber(), restaurant);
+				Timestamp rowLastModified = rs.getTimestamp("LAST_MODIFIED");
+				if (newLastModified == null || rowLastModified.after(newLastModified)) {
+					newLastModified = rowLastModified;
+				}
 			}
 		} catch (SQLException e) {
-			throw new RuntimeException("SQL exception occurred finding by merchant number", e);
+			throw new RuntimeException("SQL exception occurred loading restaurants", e);
 		} finally {
 			if (rs != null) {
 				try {
@@ -103,7 +278,7 @@ public class JdbcRestaurantRepository implements RestaurantRepository {
 				}
 			}
 		}
-		logger.info("Finished loading restaurant cache");
+		return newLastModified;
 	}
 
 	/**
@@ -114,20 +289,69 @@ public class JdbcRestaurantRepository implements RestaurantRepository {
 	 * @throws EmptyResultDataAccessException if no restaurant was found with that merchant number
 	 */
 	private Restaurant queryRestaurantCache(String merchantNumber) {
-		Restaurant restaurant = restaurantCache.get(merchantNumber);
+		Restaurant restaurant = restaurantCache.restaurants.get(merchantNumber);
 		if (restaurant == null) {
+			misses.increment();
 			throw new EmptyResultDataAccessException(1);
 		}
+		hits.increment();
 		return restaurant;
 	}
 
 	/**
-	 * Helper method that clears the cache of restaurants.  This method is called on destruction
+	 * Helper method that stops the background refreshes and clears the cache of restaurants.  This method is called on
+	 * destruction
 	 */
 	@PreDestroy
 	void clearRestaurantCache() {
 		logger.info("Clearing restaurant cache");
-		restaurantCache.clear();
+		if (refreshExecutor != null) {
+			refreshExecutor.shutdownNow();
+			refreshExecutor = null;
+		}
+		restaurantCache = Snapshot.EMPTY;
+	}
+
+	/**
+	 * Returns the number of lookups answered from the cache.
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of lookups of merchant numbers that are not cached.
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of completed cache loads and refreshes.
+	 */
+	public long getRefreshCount() {
+		return refreshes.sum();
+	}
+
+	/**
+	 * Returns the number of background refreshes that failed, leaving the previous snapshot in place.
+	 */
+	public long getRefreshFailureCount() {
+		return refreshFailures.sum();
+	}
+
+	/**
+	 * Returns when the cache was last loaded or refreshed, in milliseconds since 1970; 0 if it never was.
+	 */
+	public long getLastRefreshTime() {
+		return lastRefreshTime;
+	}
+
+	/**
+	 * Returns the number of cached restaurants.
+	 */
+	public int getCacheSize() {
+		return restaurantCache.restaurants.size();
 	}
 
 	/**
@@ -145,4 +369,28 @@ public class JdbcRestaurantRepository implements RestaurantRepository {
 		restaurant.setBenefitPercentage(benefitPercentage);
 		return restaurant;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * A published state of the cache: the cached restaurants, and the most recent modification time of their rows.
+	 * Immutable, so readers always see a map and a modification time that belong together.
+	 */
+	private static final class Snapshot {
+
+		static final Snapshot EMPTY = new Snapshot(Collections.<String, Restaurant>emptyMap(), null);
+
+		/**
+		 * The cached restaurants, indexed by their merchant numbers.
+		 */
+		final Map<String, Restaurant> restaurants;
+
+		/**
+		 * The most recent modification time of the cached rows, or null if nothing has been loaded.
+		 */
+		final Timestamp lastModified;
+
+		Snapshot(Map<String, Restaurant> restaurants, Timestamp lastModified) {
+			this.restaurants = Collections.unmodifiableMap(restaurants);
+			this.lastModified = lastModified;
+		}
+	}
+}
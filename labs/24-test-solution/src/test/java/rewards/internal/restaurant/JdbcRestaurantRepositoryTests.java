@@ -1,11 +1,14 @@
 package rewards.internal.restaurant;
 
+import java.sql.Timestamp;
+
 import javax.sql.DataSource;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 
 import common.money.Percentage;
@@ -20,6 +23,8 @@ public class JdbcRestaurantRepositoryTests {
 
 	private JdbcRestaurantRepository repository;
 
+	private JdbcTemplate jdbcTemplate;
+
 	@BeforeEach
 	public void setUp() throws Exception {
 		// simulate the Spring bean initialization lifecycle:
@@ -28,7 +33,9 @@ public class JdbcRestaurantRepositoryTests {
 		repository = new JdbcRestaurantRepository();
 
 		// then, inject its dependencies
-		repository.setDataSource(createTestDataSource());
+		DataSource dataSource = createTestDataSource();
+		repository.setDataSource(dataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
 
 		// lastly, initialize the bean
 		repository.populateRestaurantCache();
@@ -68,6 +75,81 @@ public class JdbcRestaurantRepositoryTests {
 		});
 	}
 
+	@Test
+	public void refreshPicksUpModifiedRestaurants() {
+		Restaurant before = repository.findByMerchantNumber("1234567890");
+		jdbcTemplate.update("update T_RESTAURANT set BENEFIT_PERCENTAGE = 0.10 where MERCHANT_NUMBER = '1234567890'");
+		jdbcTemplate.update("insert into T_RESTAURANT (MERCHANT_NUMBER, NAME, BENEFIT_PERCENTAGE, BENEFIT_AVAILABILITY_POLICY) "
+				+ "values ('2345678901', 'Olive Garden', 0.05, 'A')");
+
+		// readers keep the current snapshot until the refresh is published
+		assertSame(before, repository.findByMerchantNumber("1234567890"));
+
+		repository.refreshRestaurantCache();
+		assertEquals(Percentage.valueOf("10%"), repository.findByMerchantNumber("1234567890").getBenefitPercentage());
+		assertEquals("Olive Garden", repository.findByMerchantNumber("2345678901").getName());
+	}
+
+	@Test
+	public void refreshPicksUpLateCommittedRestaurants() {
+		jdbcTemplate.update("update T_RESTAURANT set NAME = 'Applebee''s' where MERCHANT_NUMBER = '1234567890'");
+		repository.refreshRestaurantCache();
+
+		// committed after the refresh, but modified before the newest row it read
+		jdbcTemplate.update("insert into T_RESTAURANT (MERCHANT_NUMBER, NAME, BENEFIT_PERCENTAGE, BENEFIT_AVAILABILITY_POLICY, LAST_MODIFIED) "
+				+ "values ('2345678901', 'Olive Garden', 0.05, 'A', ?)",
+				new Timestamp(System.currentTimeMillis() - 10000));
+
+		repository.refreshRestaurantCache();
+		assertEquals("Olive Garden", repository.findByMerchantNumber("2345678901").getName());
+	}
+
+	@Test
+	public void reloadDropsDeletedRestaurants() {
+		jdbcTemplate.update("delete from T_RESTAURANT where MERCHANT_NUMBER = '1234567890'");
+
+		repository.refreshRestaurantCache();
+		assertNotNull(repository.findByMerchantNumber("1234567890"), "an incremental refresh cannot see deletes");
+
+		repository.reloadRestaurantCache();
+		assertThrows(EmptyResultDataAccessException.class, ()-> {
+			repository.findByMerchantNumber("1234567890");
+		});
+	}
+
+	@Test
+	public void backgroundRefresh() throws Exception {
+		repository.clearRestaurantCache();
+		repository.setRefreshIntervalMillis(20);
+		repository.populateRestaurantCache();
+		jdbcTemplate.update("update T_RESTAURANT set NAME = 'Applebee''s' where MERCHANT_NUMBER = '1234567890'");
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!"Applebee's".equals(repository.findByMerchantNumber("1234567890").getName())
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals("Applebee's", repository.findByMerchantNumber("1234567890").getName());
+	}
+
+	@Test
+	public void cacheStatistics() {
+		long refreshes = repository.getRefreshCount();
+		repository.findByMerchantNumber("1234567890");
+		repository.findByMerchantNumber("1234567890");
+		assertThrows(EmptyResultDataAccessException.class, ()-> {
+			repository.findByMerchantNumber("bogus");
+		});
+		repository.refreshRestaurantCache();
+
+		assertEquals(2, repository.getHitCount());
+		assertEquals(1, repository.getMissCount());
+		assertEquals(refreshes + 1, repository.getRefreshCount());
+		assertEquals(0, repository.getRefreshFailureCount());
+		assertEquals(1, repository.getCacheSize());
+		assertTrue(repository.getLastRefreshTime() > 0);
+	}
+
 	private DataSource createTestDataSource() {
 		return new EmbeddedDatabaseBuilder()
 			.setName("rewards")
@@ -1,21 +1,41 @@
 package config;
 
+import java.time.Duration;
+
 import javax.sql.DataSource;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import rewards.RewardNetwork;
+import rewards.internal.GroupCommitRewardNetwork;
+import rewards.internal.ParallelRewardNetwork;
 import rewards.internal.RewardNetworkImpl;
 import rewards.internal.account.AccountRepository;
+import rewards.internal.account.CachingAccountRepository;
 import rewards.internal.account.JdbcAccountRepository;
+import rewards.internal.restaurant.BenefitRuleCompiler;
 import rewards.internal.restaurant.JdbcRestaurantRepository;
 import rewards.internal.restaurant.RestaurantRepository;
+import rewards.internal.reward.JdbcRewardHistory;
 import rewards.internal.reward.JdbcRewardRepository;
+import rewards.internal.reward.MonthlyBenefitCap;
+import rewards.internal.reward.RewardHistory;
 import rewards.internal.reward.RewardRepository;
 
+import common.cache.LocalCacheManager;
+import common.concurrent.VirtualThreads;
+import common.money.MonetaryAmount;
+
 
 @Configuration
 @EnableTransactionManagement
@@ -23,19 +43,31 @@ public class RewardsConfig {
 
 	@Autowired
 	DataSource dataSource;
+
+	/**
+	 * Whether accounts and restaurants do their arithmetic in cents, as set by the rewards.money.cent-arithmetic
+	 * property.
+	 */
+	@Value("${rewards.money.cent-arithmetic:false}")
+	boolean centArithmetic;
 		
 	@Bean
-	public RewardNetwork rewardNetwork(){
-		return new RewardNetworkImpl(
-			accountRepository(), 
+	public RewardNetwork rewardNetwork(AccountRepository accountRepository, RewardRepository rewardRepository,
+		ObjectProvider<MonthlyBenefitCap> benefitCap){
+		RewardNetworkImpl rewardNetwork = new RewardNetworkImpl(
+			accountRepository, 
 			restaurantRepository(), 
-			rewardRepository());
+			rewardRepository);
+		rewardNetwork.setBenefitCap(benefitCap.getIfAvailable());
+		rewardNetwork.setRewardHistory(rewardHistory());
+		return rewardNetwork;
 	}
 	
 	@Bean
 	public AccountRepository accountRepository(){
 		JdbcAccountRepository repository = new JdbcAccountRepository();
 		repository.setDataSource(dataSource);
+		repository.setCentArithmetic(centArithmetic);
 		return repository;
 	}
 	
@@ -43,8 +75,17 @@ public class RewardsConfig {
 	public RestaurantRepository restaurantRepository(){
 		JdbcRestaurantRepository repository = new JdbcRestaurantRepository();
 		repository.setDataSource(dataSource);
+		repository.setBenefitRuleCompiler(new BenefitRuleCompiler(rewardHistory()));
+		repository.setCentArithmetic(centArithmetic);
 		return repository;
 	}
+
+	@Bean
+	public RewardHistory rewardHistory(){
+		JdbcRewardHistory rewardHistory = new JdbcRewardHistory();
+		rewardHistory.setDataSource(dataSource);
+		return rewardHistory;
+	}
 	
 	@Bean
 	public RewardRepository rewardRepository(){
@@ -52,5 +93,135 @@ public class RewardsConfig {
 		repository.setDataSource(dataSource);
 		return repository;
 	}
-	
+
+	/**
+	 * Rewards single dinings in group commits, each group in one transaction. Activate the "group-commit" profile to
+	 * use it. The rewards.group-commit.max-group-size and rewards.group-commit.max-group-delay-millis properties set
+	 * when a group is committed. With the "parallel-batch" profile also active, each group is rewarded on the
+	 * parallel lanes.
+	 */
+	@Configuration
+	@Profile("group-commit")
+	static class GroupCommitRewardsConfig {
+
+		@Bean
+		@Primary
+		public RewardNetwork groupCommitRewardNetwork(
+			@Qualifier("rewardNetwork") RewardNetwork rewardNetwork,
+			ObjectProvider<ParallelRewardNetwork> parallelRewardNetwork,
+			@Value("${rewards.group-commit.max-group-size:" + GroupCommitRewardNetwork.DEFAULT_MAX_GROUP_SIZE + "}") int maxGroupSize,
+			@Value("${rewards.group-commit.max-group-delay-millis:" + GroupCommitRewardNetwork.DEFAULT_MAX_GROUP_DELAY_MILLIS + "}") long maxGroupDelayMillis) {
+			ParallelRewardNetwork lanes = parallelRewardNetwork.getIfAvailable();
+			GroupCommitRewardNetwork network = new GroupCommitRewardNetwork(lanes != null ? lanes : rewardNetwork);
+			network.setMaxGroupSize(maxGroupSize);
+			network.setMaxGroupDelayMillis(maxGroupDelayMillis);
+			return network;
+		}
+
+	}
+
+	/**
+	 * Caches accounts by credit card in front of the JDBC account repository. Activate the "account-cache" profile to
+	 * use it. The rewards.accounts.cache.capacity property sets the maximum number of credit cards cached. It wraps the
+	 * JDBC repository by name, so it is the account repository of every reward network, whichever other profiles are
+	 * active.
+	 */
+	@Configuration
+	@Profile("account-cache")
+	static class AccountCacheRewardsConfig {
+
+		@Bean
+		@Primary
+		public AccountRepository cachingAccountRepository(
+			@Qualifier("accountRepository") AccountRepository accountRepository,
+			@Value("${rewards.accounts.cache.capacity:" + CachingAccountRepository.DEFAULT_CAPACITY + "}") int capacity) {
+			return new CachingAccountRepository(accountRepository, capacity);
+		}
+
+	}
+
+	/**
+	 * Caches restaurants by merchant number in memory. Activate the "restaurant-cache" profile to use it. The
+	 * rewards.restaurants.cache.time-to-live-seconds property sets how long a restaurant is cached, and so how long a
+	 * change to it takes to be seen.
+	 */
+	@Configuration
+	@Profile("restaurant-cache")
+	@EnableCaching
+	static class RestaurantCacheRewardsConfig {
+
+		@Bean
+		public CacheManager cacheManager(
+			@Value("${rewards.restaurants.cache.time-to-live-seconds:600}") long timeToLiveSeconds) {
+			LocalCacheManager cacheManager = new LocalCacheManager("restaurants");
+			cacheManager.setDefaultTimeToLive(Duration.ofSeconds(timeToLiveSeconds));
+			cacheManager.setTransactionAware(true);
+			return cacheManager;
+		}
+
+	}
+
+	/**
+	 * Caps the benefit rewarded to an account per month of dining. Activate the "benefit-cap" profile to use it. The
+	 * rewards.benefit-cap.monthly-amount property sets the cap.
+	 */
+	@Configuration
+	@Profile("benefit-cap")
+	static class BenefitCapRewardsConfig {
+
+		@Bean
+		public MonthlyBenefitCap benefitCap(DataSource dataSource,
+			@Value("${rewards.benefit-cap.monthly-amount:50.00}") String monthlyAmount) {
+			MonthlyBenefitCap benefitCap = new MonthlyBenefitCap(MonetaryAmount.valueOf(monthlyAmount));
+			benefitCap.setDataSource(dataSource);
+			return benefitCap;
+		}
+
+	}
+
+	/**
+	 * Rewards batches on several lanes at once, partitioned by account. Activate the "parallel-batch" profile to use
+	 * it. The rewards.batch.lanes property sets the number of lanes, and the lanes run on virtual threads when
+	 * spring.threads.virtual.enabled is true and the Java runtime has them. With the "group-commit" profile also
+	 * active, the group commit network is the primary one, in front of the lanes.
+	 */
+	@Configuration
+	@Profile("parallel-batch")
+	static class ParallelBatchRewardsConfig {
+
+		@Value("${rewards.batch.lanes:" + ParallelRewardNetwork.DEFAULT_LANE_COUNT + "}")
+		int laneCount;
+
+		@Value("${spring.threads.virtual.enabled:false}")
+		boolean virtualThreads;
+
+		@Bean("parallelRewardNetwork")
+		@Primary
+		@Profile("!group-commit")
+		public ParallelRewardNetwork primaryParallelRewardNetwork(
+			@Qualifier("rewardNetwork") RewardNetwork rewardNetwork,
+			AccountRepository accountRepository) {
+			return parallelRewardNetwork(rewardNetwork, accountRepository);
+		}
+
+		@Bean("parallelRewardNetwork")
+		@Profile("group-commit")
+		public ParallelRewardNetwork groupedParallelRewardNetwork(
+			@Qualifier("rewardNetwork") RewardNetwork rewardNetwork,
+			AccountRepository accountRepository) {
+			return parallelRewardNetwork(rewardNetwork, accountRepository);
+		}
+
+		private ParallelRewardNetwork parallelRewardNetwork(RewardNetwork rewardNetwork,
+			AccountRepository accountRepository) {
+			ParallelRewardNetwork network = new ParallelRewardNetwork(rewardNetwork, accountRepository);
+			network.setLaneCount(laneCount);
+			if (virtualThreads && VirtualThreads.isSupported()) {
+				network.setThreadFactory(VirtualThreads.threadFactory("reward-lane-"));
+			}
+			return network;
+		}
+
+	}
+
 }
@@ -0,0 +1,131 @@
+package rewards;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of rewarding a batch of dinings. Holds one slot per dining, in the order the dinings were submitted:
+ * either the confirmation of the reward, or the failure explaining why that dining could not be rewarded.
+ */
+@SuppressWarnings("serial")
+public class RewardBatchResult implements Serializable {
+
+	private List<RewardConfirmation> confirmations;
+
+	private List<Failure> failures;
+
+	/**
+	 * Creates a new batch result.
+	 * @param confirmations the reward confirmations in dining order, with a <code>null</code> entry for each failed
+	 * dining
+	 * @param failures the dinings that could not be rewarded
+	 */
+	public RewardBatchResult(List<RewardConfirmation> confirmations, List<Failure> failures) {
+		this.confirmations = confirmations;
+		this.failures = failures;
+	}
+
+	/**
+	 * Returns the reward confirmations in the order the dinings were submitted. The entry of a dining that could not
+	 * be rewarded is <code>null</code>.
+	 * @return the reward confirmations
+	 */
+	public List<RewardConfirmation> getConfirmations() {
+		return Collections.unmodifiableList(confirmations);
+	}
+
+	/**
+	 * Returns the reward confirmation of a single dining.
+	 * @param index the position of the dining in the batch
+	 * @return the reward confirmation, or <code>null</code> if the dining could not be rewarded
+	 */
+	public RewardConfirmation getConfirmation(int index) {
+		return confirmations.get(index);
+	}
+
+	/**
+	 * Returns the dinings that could not be rewarded, in the order they were submitted.
+	 * @return the batch failures
+	 */
+	public List<Failure> getFailures() {
+		return Collections.unmodifiableList(failures);
+	}
+
+	/**
+	 * Returns true if at least one dining of the batch could not be rewarded.
+	 */
+	public boolean hasFailures() {
+		return !failures.isEmpty();
+	}
+
+	/**
+	 * Returns the confirmations of the dinings that were rewarded successfully, skipping the failed ones.
+	 * @return the successful reward confirmations
+	 */
+	public List<RewardConfirmation> getSuccessfulConfirmations() {
+		List<RewardConfirmation> successful = new ArrayList<RewardConfirmation>(confirmations.size() - failures.size());
+		for (RewardConfirmation confirmation : confirmations) {
+			if (confirmation != null) {
+				successful.add(confirmation);
+			}
+		}
+		return successful;
+	}
+
+	/**
+	 * A single dining of a batch that could not be rewarded, along with the reason why.
+	 *
+	 * A value object.
+	 */
+	public static class Failure implements Serializable {
+
+		private int index;
+
+		private Dining dining;
+
+		private RuntimeException cause;
+
+		/**
+		 * Creates a new batch failure.
+		 * @param index the position of the dining in the batch
+		 * @param dining the dining that could not be rewarded
+		 * @param cause the reason the dining could not be rewarded
+		 */
+		public Failure(int index, Dining dining, RuntimeException cause) {
+			this.index = index;
+			this.dining = dining;
+			this.cause = cause;
+		}
+
+		/**
+		 * Returns the position of the dining in the batch.
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * Returns the dining that could not be rewarded.
+		 */
+		public Dining getDining() {
+			return dining;
+		}
+
+		/**
+		 * Returns the reason the dining could not be rewarded.
+		 */
+		public RuntimeException getCause() {
+			return cause;
+		}
+
+		public String toString() {
+			return "#" + index + " " + dining + ": " + cause;
+		}
+	}
+
+	public String toString() {
+		return "Batch of " + confirmations.size() + " dinings with " + failures.size() + " failures " + failures;
+	}
+}
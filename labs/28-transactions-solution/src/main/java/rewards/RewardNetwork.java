@@ -1,5 +1,7 @@
 package rewards;
 
+import java.util.Collection;
+
 /**
  * Rewards a member account for dining at a restaurant.
  * 
@@ -25,4 +27,16 @@ public interface RewardNetwork {
 	 * @return confirmation of the reward
 	 */
 	public RewardConfirmation rewardAccountFor(Dining dining);
-}
\ No newline at end of file
+
+	/**
+	 * Reward the accounts for a batch of dinings, such as the rows of an end-of-day merchant file.
+	 * 
+	 * Credit cards and merchants are resolved for the whole batch up-front and the resulting beneficiary and reward
+	 * records are written in bulk. A dining that is not eligible for reward does not prevent the other dinings in the
+	 * batch from being rewarded; it is reported as a failure in the returned result instead.
+	 * 
+	 * @param dinings the dinings to reward
+	 * @return the confirmations of the rewards, in the order of the dinings, along with any failures
+	 */
+	public RewardBatchResult rewardAccountsFor(Collection<Dining> dinings);
+}
@@ -0,0 +1,307 @@
+package rewards.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import rewards.Dining;
+import rewards.RewardBatchResult;
+import rewards.RewardBatchResult.Failure;
+import rewards.RewardConfirmation;
+import rewards.RewardNetwork;
+
+/**
+ * Rewards single dinings in group commits, on top of another reward network.
+ * <p>
+ * Dinings are appended to a bounded in-memory queue. A single writer thread takes them off the queue and rewards them
+ * with the {@link RewardNetwork#rewardAccountsFor(Collection) batch operation} of the target network, so the
+ * beneficiary updates and the reward records of a whole group are written in one transaction and committed together.
+ * A group is committed as soon as it holds {@link #setMaxGroupSize(int) max group size} dinings, or when its oldest
+ * dining has waited {@link #setMaxGroupDelayMillis(long) max group delay} milliseconds, whichever comes first. Many
+ * concurrent callers therefore share the cost of a single database commit.
+ * <p>
+ * A dining is either rewarded completely or not at all, and fails only for a fault of its own: a dining the batch
+ * reports as a failure fails on its own, and if the transaction of a group rolls back, the group is split in halves
+ * which are retried in transactions of their own, down to single dinings. Callers get a {@link CompletableFuture}
+ * completed once the group holding their dining has committed, or use {@link #rewardAccountFor(Dining)} which waits
+ * for it. When the queue is full, callers block until the writer makes room for them. On {@link #shutdown()} new
+ * dinings are refused and the queue is drained before the writer stops.
+ * <p>
+ * A caller already in a transaction is not queued: its dining is rewarded directly in that transaction, so that it
+ * commits or rolls back with the caller's work, and so that the caller never waits for the writer while holding a
+ * database connection the writer might need. Batches are passed straight to the target network as well, since they
+ * are already committed in one transaction.
+ */
+public class GroupCommitRewardNetwork implements RewardNetwork {
+
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	public static final int DEFAULT_MAX_GROUP_SIZE = 100;
+
+	public static final long DEFAULT_MAX_GROUP_DELAY_MILLIS = 10;
+
+	public static final long DEFAULT_SHUTDOWN_TIMEOUT_MILLIS = 30000;
+
+	/**
+	 * How often blocked callers and the writer thread check whether this network has been shut down.
+	 */
+	private static final long POLL_MILLIS = 100;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final RewardNetwork targetNetwork;
+
+	private int capacity = DEFAULT_CAPACITY;
+
+	private int maxGroupSize = DEFAULT_MAX_GROUP_SIZE;
+
+	private long maxGroupDelayMillis = DEFAULT_MAX_GROUP_DELAY_MILLIS;
+
+	private long shutdownTimeoutMillis = DEFAULT_SHUTDOWN_TIMEOUT_MILLIS;
+
+	private BlockingQueue<PendingDining> queue;
+
+	private Thread writer;
+
+	private volatile boolean running;
+
+	/**
+	 * Creates a new group commit reward network.
+	 * @param targetNetwork the network rewarding each group in a transaction, normally a transactional
+	 * RewardNetworkImpl
+	 */
+	public GroupCommitRewardNetwork(RewardNetwork targetNetwork) {
+		this.targetNetwork = targetNetwork;
+	}
+
+	/**
+	 * Sets how many dinings may wait in the queue before callers are blocked. Must be set before {@link #start()}.
+	 */
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Sets how many dinings at most are rewarded in a single transaction.
+	 */
+	public void setMaxGroupSize(int maxGroupSize) {
+		this.maxGroupSize = maxGroupSize;
+	}
+
+	/**
+	 * Sets how long the oldest dining of a group may wait for the group to fill up before it is committed anyway.
+	 */
+	public void setMaxGroupDelayMillis(long maxGroupDelayMillis) {
+		this.maxGroupDelayMillis = maxGroupDelayMillis;
+	}
+
+	/**
+	 * Sets how long {@link #shutdown()} waits for the queue to drain.
+	 */
+	public void setShutdownTimeoutMillis(long shutdownTimeoutMillis) {
+		this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+	}
+
+	/**
+	 * Starts the writer thread. Called on initialization.
+	 */
+	@PostConstruct
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		queue = new ArrayBlockingQueue<PendingDining>(capacity);
+		running = true;
+		writer = new Thread(this::writeGroups, "reward-group-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Refuses new dinings, then waits for the queued ones to be rewarded before stopping the writer thread. Called on
+	 * destruction.
+	 */
+	@PreDestroy
+	public synchronized void shutdown() throws InterruptedException {
+		if (!running) {
+			return;
+		}
+		running = false;
+		writer.join(shutdownTimeoutMillis);
+		if (writer.isAlive()) {
+			logger.warn("Reward group writer did not drain within " + shutdownTimeoutMillis + "ms");
+			writer.interrupt();
+		}
+		// dinings enqueued while the writer was exiting
+		List<PendingDining> leftovers = new ArrayList<PendingDining>();
+		queue.drainTo(leftovers);
+		if (!leftovers.isEmpty()) {
+			commit(leftovers);
+		}
+	}
+
+	public RewardConfirmation rewardAccountFor(Dining dining) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return targetNetwork.rewardAccountFor(dining);
+		}
+		return join(rewardAccountForAsync(dining));
+	}
+
+	public RewardBatchResult rewardAccountsFor(Collection<Dining> dinings) {
+		return targetNetwork.rewardAccountsFor(dinings);
+	}
+
+	/**
+	 * Queues a dining to be rewarded with the next group commit. Blocks while the queue is full. Unlike
+	 * {@link #rewardAccountFor(Dining)}, always queues, even within a transaction.
+	 * @param dining the dining event
+	 * @return the reward confirmation, completed once the reward has been committed
+	 * @throws IllegalStateException if this network is not running
+	 */
+	public CompletableFuture<RewardConfirmation> rewardAccountForAsync(Dining dining) {
+		checkRunning();
+		PendingDining pending = new PendingDining(dining);
+		try {
+			while (!queue.offer(pending, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				checkRunning();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for room in the dining queue", e);
+		}
+		if (!running && queue.remove(pending)) {
+			// enqueued after shutdown drained the queue: nobody would ever reward it
+			checkRunning();
+		}
+		return pending.confirmation;
+	}
+
+	/**
+	 * Returns the number of dinings waiting to be rewarded.
+	 */
+	public int getQueueSize() {
+		return queue.size();
+	}
+
+	private void checkRunning() {
+		if (!running) {
+			throw new IllegalStateException("The reward network has been shut down");
+		}
+	}
+
+	/**
+	 * The writer thread loop: collects groups of dinings and commits them until shut down and drained.
+	 */
+	private void writeGroups() {
+		List<PendingDining> group = new ArrayList<PendingDining>(maxGroupSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				collectGroup(group);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				running = false;
+			}
+			if (!group.isEmpty()) {
+				commit(group);
+				group.clear();
+			}
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+		}
+	}
+
+	private void collectGroup(List<PendingDining> group) throws InterruptedException {
+		PendingDining first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+		if (first == null) {
+			return;
+		}
+		group.add(first);
+		long deadline = first.enqueuedAt + TimeUnit.MILLISECONDS.toNanos(maxGroupDelayMillis);
+		while (group.size() < maxGroupSize) {
+			queue.drainTo(group, maxGroupSize - group.size());
+			long remaining = deadline - System.nanoTime();
+			if (group.size() == maxGroupSize || remaining <= 0 || !running) {
+				// full, old enough, or shutting down: commit without waiting any longer
+				return;
+			}
+			PendingDining next = queue.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS)),
+					TimeUnit.NANOSECONDS);
+			if (next != null) {
+				group.add(next);
+			}
+		}
+	}
+
+	private void commit(List<PendingDining> group) {
+		List<Dining> dinings = new ArrayList<Dining>(group.size());
+		for (PendingDining pending : group) {
+			dinings.add(pending.dining);
+		}
+		RewardBatchResult result;
+		try {
+			result = targetNetwork.rewardAccountsFor(dinings);
+		} catch (RuntimeException e) {
+			// the transaction of the group rolled back: none of its dinings was rewarded
+			if (group.size() == 1) {
+				logger.error("Failed to reward " + group.get(0).dining, e);
+				group.get(0).confirmation.completeExceptionally(e);
+				return;
+			}
+			// retry each half in a transaction of its own, so only the dinings at fault fail
+			logger.debug("Failed to reward a group of " + group.size() + " dinings, retrying it in halves", e);
+			int half = group.size() / 2;
+			commit(new ArrayList<PendingDining>(group.subList(0, half)));
+			commit(new ArrayList<PendingDining>(group.subList(half, group.size())));
+			return;
+		}
+		for (Failure failure : result.getFailures()) {
+			group.get(failure.getIndex()).confirmation.completeExceptionally(failure.getCause());
+		}
+		for (int i = 0; i < group.size(); i++) {
+			RewardConfirmation confirmation = result.getConfirmation(i);
+			if (confirmation != null) {
+				group.get(i).confirmation.complete(confirmation);
+			}
+		}
+	}
+
+	private static RewardConfirmation join(CompletableFuture<RewardConfirmation> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * A dining waiting in the queue, with the future its caller is waiting on.
+	 */
+	private static class PendingDining {
+
+		private final Dining dining;
+
+		private final long enqueuedAt = System.nanoTime();
+
+		private final CompletableFuture<RewardConfirmation> confirmation = new CompletableFuture<RewardConfirmation>();
+
+		PendingDining(Dining dining) {
+			this.dining = dining;
+		}
+	}
+}
@@ -0,0 +1,460 @@
+package rewards.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rewards.Dining;
+import rewards.RewardBatchResult;
+import rewards.RewardBatchResult.Failure;
+import rewards.RewardConfirmation;
+import rewards.RewardNetwork;
+import rewards.internal.account.AccountRepository;
+
+/**
+ * Rewards batches of dinings on several worker lanes at once, on top of another reward network.
+ * <p>
+ * Dinings on the same account cannot simply be rewarded concurrently: each contribution loads the account, adds its
+ * share to the beneficiary savings and writes them back, so of two concurrent contributions the later write loses the
+ * earlier one. A batch is therefore partitioned by account. Each credit card is resolved to its owning account, and
+ * the account is hashed onto one of {@link #setLaneCount(int) lane count} lanes. A lane is a single thread working
+ * through its queue in order, so the dinings of an account are rewarded in the order they were submitted - across
+ * batches and single dinings too - while the dinings of accounts on other lanes are rewarded at the same time.
+ * <p>
+ * Each lane passes its share of a batch to the {@link RewardNetwork#rewardAccountsFor(Collection) batch operation} of
+ * the target network, in a transaction per lane. If that transaction fails, every dining of the share is reported as a
+ * failure, while the shares of the other lanes are still committed. The lanes do not take part in a transaction of the
+ * caller.
+ * <p>
+ * Every lane records how many dinings it rewarded, how long they waited and how long they took; see
+ * {@link #getLaneStatistics()}.
+ */
+public class ParallelRewardNetwork implements RewardNetwork {
+
+	public static final int DEFAULT_LANE_COUNT = 4;
+
+	public static final long DEFAULT_SHUTDOWN_TIMEOUT_MILLIS = 30000;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final RewardNetwork targetNetwork;
+
+	private final AccountRepository accountRepository;
+
+	private int laneCount = DEFAULT_LANE_COUNT;
+
+	private ThreadFactory threadFactory = new LaneThreadFactory();
+
+	private long shutdownTimeoutMillis = DEFAULT_SHUTDOWN_TIMEOUT_MILLIS;
+
+	private List<Lane> lanes = Collections.emptyList();
+
+	private volatile boolean running;
+
+	/**
+	 * Creates a new parallel reward network.
+	 * @param targetNetwork the network rewarding the dinings of each lane, normally a transactional RewardNetworkImpl
+	 * @param accountRepository the repository resolving credit cards to their accounts
+	 */
+	public ParallelRewardNetwork(RewardNetwork targetNetwork, AccountRepository accountRepository) {
+		this.targetNetwork = targetNetwork;
+		this.accountRepository = accountRepository;
+	}
+
+	/**
+	 * Sets the number of lanes, and so the number of accounts rewarded at the same time. Must be set before
+	 * {@link #start()}.
+	 */
+	public void setLaneCount(int laneCount) {
+		if (laneCount < 1) {
+			throw new IllegalArgumentException("There must be at least one lane, not " + laneCount);
+		}
+		this.laneCount = laneCount;
+	}
+
+	/**
+	 * Sets the factory creating the thread of each lane, such as a factory of virtual threads. Defaults to daemon
+	 * platform threads named <code>reward-lane-</code><i>n</i>. Must be set before {@link #start()}.
+	 */
+	public void setThreadFactory(ThreadFactory threadFactory) {
+		this.threadFactory = threadFactory;
+	}
+
+	/**
+	 * Sets how long {@link #shutdown()} waits for the lanes to finish their queued work.
+	 */
+	public void setShutdownTimeoutMillis(long shutdownTimeoutMillis) {
+		this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+	}
+
+	/**
+	 * Starts the lanes. Called on initialization.
+	 */
+	@PostConstruct
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		List<Lane> lanes = new ArrayList<Lane>(laneCount);
+		for (int i = 0; i < laneCount; i++) {
+			lanes.add(new Lane(i, Executors.newSingleThreadExecutor(threadFactory)));
+		}
+		this.lanes = Collections.unmodifiableList(lanes);
+		running = true;
+	}
+
+	/**
+	 * Refuses new dinings, then waits for the lanes to reward the queued ones before stopping them. Called on
+	 * destruction.
+	 */
+	@PreDestroy
+	public synchronized void shutdown() throws InterruptedException {
+		if (!running) {
+			return;
+		}
+		running = false;
+		for (Lane lane : lanes) {
+			lane.executor.shutdown();
+		}
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+		for (Lane lane : lanes) {
+			if (!lane.executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				logger.warn("Reward lane " + lane.index + " did not finish within " + shutdownTimeoutMillis + "ms");
+				lane.executor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Rewards a single dining on the lane of its account, after the dinings of that account already queued.
+	 */
+	public RewardConfirmation rewardAccountFor(Dining dining) {
+		checkRunning();
+		Map<String, Long> accountIds = accountRepository.findAccountIdsByCreditCards(
+				List.of(dining.getCreditCardNumber()));
+		Lane lane = laneFor(dining, accountIds);
+		return join(lane.submit(1, () -> targetNetwork.rewardAccountFor(dining), confirmation -> 0));
+	}
+
+	/**
+	 * Rewards a batch of dinings, partitioned by account across the lanes, and waits for all lanes to finish their
+	 * share.
+	 */
+	public RewardBatchResult rewardAccountsFor(Collection<Dining> dinings) {
+		checkRunning();
+		List<Dining> batch = new ArrayList<Dining>(dinings);
+		List<String> creditCardNumbers = new ArrayList<String>(batch.size());
+		for (Dining dining : batch) {
+			creditCardNumbers.add(dining.getCreditCardNumber());
+		}
+		Map<String, Long> accountIds = accountRepository.findAccountIdsByCreditCards(creditCardNumbers);
+
+		// the positions in the batch of the dinings of each lane, in batch order
+		List<List<Integer>> indexesByLane = new ArrayList<List<Integer>>(lanes.size());
+		for (int i = 0; i < lanes.size(); i++) {
+			indexesByLane.add(new ArrayList<Integer>());
+		}
+		for (int i = 0; i < batch.size(); i++) {
+			indexesByLane.get(laneFor(batch.get(i), accountIds).index).add(i);
+		}
+
+		List<CompletableFuture<RewardBatchResult>> shares = new ArrayList<CompletableFuture<RewardBatchResult>>();
+		for (int i = 0; i < lanes.size(); i++) {
+			List<Integer> indexes = indexesByLane.get(i);
+			if (indexes.isEmpty()) {
+				shares.add(null);
+				continue;
+			}
+			List<Dining> share = new ArrayList<Dining>(indexes.size());
+			for (int index : indexes) {
+				share.add(batch.get(index));
+			}
+			shares.add(lanes.get(i).submit(share.size(), () -> targetNetwork.rewardAccountsFor(share),
+					result -> result.getFailures().size()));
+		}
+
+		List<RewardConfirmation> confirmations = new ArrayList<RewardConfirmation>(
+				Collections.nCopies(batch.size(), (RewardConfirmation) null));
+		List<Failure> failures = new ArrayList<Failure>();
+		for (int i = 0; i < lanes.size(); i++) {
+			if (shares.get(i) == null) {
+				continue;
+			}
+			List<Integer> indexes = indexesByLane.get(i);
+			try {
+				RewardBatchResult result = join(shares.get(i));
+				for (int j = 0; j < indexes.size(); j++) {
+					confirmations.set(indexes.get(j), result.getConfirmation(j));
+				}
+				for (Failure failure : result.getFailures()) {
+					failures.add(new Failure(indexes.get(failure.getIndex()), failure.getDining(), failure.getCause()));
+				}
+			} catch (RuntimeException e) {
+				// the lane's transaction rolled back: none of its dinings were rewarded
+				for (int index : indexes) {
+					failures.add(new Failure(index, batch.get(index), e));
+				}
+			}
+		}
+		failures.sort(Comparator.comparingInt(Failure::getIndex));
+		return new RewardBatchResult(confirmations, failures);
+	}
+
+	/**
+	 * Returns the statistics of each lane, in lane order.
+	 */
+	public List<LaneStatistics> getLaneStatistics() {
+		List<LaneStatistics> statistics = new ArrayList<LaneStatistics>(lanes.size());
+		for (Lane lane : lanes) {
+			statistics.add(lane.statistics());
+		}
+		return statistics;
+	}
+
+	/**
+	 * Returns the lane of the account of a dining. A dining whose credit card has no account is placed by its credit
+	 * card number instead; the target network reports it as a failure.
+	 */
+	private Lane laneFor(Dining dining, Map<String, Long> accountIds) {
+		Long accountId = accountIds.get(dining.getCreditCardNumber());
+		int hash = accountId != null ? Long.hashCode(accountId) : dining.getCreditCardNumber().hashCode();
+		return lanes.get(Math.floorMod(hash, lanes.size()));
+	}
+
+	private void checkRunning() {
+		if (!running) {
+			throw new IllegalStateException("The parallel reward network is not running");
+		}
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * A worker lane: a single thread rewarding the work submitted to it in order, and recording its statistics.
+	 */
+	private static class Lane {
+
+		private final int index;
+
+		private final ExecutorService executor;
+
+		private final AtomicInteger queued = new AtomicInteger();
+
+		private final AtomicLong tasks = new AtomicLong();
+
+		private final AtomicLong dinings = new AtomicLong();
+
+		private final AtomicLong failures = new AtomicLong();
+
+		private final AtomicLong waitNanos = new AtomicLong();
+
+		private final AtomicLong serviceNanos = new AtomicLong();
+
+		private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+		Lane(int index, ExecutorService executor) {
+			this.index = index;
+			this.executor = executor;
+		}
+
+		/**
+		 * Queues work rewarding the given number of dinings.
+		 * @param failureCount counts the dinings the result of the work reports as failed
+		 */
+		<T> CompletableFuture<T> submit(int diningCount, Callable<T> work, ToIntFunction<T> failureCount) {
+			long submitted = System.nanoTime();
+			CompletableFuture<T> result = new CompletableFuture<T>();
+			queued.incrementAndGet();
+			try {
+				executor.execute(() -> run(submitted, diningCount, work, failureCount, result));
+			} catch (RejectedExecutionException e) {
+				// the lane has been shut down since the caller checked: the work will never run
+				queued.decrementAndGet();
+				throw new IllegalStateException("The parallel reward network is not running", e);
+			}
+			return result;
+		}
+
+		private <T> void run(long submitted, int diningCount, Callable<T> work, ToIntFunction<T> failureCount,
+				CompletableFuture<T> result) {
+			queued.decrementAndGet();
+			long started = System.nanoTime();
+			T value = null;
+			Throwable failure = null;
+			int failed = diningCount;
+			try {
+				value = work.call();
+				failed = failureCount.applyAsInt(value);
+			} catch (Throwable e) {
+				failure = e;
+			}
+			long finished = System.nanoTime();
+			tasks.incrementAndGet();
+			dinings.addAndGet(diningCount);
+			failures.addAndGet(failed);
+			waitNanos.addAndGet(started - submitted);
+			serviceNanos.addAndGet(finished - started);
+			maxLatencyNanos.accumulateAndGet(finished - submitted, Math::max);
+			// completed once recorded, so the statistics a caller reads include the work it waited for
+			if (failure != null) {
+				result.completeExceptionally(failure);
+			} else {
+				result.complete(value);
+			}
+		}
+
+		LaneStatistics statistics() {
+			return new LaneStatistics(index, queued.get(), tasks.get(), dinings.get(), failures.get(), waitNanos.get(),
+					serviceNanos.get(), maxLatencyNanos.get());
+		}
+	}
+
+	/**
+	 * A snapshot of the work done by a lane so far.
+	 *
+	 * A value object.
+	 */
+	public static class LaneStatistics {
+
+		private final int lane;
+
+		private final int queueLength;
+
+		private final long taskCount;
+
+		private final long diningCount;
+
+		private final long failureCount;
+
+		private final long waitNanos;
+
+		private final long serviceNanos;
+
+		private final long maxLatencyNanos;
+
+		LaneStatistics(int lane, int queueLength, long taskCount, long diningCount, long failureCount, long waitNanos,
+				long serviceNanos, long maxLatencyNanos) {
+			this.lane = lane;
+			this.queueLength = queueLength;
+			this.taskCount = taskCount;
+			this.diningCount = diningCount;
+			this.failureCount = failureCount;
+			this.waitNanos = waitNanos;
+			this.serviceNanos = serviceNanos;
+			this.maxLatencyNanos = maxLatencyNanos;
+		}
+
+		/**
+		 * Returns the number of the lane, from 0.
+		 */
+		public int getLane() {
+			return lane;
+		}
+
+		/**
+		 * Returns the number of batch shares and single dinings waiting for the lane.
+		 */
+		public int getQueueLength() {
+			return queueLength;
+		}
+
+		/**
+		 * Returns the number of batch shares and single dinings the lane has finished.
+		 */
+		public long getTaskCount() {
+			return taskCount;
+		}
+
+		/**
+		 * Returns the number of dinings the lane has finished, rewarded or not.
+		 */
+		public long getDiningCount() {
+			return diningCount;
+		}
+
+		/**
+		 * Returns the number of dinings the lane could not reward.
+		 */
+		public long getFailureCount() {
+			return failureCount;
+		}
+
+		/**
+		 * Returns the average time, in milliseconds, from submitting a task to the lane to the task finishing.
+		 */
+		public double getAverageLatencyMillis() {
+			return taskCount == 0 ? 0 : (waitNanos + serviceNanos) / 1e6 / taskCount;
+		}
+
+		/**
+		 * Returns the average time, in milliseconds, a task waited in the lane's queue before it started.
+		 */
+		public double getAverageWaitMillis() {
+			return taskCount == 0 ? 0 : waitNanos / 1e6 / taskCount;
+		}
+
+		/**
+		 * Returns the longest time, in milliseconds, from submitting a task to the lane to the task finishing.
+		 */
+		public double getMaximumLatencyMillis() {
+			return maxLatencyNanos / 1e6;
+		}
+
+		/**
+		 * Returns the number of dinings the lane finished per second it was busy.
+		 */
+		public double getThroughput() {
+			return serviceNanos == 0 ? 0 : diningCount * 1e9 / serviceNanos;
+		}
+
+		public String toString() {
+			return String.format("Lane %d: %d dinings (%d failed) in %d tasks, %.0f dinings/s, "
+					+ "latency avg %.2f ms (wait %.2f ms), max %.2f ms, %d queued", lane, diningCount, failureCount,
+					taskCount, getThroughput(), getAverageLatencyMillis(), getAverageWaitMillis(),
+					getMaximumLatencyMillis(), queueLength);
+		}
+	}
+
+	/**
+	 * Creates the daemon platform threads of the lanes.
+	 */
+	private static class LaneThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "reward-lane-" + count.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
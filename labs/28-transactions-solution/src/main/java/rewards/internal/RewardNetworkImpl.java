@@ -1,15 +1,34 @@
 package rewards.internal;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.transaction.NestedTransactionNotSupportedException;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import rewards.AccountContribution;
 import rewards.Dining;
+import rewards.RewardBatchResult;
+import rewards.RewardBatchResult.Failure;
 import rewards.RewardConfirmation;
 import rewards.RewardNetwork;
 import rewards.internal.account.Account;
 import rewards.internal.account.AccountRepository;
 import rewards.internal.restaurant.Restaurant;
 import rewards.internal.restaurant.RestaurantRepository;
+import rewards.internal.reward.MonthlyBenefitCap;
+import rewards.internal.reward.RewardHistory;
 import rewards.internal.reward.RewardRepository;
 
 import common.money.MonetaryAmount;
@@ -30,6 +49,10 @@ public class RewardNetworkImpl implements RewardNetwork {
 
 	private RewardRepository rewardRepository;
 
+	private MonthlyBenefitCap benefitCap;
+
+	private RewardHistory rewardHistory;
+
 	/**
 	 * Creates a new reward network.
 	 * @param accountRepository the repository for loading accounts to reward
@@ -43,13 +66,216 @@ public class RewardNetworkImpl implements RewardNetwork {
 		this.rewardRepository = rewardRepository;
 	}
 
+	/**
+	 * Sets the cap on the benefit rewarded to an account per month. A benefit over what the cap leaves is reduced, to
+	 * zero once the cap is reached. By default benefits are not capped.
+	 * @param benefitCap the monthly benefit cap, or null for none
+	 */
+	public void setBenefitCap(MonthlyBenefitCap benefitCap) {
+		this.benefitCap = benefitCap;
+	}
+
+	/**
+	 * Sets the history the dinings rewarded with a benefit are added to, for benefit availability policies limiting
+	 * how often an account is rewarded. By default dinings are not added to any history.
+	 * @param rewardHistory the reward history, or null for none
+	 */
+	public void setRewardHistory(RewardHistory rewardHistory) {
+		this.rewardHistory = rewardHistory;
+	}
+
 	@Transactional
 	public RewardConfirmation rewardAccountFor(Dining dining) {
 		Account account = accountRepository.findByCreditCard(dining.getCreditCardNumber());
 		Restaurant restaurant = restaurantRepository.findByMerchantNumber(dining.getMerchantNumber());
-		MonetaryAmount amount = restaurant.calculateBenefitFor(account, dining);
+		MonetaryAmount amount = capBenefit(account, dining, restaurant.calculateBenefitFor(account, dining));
 		AccountContribution contribution = account.makeContribution(amount);
 		accountRepository.updateBeneficiaries(account);
-		return rewardRepository.confirmReward(contribution, dining);
+		RewardConfirmation confirmation = rewardRepository.confirmReward(contribution, dining);
+		addRewardedDining(contribution, dining);
+		return confirmation;
+	}
+
+	/**
+	 * Rewards a batch of dinings in a single transaction. All credit cards and merchants of the batch are resolved
+	 * with a few IN-list queries, and the beneficiary and reward records are written with JDBC batch statements.
+	 * <p>
+	 * A dining whose credit card or merchant is unknown, or whose account has invalid beneficiary allocations, is
+	 * reported as a failure of that dining only; the remaining dinings are still rewarded. Contributions to the same
+	 * account are applied in the order of the dinings. Each dining is added to the reward history as soon as its
+	 * contribution is made, so that the dinings after it in the batch see it.
+	 * <p>
+	 * If writing the beneficiaries or recording the rewards fails, the writes are rolled back to a savepoint and
+	 * retried in halves, from accounts reloaded as written so far, down to the single dining that cannot be recorded.
+	 * That dining is reported as a failure, its benefit released from the cap and its dining removed from the reward
+	 * history, and the rest of the batch is still rewarded. Where the transaction manager does not support savepoints,
+	 * the failure rolls back the whole batch.
+	 */
+	@Transactional
+	public RewardBatchResult rewardAccountsFor(Collection<Dining> dinings) {
+		Set<String> creditCardNumbers = new HashSet<String>();
+		Set<String> merchantNumbers = new HashSet<String>();
+		for (Dining dining : dinings) {
+			creditCardNumbers.add(dining.getCreditCardNumber());
+			merchantNumbers.add(dining.getMerchantNumber());
+		}
+		Map<String, Account> accounts = accountRepository.findByCreditCards(creditCardNumbers);
+		Map<String, Restaurant> restaurants = restaurantRepository.findByMerchantNumbers(merchantNumbers);
+
+		List<RewardConfirmation> confirmations = new ArrayList<RewardConfirmation>(dinings.size());
+		List<Failure> failures = new ArrayList<Failure>();
+		List<AccountContribution> contributions = new ArrayList<AccountContribution>(dinings.size());
+		List<Dining> rewardedDinings = new ArrayList<Dining>(dinings.size());
+		List<Integer> rewardedIndexes = new ArrayList<Integer>(dinings.size());
+		Set<Account> rewardedAccounts = new LinkedHashSet<Account>();
+		int index = 0;
+		for (Dining dining : dinings) {
+			confirmations.add(null);
+			try {
+				Account account = accounts.get(dining.getCreditCardNumber());
+				Restaurant restaurant = restaurants.get(dining.getMerchantNumber());
+				if (account == null || restaurant == null) {
+					throw new EmptyResultDataAccessException(1);
+				}
+				MonetaryAmount amount = capBenefit(account, dining, restaurant.calculateBenefitFor(account, dining));
+				AccountContribution contribution = account.makeContribution(amount);
+				addRewardedDining(contribution, dining);
+				contributions.add(contribution);
+				rewardedDinings.add(dining);
+				rewardedIndexes.add(index);
+				rewardedAccounts.add(account);
+			} catch (RuntimeException e) {
+				failures.add(new Failure(index, dining, e));
+			}
+			index++;
+		}
+
+		if (!contributions.isEmpty()) {
+			recordRewards(rewardedIndexes, rewardedDinings, contributions, rewardedAccounts, confirmations, failures);
+			failures.sort(Comparator.comparingInt(Failure::getIndex));
+		}
+		return new RewardBatchResult(confirmations, failures);
+	}
+
+	/**
+	 * Writes the beneficiaries of the accounts contributed to and records the rewards of the dinings, under a savepoint
+	 * when the transaction supports one. If the writes fail, they are rolled back to the savepoint and each half of
+	 * the dinings is recorded again.
+	 */
+	private void recordRewards(List<Integer> indexes, List<Dining> dinings, List<AccountContribution> contributions,
+			Collection<Account> accounts, List<RewardConfirmation> confirmations, List<Failure> failures) {
+		TransactionStatus status = currentTransactionStatus();
+		Object savepoint = createSavepoint(status);
+		try {
+			accountRepository.updateBeneficiaries(accounts);
+			List<RewardConfirmation> rewarded = rewardRepository.confirmRewards(contributions, dinings);
+			for (int i = 0; i < rewarded.size(); i++) {
+				confirmations.set(indexes.get(i), rewarded.get(i));
+			}
+		} catch (DataAccessException e) {
+			if (savepoint == null) {
+				throw e;
+			}
+			status.rollbackToSavepoint(savepoint);
+			if (dinings.size() == 1) {
+				releaseBenefit(contributions.get(0), dinings.get(0));
+				failures.add(new Failure(indexes.get(0), dinings.get(0), e));
+				return;
+			}
+			int half = dinings.size() / 2;
+			recordRewardsAgain(indexes.subList(0, half), dinings.subList(0, half), contributions.subList(0, half),
+					confirmations, failures);
+			recordRewardsAgain(indexes.subList(half, dinings.size()), dinings.subList(half, dinings.size()),
+					contributions.subList(half, contributions.size()), confirmations, failures);
+			return;
+		}
+		if (savepoint != null) {
+			status.releaseSavepoint(savepoint);
+		}
+	}
+
+	/**
+	 * Records some of the dinings of a batch whose writes were rolled back. The accounts of the batch hold the
+	 * contributions of every dining, so they are reloaded as written so far and the contributions of these dinings
+	 * made again, with the benefits already granted.
+	 */
+	private void recordRewardsAgain(List<Integer> indexes, List<Dining> dinings,
+			List<AccountContribution> contributions, List<RewardConfirmation> confirmations, List<Failure> failures) {
+		Set<String> creditCardNumbers = new HashSet<String>();
+		for (Dining dining : dinings) {
+			creditCardNumbers.add(dining.getCreditCardNumber());
+		}
+		Map<String, Account> accounts = accountRepository.findByCreditCards(creditCardNumbers);
+		List<AccountContribution> madeAgain = new ArrayList<AccountContribution>(dinings.size());
+		Set<Account> rewardedAccounts = new LinkedHashSet<Account>();
+		for (int i = 0; i < dinings.size(); i++) {
+			Account account = accounts.get(dinings.get(i).getCreditCardNumber());
+			madeAgain.add(account.makeContribution(contributions.get(i).getAmount()));
+			rewardedAccounts.add(account);
+		}
+		recordRewards(indexes, dinings, madeAgain, rewardedAccounts, confirmations, failures);
+	}
+
+	/**
+	 * Returns the status of the transaction this network is called in, or null if it is not called through its
+	 * transactional proxy.
+	 */
+	private static TransactionStatus currentTransactionStatus() {
+		try {
+			return TransactionAspectSupport.currentTransactionStatus();
+		} catch (NoTransactionException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a savepoint in a transaction, returning null if there is no transaction or it does not support
+	 * savepoints.
+	 */
+	private static Object createSavepoint(TransactionStatus status) {
+		if (status == null) {
+			return null;
+		}
+		try {
+			return status.createSavepoint();
+		} catch (NestedTransactionNotSupportedException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Releases the benefit granted to a dining whose reward could not be recorded from the benefit cap, and removes
+	 * the dining from the reward history.
+	 */
+	private void releaseBenefit(AccountContribution contribution, Dining dining) {
+		if (benefitCap != null) {
+			benefitCap.release(contribution.getAccountNumber(), dining.getDate(), contribution.getAmount());
+		}
+		if (rewardHistory != null && contribution.getAmount().greaterThan(MonetaryAmount.zero())) {
+			rewardHistory.removeRewardedDining(contribution.getAccountNumber(), dining.getMerchantNumber(),
+					dining.getDate());
+		}
+	}
+
+	/**
+	 * Adds a dining to the reward history, unless no benefit was rewarded for it.
+	 */
+	private void addRewardedDining(AccountContribution contribution, Dining dining) {
+		if (rewardHistory != null && contribution.getAmount().greaterThan(MonetaryAmount.zero())) {
+			rewardHistory.addRewardedDining(contribution.getAccountNumber(), dining.getMerchantNumber(),
+					dining.getDate());
+		}
+	}
+
+	/**
+	 * Reduces a benefit to what the benefit cap leaves for the account in the month of the dining, reserving it until
+	 * the transaction completes.
+	 */
+	private MonetaryAmount capBenefit(Account account, Dining dining, MonetaryAmount benefit) {
+		// an invalid account cannot take a contribution, so must not reserve any of its cap
+		if (benefitCap == null || !account.isValid()) {
+			return benefit;
+		}
+		return benefitCap.reserve(account.getNumber(), dining.getDate(), benefit);
 	}
 }
\ No newline at end of file
@@ -1,10 +1,13 @@
 package rewards.internal;
 
+import java.util.Collection;
+
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import rewards.AccountContribution;
 import rewards.Dining;
+import rewards.RewardBatchResult;
 import rewards.RewardConfirmation;
 import rewards.RewardNetwork;
 import rewards.internal.account.Account;
@@ -53,4 +56,11 @@ public class RewardNetworkImplRequiresNew implements RewardNetwork {
 		accountRepository.updateBeneficiaries(account);
 		return rewardRepository.confirmReward(contribution, dining);
 	}
+
+	@Transactional(propagation=Propagation.REQUIRES_NEW)
+	public RewardBatchResult rewardAccountsFor(Collection<Dining> dinings) {
+		// the batch algorithm itself does not depend on the propagation behavior
+		return new RewardNetworkImpl(accountRepository, restaurantRepository, rewardRepository)
+				.rewardAccountsFor(dinings);
+	}
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import java.util.Set;
 import rewards.AccountContribution;
 import rewards.AccountContribution.Distribution;
 
+import common.money.Cents;
 import common.money.MonetaryAmount;
 import common.money.Percentage;
 import common.repository.Entity;
@@ -28,6 +29,8 @@ public class Account extends Entity {
 
 	private Set<Beneficiary> beneficiaries = new HashSet<Beneficiary>();
 
+	private boolean centArithmetic;
+
 	@SuppressWarnings("unused")
 	private Account() {
 	}
@@ -42,6 +45,15 @@ public class Account extends Entity {
 		this.name = name;
 	}
 
+	/**
+	 * Sets whether contributions are distributed with {@link Cents cent arithmetic} rather than MonetaryAmount
+	 * arithmetic. Both round the same way. Defaults to false.
+	 * @param centArithmetic true to distribute contributions in cents
+	 */
+	public void setCentArithmetic(boolean centArithmetic) {
+		this.centArithmetic = centArithmetic;
+	}
+
 	/**
 	 * Returns the number used to uniquely identify this account.
 	 */
@@ -113,9 +125,13 @@ public class Account extends Entity {
 	 * @return the individual beneficiary distributions
 	 */
 	private Set<Distribution> distribute(MonetaryAmount amount) {
+		// with cent arithmetic, the amount is converted once instead of rescaled for every beneficiary
+		long cents = centArithmetic ? Cents.valueOf(amount) : 0;
 		Set<Distribution> distributions = new HashSet<Distribution>(beneficiaries.size());
 		for (Beneficiary beneficiary : beneficiaries) {
-			MonetaryAmount distributionAmount = amount.multiplyBy(beneficiary.getAllocationPercentage());
+			MonetaryAmount distributionAmount = centArithmetic
+					? Cents.toMonetaryAmount(Cents.multiplyBy(cents, beneficiary.getAllocationPercentage()))
+					: amount.multiplyBy(beneficiary.getAllocationPercentage());
 			beneficiary.credit(distributionAmount);
 			Distribution distribution = new Distribution(beneficiary.getName(), distributionAmount, beneficiary
 					.getAllocationPercentage(), beneficiary.getSavings());
@@ -157,6 +173,21 @@ public class Account extends Entity {
 		beneficiaries.add(beneficiary);
 	}
 
+	/**
+	 * Returns a copy of this account and its beneficiaries, sharing no mutable state with it. Should only be called by a
+	 * repository keeping accounts in memory, so that every caller makes contributions to an account of its own.
+	 * @return the copy, with no unwritten savings changes
+	 */
+	Account copy() {
+		Account copy = new Account(number, name);
+		copy.setEntityId(getEntityId());
+		copy.setCentArithmetic(centArithmetic);
+		for (Beneficiary beneficiary : beneficiaries) {
+			copy.restoreBeneficiary(beneficiary.copy());
+		}
+		return copy;
+	}
+
 	public String toString() {
 		return "Number = '" + number + "', name = " + name + "', beneficiaries = " + beneficiaries;
 	}
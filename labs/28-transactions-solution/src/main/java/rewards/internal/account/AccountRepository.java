@@ -1,5 +1,8 @@
 package rewards.internal.account;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Loads account aggregates. Called by the reward network to find and reconstitute Account entities from an external
  * form such as a set of RDMS rows.
@@ -22,8 +25,38 @@ public interface AccountRepository {
 	 * Note: use of an object-relational mapper (ORM) with support for transparent-persistence like Hibernate (or the
 	 * new Java Persistence API (JPA)) would remove the need for this explicit update operation as the ORM would take
 	 * care of applying relational updates to a modified Account entity automatically.
+	 * <p>
+	 * Implementations may skip beneficiaries whose savings did not change, for example when the contribution amount was
+	 * zero.
 	 * @param account the account whose beneficiary savings have changed
 	 */
 	public void updateBeneficiaries(Account account);
 
+	/**
+	 * Load the accounts of several credit cards at once.
+	 * <p>
+	 * Credit cards belonging to the same account map to the same Account instance, so contributions made through either
+	 * card accumulate on a single set of beneficiaries. Credit cards without an account are absent from the result.
+	 * @param creditCardNumbers the credit card numbers
+	 * @return the accounts indexed by credit card number
+	 */
+	public Map<String, Account> findByCreditCards(Collection<String> creditCardNumbers);
+
+	/**
+	 * Find the owning account of several credit cards, without loading the accounts.
+	 * <p>
+	 * Credit cards belonging to the same account map to the same identifier. Credit cards without an account are absent
+	 * from the result.
+	 * @param creditCardNumbers the credit card numbers
+	 * @return the internal entity identifiers of the accounts indexed by credit card number
+	 */
+	public Map<String, Long> findAccountIdsByCreditCards(Collection<String> creditCardNumbers);
+
+	/**
+	 * Updates the 'savings' of each beneficiary of several accounts in bulk.
+	 * @param accounts the accounts whose beneficiary savings have changed
+	 * @see #updateBeneficiaries(Account)
+	 */
+	public void updateBeneficiaries(Collection<Account> accounts);
+
 }
\ No newline at end of file
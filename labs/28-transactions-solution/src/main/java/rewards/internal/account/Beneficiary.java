@@ -16,6 +16,11 @@ public class Beneficiary extends Entity {
 
 	private MonetaryAmount savings = MonetaryAmount.valueOf("0.00");
 
+	/**
+	 * Whether the savings balance changed since this beneficiary was loaded or last written.
+	 */
+	private boolean savingsChanged;
+
 	@SuppressWarnings("unused")
 	private Beneficiary() {
 	}
@@ -70,7 +75,38 @@ public class Beneficiary extends Entity {
 	 * @param amount the amount to credit
 	 */
 	public void credit(MonetaryAmount amount) {
-		savings = savings.add(amount);
+		MonetaryAmount newSavings = savings.add(amount);
+		if (!newSavings.equals(savings)) {
+			savingsChanged = true;
+		}
+		savings = newSavings;
+	}
+
+	/**
+	 * Returns true if the savings balance changed since this beneficiary was reconstituted or since the change was last
+	 * {@link #markSavingsWritten() written}. A credit of zero, such as the contribution of a dining that is not eligible
+	 * for benefit, leaves the balance unchanged.
+	 */
+	boolean isSavingsChanged() {
+		return savingsChanged;
+	}
+
+	/**
+	 * Records that the current savings balance has been written to the external form of this beneficiary. Should only
+	 * be called by the repository responsible for persisting the account.
+	 */
+	void markSavingsWritten() {
+		savingsChanged = false;
+	}
+
+	/**
+	 * Returns a copy of this beneficiary for a copy of its account.
+	 * @see Account#copy()
+	 */
+	Beneficiary copy() {
+		Beneficiary copy = new Beneficiary(name, allocationPercentage, savings);
+		copy.setEntityId(getEntityId());
+		return copy;
 	}
 
 	public String toString() {
@@ -0,0 +1,359 @@
+package rewards.internal.account;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import common.cache.SegmentedLruCache;
+
+/**
+ * A read-through cache of accounts in front of another account repository, keyed by credit card number.
+ * <p>
+ * The cache holds a private snapshot of each account and hands every caller a {@link Account#copy() copy} of it, so
+ * concurrent contributions never share a mutable Account. Its size is bounded, evicting with a segmented LRU policy
+ * that keeps the accounts of frequent diners over those of diners seen once.
+ * <p>
+ * Each account has a version, bumped whenever its beneficiaries are written through this repository and whenever
+ * {@link #evictAccount(Long)} is called. A snapshot is only returned while the version it was loaded at is current, and
+ * a snapshot loaded while the account changed is not cached at all. {@link #updateBeneficiaries(Account)} bumps the
+ * version when called and again when the surrounding transaction completes, so no snapshot read in between survives
+ * the commit. If nothing else changed the account since it was loaded, the account written is cached as the new
+ * snapshot once its transaction commits, and the next dining on the card is answered from memory.
+ * <p>
+ * Account changes made elsewhere, such as adding or removing a beneficiary or changing allocation percentages, must
+ * call {@link #evictAccount(Long)}. Credit cards are assumed never to move to another account.
+ */
+public class CachingAccountRepository implements AccountRepository {
+
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	/**
+	 * The number of version counters shared by all accounts. Accounts sharing a counter invalidate each other's
+	 * snapshots, which costs a reload but never returns a stale account.
+	 */
+	private static final int VERSION_STRIPES = 1024;
+
+	private final AccountRepository targetRepository;
+
+	private final SegmentedLruCache<String, CachedAccount> cache;
+
+	private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+	/**
+	 * The version each account handed out was loaded at, with its credit cards, until it is written back. Accounts
+	 * have identity equality, and callers that never write an account back let go of it.
+	 */
+	private final Map<Account, Loaded> loadedAccounts = Collections.synchronizedMap(new WeakHashMap<Account, Loaded>());
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * Creates a cache of up to {@link #DEFAULT_CAPACITY} credit cards.
+	 * @param targetRepository the repository loading and writing the accounts
+	 */
+	public CachingAccountRepository(AccountRepository targetRepository) {
+		this(targetRepository, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new caching account repository.
+	 * @param targetRepository the repository loading and writing the accounts
+	 * @param capacity the maximum number of credit cards cached
+	 */
+	public CachingAccountRepository(AccountRepository targetRepository, int capacity) {
+		this.targetRepository = targetRepository;
+		this.cache = new SegmentedLruCache<String, CachedAccount>(capacity);
+	}
+
+	public Account findByCreditCard(String creditCardNumber) {
+		CachedAccount cached = cache.get(creditCardNumber);
+		if (cached != null && isCurrent(cached)) {
+			hitCount.incrementAndGet();
+			return handOut(cached.account.copy(), cached.version, creditCardNumber);
+		}
+		missCount.incrementAndGet();
+		if (cached == null) {
+			// the account is not known yet, so neither is the version to check the load against: only remember which
+			// account the credit card belongs to, and cache the account the next time it is loaded
+			Account account = targetRepository.findByCreditCard(creditCardNumber);
+			if (account.getEntityId() != null) {
+				cache.put(creditCardNumber, new CachedAccount(account.getEntityId(), -1, null));
+			}
+			return account;
+		}
+		long version = version(cached.accountId);
+		Account account = targetRepository.findByCreditCard(creditCardNumber);
+		if (cached.accountId.equals(account.getEntityId()) && version(cached.accountId) == version) {
+			cache.put(creditCardNumber, new CachedAccount(cached.accountId, version, account.copy()));
+			handOut(account, version, creditCardNumber);
+		}
+		return account;
+	}
+
+	public Map<String, Account> findByCreditCards(Collection<String> creditCardNumbers) {
+		Map<String, Account> accountsByCreditCard = new HashMap<String, Account>();
+		// one instance per account, as the target repository would return
+		Map<Long, Account> accountsById = new HashMap<Long, Account>();
+		List<String> misses = new ArrayList<String>();
+		Map<String, Long> versionsBeforeLoad = new HashMap<String, Long>();
+		for (String creditCardNumber : new LinkedHashSet<String>(creditCardNumbers)) {
+			CachedAccount cached = cache.get(creditCardNumber);
+			if (cached != null && isCurrent(cached)) {
+				hitCount.incrementAndGet();
+				Account account = accountsById.get(cached.accountId);
+				if (account == null) {
+					account = cached.account.copy();
+					accountsById.put(cached.accountId, account);
+				}
+				accountsByCreditCard.put(creditCardNumber, handOut(account, cached.version, creditCardNumber));
+			} else {
+				missCount.incrementAndGet();
+				misses.add(creditCardNumber);
+				if (cached != null) {
+					versionsBeforeLoad.put(creditCardNumber, version(cached.accountId));
+				}
+			}
+		}
+		if (misses.isEmpty()) {
+			return accountsByCreditCard;
+		}
+		for (Map.Entry<String, Account> entry : targetRepository.findByCreditCards(misses).entrySet()) {
+			String creditCardNumber = entry.getKey();
+			Account account = entry.getValue();
+			Long accountId = account.getEntityId();
+			if (accountId == null) {
+				accountsByCreditCard.put(creditCardNumber, account);
+				continue;
+			}
+			Account handedOut = accountsById.get(accountId);
+			if (handedOut != null) {
+				// another credit card of the account was a hit: both must map to the same instance
+				accountsByCreditCard.put(creditCardNumber, handedOut);
+				continue;
+			}
+			Long version = versionsBeforeLoad.get(creditCardNumber);
+			if (version == null) {
+				cache.put(creditCardNumber, new CachedAccount(accountId, -1, null));
+			} else if (version(accountId) == version) {
+				cache.put(creditCardNumber, new CachedAccount(accountId, version, account.copy()));
+				handOut(account, version, creditCardNumber);
+			}
+			accountsByCreditCard.put(creditCardNumber, account);
+		}
+		return accountsByCreditCard;
+	}
+
+	public Map<String, Long> findAccountIdsByCreditCards(Collection<String> creditCardNumbers) {
+		Map<String, Long> accountIdsByCreditCard = new HashMap<String, Long>();
+		List<String> unknown = new ArrayList<String>();
+		for (String creditCardNumber : creditCardNumbers) {
+			// the account of a credit card never changes, so even an outdated entry knows it
+			CachedAccount cached = cache.peek(creditCardNumber);
+			if (cached != null) {
+				accountIdsByCreditCard.put(creditCardNumber, cached.accountId);
+			} else {
+				unknown.add(creditCardNumber);
+			}
+		}
+		if (!unknown.isEmpty()) {
+			accountIdsByCreditCard.putAll(targetRepository.findAccountIdsByCreditCards(unknown));
+		}
+		return accountIdsByCreditCard;
+	}
+
+	public void updateBeneficiaries(Account account) {
+		updateBeneficiaries(List.of(account));
+	}
+
+	public void updateBeneficiaries(Collection<Account> accounts) {
+		List<PendingUpdate> updates = new ArrayList<PendingUpdate>(accounts.size());
+		for (Account account : accounts) {
+			if (account.getEntityId() != null) {
+				updates.add(new PendingUpdate(account));
+			}
+		}
+		try {
+			if (accounts.size() == 1) {
+				targetRepository.updateBeneficiaries(accounts.iterator().next());
+			} else {
+				targetRepository.updateBeneficiaries(accounts);
+			}
+		} catch (RuntimeException e) {
+			completed(updates, false);
+			throw e;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			// not in a transaction: the write is already committed
+			completed(updates, true);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			public void afterCompletion(int status) {
+				completed(updates, status == STATUS_COMMITTED);
+			}
+
+		});
+	}
+
+	/**
+	 * Invalidates the cached snapshot of an account changed without going through this repository, such as by adding a
+	 * beneficiary or changing allocation percentages.
+	 * @param accountId the internal entity identifier of the account
+	 */
+	public void evictAccount(Long accountId) {
+		versions.incrementAndGet(stripe(accountId));
+	}
+
+	/**
+	 * Removes every account from the cache.
+	 */
+	public void evictAll() {
+		for (int i = 0; i < VERSION_STRIPES; i++) {
+			versions.incrementAndGet(i);
+		}
+		cache.clear();
+	}
+
+	/**
+	 * Returns the number of credit cards cached, including those whose account has changed since it was cached.
+	 */
+	public int getSize() {
+		return cache.size();
+	}
+
+	/**
+	 * Returns the number of credit cards looked up whose account was answered from the cache.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of credit cards looked up whose account was loaded from the target repository.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns the number of credit cards evicted from the cache to make room for others.
+	 */
+	public long getEvictionCount() {
+		return cache.getEvictionCount();
+	}
+
+	private void completed(List<PendingUpdate> updates, boolean committed) {
+		for (PendingUpdate update : updates) {
+			update.completed(committed);
+		}
+	}
+
+	private Account handOut(Account account, long version, String creditCardNumber) {
+		synchronized (loadedAccounts) {
+			Loaded loaded = loadedAccounts.get(account);
+			if (loaded == null) {
+				loadedAccounts.put(account, new Loaded(version, creditCardNumber));
+			} else if (loaded.version == version) {
+				loaded.creditCardNumbers.add(creditCardNumber);
+			}
+		}
+		return account;
+	}
+
+	private boolean isCurrent(CachedAccount cached) {
+		return cached.account != null && cached.version == version(cached.accountId);
+	}
+
+	private long version(Long accountId) {
+		return versions.get(stripe(accountId));
+	}
+
+	private static int stripe(Long accountId) {
+		return Long.hashCode(accountId) & (VERSION_STRIPES - 1);
+	}
+
+	public String toString() {
+		return "CachingAccountRepository: " + cache;
+	}
+
+	/**
+	 * The cache entry of a credit card: the account it belongs to and, if known, a snapshot of the account and the
+	 * version it was taken at.
+	 */
+	private static class CachedAccount {
+
+		private final Long accountId;
+
+		private final long version;
+
+		private final Account account;
+
+		CachedAccount(Long accountId, long version, Account account) {
+			this.accountId = accountId;
+			this.version = version;
+			this.account = account;
+		}
+	}
+
+	/**
+	 * The write of an account, invalidating it when started and again when committed or rolled back.
+	 */
+	private class PendingUpdate {
+
+		private final Long accountId;
+
+		private final long writingVersion;
+
+		private final Loaded loaded;
+
+		private final Account written;
+
+		PendingUpdate(Account account) {
+			this.accountId = account.getEntityId();
+			this.loaded = loadedAccounts.remove(account);
+			this.writingVersion = versions.incrementAndGet(stripe(accountId));
+			// the account written is what the database holds once committed, unless something else changed the
+			// account after it was loaded
+			this.written = loaded != null && writingVersion == loaded.version + 1 ? account.copy() : null;
+		}
+
+		void completed(boolean committed) {
+			long completedVersion = versions.incrementAndGet(stripe(accountId));
+			if (committed && written != null && completedVersion == writingVersion + 1) {
+				for (String creditCardNumber : loaded.creditCardNumbers) {
+					cache.put(creditCardNumber, new CachedAccount(accountId, completedVersion, written));
+				}
+			}
+		}
+	}
+
+	/**
+	 * The version an account handed out was loaded at, and the credit cards it was looked up by.
+	 */
+	private static class Loaded {
+
+		private final long version;
+
+		private final Set<String> creditCardNumbers = new HashSet<String>();
+
+		Loaded(long version, String creditCardNumber) {
+			this.version = version;
+			this.creditCardNumbers.add(creditCardNumber);
+		}
+	}
+}
@@ -1,25 +1,63 @@
 package rewards.internal.account;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import common.money.MonetaryAmount;
 import common.money.Percentage;
+import common.repository.InLists;
 
 /**
  * Loads accounts from a data source using the JDBC API.
  */
 public class JdbcAccountRepository implements AccountRepository {
-	
+
+	/*
+	 * The position of each column selected by the account queries. Every query selects the same columns in this order.
+	 */
+	private static final int COLUMN_ID = 1;
+
+	private static final int COLUMN_ACCOUNT_NUMBER = 2;
+
+	private static final int COLUMN_ACCOUNT_NAME = 3;
+
+	private static final int COLUMN_BENEFICIARY_NAME = 4;
+
+	private static final int COLUMN_BENEFICIARY_ALLOCATION_PERCENTAGE = 5;
+
+	private static final int COLUMN_BENEFICIARY_SAVINGS = 6;
+
 	private JdbcTemplate jdbcTemplate;
 
+	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	private boolean updateChangedBeneficiariesOnly = true;
+
+	/**
+	 * Whether result set columns are read by position, as laid out by the COLUMN_* constants, rather than by label.
+	 */
+	private boolean indexedColumnMapping = true;
+
+	private boolean centArithmetic;
+
 	/**
 	 * Extracts an Account object from rows returned from a join of T_ACCOUNT and T_ACCOUNT_BENEFICIARY.
 	 */
@@ -27,20 +65,147 @@ public class JdbcAccountRepository implements AccountRepository {
 
 	public void setDataSource(DataSource dataSource) {
 		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
 	}
 	
+	/**
+	 * Sets whether {@link #updateBeneficiaries(Account)} writes only the beneficiaries whose savings changed since the
+	 * account was loaded, rather than every beneficiary of the account. Defaults to true.
+	 * 
+	 * @param updateChangedBeneficiariesOnly true to skip beneficiaries with unchanged savings
+	 */
+	public void setUpdateChangedBeneficiariesOnly(boolean updateChangedBeneficiariesOnly) {
+		this.updateChangedBeneficiariesOnly = updateChangedBeneficiariesOnly;
+	}
+
+	/**
+	 * Sets whether accounts are mapped by reading the result set columns by position, with the amounts read as
+	 * BigDecimals. If false, columns are looked up by label and the amounts parsed from their string form. Defaults to
+	 * true.
+	 * 
+	 * @param indexedColumnMapping true to read columns by position
+	 */
+	public void setIndexedColumnMapping(boolean indexedColumnMapping) {
+		this.indexedColumnMapping = indexedColumnMapping;
+	}
+
+	/**
+	 * Sets whether the accounts loaded distribute contributions with cent arithmetic. Defaults to false.
+	 * 
+	 * @param centArithmetic true to distribute contributions in cents
+	 * @see Account#setCentArithmetic(boolean)
+	 */
+	public void setCentArithmetic(boolean centArithmetic) {
+		this.centArithmetic = centArithmetic;
+	}
+
 	public Account findByCreditCard(String creditCardNumber) {
-		String sql = "select a.ID as ID, a.NUMBER as ACCOUNT_NUMBER, a.NAME as ACCOUNT_NAME, c.NUMBER as CREDIT_CARD_NUMBER, b.NAME as BENEFICIARY_NAME, b.ALLOCATION_PERCENTAGE as BENEFICIARY_ALLOCATION_PERCENTAGE, b.SAVINGS as BENEFICIARY_SAVINGS from T_ACCOUNT a, T_ACCOUNT_BENEFICIARY b, T_ACCOUNT_CREDIT_CARD c where ID = b.ACCOUNT_ID and ID = c.ACCOUNT_ID and c.NUMBER = ?";
+		String sql = "select a.ID as ID, a.NUMBER as ACCOUNT_NUMBER, a.NAME as ACCOUNT_NAME, b.NAME as BENEFICIARY_NAME, b.ALLOCATION_PERCENTAGE as BENEFICIARY_ALLOCATION_PERCENTAGE, b.SAVINGS as BENEFICIARY_SAVINGS from T_ACCOUNT_CREDIT_CARD c join T_ACCOUNT a on a.ID = c.ACCOUNT_ID join T_ACCOUNT_BENEFICIARY b on b.ACCOUNT_ID = a.ID where c.NUMBER = ?";
 		return jdbcTemplate.query(sql, accountExtractor, creditCardNumber);
 	}
 
 	public void updateBeneficiaries(Account account) {
+		updateBeneficiaries(List.of(account));
+	}
+
+	public Map<String, Account> findByCreditCards(Collection<String> creditCardNumbers) {
+		// first resolve the owning account of each credit card ...
+		Map<String, Long> accountIdsByCreditCard = findAccountIdsByCreditCards(creditCardNumbers);
+		// ... then load each of those accounts once, even if several of its credit cards were requested
+		Map<Long, Account> accountsById = findByIds(accountIdsByCreditCard.values());
+		Map<String, Account> accountsByCreditCard = new HashMap<String, Account>();
+		for (Map.Entry<String, Long> entry : accountIdsByCreditCard.entrySet()) {
+			accountsByCreditCard.put(entry.getKey(), accountsById.get(entry.getValue()));
+		}
+		return accountsByCreditCard;
+	}
+
+	public Map<String, Long> findAccountIdsByCreditCards(Collection<String> creditCardNumbers) {
+		Map<String, Long> accountIdsByCreditCard = new HashMap<String, Long>();
+		String sql = "select NUMBER, ACCOUNT_ID from T_ACCOUNT_CREDIT_CARD where NUMBER in (:numbers)";
+		for (List<String> chunk : InLists.chunk(creditCardNumbers)) {
+			namedParameterJdbcTemplate.query(sql, Map.of("numbers", chunk),
+					rs -> { accountIdsByCreditCard.put(rs.getString("NUMBER"), rs.getLong("ACCOUNT_ID")); });
+		}
+		return accountIdsByCreditCard;
+	}
+
+	public void updateBeneficiaries(Collection<Account> accounts) {
+		List<Long> accountIds = new ArrayList<Long>();
+		List<Beneficiary> beneficiaries = new ArrayList<Beneficiary>();
+		for (Account account : accounts) {
+			for (Beneficiary b : account.getBeneficiaries()) {
+				if (!updateChangedBeneficiariesOnly || b.isSavingsChanged()) {
+					accountIds.add(account.getEntityId());
+					beneficiaries.add(b);
+				}
+			}
+		}
+		if (beneficiaries.isEmpty()) {
+			// no savings changed, for example because the dinings were not eligible for benefit
+			return;
+		}
 		String sql = "update T_ACCOUNT_BENEFICIARY SET SAVINGS = ? where ACCOUNT_ID = ? and NAME = ?";
-		for (Beneficiary b : account.getBeneficiaries()) {
-			jdbcTemplate.update(sql, b.getSavings().asBigDecimal(), account.getEntityId(), b.getName());
+		jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				Beneficiary b = beneficiaries.get(i);
+				ps.setBigDecimal(1, b.getSavings().asBigDecimal());
+				ps.setLong(2, accountIds.get(i));
+				ps.setString(3, b.getName());
+			}
+
+			public int getBatchSize() {
+				return beneficiaries.size();
+			}
+
+		});
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			// not in a transaction: the write is already committed
+			markSavingsWritten(beneficiaries);
+			return;
+		}
+		// a rolled back write must be written again, so the savings only count as written once committed
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			public void afterCommit() {
+				markSavingsWritten(beneficiaries);
+			}
+
+		});
+	}
+
+	private static void markSavingsWritten(List<Beneficiary> beneficiaries) {
+		for (Beneficiary b : beneficiaries) {
+			b.markSavingsWritten();
 		}
 	}
 
+	/**
+	 * Loads several accounts with their beneficiaries by internal entity identifier.
+	 * 
+	 * @param accountIds the internal entity identifiers
+	 * @return the accounts indexed by entity identifier
+	 */
+	private Map<Long, Account> findByIds(Collection<Long> accountIds) {
+		Map<Long, Account> accountsById = new HashMap<Long, Account>();
+		String sql = "select a.ID as ID, a.NUMBER as ACCOUNT_NUMBER, a.NAME as ACCOUNT_NAME, b.NAME as BENEFICIARY_NAME, b.ALLOCATION_PERCENTAGE as BENEFICIARY_ALLOCATION_PERCENTAGE, b.SAVINGS as BENEFICIARY_SAVINGS from T_ACCOUNT a, T_ACCOUNT_BENEFICIARY b where a.ID = b.ACCOUNT_ID and a.ID in (:ids)";
+		for (List<Long> chunk : InLists.chunk(new LinkedHashSet<Long>(accountIds))) {
+			namedParameterJdbcTemplate.query(sql, Map.of("ids", chunk), rs -> {
+				Long id = rs.getLong(COLUMN_ID);
+				Account account = accountsById.get(id);
+				if (account == null) {
+					account = new Account(rs.getString(COLUMN_ACCOUNT_NUMBER), rs.getString(COLUMN_ACCOUNT_NAME));
+					account.setCentArithmetic(centArithmetic);
+					account.setEntityId(id);
+					accountsById.put(id, account);
+				}
+				account.restoreBeneficiary(indexedColumnMapping ? mapBeneficiaryByIndex(rs) : mapBeneficiary(rs));
+			});
+		}
+		return accountsById;
+	}
+
 	/**
 	 * Map the rows returned from the join of T_ACCOUNT and T_ACCOUNT_BENEFICIARY to an fully-reconstituted Account
 	 * aggregate.
@@ -56,6 +221,7 @@ public class JdbcAccountRepository implements AccountRepository {
 				String number = rs.getString("ACCOUNT_NUMBER");
 				String name = rs.getString("ACCOUNT_NAME");
 				account = new Account(number, name);
+				account.setCentArithmetic(centArithmetic);
 				// set internal entity identifier (primary key)
 				account.setEntityId(rs.getLong("ID"));
 			}
@@ -82,10 +248,49 @@ public class JdbcAccountRepository implements AccountRepository {
 		return new Beneficiary(name, allocationPercentage, savings);
 	}
 
+	/**
+	 * Map the rows returned from the join of T_ACCOUNT and T_ACCOUNT_BENEFICIARY to an fully-reconstituted Account
+	 * aggregate, reading the columns by position.
+	 * 
+	 * @param rs the set of rows returned from the query
+	 * @return the mapped Account aggregate
+	 * @throws SQLException an exception occurred extracting data from the result set
+	 */
+	private Account mapAccountByIndex(ResultSet rs) throws SQLException {
+		Account account = null;
+		while (rs.next()) {
+			if (account == null) {
+				account = new Account(rs.getString(COLUMN_ACCOUNT_NUMBER), rs.getString(COLUMN_ACCOUNT_NAME));
+				account.setEntityId(rs.getLong(COLUMN_ID));
+				account.setCentArithmetic(centArithmetic);
+			}
+			account.restoreBeneficiary(mapBeneficiaryByIndex(rs));
+		}
+		if (account == null) {
+			throw new EmptyResultDataAccessException(1);
+		}
+		return account;
+	}
+
+	/**
+	 * Maps the beneficiary columns in a single row to a Beneficiary object, reading the columns by position and the
+	 * amounts as decimals rather than parsing them from strings.
+	 * 
+	 * @param rs the result set with its cursor positioned at the current row
+	 * @return an allocated beneficiary
+	 * @throws SQLException an exception occurred extracting data from the result set
+	 */
+	private Beneficiary mapBeneficiaryByIndex(ResultSet rs) throws SQLException {
+		String name = rs.getString(COLUMN_BENEFICIARY_NAME);
+		MonetaryAmount savings = new MonetaryAmount(rs.getBigDecimal(COLUMN_BENEFICIARY_SAVINGS));
+		Percentage allocationPercentage = new Percentage(rs.getBigDecimal(COLUMN_BENEFICIARY_ALLOCATION_PERCENTAGE));
+		return new Beneficiary(name, allocationPercentage, savings);
+	}
+
 	private class AccountExtractor implements ResultSetExtractor<Account> {
 
 		public Account extractData(ResultSet rs) throws SQLException, DataAccessException {
-			return mapAccount(rs);
+			return indexedColumnMapping ? mapAccountByIndex(rs) : mapAccount(rs);
 		}
 
 	}
@@ -0,0 +1,246 @@
+package rewards.internal.restaurant;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import rewards.Dining;
+import rewards.internal.account.Account;
+import rewards.internal.reward.RewardHistory;
+
+import common.money.MonetaryAmount;
+
+/**
+ * Compiles the benefit availability rules of a restaurant into a {@link BenefitAvailabilityPolicy}. A definition is a
+ * list of rules separated by semicolons, all of which must hold for benefit to be available:
+ * <ul>
+ * <li><code>days=MON-FRI</code> - only on the given days of the week. Days are listed by their first three letters,
+ * separated by commas, and ranges like <code>FRI-SUN</code> or <code>SAT-MON</code> include the days between.</li>
+ * <li><code>min-amount=25.00</code> - only for dinings of at least the given amount.</li>
+ * <li><code>max-per-month=4</code> - only for the given number of dinings of an account per calendar month, counted by
+ * the {@link RewardHistory}.</li>
+ * </ul>
+ * For example <code>days=MON-THU; min-amount=20.00; max-per-month=2</code>.
+ * <p>
+ * A definition is parsed once into a tree of policies, kept per merchant number until the restaurant's definition
+ * changes. The day and amount rules are checked with a few comparisons and no allocation. The monthly limit asks the
+ * reward history, so is checked last. A compiled policy only reads the history: the reward network adds each dining
+ * rewarded with a benefit to it.
+ */
+public class BenefitRuleCompiler {
+
+	private final RewardHistory rewardHistory;
+
+	private final ConcurrentMap<String, CompiledRules> policiesByMerchant = new ConcurrentHashMap<String, CompiledRules>();
+
+	/**
+	 * Creates a compiler of rules that do not limit the dinings per month.
+	 */
+	public BenefitRuleCompiler() {
+		this(null);
+	}
+
+	/**
+	 * Creates a new compiler.
+	 * @param rewardHistory the history counting the dinings rewarded this month, used by <code>max-per-month</code>
+	 * rules
+	 */
+	public BenefitRuleCompiler(RewardHistory rewardHistory) {
+		this.rewardHistory = rewardHistory;
+	}
+
+	/**
+	 * Returns the policy of a restaurant, compiling its rules unless they are the ones last compiled for the restaurant.
+	 * @param merchantNumber the merchant number of the restaurant
+	 * @param definition the rule definition
+	 * @return the compiled policy
+	 * @throws IllegalArgumentException if the definition is not valid
+	 */
+	public BenefitAvailabilityPolicy compile(String merchantNumber, String definition) {
+		CompiledRules policy = policiesByMerchant.get(merchantNumber);
+		if (policy != null && policy.definition.equals(definition)) {
+			return policy;
+		}
+		policy = parse(definition);
+		policiesByMerchant.put(merchantNumber, policy);
+		return policy;
+	}
+
+	private CompiledRules parse(String definition) {
+		if (definition == null || definition.isBlank()) {
+			throw new IllegalArgumentException("No benefit availability rules defined");
+		}
+		List<BenefitAvailabilityPolicy> rules = new ArrayList<BenefitAvailabilityPolicy>();
+		BenefitAvailabilityPolicy monthlyLimit = null;
+		Set<String> names = new HashSet<String>();
+		for (String rule : definition.split(";")) {
+			int equals = rule.indexOf('=');
+			if (equals < 0) {
+				throw new IllegalArgumentException("Not a benefit availability rule '" + rule.trim() + "' in '"
+						+ definition + "'");
+			}
+			String name = rule.substring(0, equals).trim();
+			String value = rule.substring(equals + 1).trim();
+			if (!names.add(name)) {
+				throw new IllegalArgumentException("Rule '" + name + "' defined twice in '" + definition + "'");
+			}
+			if ("days".equals(name)) {
+				rules.add(new DaysOfWeek(parseDays(value, definition)));
+			} else if ("min-amount".equals(name)) {
+				rules.add(new MinimumAmount(parseAmount(value, definition)));
+			} else if ("max-per-month".equals(name)) {
+				monthlyLimit = new MonthlyLimit(parseLimit(value, definition), rewardHistory());
+			} else {
+				throw new IllegalArgumentException("Unknown benefit availability rule '" + name + "' in '" + definition
+						+ "'");
+			}
+		}
+		if (monthlyLimit != null) {
+			rules.add(monthlyLimit);
+		}
+		return new CompiledRules(definition, rules.toArray(new BenefitAvailabilityPolicy[rules.size()]));
+	}
+
+	private RewardHistory rewardHistory() {
+		if (rewardHistory == null) {
+			throw new IllegalStateException("A max-per-month rule needs a reward history");
+		}
+		return rewardHistory;
+	}
+
+	/**
+	 * Parses a list of days and ranges of days into a bit mask with a bit for each day, Monday first.
+	 */
+	private static int parseDays(String value, String definition) {
+		int mask = 0;
+		for (String days : value.split(",")) {
+			int dash = days.indexOf('-');
+			if (dash < 0) {
+				mask |= 1 << parseDay(days, definition).ordinal();
+				continue;
+			}
+			int first = parseDay(days.substring(0, dash), definition).ordinal();
+			int last = parseDay(days.substring(dash + 1), definition).ordinal();
+			for (int day = first; day != last; day = (day + 1) % 7) {
+				mask |= 1 << day;
+			}
+			mask |= 1 << last;
+		}
+		return mask;
+	}
+
+	private static DayOfWeek parseDay(String day, String definition) {
+		String abbreviation = day.trim().toUpperCase(Locale.ROOT);
+		for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+			if (dayOfWeek.name().substring(0, 3).equals(abbreviation)) {
+				return dayOfWeek;
+			}
+		}
+		throw new IllegalArgumentException("Not a day of the week '" + day.trim() + "' in '" + definition + "'");
+	}
+
+	private static MonetaryAmount parseAmount(String value, String definition) {
+		try {
+			return MonetaryAmount.valueOf(value);
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Not an amount '" + value + "' in '" + definition + "'", e);
+		}
+	}
+
+	private static int parseLimit(String value, String definition) {
+		try {
+			int limit = Integer.parseInt(value);
+			if (limit >= 0) {
+				return limit;
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("Not a number of dinings '" + value + "' in '" + definition + "'");
+	}
+
+	/**
+	 * The policy compiled from a definition: benefit is available if every rule grants it.
+	 */
+	static class CompiledRules implements BenefitAvailabilityPolicy {
+
+		private final String definition;
+
+		private final BenefitAvailabilityPolicy[] rules;
+
+		CompiledRules(String definition, BenefitAvailabilityPolicy[] rules) {
+			this.definition = definition;
+			this.rules = rules;
+		}
+
+		public boolean isBenefitAvailableFor(Account account, Dining dining) {
+			for (int i = 0; i < rules.length; i++) {
+				if (!rules[i].isBenefitAvailableFor(account, dining)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public String toString() {
+			return "rules '" + definition + "'";
+		}
+	}
+
+	/**
+	 * Grants benefit on some days of the week.
+	 */
+	static class DaysOfWeek implements BenefitAvailabilityPolicy {
+
+		private final int days;
+
+		DaysOfWeek(int days) {
+			this.days = days;
+		}
+
+		public boolean isBenefitAvailableFor(Account account, Dining dining) {
+			return (days & 1 << dining.getDate().getDayOfWeek().ordinal()) != 0;
+		}
+	}
+
+	/**
+	 * Grants benefit for dinings of at least an amount.
+	 */
+	static class MinimumAmount implements BenefitAvailabilityPolicy {
+
+		private final MonetaryAmount minimum;
+
+		MinimumAmount(MonetaryAmount minimum) {
+			this.minimum = minimum;
+		}
+
+		public boolean isBenefitAvailableFor(Account account, Dining dining) {
+			return !minimum.greaterThan(dining.getAmount());
+		}
+	}
+
+	/**
+	 * Grants benefit for a number of dinings of an account per month, as counted by the reward history.
+	 */
+	static class MonthlyLimit implements BenefitAvailabilityPolicy {
+
+		private final int limit;
+
+		private final RewardHistory rewardHistory;
+
+		MonthlyLimit(int limit, RewardHistory rewardHistory) {
+			this.limit = limit;
+			this.rewardHistory = rewardHistory;
+		}
+
+		public boolean isBenefitAvailableFor(Account account, Dining dining) {
+			return rewardHistory.countRewardedDinings(account.getNumber(), dining.getMerchantNumber(),
+					dining.getDate()) < limit;
+		}
+	}
+}
@@ -2,38 +2,83 @@ package rewards.internal.restaurant;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 import rewards.Dining;
 import rewards.internal.account.Account;
 
 import common.money.Percentage;
+import common.repository.InLists;
 
 /**
- * Loads restaurants from a data source using the JDBC API.
+ * Loads restaurants from a data source using the JDBC API. When caching is enabled, restaurants looked up one at a time
+ * are cached by merchant number in the "restaurants" cache.
  */
 public class JdbcRestaurantRepository implements RestaurantRepository {
 
 	private JdbcTemplate jdbcTemplate;
 
+	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
 	/**
 	 * Maps a row returned from a query of T_RESTAURANT to a Restaurant object.
 	 */
 	private RowMapper<Restaurant> rowMapper = new RestaurantRowMapper();
 
+	private BenefitRuleCompiler benefitRuleCompiler = new BenefitRuleCompiler();
+
+	private boolean centArithmetic;
+
 	public void setDataSource(DataSource dataSource) {
 		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+	}
+
+	/**
+	 * Sets the compiler of the benefit availability rules of restaurants with the 'R' policy code. Defaults to a
+	 * compiler without a reward history, which rejects monthly limits.
+	 * @param benefitRuleCompiler the compiler
+	 */
+	public void setBenefitRuleCompiler(BenefitRuleCompiler benefitRuleCompiler) {
+		this.benefitRuleCompiler = benefitRuleCompiler;
 	}
 	
+	/**
+	 * Sets whether the restaurants loaded calculate benefits with cent arithmetic. Defaults to false.
+	 * @param centArithmetic true to calculate benefits in cents
+	 * @see Restaurant#setCentArithmetic(boolean)
+	 */
+	public void setCentArithmetic(boolean centArithmetic) {
+		this.centArithmetic = centArithmetic;
+	}
+
+	@Cacheable("restaurants")
 	public Restaurant findByMerchantNumber(String merchantNumber) {
-		String sql = "select MERCHANT_NUMBER, NAME, BENEFIT_PERCENTAGE, BENEFIT_AVAILABILITY_POLICY from T_RESTAURANT where MERCHANT_NUMBER = ?";
+		String sql = "select MERCHANT_NUMBER, NAME, BENEFIT_PERCENTAGE, BENEFIT_AVAILABILITY_POLICY, BENEFIT_AVAILABILITY_RULES from T_RESTAURANT where MERCHANT_NUMBER = ?";
 		return jdbcTemplate.queryForObject(sql, rowMapper, merchantNumber);
 	}
 
+	public Map<String, Restaurant> findByMerchantNumbers(Collection<String> merchantNumbers) {
+		String sql = "select MERCHANT_NUMBER, NAME, BENEFIT_PERCENTAGE, BENEFIT_AVAILABILITY_POLICY, BENEFIT_AVAILABILITY_RULES from T_RESTAURANT where MERCHANT_NUMBER in (:numbers)";
+		Map<String, Restaurant> restaurantsByMerchantNumber = new HashMap<String, Restaurant>();
+		for (List<String> chunk : InLists.chunk(merchantNumbers)) {
+			for (Restaurant restaurant : namedParameterJdbcTemplate.query(sql, Map.of("numbers", chunk), rowMapper)) {
+				restaurantsByMerchantNumber.put(restaurant.getNumber(), restaurant);
+			}
+		}
+		return restaurantsByMerchantNumber;
+	}
+
 	/**
 	 * Maps a row returned from a query of T_RESTAURANT to a Restaurant object.
 	 * 
@@ -48,6 +93,7 @@ public class JdbcRestaurantRepository implements RestaurantRepository {
 		Restaurant restaurant = new Restaurant(number, name);
 		restaurant.setBenefitPercentage(benefitPercentage);
 		restaurant.setBenefitAvailabilityPolicy(mapBenefitAvailabilityPolicy(rs));
+		restaurant.setCentArithmetic(centArithmetic);
 		return restaurant;
 	}
 
@@ -55,12 +101,12 @@ public class JdbcRestaurantRepository implements RestaurantRepository {
 	 * Helper method that maps benefit availability policy data in the ResultSet to a fully-configured
 	 * {@link BenefitAvailabilityPolicy} object. The key column is 'BENEFIT_AVAILABILITY_POLICY', which is a
 	 * discriminator column containing a string code that identifies the type of policy. Currently supported types are:
-	 * 'A' for 'always available' and 'N' for 'never available'.
+	 * 'A' for 'always available', 'N' for 'never available' and 'R' for 'rules'.
 	 * 
 	 * <p>
-	 * More types could be added easily by enhancing this method. For example, 'W' for 'Weekdays only' or 'M' for 'Max
-	 * Rewards per Month'. Some of these types might require additional database column values to be configured, for
-	 * example a 'MAX_REWARDS_PER_MONTH' data column.
+	 * The rules of an 'R' policy, such as days of the week, a minimum dining amount or a maximum number of rewards per
+	 * month, are defined by the 'BENEFIT_AVAILABILITY_RULES' column. The {@link BenefitRuleCompiler} compiles them the
+	 * first time the restaurant is loaded, and again only once they change.
 	 * 
 	 * @param rs the result set used to map the policy object from database column values
 	 * @return the matching benefit availability policy
@@ -72,6 +118,9 @@ public class JdbcRestaurantRepository implements RestaurantRepository {
 			return AlwaysAvailable.INSTANCE;
 		} else if ("N".equals(policyCode)) {
 			return NeverAvailable.INSTANCE;
+		} else if ("R".equals(policyCode)) {
+			return benefitRuleCompiler.compile(rs.getString("MERCHANT_NUMBER"),
+					rs.getString("BENEFIT_AVAILABILITY_RULES"));
 		} else {
 			throw new IllegalArgumentException("Not a supported policy code " + policyCode);
 		}
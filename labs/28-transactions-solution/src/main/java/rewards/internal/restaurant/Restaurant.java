@@ -3,6 +3,7 @@ package rewards.internal.restaurant;
 import rewards.Dining;
 import rewards.internal.account.Account;
 
+import common.money.Cents;
 import common.money.MonetaryAmount;
 import common.money.Percentage;
 import common.repository.Entity;
@@ -23,6 +24,8 @@ public class Restaurant extends Entity {
 
 	private BenefitAvailabilityPolicy benefitAvailabilityPolicy;
 
+	private boolean centArithmetic;
+
 	@SuppressWarnings("unused")
 	private Restaurant() {
 	}
@@ -53,6 +56,15 @@ public class Restaurant extends Entity {
 		this.benefitAvailabilityPolicy = benefitAvailabilityPolicy;
 	}
 
+	/**
+	 * Sets whether benefits are calculated with {@link Cents cent arithmetic} rather than MonetaryAmount arithmetic.
+	 * Both round the same way. Defaults to false.
+	 * @param centArithmetic true to calculate benefits in cents
+	 */
+	public void setCentArithmetic(boolean centArithmetic) {
+		this.centArithmetic = centArithmetic;
+	}
+
 	/**
 	 * Returns the name of this restaurant.
 	 */
@@ -89,6 +101,9 @@ public class Restaurant extends Entity {
 	 */
 	public MonetaryAmount calculateBenefitFor(Account account, Dining dining) {
 		if (benefitAvailabilityPolicy.isBenefitAvailableFor(account, dining)) {
+			if (centArithmetic) {
+				return Cents.toMonetaryAmount(Cents.multiplyBy(Cents.valueOf(dining.getAmount()), benefitPercentage));
+			}
 			return dining.getAmount().multiplyBy(benefitPercentage);
 		} else {
 			return MonetaryAmount.zero();
@@ -1,5 +1,8 @@
 package rewards.internal.restaurant;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Loads restaurant aggregates. Called by the reward network to find and reconstitute Restaurant entities from an
  * external form such as a set of RDMS rows.
@@ -14,4 +17,12 @@ public interface RestaurantRepository {
 	 * @return the restaurant
 	 */
 	public Restaurant findByMerchantNumber(String merchantNumber);
+
+	/**
+	 * Load the Restaurant entities of several merchant numbers at once. Merchant numbers without a restaurant are
+	 * absent from the result.
+	 * @param merchantNumbers the merchant numbers
+	 * @return the restaurants indexed by merchant number
+	 */
+	public Map<String, Restaurant> findByMerchantNumbers(Collection<String> merchantNumbers);
 }
@@ -0,0 +1,86 @@
+package rewards.internal.reward;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Hands out reward confirmation numbers from blocks reserved in the database, hi/lo style.
+ * <p>
+ * Each value drawn from the database sequence (the "hi" value) reserves the block of numbers
+ * <code>[hi * blockSize, (hi + 1) * blockSize)</code>, which are then handed out from memory (the "lo" part). Only one
+ * database round trip is needed per block instead of one per reward. As every process sharing the sequence draws
+ * different hi values, their blocks never overlap, provided they all use the same block size. Numbers left unused in a
+ * block, for example when the process stops, are simply skipped: confirmation numbers are unique but not contiguous.
+ * <p>
+ * Thread-safe. Callers only contend for the in-memory cursor, except when a block is exhausted and the next one has to
+ * be reserved.
+ */
+public class ConfirmationNumberAllocator {
+
+	/**
+	 * The default number of confirmation numbers reserved per database round trip.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 50;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final String sequenceSql;
+
+	private volatile int blockSize = DEFAULT_BLOCK_SIZE;
+
+	/**
+	 * The next number to hand out. Guarded by this.
+	 */
+	private long next;
+
+	/**
+	 * The first number past the current block. Guarded by this.
+	 */
+	private long limit;
+
+	/**
+	 * Creates a new allocator.
+	 * @param jdbcTemplate the template used to draw values from the sequence
+	 * @param sequenceSql the query returning the next value of the sequence
+	 */
+	public ConfirmationNumberAllocator(JdbcTemplate jdbcTemplate, String sequenceSql) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.sequenceSql = sequenceSql;
+	}
+
+	/**
+	 * Sets how many confirmation numbers are reserved per database round trip. Takes effect when the next block is
+	 * reserved. All processes sharing the sequence must use the same block size, otherwise their blocks could overlap.
+	 * @param blockSize the block size, 1 disabling the in-memory allocation altogether
+	 */
+	public void setBlockSize(int blockSize) {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("The block size must be at least 1; your value was " + blockSize);
+		}
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Returns how many confirmation numbers are reserved per database round trip.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Returns the next unique confirmation number, reserving a new block first if the current one is exhausted.
+	 * @return the confirmation number
+	 */
+	public synchronized String nextConfirmationNumber() {
+		if (next == limit) {
+			reserveBlock();
+		}
+		return String.valueOf(next++);
+	}
+
+	private void reserveBlock() {
+		int size = blockSize;
+		long hi = jdbcTemplate.queryForObject(sequenceSql, Long.class);
+		next = Math.multiplyExact(hi, size);
+		limit = next + size;
+	}
+}
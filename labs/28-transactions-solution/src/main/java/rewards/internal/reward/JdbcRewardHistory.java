@@ -0,0 +1,121 @@
+package rewards.internal.reward;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import common.concurrent.ConcurrentLongCounterMap;
+import common.datetime.SimpleDate;
+
+/**
+ * Counts the rewarded dinings of an account at a restaurant from the reward records. Rewards of a zero amount, where
+ * no benefit was available, are not counted.
+ * <p>
+ * The count of each account, restaurant and month is kept in memory, so checking a monthly limit takes the same time
+ * however many rewards have been recorded, and allocates no key. The counts are loaded from T_REWARD with a single
+ * aggregate query on initialization, and kept up to date by the reward network:
+ * <ul>
+ * <li>A dining added is counted at once, so the dinings after it see it, in the same transaction or another.</li>
+ * <li>If the transaction the dining was added in rolls back, its reward is not recorded either, and it stops counting
+ * again. A dining removed because its reward could not be recorded counts again if the transaction rolls back.</li>
+ * </ul>
+ * The counts therefore only stay in step with T_REWARD while every reward is recorded through the reward network of
+ * this application, in the transaction that added its dining. A limit is checked before the dining is added, so
+ * dinings of the same account rewarded concurrently may still exceed it; the parallel reward network never rewards
+ * the same account on two lanes at once.
+ * <p>
+ * Account numbers must be numeric, as those of T_ACCOUNT are.
+ */
+public class JdbcRewardHistory implements RewardHistory {
+
+	private static final String COUNTS_SQL = "select ACCOUNT_NUMBER, DINING_MERCHANT_NUMBER, extract(year from DINING_DATE), extract(month from DINING_DATE), count(*) from T_REWARD where REWARD_AMOUNT > 0 group by ACCOUNT_NUMBER, DINING_MERCHANT_NUMBER, extract(year from DINING_DATE), extract(month from DINING_DATE)";
+
+	/**
+	 * The number of bits of a key holding the month, counted from year zero.
+	 */
+	private static final int MONTH_BITS = 18;
+
+	/**
+	 * The counts of each restaurant, keyed by account number and month.
+	 */
+	private final ConcurrentMap<String, ConcurrentLongCounterMap> countsByMerchant = new ConcurrentHashMap<String, ConcurrentLongCounterMap>();
+
+	private JdbcTemplate jdbcTemplate;
+
+	public void setDataSource(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Loads the number of rewarded dinings of each account at each restaurant in each month from the reward records,
+	 * replacing the counts held. Called on initialization.
+	 */
+	@PostConstruct
+	public void load() {
+		countsByMerchant.clear();
+		if (jdbcTemplate == null) {
+			return;
+		}
+		jdbcTemplate.query(COUNTS_SQL, rs -> {
+			long month = rs.getInt(3) * 12L + rs.getInt(4) - 1;
+			counts(rs.getString(2)).addAndGet(key(rs.getString(1), month), rs.getLong(5));
+		});
+	}
+
+	public int countRewardedDinings(String accountNumber, String merchantNumber, SimpleDate date) {
+		ConcurrentLongCounterMap counts = countsByMerchant.get(merchantNumber);
+		return counts == null ? 0 : (int) counts.get(key(accountNumber, date));
+	}
+
+	public void addRewardedDining(String accountNumber, String merchantNumber, SimpleDate date) {
+		add(counts(merchantNumber), key(accountNumber, date), 1);
+	}
+
+	public void removeRewardedDining(String accountNumber, String merchantNumber, SimpleDate date) {
+		add(counts(merchantNumber), key(accountNumber, date), -1);
+	}
+
+	/**
+	 * Adds to a count, taking it off again if the current transaction rolls back.
+	 */
+	private static void add(ConcurrentLongCounterMap counts, long key, long delta) {
+		counts.addAndGet(key, delta);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				public void afterCompletion(int status) {
+					if (status != STATUS_COMMITTED) {
+						counts.addAndGet(key, -delta);
+					}
+				}
+			});
+		}
+	}
+
+	private ConcurrentLongCounterMap counts(String merchantNumber) {
+		ConcurrentLongCounterMap counts = countsByMerchant.get(merchantNumber);
+		return counts != null ? counts
+				: countsByMerchant.computeIfAbsent(merchantNumber, number -> new ConcurrentLongCounterMap());
+	}
+
+	private static long key(String accountNumber, SimpleDate date) {
+		LocalDate localDate = date.asLocalDate();
+		return key(accountNumber, localDate.getYear() * 12L + localDate.getMonthValue() - 1);
+	}
+
+	private static long key(String accountNumber, long month) {
+		long number;
+		try {
+			number = Long.parseLong(accountNumber);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a numeric account number '" + accountNumber + "'", e);
+		}
+		return number << MONTH_BITS | month;
+	}
+}
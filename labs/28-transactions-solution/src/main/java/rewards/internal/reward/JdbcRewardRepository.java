@@ -1,38 +1,161 @@
 package rewards.internal.reward;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
 import javax.sql.DataSource;
 
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 
 import rewards.AccountContribution;
 import rewards.Dining;
 import rewards.RewardConfirmation;
 
+import common.datetime.DateInterval;
 import common.datetime.SimpleDate;
+import common.money.MonetaryAmount;
 
 /**
  * JDBC implementation of a reward repository that records the result of a reward transaction by inserting a reward
  * confirmation record.
+ * <p>
+ * Confirmation numbers are reserved from the database sequence in blocks, so recording a reward usually takes a single
+ * INSERT. See {@link ConfirmationNumberAllocator}.
+ * <p>
+ * Pages of rewards are found through the T_REWARD indexes on account, merchant and dining date, each ending with the
+ * dining date and id the pages are ordered by, so a page is a range seek on the index followed by a lookup of each of
+ * its rows. Database triggers on T_REWARD add each reward to the daily rollups T_REWARD_ACCOUNT_DAILY and
+ * T_REWARD_MERCHANT_DAILY, so summaries read a few rows per day whoever recorded the rewards. The rewards of a
+ * restaurant are spread over several rows per day by their id, so concurrent transactions rewarding dinings at the
+ * same restaurant rarely wait for each other's lock on its rollup row.
  */
 public class JdbcRewardRepository implements RewardRepository {
 
+	private static final String CONFIRMATION_NUMBER_SEQUENCE_SQL = "select next value for S_REWARD_CONFIRMATION_NUMBER from DUAL_REWARD_CONFIRMATION_NUMBER";
+
+	private static final String REWARD_COLUMNS = "ID, CONFIRMATION_NUMBER, REWARD_AMOUNT, REWARD_DATE, ACCOUNT_NUMBER, DINING_AMOUNT, DINING_MERCHANT_NUMBER, DINING_DATE";
+
+	/**
+	 * Continues after the last reward of the previous page, given its dining date and id. The row value comparison
+	 * lets the database seek the index to the first row of the page.
+	 */
+	private static final String PAGE_SQL = "DINING_DATE between ? and ? and (DINING_DATE, ID) > (cast(? as date), cast(? as integer)) order by DINING_DATE, ID limit ?";
+
+	private static final RowMapper<Reward> REWARD_MAPPER = (rs, rowNum) -> new Reward(rs.getLong(1), rs.getString(2),
+			new MonetaryAmount(rs.getBigDecimal(3)), SimpleDate.valueOf(rs.getDate(4)), rs.getString(5),
+			new MonetaryAmount(rs.getBigDecimal(6)), rs.getString(7), SimpleDate.valueOf(rs.getDate(8)));
+
+	private static final RowMapper<RewardSummary> SUMMARY_MAPPER = (rs, rowNum) -> new RewardSummary(rs.getString(1),
+			SimpleDate.valueOf(rs.getDate(2)), rs.getInt(3), new MonetaryAmount(rs.getBigDecimal(4)),
+			new MonetaryAmount(rs.getBigDecimal(5)));
+
 	private JdbcTemplate jdbcTemplate;
-	
+
+	private ConfirmationNumberAllocator confirmationNumberAllocator;
+
+	private int confirmationNumberBlockSize = ConfirmationNumberAllocator.DEFAULT_BLOCK_SIZE;
+
 	public void setDataSource(DataSource dataSource) {
 		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.confirmationNumberAllocator = new ConfirmationNumberAllocator(jdbcTemplate, CONFIRMATION_NUMBER_SEQUENCE_SQL);
+		this.confirmationNumberAllocator.setBlockSize(confirmationNumberBlockSize);
+	}
+
+	/**
+	 * Sets how many confirmation numbers are reserved from the database sequence at a time. Every application sharing
+	 * the reward database must use the same value. Defaults to {@link ConfirmationNumberAllocator#DEFAULT_BLOCK_SIZE}.
+	 * @param confirmationNumberBlockSize the block size, 1 to query the sequence for every reward
+	 */
+	public void setConfirmationNumberBlockSize(int confirmationNumberBlockSize) {
+		if (confirmationNumberAllocator != null) {
+			confirmationNumberAllocator.setBlockSize(confirmationNumberBlockSize);
+		}
+		this.confirmationNumberBlockSize = confirmationNumberBlockSize;
 	}
 
 	public RewardConfirmation confirmReward(AccountContribution contribution, Dining dining) {
 		String sql = "insert into T_REWARD (CONFIRMATION_NUMBER, REWARD_AMOUNT, REWARD_DATE, ACCOUNT_NUMBER, DINING_MERCHANT_NUMBER, DINING_DATE, DINING_AMOUNT) values (?, ?, ?, ?, ?, ?, ?)";
 		String confirmationNumber = nextConfirmationNumber();
 		jdbcTemplate.update(sql, confirmationNumber, contribution.getAmount().asBigDecimal(),
-				SimpleDate.today().asDate(), contribution.getAccountNumber(), dining.getMerchantNumber(),
-				dining.getDate().asDate(), dining.getAmount().asBigDecimal());
+				SimpleDate.today().asSqlDate(), contribution.getAccountNumber(), dining.getMerchantNumber(),
+				dining.getDate().asSqlDate(), dining.getAmount().asBigDecimal());
 		return new RewardConfirmation(confirmationNumber, contribution);
 	}
 
+	public List<RewardConfirmation> confirmRewards(List<AccountContribution> contributions, List<Dining> dinings) {
+		if (contributions.size() != dinings.size()) {
+			throw new IllegalArgumentException("Expected one dining per contribution; got " + contributions.size()
+					+ " contributions and " + dinings.size() + " dinings");
+		}
+		String sql = "insert into T_REWARD (CONFIRMATION_NUMBER, REWARD_AMOUNT, REWARD_DATE, ACCOUNT_NUMBER, DINING_MERCHANT_NUMBER, DINING_DATE, DINING_AMOUNT) values (?, ?, ?, ?, ?, ?, ?)";
+		Date rewardDate = SimpleDate.today().asSqlDate();
+		List<RewardConfirmation> confirmations = new ArrayList<RewardConfirmation>(contributions.size());
+		List<Object[]> batchArgs = new ArrayList<Object[]>(contributions.size());
+		for (int i = 0; i < contributions.size(); i++) {
+			AccountContribution contribution = contributions.get(i);
+			Dining dining = dinings.get(i);
+			String confirmationNumber = nextConfirmationNumber();
+			batchArgs.add(new Object[] { confirmationNumber, contribution.getAmount().asBigDecimal(), rewardDate,
+					contribution.getAccountNumber(), dining.getMerchantNumber(), dining.getDate().asSqlDate(),
+					dining.getAmount().asBigDecimal() });
+			confirmations.add(new RewardConfirmation(confirmationNumber, contribution));
+		}
+		jdbcTemplate.batchUpdate(sql, batchArgs);
+		return confirmations;
+	}
+
+	public List<Reward> findByAccount(String accountNumber, DateInterval diningDates, Reward after, int limit) {
+		return findPage("ACCOUNT_NUMBER = ? and ", accountNumber, diningDates, after, limit);
+	}
+
+	public List<Reward> findByMerchant(String merchantNumber, DateInterval diningDates, Reward after, int limit) {
+		return findPage("DINING_MERCHANT_NUMBER = ? and ", merchantNumber, diningDates, after, limit);
+	}
+
+	public List<Reward> findByDiningDate(DateInterval diningDates, Reward after, int limit) {
+		return findPage("", null, diningDates, after, limit);
+	}
+
+	public List<RewardSummary> findDailyAccountSummaries(String accountNumber, DateInterval diningDates) {
+		String sql = "select ACCOUNT_NUMBER, DINING_DATE, REWARD_COUNT, REWARD_AMOUNT, DINING_AMOUNT from T_REWARD_ACCOUNT_DAILY where ACCOUNT_NUMBER = ? and DINING_DATE between ? and ? order by DINING_DATE";
+		return jdbcTemplate.query(sql, SUMMARY_MAPPER, accountNumber, diningDates.getStart().asSqlDate(),
+				diningDates.getEnd().asSqlDate());
+	}
+
+	public List<RewardSummary> findDailyMerchantSummaries(String merchantNumber, DateInterval diningDates) {
+		String sql = "select DINING_MERCHANT_NUMBER, DINING_DATE, sum(REWARD_COUNT), sum(REWARD_AMOUNT), sum(DINING_AMOUNT) from T_REWARD_MERCHANT_DAILY where DINING_MERCHANT_NUMBER = ? and DINING_DATE between ? and ? group by DINING_MERCHANT_NUMBER, DINING_DATE order by DINING_DATE";
+		return jdbcTemplate.query(sql, SUMMARY_MAPPER, merchantNumber, diningDates.getStart().asSqlDate(),
+				diningDates.getEnd().asSqlDate());
+	}
+
+	/**
+	 * Reads a page of rewards, of those matching a condition on an indexed column if one is given.
+	 */
+	private List<Reward> findPage(String condition, String value, DateInterval diningDates, Reward after, int limit) {
+		if (limit < 0) {
+			throw new IllegalArgumentException("Limit must not be negative");
+		}
+		if (limit == 0) {
+			// some databases, HSQLDB among them, read LIMIT 0 as no limit
+			return new ArrayList<Reward>();
+		}
+		// the first page starts at the start of the interval, and takes every id of its first day
+		Date afterDate = after == null ? diningDates.getStart().asSqlDate() : after.getDiningDate().asSqlDate();
+		long afterId = after == null ? -1 : after.getId();
+		List<Object> args = new ArrayList<Object>(6);
+		if (value != null) {
+			args.add(value);
+		}
+		Collections.addAll(args, diningDates.getStart().asSqlDate(), diningDates.getEnd().asSqlDate(), afterDate,
+				afterId, limit);
+		String sql = "select " + REWARD_COLUMNS + " from T_REWARD where " + condition + PAGE_SQL;
+		return jdbcTemplate.query(sql, REWARD_MAPPER, args.toArray());
+	}
+
 	private String nextConfirmationNumber() {
-		String sql = "select next value for S_REWARD_CONFIRMATION_NUMBER from DUAL_REWARD_CONFIRMATION_NUMBER";
-		return jdbcTemplate.queryForObject(sql, String.class);
+		return confirmationNumberAllocator.nextConfirmationNumber();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+package rewards.internal.reward;
+
+import java.time.LocalDate;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import common.concurrent.ConcurrentLongCounterMap;
+import common.datetime.SimpleDate;
+import common.money.Cents;
+import common.money.MonetaryAmount;
+
+/**
+ * Limits the benefit rewarded to an account per calendar month of dining, such as "at most $50.00 a month".
+ * <p>
+ * The total rewarded to each account in each month is kept in memory, in cents, so checking a benefit against the cap
+ * takes the same time however many rewards have been recorded. The totals are loaded from T_REWARD with a single
+ * aggregate query on initialization, and kept up to date by {@link #reserve(String, SimpleDate, MonetaryAmount)}:
+ * <ul>
+ * <li>The benefit granted is added to the total at once, so concurrent transactions rewarding the same account cannot
+ * together exceed the cap.</li>
+ * <li>If the transaction the benefit was granted in rolls back, its reward is not recorded either, and the benefit is
+ * taken off the total again.</li>
+ * </ul>
+ * The totals therefore only stay in step with T_REWARD while every reward is recorded through the reward network of
+ * this application, in the transaction that reserved its benefit.
+ * <p>
+ * Account numbers must be numeric, as those of T_ACCOUNT are.
+ */
+public class MonthlyBenefitCap {
+
+	private static final String TOTALS_SQL = "select ACCOUNT_NUMBER, extract(year from DINING_DATE), extract(month from DINING_DATE), sum(REWARD_AMOUNT) from T_REWARD group by ACCOUNT_NUMBER, extract(year from DINING_DATE), extract(month from DINING_DATE)";
+
+	/**
+	 * The number of bits of a key holding the month, counted from year zero.
+	 */
+	private static final int MONTH_BITS = 18;
+
+	private final MonetaryAmount cap;
+
+	private final long capCents;
+
+	private final ConcurrentLongCounterMap totals = new ConcurrentLongCounterMap();
+
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Creates a new cap.
+	 * @param cap the largest benefit rewarded to an account for the dinings of a month
+	 */
+	public MonthlyBenefitCap(MonetaryAmount cap) {
+		if (MonetaryAmount.zero().greaterThan(cap)) {
+			throw new IllegalArgumentException("The monthly benefit cap must not be negative, not " + cap);
+		}
+		this.cap = cap;
+		this.capCents = Cents.valueOf(cap);
+	}
+
+	public void setDataSource(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Returns the largest benefit rewarded to an account for the dinings of a month.
+	 */
+	public MonetaryAmount getCap() {
+		return cap;
+	}
+
+	/**
+	 * Loads the total rewarded to each account in each month from the reward records, replacing the totals held.
+	 * Called on initialization.
+	 */
+	@PostConstruct
+	public void load() {
+		totals.clear();
+		if (jdbcTemplate == null) {
+			return;
+		}
+		jdbcTemplate.query(TOTALS_SQL, rs -> {
+			long month = rs.getInt(2) * 12L + rs.getInt(3) - 1;
+			totals.addAndGet(key(rs.getString(1), month), Cents.valueOf(new MonetaryAmount(rs.getBigDecimal(4))));
+		});
+	}
+
+	/**
+	 * Grants as much of a benefit as the cap leaves for the account in the month of a dining, and counts it in the
+	 * account's total for the month. Within a transaction, the benefit granted stops counting if the transaction rolls
+	 * back.
+	 * @param accountNumber the number of the account rewarded
+	 * @param diningDate the date of the dining rewarded
+	 * @param benefit the benefit the restaurant would reward
+	 * @return the benefit granted, between zero and the benefit asked for
+	 */
+	public MonetaryAmount reserve(String accountNumber, SimpleDate diningDate, MonetaryAmount benefit) {
+		long key = key(accountNumber, diningDate);
+		long cents = Cents.valueOf(benefit);
+		long granted = cents > 0 ? totals.addUpTo(key, cents, capCents) : 0;
+		if (granted > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				public void afterCompletion(int status) {
+					if (status != STATUS_COMMITTED) {
+						totals.addAndGet(key, -granted);
+					}
+				}
+			});
+		}
+		return granted == cents ? benefit : Cents.toMonetaryAmount(granted);
+	}
+
+	/**
+	 * Stops counting a benefit granted by {@link #reserve(String, SimpleDate, MonetaryAmount)} whose reward could not
+	 * be recorded after all, such as after rolling back to a savepoint. Within a transaction, the benefit counts again
+	 * if the transaction rolls back, when the reservation is taken off.
+	 * @param accountNumber the number of the account rewarded
+	 * @param diningDate the date of the dining rewarded
+	 * @param benefit the benefit granted
+	 */
+	public void release(String accountNumber, SimpleDate diningDate, MonetaryAmount benefit) {
+		long key = key(accountNumber, diningDate);
+		long cents = Cents.valueOf(benefit);
+		if (cents <= 0) {
+			return;
+		}
+		totals.addAndGet(key, -cents);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				public void afterCompletion(int status) {
+					if (status != STATUS_COMMITTED) {
+						totals.addAndGet(key, cents);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Returns the benefit counted for an account in the month of a date, including benefits reserved by transactions
+	 * still in progress.
+	 * @param accountNumber the number of the account
+	 * @param date a date in the month
+	 * @return the total benefit
+	 */
+	public MonetaryAmount getTotal(String accountNumber, SimpleDate date) {
+		return Cents.toMonetaryAmount(totals.get(key(accountNumber, date)));
+	}
+
+	private static long key(String accountNumber, SimpleDate date) {
+		LocalDate localDate = date.asLocalDate();
+		return key(accountNumber, localDate.getYear() * 12L + localDate.getMonthValue() - 1);
+	}
+
+	private static long key(String accountNumber, long month) {
+		long number;
+		try {
+			number = Long.parseLong(accountNumber);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a numeric account number '" + accountNumber + "'", e);
+		}
+		return number << MONTH_BITS | month;
+	}
+}
@@ -0,0 +1,112 @@
+package rewards.internal.reward;
+
+import common.datetime.SimpleDate;
+import common.money.MonetaryAmount;
+
+/**
+ * The record of a reward transaction: a contribution made to an account for a dining at a restaurant.
+ *
+ * A value object, read back from the rewards recorded by a {@link RewardRepository}.
+ */
+public class Reward {
+
+	private long id;
+
+	private String confirmationNumber;
+
+	private MonetaryAmount amount;
+
+	private SimpleDate date;
+
+	private String accountNumber;
+
+	private MonetaryAmount diningAmount;
+
+	private String merchantNumber;
+
+	private SimpleDate diningDate;
+
+	/**
+	 * Creates a new reward record.
+	 * @param id the id of the record, increasing in the order rewards were recorded
+	 * @param confirmationNumber the confirmation number of the reward
+	 * @param amount the amount contributed to the account
+	 * @param date the date the reward was recorded
+	 * @param accountNumber the number of the account rewarded
+	 * @param diningAmount the amount of the dining
+	 * @param merchantNumber the merchant number of the restaurant dined at
+	 * @param diningDate the date of the dining
+	 */
+	public Reward(long id, String confirmationNumber, MonetaryAmount amount, SimpleDate date, String accountNumber,
+			MonetaryAmount diningAmount, String merchantNumber, SimpleDate diningDate) {
+		this.id = id;
+		this.confirmationNumber = confirmationNumber;
+		this.amount = amount;
+		this.date = date;
+		this.accountNumber = accountNumber;
+		this.diningAmount = diningAmount;
+		this.merchantNumber = merchantNumber;
+		this.diningDate = diningDate;
+	}
+
+	/**
+	 * Returns the id of this record. Rewards recorded later have greater ids.
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the confirmation number of this reward.
+	 */
+	public String getConfirmationNumber() {
+		return confirmationNumber;
+	}
+
+	/**
+	 * Returns the amount contributed to the account.
+	 */
+	public MonetaryAmount getAmount() {
+		return amount;
+	}
+
+	/**
+	 * Returns the date this reward was recorded.
+	 */
+	public SimpleDate getDate() {
+		return date;
+	}
+
+	/**
+	 * Returns the number of the account rewarded.
+	 */
+	public String getAccountNumber() {
+		return accountNumber;
+	}
+
+	/**
+	 * Returns the amount of the dining rewarded.
+	 */
+	public MonetaryAmount getDiningAmount() {
+		return diningAmount;
+	}
+
+	/**
+	 * Returns the merchant number of the restaurant dined at.
+	 */
+	public String getMerchantNumber() {
+		return merchantNumber;
+	}
+
+	/**
+	 * Returns the date of the dining rewarded.
+	 */
+	public SimpleDate getDiningDate() {
+		return diningDate;
+	}
+
+	public String toString() {
+		return "Reward '" + confirmationNumber + "' of " + amount + " to account '" + accountNumber + "' for dining of "
+				+ diningAmount + " at '" + merchantNumber + "' on " + diningDate;
+	}
+}
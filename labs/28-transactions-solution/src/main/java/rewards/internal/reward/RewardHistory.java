@@ -0,0 +1,38 @@
+package rewards.internal.reward;
+
+import common.datetime.SimpleDate;
+
+/**
+ * Tracks how many dinings of each account each restaurant has rewarded in a month, for benefit availability policies
+ * that limit how often an account is rewarded.
+ */
+public interface RewardHistory {
+
+	/**
+	 * Returns the number of dinings of an account a restaurant rewarded with a benefit in the month of a date,
+	 * including those added with {@link #addRewardedDining(String, String, SimpleDate)} and not recorded yet.
+	 * @param accountNumber the number of the account
+	 * @param merchantNumber the merchant number of the restaurant
+	 * @param date a date in the month
+	 * @return the number of rewarded dinings
+	 */
+	public int countRewardedDinings(String accountNumber, String merchantNumber, SimpleDate date);
+
+	/**
+	 * Counts a dining rewarded with a benefit in the current transaction, whether its reward has been recorded yet or
+	 * not. Called by the reward network once the dining's contribution has been made.
+	 * @param accountNumber the number of the account
+	 * @param merchantNumber the merchant number of the restaurant
+	 * @param date the date of the dining
+	 */
+	public void addRewardedDining(String accountNumber, String merchantNumber, SimpleDate date);
+
+	/**
+	 * Stops counting a dining added with {@link #addRewardedDining(String, String, SimpleDate)} in the current
+	 * transaction whose reward could not be recorded after all.
+	 * @param accountNumber the number of the account
+	 * @param merchantNumber the merchant number of the restaurant
+	 * @param date the date of the dining
+	 */
+	public void removeRewardedDining(String accountNumber, String merchantNumber, SimpleDate date);
+}
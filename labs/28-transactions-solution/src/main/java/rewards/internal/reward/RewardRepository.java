@@ -1,11 +1,21 @@
 package rewards.internal.reward;
 
+import java.util.List;
+
 import rewards.AccountContribution;
 import rewards.Dining;
 import rewards.RewardConfirmation;
 
+import common.datetime.DateInterval;
+
 /**
- * Handles creating records of reward transactions to track contributions made to accounts for dining at restaurants.
+ * Handles creating records of reward transactions to track contributions made to accounts for dining at restaurants,
+ * and reading them back.
+ * <p>
+ * Rewards are read a page at a time, in order of their dining dates and then of their ids. The next page starts after
+ * the last reward of the previous page, so reading a page does not read the rewards of the pages before it. Daily
+ * totals per account and per restaurant are read from rollups kept as rewards are recorded, rather than by adding up
+ * the reward records.
  */
 public interface RewardRepository {
 
@@ -17,4 +27,58 @@ public interface RewardRepository {
 	 * date
 	 */
 	public RewardConfirmation confirmReward(AccountContribution contribution, Dining dining);
+
+	/**
+	 * Create the records of several rewards in bulk.
+	 * @param contributions the account contributions that were made
+	 * @param dinings the dining events that resulted in the account contributions, in the same order as the
+	 * contributions
+	 * @return the reward confirmations, in the same order as the contributions
+	 */
+	public List<RewardConfirmation> confirmRewards(List<AccountContribution> contributions, List<Dining> dinings);
+
+	/**
+	 * Find a page of the rewards of an account.
+	 * @param accountNumber the number of the account
+	 * @param diningDates the dates of the dinings to find the rewards of, both ends included
+	 * @param after the last reward of the previous page, or null for the first page
+	 * @param limit the maximum number of rewards to return
+	 * @return the rewards, in order of their dining dates and ids
+	 */
+	public List<Reward> findByAccount(String accountNumber, DateInterval diningDates, Reward after, int limit);
+
+	/**
+	 * Find a page of the rewards for dinings at a restaurant.
+	 * @param merchantNumber the merchant number of the restaurant
+	 * @param diningDates the dates of the dinings to find the rewards of, both ends included
+	 * @param after the last reward of the previous page, or null for the first page
+	 * @param limit the maximum number of rewards to return
+	 * @return the rewards, in order of their dining dates and ids
+	 */
+	public List<Reward> findByMerchant(String merchantNumber, DateInterval diningDates, Reward after, int limit);
+
+	/**
+	 * Find a page of the rewards for dinings in an interval.
+	 * @param diningDates the dates of the dinings to find the rewards of, both ends included
+	 * @param after the last reward of the previous page, or null for the first page
+	 * @param limit the maximum number of rewards to return
+	 * @return the rewards, in order of their dining dates and ids
+	 */
+	public List<Reward> findByDiningDate(DateInterval diningDates, Reward after, int limit);
+
+	/**
+	 * Find the daily totals of the rewards of an account. Days without rewards are left out.
+	 * @param accountNumber the number of the account
+	 * @param diningDates the dates of the dinings to total, both ends included
+	 * @return a summary per day with rewards, in order of the days
+	 */
+	public List<RewardSummary> findDailyAccountSummaries(String accountNumber, DateInterval diningDates);
+
+	/**
+	 * Find the daily totals of the rewards for dinings at a restaurant. Days without rewards are left out.
+	 * @param merchantNumber the merchant number of the restaurant
+	 * @param diningDates the dates of the dinings to total, both ends included
+	 * @return a summary per day with rewards, in order of the days
+	 */
+	public List<RewardSummary> findDailyMerchantSummaries(String merchantNumber, DateInterval diningDates);
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package rewards.internal.reward;
+
+import common.datetime.SimpleDate;
+import common.money.MonetaryAmount;
+
+/**
+ * The totals of the rewards of one account, or one restaurant, for the dinings of one day.
+ *
+ * A value object, read from the daily rollups a {@link RewardRepository} keeps up to date as rewards are recorded.
+ */
+public class RewardSummary {
+
+	private String number;
+
+	private SimpleDate diningDate;
+
+	private int rewardCount;
+
+	private MonetaryAmount rewardAmount;
+
+	private MonetaryAmount diningAmount;
+
+	/**
+	 * Creates a new summary.
+	 * @param number the number of the account, or the merchant number of the restaurant, summarized
+	 * @param diningDate the day of the dinings summarized
+	 * @param rewardCount the number of rewards
+	 * @param rewardAmount the total amount rewarded
+	 * @param diningAmount the total amount of the dinings
+	 */
+	public RewardSummary(String number, SimpleDate diningDate, int rewardCount, MonetaryAmount rewardAmount,
+			MonetaryAmount diningAmount) {
+		this.number = number;
+		this.diningDate = diningDate;
+		this.rewardCount = rewardCount;
+		this.rewardAmount = rewardAmount;
+		this.diningAmount = diningAmount;
+	}
+
+	/**
+	 * Returns the number of the account, or the merchant number of the restaurant, summarized.
+	 */
+	public String getNumber() {
+		return number;
+	}
+
+	/**
+	 * Returns the day of the dinings summarized.
+	 */
+	public SimpleDate getDiningDate() {
+		return diningDate;
+	}
+
+	/**
+	 * Returns the number of rewards for dinings on the day.
+	 */
+	public int getRewardCount() {
+		return rewardCount;
+	}
+
+	/**
+	 * Returns the total amount rewarded for dinings on the day.
+	 */
+	public MonetaryAmount getRewardAmount() {
+		return rewardAmount;
+	}
+
+	/**
+	 * Returns the total amount of the dinings on the day.
+	 */
+	public MonetaryAmount getDiningAmount() {
+		return diningAmount;
+	}
+
+	public String toString() {
+		return "'" + number + "' on " + diningDate + ": " + rewardCount + " rewards of " + rewardAmount
+				+ " for dinings of " + diningAmount;
+	}
+}
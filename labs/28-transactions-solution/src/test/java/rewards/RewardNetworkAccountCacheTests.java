@@ -0,0 +1,59 @@
+package rewards;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import common.money.MonetaryAmount;
+import rewards.internal.account.AccountRepository;
+import rewards.internal.account.CachingAccountRepository;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A system test that verifies beneficiary savings stay correct when the reward network loads accounts through the
+ * account cache, committing a transaction per dining.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { SystemTestConfig.class })
+@ActiveProfiles("account-cache")
+public class RewardNetworkAccountCacheTests {
+
+	@Autowired
+	private RewardNetwork rewardNetwork;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public void initJdbcTemplate(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Test
+	public void testRewardForRepeatedDinings() {
+		assertTrue(accountRepository instanceof CachingAccountRepository);
+		CachingAccountRepository cache = (CachingAccountRepository) accountRepository;
+
+		String sql = "SELECT SAVINGS FROM T_ACCOUNT_BENEFICIARY WHERE ACCOUNT_ID = 15 AND NAME = ?";
+		MonetaryAmount before = MonetaryAmount.valueOf(jdbcTemplate.queryForObject(sql, String.class, "Charles"));
+		for (int i = 0; i < 5; i++) {
+			rewardNetwork.rewardAccountFor(Dining.createDining("100.00", "1234123412340015", "1234567890"));
+		}
+
+		// the first dining learns the account of the card, and the second caches the account
+		assertEquals(2, cache.getMissCount());
+		assertEquals(3, cache.getHitCount());
+		MonetaryAmount after = MonetaryAmount.valueOf(jdbcTemplate.queryForObject(sql, String.class, "Charles"));
+		assertEquals(before.add(MonetaryAmount.valueOf("20.00")), after);
+	}
+}
@@ -0,0 +1,80 @@
+package rewards;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import common.datetime.SimpleDate;
+import common.money.MonetaryAmount;
+import rewards.internal.reward.MonthlyBenefitCap;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A system test that verifies the benefit rewarded to an account is capped per month, counting the rewards recorded
+ * before the application started.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { SystemTestConfig.class })
+@ActiveProfiles("benefit-cap")
+@TestPropertySource(properties = "rewards.benefit-cap.monthly-amount=20.00")
+public class RewardNetworkBenefitCapTests {
+
+	@Autowired
+	private RewardNetwork rewardNetwork;
+
+	@Autowired
+	private MonthlyBenefitCap benefitCap;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public void initJdbcTemplate(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Test
+	public void testBenefitCappedPerMonth() {
+		jdbcTemplate.update("insert into T_REWARD (CONFIRMATION_NUMBER, REWARD_AMOUNT, REWARD_DATE, ACCOUNT_NUMBER, DINING_MERCHANT_NUMBER, DINING_DATE, DINING_AMOUNT) values ('cap-1', 10.00, '2020-03-02', '123456789', '1234567890', '2020-03-02', 125.00)");
+		benefitCap.load();
+		assertEquals(MonetaryAmount.valueOf("10.00"), benefitCap.getTotal("123456789", new SimpleDate(3, 15, 2020)));
+
+		// 8.00 of the 10.00 left, then the 2.00 left, then nothing
+		assertEquals(MonetaryAmount.valueOf("8.00"), reward(3, 10));
+		assertEquals(MonetaryAmount.valueOf("2.00"), reward(3, 11));
+		assertEquals(MonetaryAmount.valueOf("0.00"), reward(3, 12));
+		assertEquals(MonetaryAmount.valueOf("20.00"), benefitCap.getTotal("123456789", new SimpleDate(3, 15, 2020)));
+
+		// the next month has a cap of its own
+		assertEquals(MonetaryAmount.valueOf("8.00"), reward(4, 1));
+	}
+
+	@Test
+	public void testBenefitReleasedOnRollback() {
+		SimpleDate date = new SimpleDate(5, 15, 2020);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.executeWithoutResult(status -> {
+			assertEquals(MonetaryAmount.valueOf("8.00"), reward(5, 1));
+			assertEquals(MonetaryAmount.valueOf("8.00"), benefitCap.getTotal("123456789", date));
+			status.setRollbackOnly();
+		});
+		assertEquals(MonetaryAmount.valueOf("0.00"), benefitCap.getTotal("123456789", date));
+	}
+
+	private MonetaryAmount reward(int month, int day) {
+		Dining dining = Dining.createDining("100.00", "1234123412341234", "1234567890", month, day, 2020);
+		return rewardNetwork.rewardAccountFor(dining).getAccountContribution().getAmount();
+	}
+}
@@ -0,0 +1,57 @@
+package rewards;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import rewards.internal.GroupCommitRewardNetwork;
+import rewards.internal.ParallelRewardNetwork;
+import rewards.internal.ParallelRewardNetwork.LaneStatistics;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A system test that verifies the group commits are rewarded on the parallel lanes when both the "group-commit" and
+ * the "parallel-batch" profiles are active.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { SystemTestConfig.class })
+@ActiveProfiles({ "group-commit", "parallel-batch" })
+public class RewardNetworkGroupCommitParallelBatchTests {
+
+	@Autowired
+	private RewardNetwork rewardNetwork;
+
+	@Autowired
+	private ParallelRewardNetwork parallelRewardNetwork;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public void initJdbcTemplate(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Test
+	public void testGroupCommitsRewardedOnLanes() {
+		assertTrue(rewardNetwork instanceof GroupCommitRewardNetwork);
+
+		Dining dining = Dining.createDining("100.00", "1234123412340015", "1234567890");
+		RewardConfirmation confirmation = rewardNetwork.rewardAccountFor(dining);
+
+		String sql = "SELECT COUNT(*) FROM T_REWARD WHERE CONFIRMATION_NUMBER = ?";
+		assertEquals(1, jdbcTemplate.queryForObject(sql, Integer.class, confirmation.getConfirmationNumber()));
+		long dinings = 0;
+		for (LaneStatistics lane : parallelRewardNetwork.getLaneStatistics()) {
+			dinings += lane.getDiningCount();
+		}
+		assertEquals(1, dinings);
+	}
+}
@@ -0,0 +1,79 @@
+package rewards;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import common.money.MonetaryAmount;
+import rewards.internal.GroupCommitRewardNetwork;
+
+import javax.sql.DataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A system test that verifies the savings of the beneficiaries and the reward records are committed together when
+ * the reward network runs in group commits.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { SystemTestConfig.class })
+@ActiveProfiles("group-commit")
+public class RewardNetworkGroupCommitTests {
+
+	private static final String SAVINGS_SQL = "SELECT SUM(b.SAVINGS) FROM T_ACCOUNT_BENEFICIARY b, T_ACCOUNT a "
+			+ "WHERE b.ACCOUNT_ID = a.ID AND a.NUMBER = ?";
+
+	@Autowired
+	private RewardNetwork rewardNetwork;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public void initJdbcTemplate(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Test
+	public void testRewardForDining() {
+		assertTrue(rewardNetwork instanceof GroupCommitRewardNetwork);
+
+		Dining dining = Dining.createDining("100.00", "1234123412340015", "1234567890");
+		RewardConfirmation confirmation = rewardNetwork.rewardAccountFor(dining);
+
+		// the reward and the savings have been committed by the time the confirmation is returned
+		String sql = "SELECT COUNT(*) FROM T_REWARD WHERE CONFIRMATION_NUMBER = ?";
+		assertEquals(1, jdbcTemplate.queryForObject(sql, Integer.class, confirmation.getConfirmationNumber()));
+	}
+
+	@Test
+	public void testSavingsMatchRewardsOfConcurrentDinings() {
+		String accountNumber = "123456789";
+		MonetaryAmount savingsBefore = savings(accountNumber);
+		List<CompletableFuture<RewardConfirmation>> confirmations = new ArrayList<CompletableFuture<RewardConfirmation>>();
+		for (int i = 0; i < 20; i++) {
+			Dining dining = Dining.createDining("100.00", "1234123412341234", "1234567890");
+			confirmations.add(CompletableFuture.supplyAsync(() -> rewardNetwork.rewardAccountFor(dining)));
+		}
+
+		MonetaryAmount contributed = MonetaryAmount.zero();
+		for (CompletableFuture<RewardConfirmation> confirmation : confirmations) {
+			contributed = contributed.add(confirmation.join().getAccountContribution().getAmount());
+		}
+
+		assertEquals(MonetaryAmount.valueOf("160.00"), contributed);
+		assertEquals(savingsBefore.add(contributed), savings(accountNumber));
+	}
+
+	private MonetaryAmount savings(String accountNumber) {
+		return MonetaryAmount.valueOf(jdbcTemplate.queryForObject(SAVINGS_SQL, String.class, accountNumber));
+	}
+}
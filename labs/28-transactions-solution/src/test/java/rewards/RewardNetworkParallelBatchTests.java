@@ -0,0 +1,87 @@
+package rewards;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import common.money.MonetaryAmount;
+import rewards.internal.ParallelRewardNetwork;
+import rewards.internal.ParallelRewardNetwork.LaneStatistics;
+
+import javax.sql.DataSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A system test that verifies no contribution is lost when the dinings of a batch are rewarded on several lanes, and
+ * several dinings of the batch are on the same account.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { SystemTestConfig.class })
+@ActiveProfiles("parallel-batch")
+public class RewardNetworkParallelBatchTests {
+
+	private static final String SAVINGS_SQL = "SELECT SUM(b.SAVINGS) FROM T_ACCOUNT_BENEFICIARY b, T_ACCOUNT a "
+			+ "WHERE b.ACCOUNT_ID = a.ID AND a.NUMBER = ?";
+
+	@Autowired
+	private RewardNetwork rewardNetwork;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public void initJdbcTemplate(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Test
+	public void testRewardForDiningBatch() {
+		assertTrue(rewardNetwork instanceof ParallelRewardNetwork);
+
+		String[] creditCards = { "1234123412341234", "1234123412340003", "1234123412340008", "1234123412340012" };
+		List<Dining> dinings = new ArrayList<Dining>();
+		for (int i = 0; i < 40; i++) {
+			dinings.add(Dining.createDining("100.00", creditCards[i % creditCards.length], "1234567890"));
+		}
+		Map<String, MonetaryAmount> savingsBefore = new HashMap<String, MonetaryAmount>();
+		for (Dining dining : dinings.subList(0, creditCards.length)) {
+			String accountNumber = rewardNetwork.rewardAccountFor(dining).getAccountContribution().getAccountNumber();
+			savingsBefore.put(accountNumber, savings(accountNumber));
+		}
+
+		RewardBatchResult result = rewardNetwork.rewardAccountsFor(dinings);
+
+		assertTrue(result.getFailures().isEmpty(), result.toString());
+		Map<String, MonetaryAmount> contributed = new HashMap<String, MonetaryAmount>();
+		for (RewardConfirmation confirmation : result.getConfirmations()) {
+			AccountContribution contribution = confirmation.getAccountContribution();
+			contributed.merge(contribution.getAccountNumber(), contribution.getAmount(), MonetaryAmount::add);
+		}
+		assertEquals(creditCards.length, contributed.size());
+		for (Map.Entry<String, MonetaryAmount> entry : contributed.entrySet()) {
+			assertEquals(MonetaryAmount.valueOf("80.00"), entry.getValue());
+			assertEquals(savingsBefore.get(entry.getKey()).add(entry.getValue()), savings(entry.getKey()),
+					"savings of account " + entry.getKey());
+		}
+
+		long dinedOnLanes = 0;
+		for (LaneStatistics lane : ((ParallelRewardNetwork) rewardNetwork).getLaneStatistics()) {
+			dinedOnLanes += lane.getDiningCount();
+		}
+		assertEquals(44, dinedOnLanes);
+	}
+
+	private MonetaryAmount savings(String accountNumber) {
+		return MonetaryAmount.valueOf(jdbcTemplate.queryForObject(SAVINGS_SQL, String.class, accountNumber));
+	}
+}
@@ -0,0 +1,44 @@
+package rewards;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import common.cache.LocalCache;
+import common.cache.TransactionAwareCache;
+import common.money.MonetaryAmount;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A system test that verifies the restaurant of a dining is looked up once when restaurants are cached.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { SystemTestConfig.class })
+@ActiveProfiles("restaurant-cache")
+public class RewardNetworkRestaurantCacheTests {
+
+	@Autowired
+	private RewardNetwork rewardNetwork;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Test
+	public void testRestaurantCachedOnceCommitted() {
+		for (int i = 0; i < 3; i++) {
+			RewardConfirmation confirmation = rewardNetwork
+					.rewardAccountFor(Dining.createDining("100.00", "1234123412341234", "1234567890"));
+			assertEquals(MonetaryAmount.valueOf("8.00"), confirmation.getAccountContribution().getAmount());
+		}
+
+		LocalCache cache = (LocalCache) ((TransactionAwareCache) cacheManager.getCache("restaurants")).getTargetCache();
+		assertEquals(1, cache.getMissCount());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getSize());
+	}
+}
@@ -8,14 +8,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import javax.sql.DataSource;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * A system test that verifies the components of the RewardNetwork application
@@ -86,4 +92,54 @@ public class RewardNetworkTests {
 		assertEquals(MonetaryAmount.valueOf("4.00"), contribution.getDistribution("Annabelle").getAmount());
 		assertEquals(MonetaryAmount.valueOf("4.00"), contribution.getDistribution("Corgan").getAmount());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testRewardForDiningBatch() {
+		Dining antolinsFamily = Dining.createDining("100.00", "1234123412340003", "1234567890");
+		Dining unknownMerchant = Dining.createDining("100.00", "1234123412340003", "bogus");
+		Dining briansFamily = Dining.createDining("200.00", "1234123412340012", "1234567890");
+
+		RewardBatchResult result = rewardNetwork.rewardAccountsFor(List.of(antolinsFamily, unknownMerchant, briansFamily));
+
+		assertEquals(1, result.getFailures().size());
+		assertNull(result.getConfirmation(1));
+		assertEquals(MonetaryAmount.valueOf("8.00"), result.getConfirmation(0).getAccountContribution().getAmount());
+		assertEquals(MonetaryAmount.valueOf("16.00"), result.getConfirmation(2).getAccountContribution().getAmount());
+
+		// both successful rewards and their beneficiary savings were written
+		String sql = "SELECT COUNT(*) FROM T_REWARD WHERE CONFIRMATION_NUMBER in (?, ?)";
+		assertEquals(2, jdbcTemplate.queryForObject(sql, Integer.class,
+				result.getConfirmation(0).getConfirmationNumber(), result.getConfirmation(2).getConfirmationNumber()));
+		String savingsSql = "SELECT SAVINGS FROM T_ACCOUNT_BENEFICIARY WHERE NAME = ?";
+		assertEquals(MonetaryAmount.valueOf("2.00"),
+				new MonetaryAmount(jdbcTemplate.queryForObject(savingsSql, BigDecimal.class, "Antolin")));
+		assertEquals(MonetaryAmount.valueOf("12.00"),
+				new MonetaryAmount(jdbcTemplate.queryForObject(savingsSql, BigDecimal.class, "Brian")));
+	}
+
+	@Test
+	public void testRewardForDiningBatchWithRewardNotRecorded() {
+		String savingsSql = "SELECT SAVINGS FROM T_ACCOUNT_BENEFICIARY WHERE NAME = ?";
+		MonetaryAmount before = new MonetaryAmount(jdbcTemplate.queryForObject(savingsSql, BigDecimal.class, "Kai"));
+		// the reward of the second dining is too large for T_REWARD, so only its insert fails
+		List<Dining> dinings = List.of(Dining.createDining("100.00", "1234123412340008", "1234567890"),
+				Dining.createDining("20000000.00", "1234123412340008", "1234567890"),
+				Dining.createDining("50.00", "1234123412340008", "1234567890"));
+
+		RewardBatchResult result = rewardNetwork.rewardAccountsFor(dinings);
+
+		assertEquals(1, result.getFailures().size());
+		assertEquals(1, result.getFailures().get(0).getIndex());
+		assertTrue(result.getFailures().get(0).getCause() instanceof DataAccessException);
+		assertNull(result.getConfirmation(1));
+		assertEquals(MonetaryAmount.valueOf("8.00"), result.getConfirmation(0).getAccountContribution().getAmount());
+		assertEquals(MonetaryAmount.valueOf("4.00"), result.getConfirmation(2).getAccountContribution().getAmount());
+
+		// the other rewards were recorded, and only their contributions saved
+		String sql = "SELECT COUNT(*) FROM T_REWARD WHERE CONFIRMATION_NUMBER in (?, ?)";
+		assertEquals(2, jdbcTemplate.queryForObject(sql, Integer.class,
+				result.getConfirmation(0).getConfirmationNumber(), result.getConfirmation(2).getConfirmationNumber()));
+		MonetaryAmount after = new MonetaryAmount(jdbcTemplate.queryForObject(savingsSql, BigDecimal.class, "Kai"));
+		assertEquals(before.add(MonetaryAmount.valueOf("3.96")), after);
+	}
+}
@@ -19,12 +19,16 @@ public class SystemTestConfig {
 	
 	/**
 	 * Creates an in-memory "rewards" database populated 
-	 * with test data for fast testing
+	 * with test data for fast testing. Each test context
+	 * gets a database of its own, so the rewards one context
+	 * commits cannot collide with the confirmation numbers
+	 * another context has already reserved.
 	 */
 	@Bean
 	public DataSource dataSource(){
 		return
 			(new EmbeddedDatabaseBuilder())
+			.generateUniqueName(true)
 			.addScript("classpath:rewards/testdb/schema.sql")
 			.addScript("classpath:rewards/testdb/data.sql")
 			.build();
@@ -0,0 +1,219 @@
+package rewards.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import rewards.Dining;
+import rewards.RewardBatchResult;
+import rewards.RewardBatchResult.Failure;
+import rewards.RewardConfirmation;
+import rewards.RewardNetwork;
+
+/**
+ * Unit tests for the grouping of dinings by the GroupCommitRewardNetwork. The target network only records the groups
+ * it was given.
+ */
+public class GroupCommitRewardNetworkTests {
+
+	private static final String UNKNOWN_CARD = "9999";
+
+	private static final String FAILING_CARD = "5555";
+
+	private RecordingRewardNetwork targetNetwork;
+
+	private GroupCommitRewardNetwork rewardNetwork;
+
+	@BeforeEach
+	public void setUp() {
+		targetNetwork = new RecordingRewardNetwork();
+		rewardNetwork = new GroupCommitRewardNetwork(targetNetwork);
+	}
+
+	@AfterEach
+	public void tearDown() throws InterruptedException {
+		rewardNetwork.shutdown();
+	}
+
+	@Test
+	public void testGroupCommittedWhenFull() throws Exception {
+		rewardNetwork.setMaxGroupSize(3);
+		rewardNetwork.setMaxGroupDelayMillis(60000);
+		rewardNetwork.start();
+
+		List<CompletableFuture<RewardConfirmation>> confirmations = new ArrayList<CompletableFuture<RewardConfirmation>>();
+		for (int i = 0; i < 6; i++) {
+			confirmations.add(rewardNetwork.rewardAccountForAsync(dining(i, "1111")));
+		}
+
+		for (int i = 0; i < 6; i++) {
+			assertEquals("1111/$" + i + ".00", confirmations.get(i).get().getConfirmationNumber());
+		}
+		assertEquals(List.of(3, 3), targetNetwork.groupSizes());
+	}
+
+	@Test
+	public void testGroupCommittedWhenDelayElapsed() throws Exception {
+		rewardNetwork.setMaxGroupSize(100);
+		rewardNetwork.setMaxGroupDelayMillis(20);
+		rewardNetwork.start();
+
+		RewardConfirmation confirmation = rewardNetwork.rewardAccountFor(dining(1, "1111"));
+
+		assertEquals("1111/$1.00", confirmation.getConfirmationNumber());
+		assertEquals(List.of(1), targetNetwork.groupSizes());
+	}
+
+	@Test
+	public void testFailedDiningFailsAlone() {
+		rewardNetwork.setMaxGroupSize(3);
+		rewardNetwork.setMaxGroupDelayMillis(60000);
+		rewardNetwork.start();
+
+		CompletableFuture<RewardConfirmation> first = rewardNetwork.rewardAccountForAsync(dining(0, "1111"));
+		CompletableFuture<RewardConfirmation> unknown = rewardNetwork.rewardAccountForAsync(dining(1, UNKNOWN_CARD));
+		CompletableFuture<RewardConfirmation> last = rewardNetwork.rewardAccountForAsync(dining(2, "1111"));
+
+		assertEquals("1111/$0.00", first.join().getConfirmationNumber());
+		ExecutionException e = assertThrows(ExecutionException.class, unknown::get);
+		assertTrue(e.getCause() instanceof EmptyResultDataAccessException);
+		assertEquals("1111/$2.00", last.join().getConfirmationNumber());
+	}
+
+	@Test
+	public void testRolledBackGroupRetriedInHalves() throws Exception {
+		rewardNetwork.setMaxGroupSize(4);
+		rewardNetwork.setMaxGroupDelayMillis(60000);
+		rewardNetwork.start();
+
+		List<CompletableFuture<RewardConfirmation>> confirmations = new ArrayList<CompletableFuture<RewardConfirmation>>();
+		for (int i = 0; i < 4; i++) {
+			confirmations.add(rewardNetwork.rewardAccountForAsync(dining(i, i == 2 ? FAILING_CARD : "1111")));
+		}
+
+		assertEquals("1111/$0.00", confirmations.get(0).get().getConfirmationNumber());
+		assertEquals("1111/$1.00", confirmations.get(1).get().getConfirmationNumber());
+		ExecutionException failed = assertThrows(ExecutionException.class, confirmations.get(2)::get);
+		assertEquals("Transaction rolled back", failed.getCause().getMessage());
+		assertEquals("1111/$3.00", confirmations.get(3).get().getConfirmationNumber());
+		// the group of four rolled back, then its halves were retried, then the failing half's dinings one by one
+		assertEquals(List.of(2, 1), targetNetwork.groupSizes());
+	}
+
+	@Test
+	public void testDiningWithinTransactionNotQueued() {
+		rewardNetwork.start();
+		TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(
+				new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.HSQL).build()));
+
+		RewardConfirmation confirmation = transactionTemplate
+				.execute(status -> rewardNetwork.rewardAccountFor(dining(1, "1111")));
+
+		assertEquals("1111/$1.00", confirmation.getConfirmationNumber());
+		assertEquals(List.of(), targetNetwork.groupSizes());
+		assertEquals(1, targetNetwork.singles.size());
+	}
+
+	@Test
+	public void testBatchPassedThrough() {
+		rewardNetwork.start();
+		List<Dining> dinings = List.of(dining(0, "1111"), dining(1, "1111"));
+
+		RewardBatchResult result = rewardNetwork.rewardAccountsFor(dinings);
+
+		assertEquals(2, result.getConfirmations().size());
+		assertEquals(1, targetNetwork.groups.size());
+		assertSame(dinings, targetNetwork.groups.get(0));
+	}
+
+	@Test
+	public void testShutdownDrainsQueue() throws InterruptedException {
+		rewardNetwork.setMaxGroupSize(100);
+		rewardNetwork.setMaxGroupDelayMillis(60000);
+		rewardNetwork.start();
+
+		List<CompletableFuture<RewardConfirmation>> confirmations = new ArrayList<CompletableFuture<RewardConfirmation>>();
+		for (int i = 0; i < 5; i++) {
+			confirmations.add(rewardNetwork.rewardAccountForAsync(dining(i, "1111")));
+		}
+		rewardNetwork.shutdown();
+
+		for (CompletableFuture<RewardConfirmation> confirmation : confirmations) {
+			assertTrue(confirmation.isDone() && !confirmation.isCompletedExceptionally());
+		}
+		assertEquals(0, rewardNetwork.getQueueSize());
+		assertThrows(IllegalStateException.class, () -> rewardNetwork.rewardAccountForAsync(dining(5, "1111")));
+	}
+
+	private static Dining dining(int amount, String creditCardNumber) {
+		return Dining.createDining(amount + ".00", creditCardNumber, "1234567890");
+	}
+
+	/**
+	 * A target network recording the groups it rewards. Fails dinings with an unknown credit card, and a whole group
+	 * with a dining charged to the failing credit card.
+	 */
+	private static class RecordingRewardNetwork implements RewardNetwork {
+
+		private final List<Collection<Dining>> groups = new CopyOnWriteArrayList<Collection<Dining>>();
+
+		private final List<Dining> singles = new CopyOnWriteArrayList<Dining>();
+
+		public RewardConfirmation rewardAccountFor(Dining dining) {
+			singles.add(dining);
+			return confirm(dining);
+		}
+
+		public RewardBatchResult rewardAccountsFor(Collection<Dining> dinings) {
+			for (Dining dining : dinings) {
+				if (dining.getCreditCardNumber().equals(FAILING_CARD)) {
+					throw new IllegalStateException("Transaction rolled back");
+				}
+			}
+			groups.add(dinings);
+			List<RewardConfirmation> confirmations = new ArrayList<RewardConfirmation>();
+			List<Failure> failures = new ArrayList<Failure>();
+			for (Dining dining : dinings) {
+				try {
+					confirmations.add(confirm(dining));
+				} catch (RuntimeException e) {
+					failures.add(new Failure(confirmations.size(), dining, e));
+					confirmations.add(null);
+				}
+			}
+			return new RewardBatchResult(confirmations, failures);
+		}
+
+		List<Integer> groupSizes() {
+			List<Integer> sizes = new ArrayList<Integer>();
+			for (Collection<Dining> group : groups) {
+				sizes.add(group.size());
+			}
+			return sizes;
+		}
+
+		private static RewardConfirmation confirm(Dining dining) {
+			if (dining.getCreditCardNumber().equals(UNKNOWN_CARD)) {
+				throw new EmptyResultDataAccessException(1);
+			}
+			return new RewardConfirmation(dining.getCreditCardNumber() + "/" + dining.getAmount(), null);
+		}
+	}
+}
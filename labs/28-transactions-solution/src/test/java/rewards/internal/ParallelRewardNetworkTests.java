@@ -0,0 +1,272 @@
+package rewards.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+
+import rewards.Dining;
+import rewards.RewardBatchResult;
+import rewards.RewardBatchResult.Failure;
+import rewards.RewardConfirmation;
+import rewards.RewardNetwork;
+import rewards.internal.ParallelRewardNetwork.LaneStatistics;
+import rewards.internal.account.Account;
+import rewards.internal.account.AccountRepository;
+
+/**
+ * Unit tests for the partitioning of dinings across the lanes of the ParallelRewardNetwork. The target network only
+ * records which dinings it was given, on which thread, and in what order.
+ */
+public class ParallelRewardNetworkTests {
+
+	/**
+	 * Credit cards and the ids of their accounts. Account 1 has two cards.
+	 */
+	private static final Map<String, Long> ACCOUNT_IDS = Map.of("1111", 0L, "2222", 1L, "2223", 1L, "3333", 2L,
+			"4444", 3L, "5555", 4L);
+
+	private static final String UNKNOWN_CARD = "9999";
+
+	private static final String FAILING_CARD = "5555";
+
+	private RecordingRewardNetwork targetNetwork;
+
+	private ParallelRewardNetwork rewardNetwork;
+
+	@BeforeEach
+	public void setUp() {
+		targetNetwork = new RecordingRewardNetwork();
+		rewardNetwork = new ParallelRewardNetwork(targetNetwork, new CreditCardRepository());
+		rewardNetwork.setLaneCount(2);
+		rewardNetwork.start();
+	}
+
+	@AfterEach
+	public void tearDown() throws InterruptedException {
+		rewardNetwork.shutdown();
+	}
+
+	@Test
+	public void testConfirmationsInDiningOrder() {
+		List<Dining> dinings = dinings(50, "1111", "2222", "2223", "3333", "4444");
+
+		RewardBatchResult result = rewardNetwork.rewardAccountsFor(dinings);
+
+		assertEquals(50, result.getConfirmations().size());
+		assertTrue(result.getFailures().isEmpty());
+		for (int i = 0; i < dinings.size(); i++) {
+			assertEquals(confirmationNumber(dinings.get(i)), result.getConfirmation(i).getConfirmationNumber());
+		}
+	}
+
+	@Test
+	public void testDiningsOfAnAccountStayInOrderOnOneThread() {
+		List<Dining> dinings = dinings(100, "1111", "2222", "2223", "3333", "4444");
+		rewardNetwork.rewardAccountsFor(dinings.subList(0, 60));
+		rewardNetwork.rewardAccountFor(dinings.get(60));
+		rewardNetwork.rewardAccountsFor(dinings.subList(61, 100));
+
+		for (Long accountId : List.of(0L, 1L, 2L, 3L)) {
+			List<Dining> submitted = new ArrayList<Dining>();
+			for (Dining dining : dinings) {
+				if (accountId.equals(ACCOUNT_IDS.get(dining.getCreditCardNumber()))) {
+					submitted.add(dining);
+				}
+			}
+			assertEquals(submitted, targetNetwork.rewardedByAccount.get(accountId), "order of account " + accountId);
+			assertEquals(1, targetNetwork.threadsByAccount.get(accountId).stream().distinct().count(),
+					"threads of account " + accountId);
+		}
+		// both credit cards of account 1 went to the same lane
+		assertTrue(targetNetwork.threadsByAccount.get(1L).get(0).startsWith("reward-lane-"));
+	}
+
+	@Test
+	public void testAccountsOnDifferentLanesRewardedConcurrently() {
+		// accounts 0 and 1 are on different lanes: each waits for the other to arrive
+		targetNetwork.barrier = new CyclicBarrier(2);
+
+		RewardBatchResult result = rewardNetwork.rewardAccountsFor(dinings(2, "1111", "2222"));
+
+		assertTrue(result.getFailures().isEmpty(), "the lanes did not run at the same time: " + result);
+		assertNotEquals(targetNetwork.threadsByAccount.get(0L), targetNetwork.threadsByAccount.get(1L));
+	}
+
+	@Test
+	public void testFailuresReportedAtTheirBatchIndex() {
+		List<Dining> dinings = dinings(6, "1111", "2222", UNKNOWN_CARD);
+
+		RewardBatchResult result = rewardNetwork.rewardAccountsFor(dinings);
+
+		assertEquals(2, result.getFailures().size());
+		assertEquals(2, result.getFailures().get(0).getIndex());
+		assertEquals(5, result.getFailures().get(1).getIndex());
+		assertEquals(dinings.get(5), result.getFailures().get(1).getDining());
+		assertTrue(result.getFailures().get(0).getCause() instanceof EmptyResultDataAccessException);
+		assertNull(result.getConfirmation(2));
+		assertEquals(confirmationNumber(dinings.get(3)), result.getConfirmation(3).getConfirmationNumber());
+	}
+
+	@Test
+	public void testFailedLaneFailsItsWholeShareOnly() {
+		// account 4 shares lane 0 with account 0 and 2, account 1 and 3 are on lane 1
+		List<Dining> dinings = dinings(8, "1111", "2222", "4444", FAILING_CARD);
+
+		RewardBatchResult result = rewardNetwork.rewardAccountsFor(dinings);
+
+		List<Integer> failedIndexes = new ArrayList<Integer>();
+		for (Failure failure : result.getFailures()) {
+			failedIndexes.add(failure.getIndex());
+		}
+		assertEquals(List.of(0, 3, 4, 7), failedIndexes);
+		assertEquals(confirmationNumber(dinings.get(1)), result.getConfirmation(1).getConfirmationNumber());
+		assertEquals(confirmationNumber(dinings.get(6)), result.getConfirmation(6).getConfirmationNumber());
+	}
+
+	@Test
+	public void testLaneStatistics() {
+		rewardNetwork.rewardAccountsFor(dinings(10, "1111", "2222", UNKNOWN_CARD));
+		rewardNetwork.rewardAccountFor(dinings(1, "2222").get(0));
+
+		List<LaneStatistics> statistics = rewardNetwork.getLaneStatistics();
+		assertEquals(2, statistics.size());
+		long dinings = 0;
+		long failures = 0;
+		long tasks = 0;
+		for (LaneStatistics lane : statistics) {
+			dinings += lane.getDiningCount();
+			failures += lane.getFailureCount();
+			tasks += lane.getTaskCount();
+			assertEquals(0, lane.getQueueLength());
+			assertTrue(lane.getMaximumLatencyMillis() >= lane.getAverageLatencyMillis());
+			assertTrue(lane.getThroughput() > 0);
+		}
+		assertEquals(11, dinings);
+		assertEquals(3, failures);
+		assertEquals(3, tasks);
+	}
+
+	@Test
+	public void testRefusesDiningsWhenShutDown() throws InterruptedException {
+		rewardNetwork.shutdown();
+		assertThrows(IllegalStateException.class, () -> rewardNetwork.rewardAccountsFor(dinings(1, "1111")));
+	}
+
+	/**
+	 * Creates dinings with increasing amounts, charged to the credit cards in turn.
+	 */
+	private static List<Dining> dinings(int count, String... creditCardNumbers) {
+		List<Dining> dinings = new ArrayList<Dining>(count);
+		for (int i = 0; i < count; i++) {
+			dinings.add(Dining.createDining(i + ".00", creditCardNumbers[i % creditCardNumbers.length], "1234567890"));
+		}
+		return dinings;
+	}
+
+	private static String confirmationNumber(Dining dining) {
+		return dining.getCreditCardNumber() + "/" + dining.getAmount();
+	}
+
+	/**
+	 * A target network recording the dinings it rewards, per account. Fails dinings with an unknown credit card, and
+	 * a whole batch with a dining charged to the failing credit card.
+	 */
+	private static class RecordingRewardNetwork implements RewardNetwork {
+
+		private final Map<Long, List<Dining>> rewardedByAccount = new ConcurrentHashMap<Long, List<Dining>>();
+
+		private final Map<Long, List<String>> threadsByAccount = new ConcurrentHashMap<Long, List<String>>();
+
+		private volatile CyclicBarrier barrier;
+
+		public RewardConfirmation rewardAccountFor(Dining dining) {
+			Long accountId = ACCOUNT_IDS.get(dining.getCreditCardNumber());
+			if (accountId == null) {
+				throw new EmptyResultDataAccessException(1);
+			}
+			rewardedByAccount.computeIfAbsent(accountId, id -> new CopyOnWriteArrayList<Dining>()).add(dining);
+			threadsByAccount.computeIfAbsent(accountId, id -> new CopyOnWriteArrayList<String>())
+					.add(Thread.currentThread().getName());
+			return new RewardConfirmation(confirmationNumber(dining), null);
+		}
+
+		public RewardBatchResult rewardAccountsFor(Collection<Dining> dinings) {
+			for (Dining dining : dinings) {
+				if (dining.getCreditCardNumber().equals(FAILING_CARD)) {
+					throw new IllegalStateException("Transaction rolled back");
+				}
+			}
+			awaitBarrier();
+			List<RewardConfirmation> confirmations = new ArrayList<RewardConfirmation>();
+			List<Failure> failures = new ArrayList<Failure>();
+			for (Dining dining : dinings) {
+				try {
+					confirmations.add(rewardAccountFor(dining));
+				} catch (RuntimeException e) {
+					failures.add(new Failure(confirmations.size(), dining, e));
+					confirmations.add(null);
+				}
+			}
+			return new RewardBatchResult(confirmations, failures);
+		}
+
+		private void awaitBarrier() {
+			if (barrier != null) {
+				try {
+					barrier.await(5, TimeUnit.SECONDS);
+				} catch (Exception e) {
+					throw new IllegalStateException("Lanes did not meet", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Resolves credit cards to accounts. Loads no accounts.
+	 */
+	private static class CreditCardRepository implements AccountRepository {
+
+		public Map<String, Long> findAccountIdsByCreditCards(Collection<String> creditCardNumbers) {
+			Map<String, Long> accountIds = new HashMap<String, Long>();
+			for (String creditCardNumber : creditCardNumbers) {
+				if (ACCOUNT_IDS.containsKey(creditCardNumber)) {
+					accountIds.put(creditCardNumber, ACCOUNT_IDS.get(creditCardNumber));
+				}
+			}
+			return accountIds;
+		}
+
+		public Account findByCreditCard(String creditCardNumber) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void updateBeneficiaries(Account account) {
+			throw new UnsupportedOperationException();
+		}
+
+		public Map<String, Account> findByCreditCards(Collection<String> creditCardNumbers) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void updateBeneficiaries(Collection<Account> accounts) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
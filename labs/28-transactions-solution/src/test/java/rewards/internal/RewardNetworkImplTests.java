@@ -2,17 +2,27 @@ package rewards.internal;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import rewards.AccountContribution;
 import rewards.Dining;
+import rewards.RewardBatchResult;
 import rewards.RewardConfirmation;
 import rewards.internal.account.AccountRepository;
 import rewards.internal.restaurant.RestaurantRepository;
+import rewards.internal.reward.RewardHistory;
 import rewards.internal.reward.RewardRepository;
 
+import org.springframework.dao.EmptyResultDataAccessException;
+
+import common.datetime.SimpleDate;
 import common.money.MonetaryAmount;
 
 /**
@@ -69,4 +79,56 @@ public class RewardNetworkImplTests {
 		assertEquals(MonetaryAmount.valueOf("4.00"), contribution.getDistribution("Annabelle").getAmount());
 		assertEquals(MonetaryAmount.valueOf("4.00"), contribution.getDistribution("Corgan").getAmount());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testRewardForDiningBatch() {
+		Dining first = Dining.createDining("100.00", "1234123412341234", "1234567890");
+		Dining unknownCard = Dining.createDining("100.00", "bogus", "1234567890");
+		Dining second = Dining.createDining("50.00", "1234123412341234", "1234567890");
+
+		RewardBatchResult result = rewardNetwork.rewardAccountsFor(List.of(first, unknownCard, second));
+
+		// one slot per dining, in input order
+		assertEquals(3, result.getConfirmations().size());
+		assertEquals(MonetaryAmount.valueOf("8.00"), result.getConfirmation(0).getAccountContribution().getAmount());
+		assertNull(result.getConfirmation(1));
+		assertEquals(MonetaryAmount.valueOf("4.00"), result.getConfirmation(2).getAccountContribution().getAmount());
+
+		// the unknown credit card is reported without affecting the other dinings
+		assertTrue(result.hasFailures());
+		assertEquals(1, result.getFailures().size());
+		assertEquals(1, result.getFailures().get(0).getIndex());
+		assertEquals(unknownCard, result.getFailures().get(0).getDining());
+		assertTrue(result.getFailures().get(0).getCause() instanceof EmptyResultDataAccessException);
+
+		// contributions to the same account accumulate in dining order
+		assertEquals(MonetaryAmount.valueOf("6.00"),
+				result.getConfirmation(2).getAccountContribution().getDistribution("Annabelle").getTotalSavings());
+	}
+
+	@Test
+	public void testDiningsRewardedWithBenefitAddedToHistory() {
+		List<String> history = new ArrayList<String>();
+		rewardNetwork.setRewardHistory(new RewardHistory() {
+			public int countRewardedDinings(String accountNumber, String merchantNumber, SimpleDate date) {
+				return 0;
+			}
+
+			public void addRewardedDining(String accountNumber, String merchantNumber, SimpleDate date) {
+				history.add(accountNumber + "/" + merchantNumber);
+			}
+
+			public void removeRewardedDining(String accountNumber, String merchantNumber, SimpleDate date) {
+				history.remove(accountNumber + "/" + merchantNumber);
+			}
+		});
+
+		rewardNetwork.rewardAccountFor(Dining.createDining("100.00", "1234123412341234", "1234567890"));
+		// no benefit for a dining of nothing, and none for an unknown credit card
+		rewardNetwork.rewardAccountFor(Dining.createDining("0.00", "1234123412341234", "1234567890"));
+		rewardNetwork.rewardAccountsFor(List.of(Dining.createDining("50.00", "1234123412341234", "1234567890"),
+				Dining.createDining("100.00", "bogus", "1234567890")));
+
+		assertEquals(List.of("123456789/1234567890", "123456789/1234567890"), history);
+	}
+}
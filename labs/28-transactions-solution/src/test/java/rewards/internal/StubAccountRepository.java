@@ -1,5 +1,6 @@
 package rewards.internal;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -26,6 +27,7 @@ public class StubAccountRepository implements AccountRepository {
 		Account account = new Account("123456789", "Keith and Keri Donald");
 		account.addBeneficiary("Annabelle", Percentage.valueOf("50%"));
 		account.addBeneficiary("Corgan", Percentage.valueOf("50%"));
+		account.setEntityId(0L);
 		accountsByCreditCard.put("1234123412341234", account);
 	}
 
@@ -40,4 +42,27 @@ public class StubAccountRepository implements AccountRepository {
 	public void updateBeneficiaries(Account account) {
 		// nothing to do, everything is in memory
 	}
+
+	public Map<String, Account> findByCreditCards(Collection<String> creditCardNumbers) {
+		Map<String, Account> accounts = new HashMap<String, Account>();
+		for (String creditCardNumber : creditCardNumbers) {
+			Account account = accountsByCreditCard.get(creditCardNumber);
+			if (account != null) {
+				accounts.put(creditCardNumber, account);
+			}
+		}
+		return accounts;
+	}
+
+	public Map<String, Long> findAccountIdsByCreditCards(Collection<String> creditCardNumbers) {
+		Map<String, Long> accountIds = new HashMap<String, Long>();
+		for (Map.Entry<String, Account> entry : findByCreditCards(creditCardNumbers).entrySet()) {
+			accountIds.put(entry.getKey(), entry.getValue().getEntityId());
+		}
+		return accountIds;
+	}
+
+	public void updateBeneficiaries(Collection<Account> accounts) {
+		// nothing to do, everything is in memory
+	}
 }
\ No newline at end of file
@@ -1,11 +1,17 @@
 package rewards.internal;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import rewards.AccountContribution;
 import rewards.Dining;
 import rewards.RewardConfirmation;
+import rewards.internal.reward.Reward;
 import rewards.internal.reward.RewardRepository;
+import rewards.internal.reward.RewardSummary;
+
+import common.datetime.DateInterval;
 
 /**
  * A dummy reward repository implementation.
@@ -16,6 +22,34 @@ public class StubRewardRepository implements RewardRepository {
 		return new RewardConfirmation(confirmationNumber(), contribution);
 	}
 
+	public List<RewardConfirmation> confirmRewards(List<AccountContribution> contributions, List<Dining> dinings) {
+		List<RewardConfirmation> confirmations = new ArrayList<RewardConfirmation>(contributions.size());
+		for (AccountContribution contribution : contributions) {
+			confirmations.add(new RewardConfirmation(confirmationNumber(), contribution));
+		}
+		return confirmations;
+	}
+
+	public List<Reward> findByAccount(String accountNumber, DateInterval diningDates, Reward after, int limit) {
+		return new ArrayList<Reward>();
+	}
+
+	public List<Reward> findByMerchant(String merchantNumber, DateInterval diningDates, Reward after, int limit) {
+		return new ArrayList<Reward>();
+	}
+
+	public List<Reward> findByDiningDate(DateInterval diningDates, Reward after, int limit) {
+		return new ArrayList<Reward>();
+	}
+
+	public List<RewardSummary> findDailyAccountSummaries(String accountNumber, DateInterval diningDates) {
+		return new ArrayList<RewardSummary>();
+	}
+
+	public List<RewardSummary> findDailyMerchantSummaries(String merchantNumber, DateInterval diningDates) {
+		return new ArrayList<RewardSummary>();
+	}
+
 	private String confirmationNumber() {
 		return new Random().toString();
 	}
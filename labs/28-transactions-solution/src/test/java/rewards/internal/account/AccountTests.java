@@ -54,4 +54,29 @@ public class AccountTests {
 		assertEquals(MonetaryAmount.valueOf("50.00"), contribution.getDistribution("Annabelle").getAmount());
 		assertEquals(MonetaryAmount.valueOf("50.00"), contribution.getDistribution("Corgan").getAmount());
 	}
+
+	@Test
+	public void makeContributionWithCentArithmetic() {
+		account.addBeneficiary("Annabelle", Percentage.valueOf("33%"));
+		account.addBeneficiary("Corgan", Percentage.valueOf("67%"));
+		MonetaryAmount amount = MonetaryAmount.valueOf("8.50");
+		account.setCentArithmetic(true);
+		AccountContribution contribution = account.makeContribution(amount);
+		// 2.805 and 5.695 both round half-even
+		assertEquals(MonetaryAmount.valueOf("2.80"), contribution.getDistribution("Annabelle").getAmount());
+		assertEquals(MonetaryAmount.valueOf("5.70"), contribution.getDistribution("Corgan").getAmount());
+		assertEquals(amount.multiplyBy(Percentage.valueOf("33%")), contribution.getDistribution("Annabelle").getAmount());
+	}
+
+	@Test
+	public void makeContributionTracksChangedSavings() {
+		account.addBeneficiary("Annabelle", Percentage.valueOf("50%"));
+		account.addBeneficiary("Corgan", Percentage.valueOf("50%"));
+		account.makeContribution(MonetaryAmount.zero());
+		assertFalse(account.getBeneficiary("Annabelle").isSavingsChanged());
+		assertFalse(account.getBeneficiary("Corgan").isSavingsChanged());
+		account.makeContribution(MonetaryAmount.valueOf("100.00"));
+		assertTrue(account.getBeneficiary("Annabelle").isSavingsChanged());
+		assertTrue(account.getBeneficiary("Corgan").isSavingsChanged());
+	}
 }
\ No newline at end of file
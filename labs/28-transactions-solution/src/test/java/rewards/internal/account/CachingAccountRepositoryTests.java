@@ -0,0 +1,266 @@
+package rewards.internal.account;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import common.money.MonetaryAmount;
+import common.money.Percentage;
+
+/**
+ * Unit tests for the CachingAccountRepository. The target repository keeps the "stored" accounts in memory and counts
+ * how often it is asked to load them.
+ */
+public class CachingAccountRepositoryTests {
+
+	private static final String CREDIT_CARD = "1234123412341234";
+
+	private static final String SECOND_CREDIT_CARD = "1234123412340000";
+
+	private static final String OTHER_CREDIT_CARD = "1234123412340001";
+
+	private InMemoryAccountRepository targetRepository;
+
+	private CachingAccountRepository repository;
+
+	@BeforeEach
+	public void setUp() {
+		targetRepository = new InMemoryAccountRepository();
+		repository = new CachingAccountRepository(targetRepository);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void testCachesAccountLoadedTwice() {
+		// the first load only learns the account of the credit card
+		repository.findByCreditCard(CREDIT_CARD);
+		repository.findByCreditCard(CREDIT_CARD);
+		Account account = repository.findByCreditCard(CREDIT_CARD);
+
+		assertEquals(2, targetRepository.loads);
+		assertEquals(1, repository.getHitCount());
+		assertEquals(2, repository.getMissCount());
+		assertEquals("123456789", account.getNumber());
+		assertEquals(2, account.getBeneficiaries().size());
+	}
+
+	@Test
+	public void testCallersNeverShareAnAccount() {
+		warmUp(CREDIT_CARD);
+		Account first = repository.findByCreditCard(CREDIT_CARD);
+		Account second = repository.findByCreditCard(CREDIT_CARD);
+
+		assertNotSame(first, second);
+		first.makeContribution(MonetaryAmount.valueOf("8.00"));
+		assertEquals(MonetaryAmount.valueOf("4.00"), first.getBeneficiary("Annabelle").getSavings());
+		assertEquals(MonetaryAmount.valueOf("0.00"), second.getBeneficiary("Annabelle").getSavings());
+		assertEquals(MonetaryAmount.valueOf("0.00"),
+				repository.findByCreditCard(CREDIT_CARD).getBeneficiary("Annabelle").getSavings());
+	}
+
+	@Test
+	public void testCachesAccountWrittenBack() {
+		warmUp(CREDIT_CARD);
+		Account account = repository.findByCreditCard(CREDIT_CARD);
+		account.makeContribution(MonetaryAmount.valueOf("8.00"));
+		repository.updateBeneficiaries(account);
+
+		Account updated = repository.findByCreditCard(CREDIT_CARD);
+		assertEquals(MonetaryAmount.valueOf("4.00"), updated.getBeneficiary("Annabelle").getSavings());
+		assertEquals(2, targetRepository.loads);
+		assertEquals(1, targetRepository.updates);
+	}
+
+	@Test
+	public void testConcurrentUpdateInvalidatesAccount() {
+		warmUp(CREDIT_CARD);
+		Account first = repository.findByCreditCard(CREDIT_CARD);
+		Account second = repository.findByCreditCard(CREDIT_CARD);
+		first.makeContribution(MonetaryAmount.valueOf("8.00"));
+		repository.updateBeneficiaries(first);
+		second.makeContribution(MonetaryAmount.valueOf("2.00"));
+		repository.updateBeneficiaries(second);
+
+		// the second account was loaded before the first was written, so is not cached
+		Account account = repository.findByCreditCard(CREDIT_CARD);
+		assertEquals(3, targetRepository.loads);
+		assertEquals(MonetaryAmount.valueOf("1.00"), account.getBeneficiary("Annabelle").getSavings());
+	}
+
+	@Test
+	public void testEvictAccount() {
+		warmUp(CREDIT_CARD);
+		targetRepository.account.getBeneficiary("Annabelle").credit(MonetaryAmount.valueOf("10.00"));
+		repository.evictAccount(0L);
+
+		Account account = repository.findByCreditCard(CREDIT_CARD);
+		assertEquals(3, targetRepository.loads);
+		assertEquals(MonetaryAmount.valueOf("10.00"), account.getBeneficiary("Annabelle").getSavings());
+		repository.findByCreditCard(CREDIT_CARD);
+		assertEquals(3, targetRepository.loads);
+	}
+
+	@Test
+	public void testCachesAccountOnceTransactionCommits() {
+		warmUp(CREDIT_CARD);
+		TransactionSynchronizationManager.initSynchronization();
+		Account account = repository.findByCreditCard(CREDIT_CARD);
+		account.makeContribution(MonetaryAmount.valueOf("8.00"));
+		repository.updateBeneficiaries(account);
+
+		// until the transaction completes, the account is read from the target repository
+		repository.findByCreditCard(CREDIT_CARD);
+		assertEquals(3, targetRepository.loads);
+
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+		Account updated = repository.findByCreditCard(CREDIT_CARD);
+		assertEquals(3, targetRepository.loads);
+		assertEquals(MonetaryAmount.valueOf("4.00"), updated.getBeneficiary("Annabelle").getSavings());
+	}
+
+	@Test
+	public void testInvalidatesAccountWhenTransactionRollsBack() {
+		warmUp(CREDIT_CARD);
+		TransactionSynchronizationManager.initSynchronization();
+		Account account = repository.findByCreditCard(CREDIT_CARD);
+		account.makeContribution(MonetaryAmount.valueOf("8.00"));
+		repository.updateBeneficiaries(account);
+		targetRepository.account.getBeneficiary("Annabelle").credit(MonetaryAmount.valueOf("-4.00"));
+
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+		Account reloaded = repository.findByCreditCard(CREDIT_CARD);
+		assertEquals(3, targetRepository.loads);
+		assertEquals(MonetaryAmount.valueOf("0.00"), reloaded.getBeneficiary("Annabelle").getSavings());
+	}
+
+	@Test
+	public void testFindByCreditCardsMapsAnAccountToOneInstance() {
+		warmUp(CREDIT_CARD);
+		Map<String, Account> accounts = repository.findByCreditCards(List.of(CREDIT_CARD, SECOND_CREDIT_CARD));
+
+		assertEquals(2, accounts.size());
+		assertSame(accounts.get(CREDIT_CARD), accounts.get(SECOND_CREDIT_CARD));
+		assertEquals(1, repository.getHitCount());
+	}
+
+	@Test
+	public void testFindAccountIdsFromCache() {
+		repository.findByCreditCard(CREDIT_CARD);
+		int lookups = targetRepository.idLookups;
+
+		Map<String, Long> accountIds = repository.findAccountIdsByCreditCards(List.of(CREDIT_CARD, OTHER_CREDIT_CARD));
+
+		assertEquals(Map.of(CREDIT_CARD, 0L), accountIds);
+		assertEquals(lookups + 1, targetRepository.idLookups);
+		assertEquals(List.of(OTHER_CREDIT_CARD), targetRepository.lastIdLookup);
+	}
+
+	@Test
+	public void testSizeIsBounded() {
+		repository = new CachingAccountRepository(targetRepository, 1);
+		repository.findByCreditCard(CREDIT_CARD);
+		repository.findByCreditCard(SECOND_CREDIT_CARD);
+
+		assertEquals(1, repository.getSize());
+		assertEquals(1, repository.getEvictionCount());
+	}
+
+	private void warmUp(String creditCardNumber) {
+		repository.findByCreditCard(creditCardNumber);
+		repository.findByCreditCard(creditCardNumber);
+		assertTrue(targetRepository.loads <= 2);
+	}
+
+	private static void complete(int status) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		for (TransactionSynchronization synchronization : synchronizations) {
+			synchronization.afterCompletion(status);
+		}
+	}
+
+	/**
+	 * Stores a single account, with two credit cards, and hands out copies of it like a database would.
+	 */
+	private static class InMemoryAccountRepository implements AccountRepository {
+
+		private final Account account = new Account("123456789", "Keith and Keri Donald");
+
+		private int loads;
+
+		private int updates;
+
+		private int idLookups;
+
+		private Collection<String> lastIdLookup;
+
+		InMemoryAccountRepository() {
+			account.setEntityId(0L);
+			account.addBeneficiary("Annabelle", Percentage.valueOf("50%"));
+			account.addBeneficiary("Corgan", Percentage.valueOf("50%"));
+		}
+
+		public Account findByCreditCard(String creditCardNumber) {
+			if (!creditCardNumber.equals(CREDIT_CARD) && !creditCardNumber.equals(SECOND_CREDIT_CARD)) {
+				throw new EmptyResultDataAccessException(1);
+			}
+			loads++;
+			return account.copy();
+		}
+
+		public void updateBeneficiaries(Account account) {
+			updates++;
+			for (Beneficiary beneficiary : account.getBeneficiaries()) {
+				Beneficiary stored = this.account.getBeneficiary(beneficiary.getName());
+				stored.credit(beneficiary.getSavings().subtract(stored.getSavings()));
+			}
+		}
+
+		public Map<String, Account> findByCreditCards(Collection<String> creditCardNumbers) {
+			Map<String, Account> accounts = new HashMap<String, Account>();
+			Account copy = account.copy();
+			for (String creditCardNumber : creditCardNumbers) {
+				if (creditCardNumber.equals(CREDIT_CARD) || creditCardNumber.equals(SECOND_CREDIT_CARD)) {
+					accounts.put(creditCardNumber, copy);
+				}
+			}
+			loads++;
+			return accounts;
+		}
+
+		public Map<String, Long> findAccountIdsByCreditCards(Collection<String> creditCardNumbers) {
+			idLookups++;
+			lastIdLookup = creditCardNumbers;
+			Map<String, Long> accountIds = new HashMap<String, Long>();
+			for (String creditCardNumber : findByCreditCards(creditCardNumbers).keySet()) {
+				accountIds.put(creditCardNumber, 0L);
+			}
+			return accountIds;
+		}
+
+		public void updateBeneficiaries(Collection<Account> accounts) {
+			for (Account account : accounts) {
+				updateBeneficiaries(account);
+			}
+		}
+	}
+}
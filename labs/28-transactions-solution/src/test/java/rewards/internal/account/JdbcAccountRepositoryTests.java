@@ -5,12 +5,18 @@ import common.money.Percentage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
+import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -59,6 +65,51 @@ public class JdbcAccountRepositoryTests {
 		});
 	}
 
+	@Test
+	public void testFindAccountByCreditCardWithLabeledColumnMapping() {
+		Account indexed = repository.findByCreditCard("1234123412340012");
+		repository.setIndexedColumnMapping(false);
+		Account labeled = repository.findByCreditCard("1234123412340012");
+
+		assertEquals(indexed.getEntityId(), labeled.getEntityId(), "wrong entity id");
+		assertEquals(indexed.getNumber(), labeled.getNumber(), "wrong account number");
+		assertEquals(2, labeled.getBeneficiaries().size(), "wrong beneficiary collection size");
+		for (Beneficiary b : indexed.getBeneficiaries()) {
+			Beneficiary other = labeled.getBeneficiary(b.getName());
+			assertEquals(b.getAllocationPercentage(), other.getAllocationPercentage(), "wrong allocation percentage");
+			assertEquals(b.getSavings(), other.getSavings(), "wrong savings");
+		}
+	}
+
+	@Test
+	public void testCreditCardNumberLookupUsesIndex() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		List<String> plan = jdbcTemplate.queryForList(
+				"explain plan for select ACCOUNT_ID from T_ACCOUNT_CREDIT_CARD where NUMBER = '1234123412341234'",
+				String.class);
+		assertTrue(String.join("\n", plan).contains("IDX_ACCOUNT_CREDIT_CARD_NUMBER"), "the lookup should use the index");
+	}
+
+	@Test
+	public void testFindAccountsByCreditCards() {
+		Map<String, Account> accounts = repository.findByCreditCards(
+				List.of("1234123412341234", "1234123412340003", "bogus"));
+		assertEquals(2, accounts.size(), "unknown credit cards should be absent");
+		assertEquals("123456789", accounts.get("1234123412341234").getNumber(), "wrong account number");
+		assertEquals(2, accounts.get("1234123412341234").getBeneficiaries().size(), "wrong beneficiary collection size");
+		assertEquals("123456003", accounts.get("1234123412340003").getNumber(), "wrong account number");
+		assertEquals(4, accounts.get("1234123412340003").getBeneficiaries().size(), "wrong beneficiary collection size");
+	}
+
+	@Test
+	public void testFindAccountIdsByCreditCards() {
+		Map<String, Long> accountIds = repository.findAccountIdsByCreditCards(
+				List.of("1234123412341234", "1234123412340003", "bogus"));
+		assertEquals(2, accountIds.size(), "unknown credit cards should be absent");
+		assertEquals(Long.valueOf(0), accountIds.get("1234123412341234"), "wrong account id");
+		assertEquals(Long.valueOf(3), accountIds.get("1234123412340003"), "wrong account id");
+	}
+
 	@Test
 	public void testUpdateBeneficiaries() throws SQLException {
 		Account account = repository.findByCreditCard("1234123412341234");
@@ -67,6 +118,45 @@ public class JdbcAccountRepositoryTests {
 		verifyBeneficiaryTableUpdated();
 	}
 
+	@Test
+	public void testUpdateBeneficiariesSkipsUnchangedSavings() throws SQLException {
+		Account account = repository.findByCreditCard("1234123412341234");
+		// change the savings behind the repository's back: only a write of the beneficiary would overwrite it
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.update("update T_ACCOUNT_BENEFICIARY set SAVINGS = 1.00 where ACCOUNT_ID = 0");
+
+		account.makeContribution(MonetaryAmount.zero());
+		repository.updateBeneficiaries(account);
+		String sql = "select SAVINGS from T_ACCOUNT_BENEFICIARY where NAME = ? and ACCOUNT_ID = 0";
+		assertEquals(MonetaryAmount.valueOf("1.00"),
+				new MonetaryAmount(jdbcTemplate.queryForObject(sql, BigDecimal.class, "Annabelle")));
+
+		repository.setUpdateChangedBeneficiariesOnly(false);
+		repository.updateBeneficiaries(account);
+		assertEquals(MonetaryAmount.valueOf("0.00"),
+				new MonetaryAmount(jdbcTemplate.queryForObject(sql, BigDecimal.class, "Annabelle")));
+	}
+
+	@Test
+	public void testUpdateBeneficiariesRolledBackIsWrittenAgain() throws SQLException {
+		Account account = repository.findByCreditCard("1234123412341234");
+		account.makeContribution(MonetaryAmount.valueOf("8.00"));
+		TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		transactionTemplate.executeWithoutResult(status -> {
+			repository.updateBeneficiaries(account);
+			status.setRollbackOnly();
+		});
+		for (Beneficiary b : account.getBeneficiaries()) {
+			assertTrue(b.isSavingsChanged(), "savings written by a rolled back transaction should still be changed");
+		}
+
+		transactionTemplate.executeWithoutResult(status -> repository.updateBeneficiaries(account));
+		for (Beneficiary b : account.getBeneficiaries()) {
+			assertFalse(b.isSavingsChanged(), "savings written by a committed transaction should be unchanged");
+		}
+		verifyBeneficiaryTableUpdated();
+	}
+
 	private void verifyBeneficiaryTableUpdated() throws SQLException {
 		String sql = "select SAVINGS from T_ACCOUNT_BENEFICIARY where NAME = ? and ACCOUNT_ID = ?";
 		PreparedStatement stmt = dataSource.getConnection().prepareStatement(sql);
@@ -0,0 +1,132 @@
+package rewards.internal.restaurant;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import rewards.Dining;
+import rewards.internal.account.Account;
+import rewards.internal.reward.RewardHistory;
+
+import common.datetime.SimpleDate;
+
+/**
+ * Unit tests for the compiler of benefit availability rules.
+ */
+public class BenefitRuleCompilerTests {
+
+	private StubRewardHistory rewardHistory;
+
+	private BenefitRuleCompiler compiler;
+
+	private Account account;
+
+	@BeforeEach
+	public void setUp() {
+		rewardHistory = new StubRewardHistory();
+		compiler = new BenefitRuleCompiler(rewardHistory);
+		account = new Account("123456789", "Keith and Keri Donald");
+	}
+
+	@Test
+	public void testDaysOfWeek() {
+		BenefitAvailabilityPolicy policy = compiler.compile("1234567890", "days=MON-WED, sat");
+		// 3/4/2024 was a Monday
+		assertTrue(policy.isBenefitAvailableFor(account, dining("100.00", 3, 4)));
+		assertTrue(policy.isBenefitAvailableFor(account, dining("100.00", 3, 6)));
+		assertFalse(policy.isBenefitAvailableFor(account, dining("100.00", 3, 7)));
+		assertTrue(policy.isBenefitAvailableFor(account, dining("100.00", 3, 9)));
+		assertFalse(policy.isBenefitAvailableFor(account, dining("100.00", 3, 10)));
+	}
+
+	@Test
+	public void testDaysOfWeekWrappingAroundTheWeekend() {
+		BenefitAvailabilityPolicy policy = compiler.compile("1234567890", "days=FRI-MON");
+		assertTrue(policy.isBenefitAvailableFor(account, dining("100.00", 3, 10)));
+		assertTrue(policy.isBenefitAvailableFor(account, dining("100.00", 3, 11)));
+		assertFalse(policy.isBenefitAvailableFor(account, dining("100.00", 3, 12)));
+	}
+
+	@Test
+	public void testMinimumAmount() {
+		BenefitAvailabilityPolicy policy = compiler.compile("1234567890", "min-amount=25.00");
+		assertFalse(policy.isBenefitAvailableFor(account, dining("24.99", 3, 4)));
+		assertTrue(policy.isBenefitAvailableFor(account, dining("25.00", 3, 4)));
+	}
+
+	@Test
+	public void testMaximumPerMonth() {
+		BenefitAvailabilityPolicy policy = compiler.compile("1234567890", "min-amount=10.00; max-per-month=2");
+		assertTrue(policy.isBenefitAvailableFor(account, dining("100.00", 3, 4)));
+		// checking a dining does not count it
+		assertTrue(policy.isBenefitAvailableFor(account, dining("100.00", 3, 4)));
+		rewardHistory.addRewardedDining(account.getNumber(), "1234567890", new SimpleDate(3, 4, 2024));
+		assertTrue(policy.isBenefitAvailableFor(account, dining("100.00", 3, 6)));
+		rewardHistory.addRewardedDining(account.getNumber(), "1234567890", new SimpleDate(3, 6, 2024));
+		assertFalse(policy.isBenefitAvailableFor(account, dining("100.00", 3, 7)));
+		assertFalse(policy.isBenefitAvailableFor(account, dining("5.00", 3, 8)));
+		// the next month starts again
+		assertTrue(policy.isBenefitAvailableFor(account, dining("100.00", 4, 1)));
+	}
+
+	@Test
+	public void testCompiledOncePerDefinition() {
+		BenefitAvailabilityPolicy policy = compiler.compile("1234567890", "days=MON-FRI");
+		assertSame(policy, compiler.compile("1234567890", "days=MON-FRI"));
+		assertNotSame(policy, compiler.compile("1234567890", "days=SAT-SUN"));
+	}
+
+	@Test
+	public void testInvalidDefinitions() {
+		assertThrows(IllegalArgumentException.class, () -> compiler.compile("1234567890", ""));
+		assertThrows(IllegalArgumentException.class, () -> compiler.compile("1234567890", "days"));
+		assertThrows(IllegalArgumentException.class, () -> compiler.compile("1234567890", "days=MONDAY"));
+		assertThrows(IllegalArgumentException.class, () -> compiler.compile("1234567890", "min-amount=lots"));
+		assertThrows(IllegalArgumentException.class, () -> compiler.compile("1234567890", "max-per-month=-1"));
+		assertThrows(IllegalArgumentException.class, () -> compiler.compile("1234567890", "days=MON; days=TUE"));
+		assertThrows(IllegalArgumentException.class, () -> compiler.compile("1234567890", "happy-hour=17"));
+	}
+
+	@Test
+	public void testMaximumPerMonthNeedsRewardHistory() {
+		assertThrows(IllegalStateException.class,
+				() -> new BenefitRuleCompiler().compile("1234567890", "max-per-month=2"));
+	}
+
+	private Dining dining(String amount, int month, int day) {
+		return Dining.createDining(amount, "1234123412341234", "1234567890", month, day, 2024);
+	}
+
+	/**
+	 * A reward history that only counts the dinings added to it.
+	 */
+	private static class StubRewardHistory implements RewardHistory {
+
+		private Map<String, Integer> counts = new HashMap<String, Integer>();
+
+		public int countRewardedDinings(String accountNumber, String merchantNumber, SimpleDate date) {
+			return counts.getOrDefault(key(accountNumber, merchantNumber, date), 0);
+		}
+
+		public void addRewardedDining(String accountNumber, String merchantNumber, SimpleDate date) {
+			counts.merge(key(accountNumber, merchantNumber, date), 1, Integer::sum);
+		}
+
+		public void removeRewardedDining(String accountNumber, String merchantNumber, SimpleDate date) {
+			counts.merge(key(accountNumber, merchantNumber, date), -1, Integer::sum);
+		}
+
+		private String key(String accountNumber, String merchantNumber, SimpleDate date) {
+			return accountNumber + "/" + merchantNumber + "/" + YearMonth.from(date.asLocalDate());
+		}
+	}
+}
@@ -42,6 +42,15 @@ public class RestaurantTests {
 		assertEquals(MonetaryAmount.valueOf("8.00"), benefit);
 	}
 
+	@Test
+	public void testCalculateBenefitForWithCentArithmetic() {
+		restaurant.setCentArithmetic(true);
+		MonetaryAmount benefit = restaurant.calculateBenefitFor(account,
+				Dining.createDining("100.25", "1234123412341234", "1234567890"));
+		// 8.02 eligible for reward, same as with MonetaryAmount arithmetic
+		assertEquals(MonetaryAmount.valueOf("8.02"), benefit);
+	}
+
 	@Test
 	public void testNoBenefitAvailable() {
 		// configure stub that always returns false
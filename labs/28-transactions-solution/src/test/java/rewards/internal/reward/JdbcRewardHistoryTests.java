@@ -0,0 +1,86 @@
+package rewards.internal.reward;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import common.datetime.SimpleDate;
+
+/**
+ * Tests the JDBC reward history counts the rewarded dinings recorded before it was loaded and those added since.
+ */
+public class JdbcRewardHistoryTests {
+
+	private static final String INSERT_SQL = "insert into T_REWARD (CONFIRMATION_NUMBER, REWARD_AMOUNT, REWARD_DATE, ACCOUNT_NUMBER, DINING_MERCHANT_NUMBER, DINING_DATE, DINING_AMOUNT) values (?, ?, '2020-03-02', '123456789', '1234567890', ?, 100.00)";
+
+	private EmbeddedDatabase dataSource;
+
+	private JdbcRewardHistory rewardHistory;
+
+	@BeforeEach
+	public void setUp() {
+		dataSource = new EmbeddedDatabaseBuilder()
+			.generateUniqueName(true)
+			.addScript("/rewards/testdb/schema.sql")
+			.addScript("/rewards/testdb/data.sql")
+			.build();
+		rewardHistory = new JdbcRewardHistory();
+		rewardHistory.setDataSource(dataSource);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		dataSource.shutdown();
+	}
+
+	@Test
+	public void testRewardsRecordedCountedOnLoad() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.update(INSERT_SQL, "h-1", 8.00, "2020-03-02");
+		jdbcTemplate.update(INSERT_SQL, "h-2", 8.00, "2020-03-31");
+		jdbcTemplate.update(INSERT_SQL, "h-3", 8.00, "2020-04-01");
+		// no benefit was available for this one
+		jdbcTemplate.update(INSERT_SQL, "h-4", 0.00, "2020-03-15");
+		rewardHistory.load();
+
+		assertEquals(2, rewardHistory.countRewardedDinings("123456789", "1234567890", new SimpleDate(3, 20, 2020)));
+		assertEquals(1, rewardHistory.countRewardedDinings("123456789", "1234567890", new SimpleDate(4, 20, 2020)));
+		assertEquals(0, rewardHistory.countRewardedDinings("123456789", "1234599999", new SimpleDate(3, 20, 2020)));
+		assertEquals(0, rewardHistory.countRewardedDinings("123456001", "1234567890", new SimpleDate(3, 20, 2020)));
+	}
+
+	@Test
+	public void testDiningsAddedCounted() {
+		rewardHistory.load();
+		SimpleDate date = new SimpleDate(5, 15, 2020);
+		rewardHistory.addRewardedDining("123456789", "1234567890", date);
+		rewardHistory.addRewardedDining("123456789", "1234567890", new SimpleDate(5, 1, 2020));
+		assertEquals(2, rewardHistory.countRewardedDinings("123456789", "1234567890", date));
+
+		rewardHistory.removeRewardedDining("123456789", "1234567890", date);
+		assertEquals(1, rewardHistory.countRewardedDinings("123456789", "1234567890", date));
+	}
+
+	@Test
+	public void testDiningsAddedUncountedOnRollback() {
+		rewardHistory.load();
+		SimpleDate date = new SimpleDate(5, 15, 2020);
+		rewardHistory.addRewardedDining("123456789", "1234567890", date);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		transactionTemplate.executeWithoutResult(status -> {
+			rewardHistory.addRewardedDining("123456789", "1234567890", date);
+			rewardHistory.addRewardedDining("123456789", "1234567890", date);
+			rewardHistory.removeRewardedDining("123456789", "1234567890", date);
+			assertEquals(2, rewardHistory.countRewardedDinings("123456789", "1234567890", date));
+			status.setRollbackOnly();
+		});
+		assertEquals(1, rewardHistory.countRewardedDinings("123456789", "1234567890", date));
+	}
+}
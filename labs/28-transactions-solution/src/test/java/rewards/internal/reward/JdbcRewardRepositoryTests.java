@@ -5,7 +5,12 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sql.DataSource;
 
@@ -19,6 +24,7 @@ import rewards.Dining;
 import rewards.RewardConfirmation;
 import rewards.internal.account.Account;
 
+import common.datetime.DateInterval;
 import common.datetime.SimpleDate;
 import common.money.MonetaryAmount;
 import common.money.Percentage;
@@ -60,6 +66,140 @@ public class JdbcRewardRepositoryTests {
 		verifyRewardInserted(confirmation, dining);
 	}
 
+	@Test
+	public void testConfirmationNumbersAreUniqueAcrossRepositoriesSharingTheSequence() throws SQLException {
+		// two repositories drawing from the same sequence behave like two application instances
+		JdbcRewardRepository other = new JdbcRewardRepository();
+		other.setDataSource(dataSource);
+		repository.setConfirmationNumberBlockSize(10);
+		other.setConfirmationNumberBlockSize(10);
+
+		Dining dining = Dining.createDining("100.00", "1234123412341234", "0123456789");
+		Account account = new Account("1", "Keith and Keri Donald");
+		account.addBeneficiary("Annabelle");
+		AccountContribution contribution = account.makeContribution(MonetaryAmount.valueOf("8.00"));
+
+		Set<String> confirmationNumbers = new HashSet<String>();
+		for (int i = 0; i < 25; i++) {
+			confirmationNumbers.add(repository.confirmReward(contribution, dining).getConfirmationNumber());
+			confirmationNumbers.add(other.confirmReward(contribution, dining).getConfirmationNumber());
+		}
+		assertEquals(50, confirmationNumbers.size(), "confirmation numbers should never be handed out twice");
+		assertEquals(50, getRewardCount());
+
+		// 3 blocks of 10 for each repository
+		long sequenceValue = jdbcTemplate.queryForObject(
+				"select next value for S_REWARD_CONFIRMATION_NUMBER from DUAL_REWARD_CONFIRMATION_NUMBER", Long.class);
+		assertEquals(7, sequenceValue);
+	}
+
+	@Test
+	public void testConfirmationNumbersAreUniqueAcrossThreads() throws InterruptedException, SQLException {
+		repository.setConfirmationNumberBlockSize(7);
+		Dining dining = Dining.createDining("100.00", "1234123412341234", "0123456789");
+		Account account = new Account("1", "Keith and Keri Donald");
+		account.addBeneficiary("Annabelle");
+		AccountContribution contribution = account.makeContribution(MonetaryAmount.valueOf("8.00"));
+
+		Set<String> confirmationNumbers = ConcurrentHashMap.newKeySet();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 50; i++) {
+					confirmationNumbers.add(repository.confirmReward(contribution, dining).getConfirmationNumber());
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(200, confirmationNumbers.size());
+		assertEquals(200, getRewardCount());
+	}
+
+	@Test
+	public void testFindByAccountInPages() {
+		// recorded out of dining date order, for two accounts
+		confirm("1", "0123456789", 3, 2);
+		confirm("1", "0123456789", 3, 1);
+		confirm("2", "0123456789", 3, 1);
+		confirm("1", "9876543210", 3, 2);
+		confirm("1", "0123456789", 3, 3);
+		confirm("1", "0123456789", 4, 1);
+		DateInterval march = new DateInterval(new SimpleDate(3, 1, 2020), new SimpleDate(3, 31, 2020));
+
+		List<Reward> firstPage = repository.findByAccount("1", march, null, 2);
+		assertEquals(2, firstPage.size());
+		assertEquals(new SimpleDate(3, 1, 2020), firstPage.get(0).getDiningDate());
+		assertEquals(new SimpleDate(3, 2, 2020), firstPage.get(1).getDiningDate());
+		assertEquals("0123456789", firstPage.get(1).getMerchantNumber());
+
+		List<Reward> secondPage = repository.findByAccount("1", march, firstPage.get(1), 2);
+		assertEquals(2, secondPage.size());
+		assertEquals(new SimpleDate(3, 2, 2020), secondPage.get(0).getDiningDate());
+		assertEquals("9876543210", secondPage.get(0).getMerchantNumber());
+		assertEquals(new SimpleDate(3, 3, 2020), secondPage.get(1).getDiningDate());
+
+		assertEquals(0, repository.findByAccount("1", march, secondPage.get(1), 2).size());
+		assertEquals(0, repository.findByAccount("1", march, null, 0).size());
+	}
+
+	@Test
+	public void testFindByMerchantAndDiningDate() {
+		confirm("1", "0123456789", 3, 2);
+		confirm("2", "0123456789", 3, 1);
+		confirm("1", "9876543210", 3, 2);
+		DateInterval days = new DateInterval(new SimpleDate(3, 1, 2020), new SimpleDate(3, 2, 2020));
+
+		List<Reward> rewards = repository.findByMerchant("0123456789", days, null, 10);
+		assertEquals(2, rewards.size());
+		assertEquals("2", rewards.get(0).getAccountNumber());
+		assertEquals(MonetaryAmount.valueOf("8.00"), rewards.get(0).getAmount());
+		assertEquals(MonetaryAmount.valueOf("100.00"), rewards.get(0).getDiningAmount());
+
+		assertEquals(3, repository.findByDiningDate(days, null, 10).size());
+		DateInterval secondDay = new DateInterval(new SimpleDate(3, 2, 2020), new SimpleDate(3, 2, 2020));
+		assertEquals(2, repository.findByDiningDate(secondDay, null, 10).size());
+	}
+
+	@Test
+	public void testDailySummaries() {
+		confirm("1", "0123456789", 3, 2);
+		confirm("1", "0123456789", 3, 1);
+		confirm("1", "9876543210", 3, 2);
+		confirm("2", "0123456789", 3, 2);
+		DateInterval march = new DateInterval(new SimpleDate(3, 1, 2020), new SimpleDate(3, 31, 2020));
+
+		List<RewardSummary> accountSummaries = repository.findDailyAccountSummaries("1", march);
+		assertEquals(2, accountSummaries.size());
+		assertEquals(new SimpleDate(3, 1, 2020), accountSummaries.get(0).getDiningDate());
+		assertEquals(1, accountSummaries.get(0).getRewardCount());
+		assertEquals(new SimpleDate(3, 2, 2020), accountSummaries.get(1).getDiningDate());
+		assertEquals(2, accountSummaries.get(1).getRewardCount());
+		assertEquals(MonetaryAmount.valueOf("16.00"), accountSummaries.get(1).getRewardAmount());
+		assertEquals(MonetaryAmount.valueOf("200.00"), accountSummaries.get(1).getDiningAmount());
+
+		List<RewardSummary> merchantSummaries = repository.findDailyMerchantSummaries("0123456789", march);
+		assertEquals(2, merchantSummaries.size());
+		assertEquals("0123456789", merchantSummaries.get(1).getNumber());
+		assertEquals(2, merchantSummaries.get(1).getRewardCount());
+		assertEquals(MonetaryAmount.valueOf("16.00"), merchantSummaries.get(1).getRewardAmount());
+	}
+
+	/**
+	 * Records a reward of 8.00 for a dining of 100.00 in 2020.
+	 */
+	private void confirm(String accountNumber, String merchantNumber, int month, int day) {
+		Account account = new Account(accountNumber, "Keith and Keri Donald");
+		account.addBeneficiary("Annabelle");
+		List<AccountContribution> contributions = new ArrayList<AccountContribution>();
+		contributions.add(account.makeContribution(MonetaryAmount.valueOf("8.00")));
+		List<Dining> dinings = new ArrayList<Dining>();
+		dinings.add(Dining.createDining("100.00", "1234123412341234", merchantNumber, month, day, 2020));
+		repository.confirmRewards(contributions, dinings);
+	}
+
 	private void verifyRewardInserted(RewardConfirmation confirmation, Dining dining) throws SQLException {
 		assertEquals(1, getRewardCount());
 		String sql = "select * from T_REWARD where CONFIRMATION_NUMBER = ?";
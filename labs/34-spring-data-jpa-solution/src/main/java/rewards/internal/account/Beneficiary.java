@@ -40,7 +40,7 @@ public class Beneficiary {
 	 */
 	public Beneficiary(String name, Percentage allocationPercentage) {
 		this.name = name;
-		this.allocationPercentage = allocationPercentage;
+		this.allocationPercentage = allocationPercentage.copy();
 	}
 
 	/**
@@ -53,7 +53,7 @@ public class Beneficiary {
 	 */
 	Beneficiary(String name, Percentage allocationPercentage, MonetaryAmount savings) {
 		this.name = name;
-		this.allocationPercentage = allocationPercentage;
+		this.allocationPercentage = allocationPercentage.copy();
 		this.savings = savings;
 	}
 
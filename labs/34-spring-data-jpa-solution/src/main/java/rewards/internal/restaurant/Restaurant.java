@@ -68,7 +68,7 @@ public class Restaurant {
 	 *            the benefit percentage
 	 */
 	public void setBenefitPercentage(Percentage benefitPercentage) {
-		this.benefitPercentage = benefitPercentage;
+		this.benefitPercentage = benefitPercentage.copy();
 	}
 
 	/**
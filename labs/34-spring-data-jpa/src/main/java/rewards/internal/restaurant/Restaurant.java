@@ -61,7 +61,7 @@ public class Restaurant {
 	 *            the benefit percentage
 	 */
 	public void setBenefitPercentage(Percentage benefitPercentage) {
-		this.benefitPercentage = benefitPercentage;
+		this.benefitPercentage = benefitPercentage.copy();
 	}
 
 	/**
@@ -1,12 +1,27 @@
 package accounts.web;
 
 import accounts.AccountManager;
+import accounts.AccountVersion;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import rewards.internal.account.Account;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 
 /**
@@ -23,8 +38,15 @@ import java.util.List;
 @RestController
 public class AccountController {
 
+	/**
+	 * The largest page of accounts a client may ask for.
+	 */
+	public static final int MAX_PAGE_SIZE = 1000;
+
 	private final AccountManager accountManager;
 
+	private ObjectMapper objectMapper = new ObjectMapper();
+
 	/**
 	 * Creates a new AccountController with a given account manager.
 	 */
@@ -34,11 +56,32 @@ public class AccountController {
 	}
 
 	/**
-	 * Provide a model with an account for the account detail page.
+	 * Sets the object mapper the account stream is written with, normally the
+	 * one configured for the application. Defaults to a plain ObjectMapper.
+	 */
+	@Autowired(required = false)
+	public void setObjectMapper(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Provide a model with an account for the account detail page, unless the
+	 * client's copy of the account is current.
 	 */
 	@GetMapping("/accounts/{entityId}")
-	public Account accountDetails(@PathVariable("entityId") long id) {
-		return accountManager.getAccount(id);
+	public ResponseEntity<Account> accountDetails(@PathVariable("entityId") long id, WebRequest request) {
+		if (isNotModified(id, request))
+			return null;
+		return ResponseEntity.ok(accountDetails(id));
+	}
+
+	/**
+	 * Provide a model with an account for the account detail page. The account
+	 * is read past the account cache, so it is at least as current as the
+	 * version its ETag was taken from.
+	 */
+	public Account accountDetails(long id) {
+		return accountManager.getCurrentAccount(id);
 	}
 
 	/**
@@ -48,4 +91,66 @@ public class AccountController {
 	public List<Account> accountList() {
 		return accountManager.getAllAccounts();
 	}
+
+	/**
+	 * Provide a page of at most limit accounts, in order of their ids, starting
+	 * after the account with id after, or from the first account if after is
+	 * not given. While pages are full, the Link header gives the URL of the
+	 * next page.
+	 */
+	@GetMapping(value = "/accounts", params = "limit")
+	public ResponseEntity<List<Account>> accountPage(@RequestParam(required = false) Long after,
+			@RequestParam int limit) {
+		if (limit < 1 || limit > MAX_PAGE_SIZE)
+			return ResponseEntity.badRequest().build();
+
+		List<Account> accounts = accountManager.getAccountsAfter(after, limit);
+		if (accounts.size() < limit)
+			return ResponseEntity.ok(accounts);
+
+		URI next = ServletUriComponentsBuilder.fromCurrentRequest()
+				.replaceQueryParam("after", accounts.get(accounts.size() - 1).getEntityId()).build().toUri();
+		return ResponseEntity.ok().header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"").body(accounts);
+	}
+
+	/**
+	 * Stream all accounts as newline-delimited JSON, one account per line.
+	 * Each account is written as soon as it is read, so the accounts are never
+	 * all in memory at once.
+	 */
+	@GetMapping(value = "/accounts", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> accountStream() {
+		StreamingResponseBody body = outputStream -> {
+			JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+			// end each account with a newline, rather than separating them
+			// with the default space
+			generator.setRootValueSeparator(null);
+			ObjectWriter writer = objectMapper.writerFor(Account.class)
+					.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+			accountManager.forEachAccount(account -> {
+				try {
+					writer.writeValue(generator, account);
+					generator.writeRaw('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			generator.flush();
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
+	/**
+	 * Checks a conditional GET for an account, or one of its beneficiaries,
+	 * against the account's version, which is found without loading the
+	 * account. The version also sets the ETag and Last-Modified headers of the
+	 * response.
+	 * 
+	 * @return true if the client's copy is current, and the response status
+	 *         has been set to 304 Not Modified
+	 */
+	private boolean isNotModified(long accountId, WebRequest request) {
+		AccountVersion version = accountManager.getAccountVersion(accountId);
+		return version != null && request.checkNotModified(version.getETag(), version.getLastModified());
+	}
 }
@@ -7,9 +7,14 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -52,6 +57,54 @@ public class MockMvcTests {
 				.andExpect(jsonPath("$.length()").value(expectedNumberOfAccounts));
 	}
 
+	/**
+	 * Test a GET to /accounts for a page of accounts.
+	 * <p>
+	 * Asking for a limit returns just that many accounts, with a Link header to
+	 * the page after them.
+	 * 
+	 * @throws Exception
+	 *             If anything fails.
+	 */
+	@Test
+	public void getAccountPageTest() throws Exception {
+		this.mockMvc //
+				.perform(get("/accounts?after=0&limit=5") //
+						.accept(MediaType.parseMediaType("application/json"))) //
+				.andExpect(status().isOk()) //
+				.andExpect(content().contentType("application/json"))
+				.andExpect(jsonPath("$.length()").value(5))
+				.andExpect(jsonPath("$[0].entityId").value(1))
+				.andExpect(header().string("Link", "<http://localhost/accounts?limit=5&after=5>; rel=\"next\""));
+	}
+
+	/**
+	 * Test a GET to /accounts for newline-delimited JSON.
+	 * <p>
+	 * The accounts are streamed from a separate thread, so the request starts
+	 * asynchronous processing, and its result is dispatched to check it.
+	 * 
+	 * @throws Exception
+	 *             If anything fails.
+	 */
+	@Test
+	public void getAccountStreamTest() throws Exception {
+		int expectedNumberOfAccounts = 21;
+
+		MvcResult result = this.mockMvc //
+				.perform(get("/accounts") //
+						.accept(MediaType.APPLICATION_NDJSON)) //
+				.andExpect(request().asyncStarted()) //
+				.andReturn();
+
+		String ndjson = this.mockMvc.perform(asyncDispatch(result)) //
+				.andExpect(status().isOk()) //
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON)) //
+				.andReturn().getResponse().getContentAsString();
+		assertEquals(expectedNumberOfAccounts, ndjson.split("\n").length);
+		assertTrue(ndjson.startsWith("{\"entityId\":0,"));
+	}
+
 	/**
 	 * Test a GET to /accountDetails.
 	 * <p>
@@ -79,4 +132,33 @@ public class MockMvcTests {
 				.andExpect(jsonPath("$.name").value(expectedAccountName));
 	}
 
+	/**
+	 * Test a conditional GET to /accountDetails.
+	 * <p>
+	 * The response carries the account's version as its ETag and Last-Modified
+	 * headers. Sending either back gets a 304 Not Modified, without the
+	 * account, while the account is unchanged.
+	 * 
+	 * @throws Exception
+	 *             If anything fails.
+	 */
+	@Test
+	public void getAccountNotModifiedTest() throws Exception {
+		MockHttpServletResponse response = this.mockMvc.perform(get("/accounts/0") //
+				.accept(MediaType.parseMediaType("application/json"))) //
+				.andExpect(status().isOk()) //
+				.andExpect(header().exists("ETag")) //
+				.andExpect(header().exists("Last-Modified")) //
+				.andReturn().getResponse();
+
+		this.mockMvc.perform(get("/accounts/0") //
+				.header("If-None-Match", response.getHeader("ETag"))) //
+				.andExpect(status().isNotModified()) //
+				.andExpect(content().string(""));
+
+		this.mockMvc.perform(get("/accounts/0") //
+				.header("If-Modified-Since", response.getHeader("Last-Modified"))) //
+				.andExpect(status().isNotModified());
+	}
+
 }
@@ -0,0 +1,213 @@
+package accounts.web;
+
+import accounts.AccountManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import rewards.internal.account.Account;
+import rewards.internal.account.Beneficiary;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * A non-blocking version of the {@link AccountController} API, under
+ * /reactive.
+ * <p>
+ * The handlers return a Mono or Flux instead of waiting for the
+ * AccountManager. Its calls run on a bounded elastic scheduler, which caps the
+ * number of threads blocked on the database however many requests are
+ * waiting, and the server thread handling a request is released until the
+ * result is ready. Only reactive types and UriComponentsBuilder are used, so
+ * the same controller also runs on WebFlux.
+ */
+@RestController
+@RequestMapping("/reactive")
+public class ReactiveAccountController {
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	/**
+	 * The number of accounts read at a time when streaming all accounts.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 100;
+
+	private AccountManager accountManager;
+
+	private Scheduler scheduler = Schedulers.boundedElastic();
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * Creates a new ReactiveAccountController with a given account manager.
+	 */
+	@Autowired
+	public ReactiveAccountController(AccountManager accountManager) {
+		this.accountManager = accountManager;
+	}
+
+	/**
+	 * Sets the scheduler the account manager is called on. Defaults to the
+	 * shared bounded elastic scheduler.
+	 */
+	public void setScheduler(Scheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Sets the number of accounts read at a time when streaming all accounts.
+	 * Defaults to {@link #DEFAULT_BATCH_SIZE}.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Provide all accounts, in order of their ids. The accounts are read a
+	 * batch at a time, and a batch is only read when the client is ready for
+	 * more accounts. A JSON client gets the accounts as a single list, while a
+	 * newline-delimited JSON client gets each account as it is read.
+	 */
+	@GetMapping(value = "/accounts")
+	public Flux<Account> accountSummary() {
+		Flux<List<Account>> batches = Flux.<List<Account>, Optional<Long>>generate(Optional::empty, (after, sink) -> {
+			List<Account> batch = accountManager.getAccountsAfter(after.orElse(null), batchSize);
+			if (!batch.isEmpty())
+				sink.next(batch);
+			if (batch.size() < batchSize) {
+				sink.complete();
+				return after;
+			}
+			return Optional.of(batch.get(batch.size() - 1).getEntityId());
+		});
+		// read each batch on the scheduler, keeping at most one batch ahead of
+		// the client
+		return batches.subscribeOn(scheduler).concatMapIterable(batch -> batch, 1);
+	}
+
+	/**
+	 * Provide the details of an account with the given id.
+	 */
+	@GetMapping(value = "/accounts/{id}")
+	public Mono<Account> accountDetails(@PathVariable long id) {
+		return call(() -> retrieveAccount(id));
+	}
+
+	/**
+	 * Creates a new Account, setting its URL as the Location header on the
+	 * response.
+	 */
+	@PostMapping(value = "/accounts")
+	public Mono<ResponseEntity<Void>> createAccount(@RequestBody Account newAccount,
+			UriComponentsBuilder uriBuilder) {
+		return call(() -> accountManager.save(newAccount))
+				.map(account -> entityWithLocation(uriBuilder.path("/reactive/accounts/{id}"), account.getEntityId()));
+	}
+
+	/**
+	 * Returns the Beneficiary with the given name for the Account with the
+	 * given id.
+	 */
+	@GetMapping(value = "/accounts/{accountId}/beneficiaries/{beneficiaryName}")
+	public Mono<Beneficiary> getBeneficiary(@PathVariable long accountId, @PathVariable String beneficiaryName) {
+		return call(() -> retrieveAccount(accountId).getBeneficiary(beneficiaryName));
+	}
+
+	/**
+	 * Adds a Beneficiary with the given name to the Account with the given id,
+	 * setting its URL as the Location header on the response.
+	 */
+	@PostMapping(value = "/accounts/{accountId}/beneficiaries")
+	public Mono<ResponseEntity<Void>> addBeneficiary(@PathVariable long accountId,
+			@RequestBody String beneficiaryName, UriComponentsBuilder uriBuilder) {
+		return call(() -> {
+			accountManager.addBeneficiary(accountId, beneficiaryName);
+			return entityWithLocation(uriBuilder.path("/reactive/accounts/{id}/beneficiaries/{name}"), accountId,
+					beneficiaryName);
+		});
+	}
+
+	/**
+	 * Removes the Beneficiary with the given name from the Account with the
+	 * given id, sharing out its allocation as {@link AccountController} does.
+	 */
+	@DeleteMapping(value = "/accounts/{accountId}/beneficiaries/{beneficiaryName}")
+	@ResponseStatus(HttpStatus.NO_CONTENT) // 204
+	public Mono<Void> removeBeneficiary(@PathVariable long accountId, @PathVariable String beneficiaryName) {
+		return call(() -> {
+			Account account = retrieveAccount(accountId);
+			accountManager.removeBeneficiary(accountId, beneficiaryName,
+					AccountController.reallocatedPercentages(account, beneficiaryName));
+			return null;
+		}).then();
+	}
+
+	/**
+	 * Maps UnsupportedOperationException to a 501 Not Implemented HTTP status
+	 * code.
+	 */
+	@ResponseStatus(HttpStatus.NOT_IMPLEMENTED)
+	@ExceptionHandler({ UnsupportedOperationException.class })
+	public void handleUnabletoReallocate(Exception ex) {
+		logger.error("Exception is: ", ex);
+		// just return empty 501
+	}
+
+	/**
+	 * Maps IllegalArgumentExceptions to a 404 Not Found HTTP status code.
+	 */
+	@ResponseStatus(HttpStatus.NOT_FOUND)
+	@ExceptionHandler(IllegalArgumentException.class)
+	public void handleNotFound(Exception ex) {
+		logger.error("Exception is: ", ex);
+		// return empty 404
+	}
+
+	/**
+	 * Maps DataIntegrityViolationException to a 409 Conflict HTTP status code.
+	 */
+	@ResponseStatus(HttpStatus.CONFLICT)
+	@ExceptionHandler({ DataIntegrityViolationException.class })
+	public void handleAlreadyExists(Exception ex) {
+		logger.error("Exception is: ", ex);
+		// return empty 409
+	}
+
+	/**
+	 * Makes a blocking call on the scheduler when the result is subscribed to.
+	 * A null result completes the Mono empty.
+	 */
+	private <T> Mono<T> call(Callable<T> call) {
+		return Mono.fromCallable(call).subscribeOn(scheduler);
+	}
+
+	/**
+	 * Finds the Account with the given id, throwing an IllegalArgumentException
+	 * if there is no such Account.
+	 */
+	private Account retrieveAccount(long accountId) throws IllegalArgumentException {
+		Account account = accountManager.getAccount(accountId);
+		if (account == null) {
+			throw new IllegalArgumentException("No such account with id " + accountId);
+		}
+		return account;
+	}
+
+	/**
+	 * Return a response with the location of the new resource, expanding the
+	 * given URI template with the resource's ids.
+	 */
+	private ResponseEntity<Void> entityWithLocation(UriComponentsBuilder location, Object... resourceIds) {
+		return ResponseEntity.created(location.buildAndExpand(resourceIds).toUri()).build();
+	}
+}
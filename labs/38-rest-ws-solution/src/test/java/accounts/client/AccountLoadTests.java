@@ -0,0 +1,277 @@
+package accounts.client;
+
+import accounts.RestWsApplication;
+import common.concurrent.VirtualThreads;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the blocking /accounts API of {@link accounts.web.AccountController}
+ * with the non-blocking /reactive/accounts API of
+ * {@link accounts.web.ReactiveAccountController} under many concurrent
+ * clients.
+ * <p>
+ * Each run sends the same requests to one API, keeping CONCURRENCY of them in
+ * flight at once, and prints the latencies, the most connections Tomcat held
+ * open at once and the most server request threads busy at once. Each run
+ * asserts every request succeeded and the server never held more connections
+ * than requests were in flight. Like the other client tests it is not part of
+ * the build: run it on its own, and raise CONCURRENCY and REQUESTS to load the
+ * server harder.
+ * <p>
+ * highConcurrencyAccountDetails keeps 10,000 connections busy (or the
+ * load.connections system property), to compare Tomcat's platform thread pool
+ * with virtual threads: run it once as is and once with
+ * -Dspring.threads.virtual.enabled=true on Java 21. It asserts the server held
+ * more connections open at once than platform request threads, so the run
+ * really loaded it beyond its thread pool. Each connection needs a file
+ * descriptor on both the client and the server side.
+ */
+@SpringBootTest(classes = RestWsApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = { "server.tomcat.max-connections=20000", "server.tomcat.accept-count=1000" })
+public class AccountLoadTests {
+
+    private static final int CONCURRENCY = 500;
+
+    private static final int REQUESTS = 10000;
+
+    private static final int HIGH_CONCURRENCY = Integer.getInteger("load.connections", 10000);
+
+    private static final String BASE_URL = "http://localhost:";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int maxPlatformThreads;
+
+    @Test
+    public void compareAccountDetails() {
+        // warm up both APIs first
+        run("/accounts/0", MediaType.APPLICATION_JSON, CONCURRENCY);
+        run("/reactive/accounts/0", MediaType.APPLICATION_JSON, CONCURRENCY);
+
+        LoadResult blocking = run("/accounts/0", MediaType.APPLICATION_JSON, REQUESTS);
+        LoadResult reactive = run("/reactive/accounts/0", MediaType.APPLICATION_JSON, REQUESTS);
+
+        System.out.println("Account details, blocking: " + blocking);
+        System.out.println("Account details, reactive: " + reactive);
+        blocking.assertAllSucceeded(REQUESTS, CONCURRENCY);
+        reactive.assertAllSucceeded(REQUESTS, CONCURRENCY);
+    }
+
+    @Test
+    public void compareAccountStreams() {
+        int requests = REQUESTS / 10;
+        run("/accounts", MediaType.APPLICATION_NDJSON, CONCURRENCY);
+        run("/reactive/accounts", MediaType.APPLICATION_NDJSON, CONCURRENCY);
+
+        LoadResult blocking = run("/accounts", MediaType.APPLICATION_NDJSON, requests);
+        LoadResult reactive = run("/reactive/accounts", MediaType.APPLICATION_NDJSON, requests);
+
+        System.out.println("Account stream, blocking: " + blocking);
+        System.out.println("Account stream, reactive: " + reactive);
+        blocking.assertAllSucceeded(requests, CONCURRENCY);
+        reactive.assertAllSucceeded(requests, CONCURRENCY);
+    }
+
+    @Test
+    public void highConcurrencyAccountDetails() {
+        String threads = virtualThreadsEnabled && VirtualThreads.isSupported() ? "virtual" : "platform";
+        int requests = HIGH_CONCURRENCY * 5;
+        run("/accounts/0", MediaType.APPLICATION_JSON, HIGH_CONCURRENCY, HIGH_CONCURRENCY);
+
+        LoadResult result = run("/accounts/0", MediaType.APPLICATION_JSON, requests, HIGH_CONCURRENCY);
+
+        System.out.println("Account details, " + HIGH_CONCURRENCY + " connections, " + threads + " threads: "
+                + result);
+        result.assertAllSucceeded(requests, HIGH_CONCURRENCY);
+        assertTrue(result.peakConnections > maxPlatformThreads,
+                "The server never held more connections than it has platform request threads: " + result);
+    }
+
+    private LoadResult run(String url, MediaType mediaType, int requests) {
+        return run(url, mediaType, requests, CONCURRENCY);
+    }
+
+    /**
+     * Sends the given number of GET requests to a URL, at most concurrency at
+     * a time.
+     */
+    private LoadResult run(String url, MediaType mediaType, int requests, int concurrency) {
+        // a new pool for each run, allowing a connection for every request in
+        // flight
+        ConnectionProvider provider = ConnectionProvider.builder("load")
+                                                        .maxConnections(concurrency)
+                                                        .pendingAcquireMaxCount(-1)
+                                                        .build();
+        HttpClient httpClient = HttpClient.create(provider);
+        WebClient webClient = WebClient.builder()
+                                       .baseUrl(BASE_URL + port)
+                                       .clientConnector(new ReactorClientHttpConnector(httpClient))
+                                       .build();
+
+        // sample the connections the server holds and its busy request threads
+        // while the run lasts, once those of the previous run are closed
+        AbstractProtocol<?> protocol = serverProtocol();
+        // virtual threads have no pool to sample
+        ThreadPoolExecutor serverThreads = protocol.getExecutor() instanceof ThreadPoolExecutor
+                ? (ThreadPoolExecutor) protocol.getExecutor() : null;
+        long idleConnections = awaitIdleConnections(protocol);
+        AtomicLong peakConnections = new AtomicLong();
+        AtomicInteger peakBusyThreads = new AtomicInteger(serverThreads != null ? 0 : -1);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            peakConnections.accumulateAndGet(protocol.getConnectionCount() - idleConnections, Math::max);
+            if (serverThreads != null) {
+                peakBusyThreads.accumulateAndGet(serverThreads.getActiveCount(), Math::max);
+            }
+        }, 0, 1, TimeUnit.MILLISECONDS);
+
+        try {
+            long start = System.nanoTime();
+            long[] latencies = Flux.range(0, requests)
+                                   .flatMap(i -> timedGet(webClient, url, mediaType), concurrency)
+                                   .collectList()
+                                   .block()
+                                   .stream()
+                                   .mapToLong(Long::longValue)
+                                   .toArray();
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            return new LoadResult(latencies, elapsed, peakConnections.get(), peakBusyThreads.get());
+        } finally {
+            sampler.shutdownNow();
+            provider.dispose();
+        }
+    }
+
+    private AbstractProtocol<?> serverProtocol() {
+        return (AbstractProtocol<?>) ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector()
+                .getProtocolHandler();
+    }
+
+    /**
+     * Waits for the server to close the connections of earlier runs, returning
+     * the connection count it settles at. Tomcat counts a connection its
+     * acceptor has reserved for the next client as well as those open.
+     */
+    private static long awaitIdleConnections(AbstractProtocol<?> protocol) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        long count = protocol.getConnectionCount();
+        while (count > 1 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            count = protocol.getConnectionCount();
+        }
+        assertTrue(count <= 1, "The server still holds " + count + " connections of an earlier run");
+        return count;
+    }
+
+    /**
+     * Sends a GET request and reads the whole response, returning how long it
+     * took in nanoseconds, or -1 if the request failed.
+     */
+    private Mono<Long> timedGet(WebClient webClient, String url, MediaType mediaType) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return webClient.get()
+                            .uri(url)
+                            .accept(mediaType)
+                            .retrieve()
+                            .bodyToMono(byte[].class)
+                            .map(body -> System.nanoTime() - start)
+                            .onErrorReturn(-1L);
+        });
+    }
+
+    /**
+     * The outcome of one run of requests.
+     */
+    private static class LoadResult {
+
+        private final long[] latencies;
+
+        private final int successes;
+
+        private final Duration elapsed;
+
+        private final long peakConnections;
+
+        /**
+         * The most server request threads busy at once, or -1 if requests ran
+         * on virtual threads.
+         */
+        private final int peakBusyThreads;
+
+        LoadResult(long[] latencies, Duration elapsed, long peakConnections, int peakBusyThreads) {
+            this.latencies = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+            this.successes = this.latencies.length;
+            this.elapsed = elapsed;
+            this.peakConnections = peakConnections;
+            this.peakBusyThreads = peakBusyThreads;
+        }
+
+        /**
+         * Asserts every request of the run succeeded, over no more server
+         * connections than requests were in flight.
+         */
+        void assertAllSucceeded(int requests, int concurrency) {
+            assertEquals(requests, successes, () -> "Requests failed: " + this);
+            assertTrue(peakConnections > 0, () -> "The server saw no connections: " + this);
+            assertTrue(peakConnections <= concurrency,
+                    () -> "The server held more connections than requests in flight: " + this);
+        }
+
+        private double percentileMillis(double percentile) {
+            if (latencies.length == 0)
+                return 0;
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            double throughput = successes * 1000.0 / Math.max(elapsed.toMillis(), 1);
+            return String.format("%d ok in %d ms (%.0f/s), latency p50 %.1f ms, p99 %.1f ms, max %.1f ms, "
+                            + "at most %d server connections open, %s",
+                    successes, elapsed.toMillis(), throughput, percentileMillis(50), percentileMillis(99),
+                    percentileMillis(100), peakConnections, peakBusyThreads < 0 ? "virtual server threads"
+                            : "at most " + peakBusyThreads + " server threads busy");
+        }
+    }
+}
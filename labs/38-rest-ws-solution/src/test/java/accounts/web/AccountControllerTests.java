@@ -1,15 +1,22 @@
 package accounts.web;
 
 import accounts.internal.StubAccountManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
 import rewards.internal.account.Account;
 import rewards.internal.account.Beneficiary;
 
+import java.io.ByteArrayOutputStream;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,6 +40,45 @@ public class AccountControllerTests {
 		assertEquals(Long.valueOf(0), account.getEntityId());
 	}
 
+	@Test
+	public void testHandleConditionalDetailsRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/accounts/0");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ResponseEntity<Account> result = controller.accountDetails(0, new ServletWebRequest(request, response));
+		assertEquals(Long.valueOf(0), result.getBody().getEntityId());
+		String etag = response.getHeader(HttpHeaders.ETAG);
+		assertNotNull(etag);
+		assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+
+		// the client's copy is current
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+		response = new MockHttpServletResponse();
+		assertNull(controller.accountDetails(0, new ServletWebRequest(request, response)));
+		assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+
+		// removing a beneficiary changes the account's version
+		controller.removeBeneficiary(0L, "Corgan");
+		response = new MockHttpServletResponse();
+		result = controller.accountDetails(0, new ServletWebRequest(request, response));
+		assertEquals(1, result.getBody().getBeneficiaries().size());
+		assertNotEquals(etag, response.getHeader(HttpHeaders.ETAG));
+	}
+
+	@Test
+	public void testHandleConditionalBeneficiaryRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/accounts/0/beneficiaries/Corgan");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ResponseEntity<Beneficiary> result = controller.getBeneficiary(0, "Corgan",
+				new ServletWebRequest(request, response));
+		assertEquals("Corgan", result.getBody().getName());
+
+		// the beneficiary has the entity tag of its account
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, response.getHeader(HttpHeaders.ETAG));
+		response = new MockHttpServletResponse();
+		assertNull(controller.getBeneficiary(0, "Corgan", new ServletWebRequest(request, response)));
+		assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+	}
+
 	@Test
 	public void testHandleSummaryRequest() {
 		List<Account> accounts = controller.accountSummary();
@@ -41,6 +87,36 @@ public class AccountControllerTests {
 		assertEquals(Long.valueOf(0), accounts.get(0).getEntityId());
 	}
 
+	@Test
+	public void testHandlePageRequest() {
+		setupFakeRequest("http://localhost/accounts");
+
+		ResponseEntity<List<Account>> page = controller.accountPage(null, 1);
+		assertEquals(1, page.getBody().size());
+		assertEquals(Long.valueOf(0), page.getBody().get(0).getEntityId());
+		// a full page links to the one after it
+		assertEquals("<http://localhost/accounts?after=0>; rel=\"next\"", page.getHeaders().getFirst(HttpHeaders.LINK));
+
+		page = controller.accountPage(0L, 1);
+		assertTrue(page.getBody().isEmpty());
+		assertNull(page.getHeaders().getFirst(HttpHeaders.LINK));
+
+		assertEquals(HttpStatus.BAD_REQUEST, controller.accountPage(null, 0).getStatusCode());
+	}
+
+	@Test
+	public void testHandleStreamRequest() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		controller.accountStream().getBody().writeTo(out);
+
+		// one account per line
+		String ndjson = out.toString("UTF-8");
+		assertTrue(ndjson.endsWith("\n"));
+		String[] lines = ndjson.split("\n");
+		assertEquals(1, lines.length);
+		assertEquals(0, new ObjectMapper().readTree(lines[0]).get("entityId").asInt());
+	}
+
 	@Test
 	public void testCreateAccount() {
 		Account newAccount = new Account("11223344", "Test");
@@ -0,0 +1,155 @@
+package accounts.web;
+
+import accounts.internal.StubAccountManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.scheduler.Schedulers;
+import rewards.internal.account.Account;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A JUnit test case testing the ReactiveAccountController.
+ */
+public class ReactiveAccountControllerTests {
+
+	private ReactiveAccountController controller;
+
+	private CountingAccountManager accountManager;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		accountManager = new CountingAccountManager();
+		controller = new ReactiveAccountController(accountManager);
+		// run the account manager calls on the test thread
+		controller.setScheduler(Schedulers.immediate());
+	}
+
+	@Test
+	public void testHandleDetailsRequest() {
+		Account account = controller.accountDetails(0).block();
+		assertNotNull(account);
+		assertEquals(Long.valueOf(0), account.getEntityId());
+	}
+
+	@Test
+	public void testHandleDetailsRequestForMissingAccount() {
+		assertThrows(IllegalArgumentException.class, () -> controller.accountDetails(9999).block());
+	}
+
+	@Test
+	public void testHandleSummaryRequest() {
+		addAccounts(5);
+		controller.setBatchSize(2);
+
+		List<Account> accounts = controller.accountSummary().collectList().block();
+		assertEquals(6, accounts.size());
+		for (int i = 1; i < accounts.size(); i++) {
+			assertTrue(accounts.get(i - 1).getEntityId() < accounts.get(i).getEntityId());
+		}
+		// three full batches, then an empty one
+		assertEquals(4, accountManager.batchesRead.get());
+	}
+
+	@Test
+	public void testSummaryReadsBatchesOnDemand() {
+		addAccounts(5);
+		controller.setBatchSize(2);
+
+		List<Account> received = new ArrayList<>();
+		BaseSubscriber<Account> subscriber = new BaseSubscriber<Account>() {
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) {
+				request(1);
+			}
+
+			@Override
+			protected void hookOnNext(Account account) {
+				received.add(account);
+			}
+		};
+		controller.accountSummary().subscribe(subscriber);
+
+		// one account asked for, so at most one batch read ahead
+		assertEquals(1, received.size());
+		assertTrue(accountManager.batchesRead.get() <= 2);
+
+		subscriber.cancel();
+		assertTrue(accountManager.batchesRead.get() <= 2);
+	}
+
+	@Test
+	public void testCreateAccount() {
+		Account newAccount = new Account("1234567890", "Test");
+
+		ResponseEntity<Void> result = controller
+				.createAccount(newAccount, UriComponentsBuilder.fromUriString("http://localhost")).block();
+
+		assertEquals(HttpStatus.CREATED, result.getStatusCode());
+		assertEquals("http://localhost/reactive/accounts/" + newAccount.getEntityId(),
+				result.getHeaders().getLocation().toString());
+	}
+
+	@Test
+	public void testGetBeneficiary() {
+		assertEquals("Corgan", controller.getBeneficiary(0, "Corgan").block().getName());
+		assertThrows(IllegalArgumentException.class, () -> controller.getBeneficiary(0, "Nobody").block());
+	}
+
+	@Test
+	public void testAddAndRemoveBeneficiary() {
+		ResponseEntity<Void> result = controller
+				.addBeneficiary(0L, "Test2", UriComponentsBuilder.fromUriString("http://localhost")).block();
+		assertEquals("http://localhost/reactive/accounts/0/beneficiaries/Test2",
+				result.getHeaders().getLocation().toString());
+
+		controller.removeBeneficiary(0L, "Corgan").block();
+		Account account = controller.accountDetails(0).block();
+		assertEquals(2, account.getBeneficiaries().size());
+	}
+
+	@Test
+	public void testNothingHappensUntilSubscribed() {
+		controller.accountDetails(0);
+		controller.accountSummary();
+		assertEquals(0, accountManager.batchesRead.get());
+		assertEquals(0, accountManager.accountsRead.get());
+	}
+
+	private void addAccounts(int count) {
+		for (int i = 0; i < count; i++) {
+			accountManager.save(new Account("12345678" + i, "Account " + i));
+		}
+	}
+
+	/**
+	 * Counts the reads made through the stub account manager.
+	 */
+	private static class CountingAccountManager extends StubAccountManager {
+
+		private final AtomicInteger batchesRead = new AtomicInteger();
+
+		private final AtomicInteger accountsRead = new AtomicInteger();
+
+		@Override
+		public Account getAccount(Long id) {
+			accountsRead.incrementAndGet();
+			return super.getAccount(id);
+		}
+
+		@Override
+		public List<Account> getAccountsAfter(Long afterId, int limit) {
+			batchesRead.incrementAndGet();
+			return super.getAccountsAfter(afterId, limit);
+		}
+	}
+}
@@ -1,18 +1,29 @@
 package accounts.web;
 
 import accounts.AccountManager;
+import accounts.AccountVersion;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import common.money.Percentage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import rewards.internal.account.Account;
 import rewards.internal.account.Beneficiary;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
@@ -26,8 +37,15 @@ public class AccountController {
 
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 
+	/**
+	 * The largest page of accounts a client may ask for.
+	 */
+	public static final int MAX_PAGE_SIZE = 1000;
+
 	private AccountManager accountManager;
 
+	private ObjectMapper objectMapper = new ObjectMapper();
+
 	/**
 	 * Creates a new AccountController with a given account manager.
 	 */
@@ -36,6 +54,15 @@ public class AccountController {
 		this.accountManager = accountManager;
 	}
 
+	/**
+	 * Sets the object mapper the account stream is written with, normally the
+	 * one configured for the application. Defaults to a plain ObjectMapper.
+	 */
+	@Autowired(required = false)
+	public void setObjectMapper(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
 	/**
 	 * Provide a list of all accounts.
 	 */
@@ -45,11 +72,69 @@ public class AccountController {
 	}
 
 	/**
-	 * Provide the details of an account with the given id.
+	 * Provide a page of at most limit accounts, in order of their ids, starting
+	 * after the account with id after, or from the first account if after is
+	 * not given. While pages are full, the Link header gives the URL of the
+	 * next page.
+	 */
+	@GetMapping(value = "/accounts", params = "limit")
+	public ResponseEntity<List<Account>> accountPage(@RequestParam(required = false) Long after,
+			@RequestParam int limit) {
+		if (limit < 1 || limit > MAX_PAGE_SIZE)
+			return ResponseEntity.badRequest().build();
+
+		List<Account> accounts = accountManager.getAccountsAfter(after, limit);
+		if (accounts.size() < limit)
+			return ResponseEntity.ok(accounts);
+
+		URI next = ServletUriComponentsBuilder.fromCurrentRequest()
+				.replaceQueryParam("after", accounts.get(accounts.size() - 1).getEntityId()).build().toUri();
+		return ResponseEntity.ok().header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"").body(accounts);
+	}
+
+	/**
+	 * Stream all accounts as newline-delimited JSON, one account per line.
+	 * Each account is written as soon as it is read, so the accounts are never
+	 * all in memory at once.
+	 */
+	@GetMapping(value = "/accounts", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> accountStream() {
+		StreamingResponseBody body = outputStream -> {
+			JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+			// end each account with a newline, rather than separating them
+			// with the default space
+			generator.setRootValueSeparator(null);
+			ObjectWriter writer = objectMapper.writerFor(Account.class)
+					.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+			accountManager.forEachAccount(account -> {
+				try {
+					writer.writeValue(generator, account);
+					generator.writeRaw('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			generator.flush();
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
+	/**
+	 * Provide the details of an account with the given id, unless the client's
+	 * copy of the account is current.
 	 */
 	@GetMapping(value = "/accounts/{id}")
-	public Account accountDetails(@PathVariable int id) {
-		return retrieveAccount(id);
+	public ResponseEntity<Account> accountDetails(@PathVariable int id, WebRequest request) {
+		if (isNotModified(id, request))
+			return null;
+		return ResponseEntity.ok(accountDetails(id));
+	}
+
+	/**
+	 * Provide the details of an account with the given id.
+	 */
+	public Account accountDetails(int id) {
+		return retrieveCurrentAccount(id);
 	}
 
 	/**
@@ -64,12 +149,22 @@ public class AccountController {
 
 	/**
 	 * Returns the Beneficiary with the given name for the Account with the
-	 * given id.
+	 * given id, unless the client's copy of the account is current.
 	 */
 	@GetMapping(value = "/accounts/{accountId}/beneficiaries/{beneficiaryName}")
-	public Beneficiary getBeneficiary(@PathVariable("accountId") int accountId,
-			@PathVariable("beneficiaryName") String beneficiaryName) {
-		return retrieveAccount(accountId).getBeneficiary(beneficiaryName);
+	public ResponseEntity<Beneficiary> getBeneficiary(@PathVariable("accountId") int accountId,
+			@PathVariable("beneficiaryName") String beneficiaryName, WebRequest request) {
+		if (isNotModified(accountId, request))
+			return null;
+		return ResponseEntity.ok(getBeneficiary(accountId, beneficiaryName));
+	}
+
+	/**
+	 * Returns the Beneficiary with the given name for the Account with the
+	 * given id.
+	 */
+	public Beneficiary getBeneficiary(int accountId, String beneficiaryName) {
+		return retrieveCurrentAccount(accountId).getBeneficiary(beneficiaryName);
 	}
 
 	/**
@@ -161,6 +256,18 @@ public class AccountController {
 		return account;
 	}
 
+	/**
+	 * Finds the account to send with its version, bypassing the account
+	 * cache, so that it is at least as current as the version found before.
+	 */
+	private Account retrieveCurrentAccount(long accountId) throws IllegalArgumentException {
+		Account account = accountManager.getCurrentAccount(accountId);
+		if (account == null) {
+			throw new IllegalArgumentException("No such account with id " + accountId);
+		}
+		return account;
+	}
+
 	/**
 	 * Return a response with the location of the new resource. It's URL is
 	 * assumed to be a child of the URL just received.
@@ -186,4 +293,17 @@ public class AccountController {
 		return ResponseEntity.created(location).build();
 	}
 
+	/**
+	 * Checks a conditional GET for an account, or one of its beneficiaries,
+	 * against the account's version, which is found without loading the
+	 * account. The version also sets the ETag and Last-Modified headers of the
+	 * response.
+	 * 
+	 * @return true if the client's copy is current, and the response status
+	 *         has been set to 304 Not Modified
+	 */
+	private boolean isNotModified(long accountId, WebRequest request) {
+		AccountVersion version = accountManager.getAccountVersion(accountId);
+		return version != null && request.checkNotModified(version.getETag(), version.getLastModified());
+	}
 }
@@ -1,6 +1,7 @@
 package accounts.web;
 
 import accounts.AccountManager;
+import accounts.AccountVersion;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import common.money.Percentage;
 import org.junit.jupiter.api.Test;
@@ -9,16 +10,23 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import rewards.internal.account.Account;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.anyLong;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -41,7 +49,7 @@ public class AccountControllerBootTests {
     public void accountDetails() throws Exception {
 
         // arrange
-        given(accountManager.getAccount(anyLong()))
+        given(accountManager.getCurrentAccount(anyLong()))
 				.willReturn(new Account("1234567890", "John Doe"));
 
         // act and assert
@@ -53,20 +61,54 @@ public class AccountControllerBootTests {
                .andExpect(jsonPath("number").value("1234567890"));
 
         // verify
-        verify(accountManager).getAccount(anyLong());
+        verify(accountManager).getCurrentAccount(anyLong());
+
+    }
+
+    @Test
+    public void accountDetailsWithVersion() throws Exception {
+
+        given(accountManager.getAccountVersion(0L))
+				.willReturn(new AccountVersion(3, 1600000000000L));
+        given(accountManager.getCurrentAccount(0L))
+				.willReturn(new Account("1234567890", "John Doe"));
+
+        mockMvc.perform(get("/accounts/0"))
+               .andExpect(status().isOk())
+               .andExpect(header().string("ETag", "\"3\""))
+               .andExpect(header().dateValue("Last-Modified", 1600000000000L))
+               .andExpect(jsonPath("name").value("John Doe"));
+
+    }
+
+    @Test
+    public void accountDetailsNotModified() throws Exception {
+
+        given(accountManager.getAccountVersion(0L))
+				.willReturn(new AccountVersion(3, 1600000000000L));
+
+        mockMvc.perform(get("/accounts/0").header("If-None-Match", "\"3\""))
+               .andExpect(status().isNotModified())
+               .andExpect(content().string(""));
+
+        mockMvc.perform(get("/accounts/0/beneficiaries/Corgan").header("If-None-Match", "\"3\""))
+               .andExpect(status().isNotModified());
+
+        // answered from the version alone
+        verify(accountManager, never()).getCurrentAccount(anyLong());
 
     }
 
     @Test
     public void accountDetailsFail() throws Exception {
 
-        given(accountManager.getAccount(any(Long.class)))
+        given(accountManager.getCurrentAccount(any(Long.class)))
                 .willThrow(new IllegalArgumentException("No such account with id " + 0L));
 
         mockMvc.perform(get("/accounts/9999"))
                .andExpect(status().isNotFound());
 
-        verify(accountManager).getAccount(any(Long.class));
+        verify(accountManager).getCurrentAccount(any(Long.class));
 
     }
 
@@ -87,6 +129,51 @@ public class AccountControllerBootTests {
 
     }
 
+    @Test
+    public void accountPage() throws Exception {
+
+        Account account = new Account("123456789", "John Doe");
+        account.setEntityId(7L);
+        given(accountManager.getAccountsAfter(3L, 1))
+				.willReturn(Arrays.asList(account));
+
+        mockMvc.perform(get("/accounts?after=3&limit=1"))
+               .andExpect(status().isOk())
+               .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+               .andExpect(jsonPath("$..name").value("John Doe"))
+               .andExpect(header().string("Link", "<http://localhost/accounts?limit=1&after=7>; rel=\"next\""));
+
+        verify(accountManager).getAccountsAfter(3L, 1);
+
+    }
+
+    @Test
+    public void accountStream() throws Exception {
+
+        willAnswer(invocation -> {
+            Consumer<Account> action = invocation.getArgument(0);
+            action.accept(new Account("123456789", "John Doe"));
+            action.accept(new Account("987654321", "Mary Jones"));
+            return null;
+        }).given(accountManager).forEachAccount(any());
+
+        MvcResult result = mockMvc.perform(get("/accounts").accept(MediaType.APPLICATION_NDJSON))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isOk())
+               .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+               .andExpect(content().string(startsWith("{")))
+               .andExpect(content().string(containsString("\"name\":\"John Doe\"")))
+               .andExpect(content().string(containsString("}\n{")))
+               .andExpect(content().string(containsString("\"name\":\"Mary Jones\"")))
+               .andExpect(content().string(endsWith("}\n")));
+
+        verify(accountManager).forEachAccount(any());
+
+    }
+
     @Test
     public void createAccount() throws Exception {
 
@@ -112,7 +199,7 @@ public class AccountControllerBootTests {
         Account account = new Account("1234567890", "John Doe");
         account.addBeneficiary("Corgan", new Percentage(0.1));
 
-        given(accountManager.getAccount(anyLong()))
+        given(accountManager.getCurrentAccount(anyLong()))
 				.willReturn(account);
 
         mockMvc.perform(get("/accounts/{accountId}/beneficiaries/{beneficiaryName}", 0L, "Corgan"))
@@ -120,7 +207,7 @@ public class AccountControllerBootTests {
                .andExpect(jsonPath("name").value("Corgan"))
                .andExpect(jsonPath("allocationPercentage").value("0.1"));
 
-        verify(accountManager).getAccount(anyLong());
+        verify(accountManager).getCurrentAccount(anyLong());
     }
 
     @Test
@@ -0,0 +1,64 @@
+package accounts.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call to the repositories, and to the account manager that
+ * serves as the accounts repository, as a Micrometer {@link Timer} per method.
+ * The timers publish percentile histograms, so the latencies can be
+ * aggregated across instances from the Prometheus scrape.
+ * <p>
+ * Each method's timer is registered on its first call and then found in a
+ * concurrent map keyed by the method, so timing a call takes no lock.
+ */
+@Aspect
+@Component
+public class RepositoryTimingAspect {
+
+    public static final String TIMER_NAME = "rewards.repository.calls";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    public RepositoryTimingAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * rewards.internal..*Repository.*(..)) || execution(public * accounts.AccountManager+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer timer = timerFor((MethodSignature) joinPoint.getSignature());
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timerFor(MethodSignature signature) {
+        Method method = signature.getMethod();
+        Timer timer = timers.get(method);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, key -> Timer.builder(TIMER_NAME)
+                    .description("Latency of the repository calls")
+                    .tag("repository", signature.getDeclaringType().getSimpleName())
+                    .tag("method", signature.getName())
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,119 @@
+package accounts.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lists the slowest repository methods, by their 99th percentile latency, from
+ * the timers of the {@link RepositoryTimingAspect}. All times are in
+ * milliseconds. Like the Prometheus percentiles, the percentiles and max cover
+ * the last few minutes, while the count and mean cover every call.
+ * <p>
+ * Returns the top 10 by default; ask for more or fewer with the
+ * <code>limit</code> parameter, like <code>/actuator/slowmethods?limit=3</code>.
+ * A negative limit is rejected with a 400 Bad Request.
+ */
+@Component
+@Endpoint(id = "slowmethods")
+public class SlowestRepositoryMethodsEndpoint {
+
+    private final MeterRegistry meterRegistry;
+
+    private final int defaultLimit;
+
+    public SlowestRepositoryMethodsEndpoint(MeterRegistry meterRegistry,
+                                            @Value("${rewards.slowmethods.limit:10}") int defaultLimit) {
+        this.meterRegistry = meterRegistry;
+        this.defaultLimit = defaultLimit;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> slowestMethods(@Nullable Integer limit) {
+        int max = limit == null ? defaultLimit : limit;
+        if (max < 0) {
+            throw new InvalidEndpointRequestException("The limit must not be negative, not " + max,
+                    "Negative limit");
+        }
+        List<MethodLatency> latencies = new ArrayList<>();
+        for (Timer timer : meterRegistry.find(RepositoryTimingAspect.TIMER_NAME).timers()) {
+            latencies.add(new MethodLatency(timer));
+        }
+        latencies.sort(Comparator.comparingDouble(MethodLatency::getP99)
+                .thenComparingDouble(MethodLatency::getMax).reversed());
+
+        List<Map<String, Object>> slowest = new ArrayList<>();
+        for (MethodLatency latency : latencies.subList(0, Math.min(max, latencies.size()))) {
+            slowest.add(latency.toMap());
+        }
+        return slowest;
+    }
+
+    /**
+     * The latencies of one method, taken from its timer.
+     */
+    private static class MethodLatency {
+
+        private final String name;
+
+        private final HistogramSnapshot snapshot;
+
+        private final double p50;
+
+        private final double p99;
+
+        private final double p999;
+
+        MethodLatency(Timer timer) {
+            this.name = timer.getId().getTag("repository") + "." + timer.getId().getTag("method");
+            this.snapshot = timer.takeSnapshot();
+            double p50 = 0, p99 = 0, p999 = 0;
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                if (value.percentile() == 0.5) {
+                    p50 = value.value(TimeUnit.MILLISECONDS);
+                } else if (value.percentile() == 0.99) {
+                    p99 = value.value(TimeUnit.MILLISECONDS);
+                } else if (value.percentile() == 0.999) {
+                    p999 = value.value(TimeUnit.MILLISECONDS);
+                }
+            }
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+        }
+
+        double getP99() {
+            return p99;
+        }
+
+        double getMax() {
+            return snapshot.max(TimeUnit.MILLISECONDS);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("method", name);
+            map.put("count", snapshot.count());
+            map.put("mean", snapshot.mean(TimeUnit.MILLISECONDS));
+            map.put("max", snapshot.max(TimeUnit.MILLISECONDS));
+            map.put("p50", p50);
+            map.put("p99", p99);
+            map.put("p999", p999);
+            return map;
+        }
+    }
+}
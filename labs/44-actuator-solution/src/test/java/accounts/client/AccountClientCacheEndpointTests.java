@@ -0,0 +1,47 @@
+package accounts.client;
+
+import accounts.AccountManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.wavefront.WavefrontMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "rewards.cache.enabled=true")
+@EnableAutoConfiguration(exclude = {WavefrontMetricsExportAutoConfiguration.class})
+public class AccountClientCacheEndpointTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private AccountManager accountManager;
+
+    @Test
+    public void caches_endpoint_lists_rewards_caches() {
+        ResponseEntity<String> responseEntity
+                = restTemplate.withBasicAuth("actuator", "actuator")
+                              .getForEntity("/actuator/caches", String.class);
+        assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(responseEntity.getBody()).contains("accounts").contains("restaurants").contains("SegmentedLruCache");
+    }
+
+    @Test
+    public void cache_metrics_count_account_lookups() {
+        accountManager.getAccount(1L);
+        accountManager.getAccount(1L);
+
+        ResponseEntity<String> responseEntity
+                = restTemplate.withBasicAuth("actuator", "actuator")
+                              .getForEntity("/actuator/metrics/cache.gets?tag=cache:accounts&tag=result:hit", String.class);
+        assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(responseEntity.getBody()).contains("{\"statistic\":\"COUNT\",\"value\":1.0}");
+    }
+
+}
@@ -0,0 +1,56 @@
+package accounts.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.wavefront.WavefrontMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@EnableAutoConfiguration(exclude = {WavefrontMetricsExportAutoConfiguration.class})
+@AutoConfigureMetrics
+public class AccountClientSlowestMethodsEndpointTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void slowest_methods_endpoint_lists_timed_repository_calls() {
+        restTemplate.withBasicAuth("actuator", "actuator").getForEntity("/accounts", String.class);
+
+        ResponseEntity<String> responseEntity
+                = restTemplate.withBasicAuth("actuator", "actuator")
+                              .getForEntity("/actuator/slowmethods", String.class);
+        assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(responseEntity.getBody()).contains("AccountManager.getAllAccounts").contains("p99");
+    }
+
+    @Test
+    public void slowest_methods_endpoint_rejects_a_negative_limit() {
+        ResponseEntity<String> responseEntity
+                = restTemplate.withBasicAuth("actuator", "actuator")
+                              .getForEntity("/actuator/slowmethods?limit=-1", String.class);
+        assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void repository_timers_are_scraped_by_prometheus() {
+        restTemplate.withBasicAuth("actuator", "actuator").getForEntity("/accounts", String.class);
+
+        ResponseEntity<String> responseEntity
+                = restTemplate.withBasicAuth("actuator", "actuator")
+                              .getForEntity("/actuator/prometheus", String.class);
+        assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(responseEntity.getBody())
+                .contains("rewards_repository_calls_seconds_bucket")
+                .contains("method=\"getAllAccounts\"");
+    }
+
+}
@@ -0,0 +1,92 @@
+package accounts.web;
+
+import accounts.AccountManager;
+import accounts.internal.StubAccountManager;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the repository timing aspect and the endpoint listing the
+ * slowest repository methods, using a simple in-memory meter registry.
+ */
+public class SlowestRepositoryMethodsEndpointTests {
+
+    private SimpleMeterRegistry registry;
+
+    private SlowestRepositoryMethodsEndpoint endpoint;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        endpoint = new SlowestRepositoryMethodsEndpoint(registry, 10);
+    }
+
+    @Test
+    public void aspectTimesEveryCall() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new StubAccountManager());
+        proxyFactory.addAspect(new RepositoryTimingAspect(registry));
+        AccountManager accountManager = proxyFactory.getProxy();
+
+        accountManager.getAllAccounts();
+        accountManager.getAllAccounts();
+        accountManager.getAccount(0L);
+
+        Timer timer = registry.get(RepositoryTimingAspect.TIMER_NAME)
+                .tag("repository", "AccountManager").tag("method", "getAllAccounts").timer();
+        assertEquals(2, timer.count());
+        assertEquals(2, registry.find(RepositoryTimingAspect.TIMER_NAME).timers().size());
+    }
+
+    @Test
+    public void slowestMethodsComeFirst() {
+        record("AccountRepository", "findByCreditCard", 5);
+        record("RestaurantRepository", "findByMerchantNumber", 50);
+        record("RewardRepository", "confirmReward", 20);
+
+        List<Map<String, Object>> slowest = endpoint.slowestMethods(null);
+        assertEquals(3, slowest.size());
+        assertEquals("RestaurantRepository.findByMerchantNumber", slowest.get(0).get("method"));
+        assertEquals("RewardRepository.confirmReward", slowest.get(1).get("method"));
+        assertEquals("AccountRepository.findByCreditCard", slowest.get(2).get("method"));
+        assertEquals(1L, slowest.get(0).get("count"));
+        assertEquals(50.0, (Double) slowest.get(0).get("max"), 0.001);
+    }
+
+    @Test
+    public void limitTheNumberOfMethods() {
+        record("AccountRepository", "findByCreditCard", 5);
+        record("RestaurantRepository", "findByMerchantNumber", 50);
+
+        List<Map<String, Object>> slowest = endpoint.slowestMethods(1);
+        assertEquals(1, slowest.size());
+        assertEquals("RestaurantRepository.findByMerchantNumber", slowest.get(0).get("method"));
+        assertEquals(0, endpoint.slowestMethods(0).size());
+    }
+
+    @Test
+    public void negativeLimitIsRejected() {
+        record("AccountRepository", "findByCreditCard", 5);
+
+        assertThrows(InvalidEndpointRequestException.class, () -> endpoint.slowestMethods(-1));
+    }
+
+    private void record(String repository, String method, long millis) {
+        Timer.builder(RepositoryTimingAspect.TIMER_NAME)
+                .tag("repository", repository)
+                .tag("method", method)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(registry)
+                .record(millis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,25 @@
+package config;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+/**
+ * The rewards application with its aspects, on an embedded database populated with the test data.
+ */
+@Configuration
+@Import({ RewardsConfig.class, AspectsConfig.class })
+public class BenchmarkConfig {
+
+	@Bean
+	public DataSource dataSource() {
+		return new EmbeddedDatabaseBuilder()
+			.addScript("classpath:rewards/testdb/schema.sql")
+			.addScript("classpath:rewards/testdb/data.sql")
+			.build();
+	}
+
+}
@@ -0,0 +1,83 @@
+package rewards.internal.aspects;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import rewards.internal.account.Account;
+import rewards.internal.account.AccountRepository;
+import rewards.internal.account.JdbcAccountRepository;
+
+import config.BenchmarkConfig;
+
+/**
+ * Compares calls to the JDBC account repository made directly and through the proxy that applies the LoggingAspect:
+ * <code>findByCreditCard</code> gets its before advice, and <code>updateBeneficiaries</code> is monitored by its around
+ * advice.
+ * <p>
+ * The forked JVM logs with <code>logback-benchmark.xml</code>, which turns the aspect's logging off, so the difference
+ * is the cost of the advice itself. Run with <code>-jvmArgsAppend -Dlogback.configurationFile=logback.xml</code> to
+ * see what writing the log lines to the console adds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class LoggingAspectBenchmark {
+
+	/**
+	 * Whether the repository calls go through the aspect.
+	 */
+	@Param({ "false", "true" })
+	private boolean advised;
+
+	private AnnotationConfigApplicationContext context;
+
+	private AccountRepository repository;
+
+	private Account account;
+
+	@Setup
+	public void setUp() {
+		context = new AnnotationConfigApplicationContext(BenchmarkConfig.class);
+		if (advised) {
+			repository = context.getBean(AccountRepository.class);
+		} else {
+			JdbcAccountRepository target = new JdbcAccountRepository();
+			target.setDataSource(context.getBean(DataSource.class));
+			repository = target;
+		}
+		account = repository.findByCreditCard("1234123412341234");
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Account findByCreditCard() {
+		return repository.findByCreditCard("1234123412341234");
+	}
+
+	@Benchmark
+	public void updateBeneficiaries() {
+		repository.updateBeneficiaries(account);
+	}
+}
@@ -0,0 +1,75 @@
+package common.money;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the MonetaryAmount and Percentage arithmetic that every reward goes through: parsing, adding and
+ * multiplying by a percentage.
+ * <p>
+ * Run with <code>-prof gc</code> to see how much each operation allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+	private MonetaryAmount amount;
+
+	private MonetaryAmount other;
+
+	private Percentage percentage;
+
+	private Percentage otherPercentage;
+
+	@Setup
+	public void setUp() {
+		amount = MonetaryAmount.valueOf("100.25");
+		other = MonetaryAmount.valueOf("8.02");
+		percentage = Percentage.valueOf("8%");
+		otherPercentage = Percentage.valueOf("25%");
+	}
+
+	@Benchmark
+	public MonetaryAmount parseAmount() {
+		return MonetaryAmount.valueOf("$100.25");
+	}
+
+	@Benchmark
+	public Percentage parsePercentage() {
+		return Percentage.valueOf("8%");
+	}
+
+	@Benchmark
+	public MonetaryAmount addAmounts() {
+		return amount.add(other);
+	}
+
+	@Benchmark
+	public MonetaryAmount multiplyByPercentage() {
+		return amount.multiplyBy(percentage);
+	}
+
+	@Benchmark
+	public Percentage addPercentages() {
+		return percentage.add(otherPercentage);
+	}
+
+	@Benchmark
+	public boolean compareAmounts() {
+		return amount.greaterThan(other);
+	}
+}
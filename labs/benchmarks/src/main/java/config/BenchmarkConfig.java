@@ -0,0 +1,38 @@
+package config;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * The rewards application of 28-transactions-solution as the benchmarks run it: its JDBC repositories and
+ * transactional reward network from {@link RewardsConfig}, on an embedded HSQLDB database.
+ */
+@Configuration
+@Import(RewardsConfig.class)
+public class BenchmarkConfig {
+
+	/**
+	 * Creates an in-memory database populated with the test data. Each context gets a database of its own, so one
+	 * benchmark never sees the rewards another recorded.
+	 */
+	@Bean
+	public DataSource dataSource() {
+		return new EmbeddedDatabaseBuilder()
+			.generateUniqueName(true)
+			.addScript("classpath:rewards/testdb/schema.sql")
+			.addScript("classpath:rewards/testdb/data.sql")
+			.build();
+	}
+
+	@Bean
+	public PlatformTransactionManager transactionManager() {
+		return new DataSourceTransactionManager(dataSource());
+	}
+
+}
@@ -0,0 +1,43 @@
+package rewards;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once for each of a list of thread counts, writing the results of each run to a JSON file that
+ * can be compared with those of another release.
+ * <p>
+ * The thread counts are read from the <code>threads</code> system property, a comma-separated list defaulting to
+ * <code>1,4</code>, and the results go to <code>jmh-result-t&lt;threads&gt;.json</code> in the directory named by the
+ * <code>resultDir</code> system property, <code>target/jmh</code> by default. Any arguments are passed on to JMH, so
+ * they can select benchmarks or override parameters:
+ * 
+ * <pre>
+ * java -Dthreads=1,2,8 -cp benchmarks.jar rewards.BenchmarkRunner RewardNetworkBenchmark -p beneficiaryCount=4
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		File resultDir = new File(System.getProperty("resultDir", "target/jmh"));
+		resultDir.mkdirs();
+		for (String threads : System.getProperty("threads", "1,4").split(",")) {
+			int threadCount = Integer.parseInt(threads.trim());
+			Options options = new OptionsBuilder()
+				.parent(commandLine)
+				.threads(threadCount)
+				.resultFormat(ResultFormatType.JSON)
+				.result(new File(resultDir, "jmh-result-t" + threadCount + ".json").getPath())
+				.build();
+			new Runner(options).run();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package rewards;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import config.BenchmarkConfig;
+
+/**
+ * Measures rewarding an account for dining end to end with the reward network of 28-transactions-solution: loading
+ * the account and restaurant, calculating and distributing the benefit, and writing the beneficiaries and the reward,
+ * all with JDBC in one transaction on an embedded HSQLDB database.
+ * <p>
+ * Every thread rewards the same account, so with more than one thread (<code>-t</code>) this also measures how the
+ * transactions contend for its beneficiary rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RewardNetworkBenchmark {
+
+	/**
+	 * The number of beneficiaries of the account rewarded, one of those found in the test data.
+	 */
+	@Param({ "1", "2", "4" })
+	private int beneficiaryCount;
+
+	private AnnotationConfigApplicationContext context;
+
+	private RewardNetwork rewardNetwork;
+
+	private Dining dining;
+
+	@Setup
+	public void setUp() {
+		context = new AnnotationConfigApplicationContext(BenchmarkConfig.class);
+		rewardNetwork = context.getBean(RewardNetwork.class);
+		dining = Dining.createDining("100.00", TestData.creditCardFor(beneficiaryCount), TestData.MERCHANT_NUMBER);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public RewardConfirmation rewardAccountFor() {
+		return rewardNetwork.rewardAccountFor(dining);
+	}
+}
@@ -0,0 +1,36 @@
+package rewards;
+
+/**
+ * Facts about the test data in <code>rewards/testdb/data.sql</code> that the benchmarks rely on.
+ */
+public final class TestData {
+
+	/**
+	 * The merchant number of the AppleBees restaurant, which always rewards 8%.
+	 */
+	public static final String MERCHANT_NUMBER = "1234567890";
+
+	private TestData() {
+	}
+
+	/**
+	 * Returns the number of a credit card whose account has the given number of beneficiaries.
+	 * @param beneficiaryCount the number of beneficiaries, from 1 to 4
+	 * @return the credit card number
+	 * @throws IllegalArgumentException if no account has that many beneficiaries
+	 */
+	public static String creditCardFor(int beneficiaryCount) {
+		switch (beneficiaryCount) {
+		case 1:
+			return "1234123412340017";
+		case 2:
+			return "1234123412341234";
+		case 3:
+			return "1234123412340015";
+		case 4:
+			return "1234123412340003";
+		default:
+			throw new IllegalArgumentException("No account in the test data has " + beneficiaryCount + " beneficiaries");
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package rewards.internal.account;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+/**
+ * Compares the two ways the JDBC account repository of 28-transactions-solution maps its result sets, as set by
+ * {@link JdbcAccountRepository#setIndexedColumnMapping(boolean)}: columns read by position with the amounts read as
+ * decimals, against columns looked up by label with the amounts parsed from strings.
+ * <p>
+ * Measures both loading a single account and loading the accounts of every credit card in the test data at once, as
+ * the reward network does for a batch of dinings. Runs against an in-memory HSQLDB database, so the queries
+ * themselves are cheap and the mapping makes up a noticeable share of each lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountMappingBenchmark {
+
+	/**
+	 * Whether the repository reads the columns by position.
+	 */
+	@Param({ "true", "false" })
+	private boolean indexedColumnMapping;
+
+	/**
+	 * The credit card looked up: account 123456003 has four beneficiaries.
+	 */
+	@Param({ "1234123412340003" })
+	private String creditCardNumber;
+
+	private List<String> allCreditCardNumbers;
+
+	private EmbeddedDatabase dataSource;
+
+	private JdbcAccountRepository repository;
+
+	@Setup
+	public void setUp() {
+		dataSource = new EmbeddedDatabaseBuilder()
+			.generateUniqueName(true)
+			.addScript("/rewards/testdb/schema.sql")
+			.addScript("/rewards/testdb/data.sql")
+			.build();
+		repository = new JdbcAccountRepository();
+		repository.setDataSource(dataSource);
+		repository.setIndexedColumnMapping(indexedColumnMapping);
+		allCreditCardNumbers = new JdbcTemplate(dataSource).queryForList("select NUMBER from T_ACCOUNT_CREDIT_CARD",
+				String.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		dataSource.shutdown();
+	}
+
+	@Benchmark
+	public Account findByCreditCard() {
+		return repository.findByCreditCard(creditCardNumber);
+	}
+
+	@Benchmark
+	public Map<String, Account> findByCreditCards() {
+		return repository.findByCreditCards(allCreditCardNumbers);
+	}
+}
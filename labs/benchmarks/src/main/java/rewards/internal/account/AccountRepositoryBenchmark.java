@@ -0,0 +1,86 @@
+package rewards.internal.account;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import rewards.TestData;
+
+import config.BenchmarkConfig;
+
+/**
+ * Compares loading an account by credit card through the JDBC account repository and through the caching repository
+ * in front of it, both against the same embedded HSQLDB database.
+ * <p>
+ * Each lookup runs in its own read-only transaction, as it would inside the reward network. The cached lookups only
+ * copy the account once it has been loaded, so they measure what the cache saves a frequent diner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountRepositoryBenchmark {
+
+	/**
+	 * The repository implementation: "jdbc", or "cached" for the JDBC repository behind a cache.
+	 */
+	@Param({ "jdbc", "cached" })
+	private String repositoryType;
+
+	/**
+	 * The number of beneficiaries of the account looked up, one of those found in the test data.
+	 */
+	@Param({ "1", "2", "4" })
+	private int beneficiaryCount;
+
+	private AnnotationConfigApplicationContext context;
+
+	private AccountRepository repository;
+
+	private TransactionTemplate transactionTemplate;
+
+	private String creditCardNumber;
+
+	@Setup
+	public void setUp() {
+		context = new AnnotationConfigApplicationContext(BenchmarkConfig.class);
+		JdbcAccountRepository jdbcRepository = new JdbcAccountRepository();
+		jdbcRepository.setDataSource(context.getBean(DataSource.class));
+		if ("cached".equals(repositoryType)) {
+			repository = new CachingAccountRepository(jdbcRepository);
+		} else {
+			repository = jdbcRepository;
+		}
+		transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		transactionTemplate.setReadOnly(true);
+		creditCardNumber = TestData.creditCardFor(beneficiaryCount);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Account findByCreditCard() {
+		return transactionTemplate.execute(status -> repository.findByCreditCard(creditCardNumber));
+	}
+}
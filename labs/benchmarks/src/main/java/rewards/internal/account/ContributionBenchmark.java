@@ -0,0 +1,94 @@
+package rewards.internal.account;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rewards.AccountContribution;
+import rewards.Dining;
+import rewards.internal.restaurant.Restaurant;
+
+import common.money.Cents;
+import common.money.MonetaryAmount;
+import common.money.Percentage;
+
+/**
+ * Measures reward calculation and distribution by the account and restaurant of 28-transactions-solution, with
+ * MonetaryAmount arithmetic and with cent arithmetic as set by {@link Account#setCentArithmetic(boolean)} and
+ * {@link Restaurant#setCentArithmetic(boolean)}. Also compares multiplying a dining amount by the benefit percentage
+ * both ways on its own.
+ * <p>
+ * Run with <code>-prof gc</code> to compare the bytes allocated per operation as well as the throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContributionBenchmark {
+
+	/**
+	 * The number of beneficiaries the contribution is distributed among.
+	 */
+	@Param({ "1", "2", "4", "10" })
+	private int beneficiaryCount;
+
+	/**
+	 * Whether the account and restaurant do their arithmetic in cents.
+	 */
+	@Param({ "false", "true" })
+	private boolean centArithmetic;
+
+	private Account account;
+
+	private Restaurant restaurant;
+
+	private Dining dining;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		account = new Account("123456789", "Keith and Keri Donald");
+		account.setCentArithmetic(centArithmetic);
+		Percentage allocation = Percentage.valueOf(100 / beneficiaryCount + "%");
+		for (int i = 0; i < beneficiaryCount; i++) {
+			account.addBeneficiary("Beneficiary " + i, allocation);
+		}
+		restaurant = new Restaurant("1234567890", "AppleBee's");
+		restaurant.setBenefitPercentage(Percentage.valueOf("8%"));
+		restaurant.setBenefitAvailabilityPolicy((account, dining) -> true);
+		restaurant.setCentArithmetic(centArithmetic);
+		dining = Dining.createDining("100.25", "1234123412341234", "1234567890");
+	}
+
+	@Benchmark
+	public MonetaryAmount calculateBenefitFor() {
+		return restaurant.calculateBenefitFor(account, dining);
+	}
+
+	@Benchmark
+	public AccountContribution makeContribution() {
+		return account.makeContribution(restaurant.calculateBenefitFor(account, dining));
+	}
+
+	@Benchmark
+	public long multiplyCents() {
+		return Cents.multiplyBy(10025, restaurant.getBenefitPercentage());
+	}
+
+	@Benchmark
+	public MonetaryAmount multiplyMonetaryAmount() {
+		return dining.getAmount().multiplyBy(restaurant.getBenefitPercentage());
+	}
+}